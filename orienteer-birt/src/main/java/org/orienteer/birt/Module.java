@@ -12,6 +12,9 @@ import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.module.AbstractOrienteerModule;
 import org.orienteer.core.module.IOrienteerModule;
 import org.orienteer.core.module.OWidgetsModule;
+import org.orienteer.core.module.TaskManagerModule;
+import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskManager;
 import org.orienteer.core.util.OSchemaHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,9 +24,12 @@ import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
+import org.orienteer.birt.component.service.BirtReportDocumentCache;
+import org.orienteer.birt.component.service.BirtReportExecutionService;
 import org.orienteer.birt.component.widget.AbstractBirtWidget;
 import org.orienteer.birt.component.widget.BrowseBirtWidget;
 import org.orienteer.birt.component.widget.ODocumentBirtWidget;
+import org.orienteer.birt.task.OBirtPrerenderTask;
 
 //import org.orienteer.birt.orientdb.*;
 
@@ -40,9 +46,13 @@ public class Module extends AbstractOrienteerModule{
 	
 	
 	private IReportEngine engine;
+	
+	private BirtReportDocumentCache documentCache;
+	
+	private BirtReportExecutionService executionService;
 
 	protected Module() {
-		super(MODULE_NAME, 1,OWidgetsModule.NAME);
+		super(MODULE_NAME, 2,OWidgetsModule.NAME, TaskManagerModule.NAME);
 	}
 	
 	@Override
@@ -71,6 +81,10 @@ public class Module extends AbstractOrienteerModule{
 		helper.oClass(BrowseBirtWidget.OCLASS_NAME, AbstractBirtWidget.OCLASS_NAME).domain(OClassDomain.SYSTEM);
 		helper.oClass(ODocumentBirtWidget.OCLASS_NAME, AbstractBirtWidget.OCLASS_NAME).domain(OClassDomain.SYSTEM);
 		
+		helper.oClass(OBirtPrerenderTask.TASK_CLASS, OTask.TASK_CLASS)
+			.oProperty(OBirtPrerenderTask.Field.REPORTS.fieldName(), OType.LINKLIST, 25).linkedClass(AbstractBirtWidget.OCLASS_NAME);
+		OTask.TASK_JAVA_CLASS_ATTRIBUTE.setValue(helper.getOClass(), OBirtPrerenderTask.class.getName());
+		
 
 	}
 	
@@ -95,6 +109,8 @@ public class Module extends AbstractOrienteerModule{
 		            .createFactoryObject( IReportEngineFactory.EXTENSION_REPORT_ENGINE_FACTORY );
 		    engine = factory.createReportEngine( config );
 		    engine.changeLogLevel( Level.WARNING );
+		    documentCache = new BirtReportDocumentCache();
+		    executionService = new BirtReportExecutionService(engine, documentCache);
 		}catch( Exception ex){
 			LOG.error("Can't initialize BIRT module", ex);
 		}
@@ -107,6 +123,9 @@ public class Module extends AbstractOrienteerModule{
 		app.unregisterWidgets("org.orienteer.birt.component.widget");
 		try
 		{
+		    if(executionService!=null) executionService.close();
+		    OTaskManager.get().shutdownExecutor(BirtReportExecutionService.POOL, OTaskManager.DEFAULT_SHUTDOWN_TIMEOUT);
+		    if(documentCache!=null) documentCache.close();
 		    if(engine!=null) engine.destroy();
 		    Platform.shutdown();
 		    RegistryProviderFactory.releaseDefault();
@@ -119,4 +138,12 @@ public class Module extends AbstractOrienteerModule{
 		return engine;
 	}
 	
+	public BirtReportDocumentCache getDocumentCache() {
+		return documentCache;
+	}
+	
+	public BirtReportExecutionService getExecutionService() {
+		return executionService;
+	}
+	
 }
@@ -2,6 +2,8 @@ package org.orienteer.birt.component;
 
 import org.apache.wicket.Component;
 import org.apache.wicket.IRequestListener;
+import org.apache.wicket.ajax.AbstractAjaxTimerBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.navigation.paging.IPageable;
 import org.apache.wicket.markup.html.panel.Panel;
@@ -10,31 +12,26 @@ import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.IResource;
 import org.apache.wicket.request.resource.IResource.Attributes;
-import org.eclipse.birt.data.engine.executor.cache.Md5Util;
+import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.time.Duration;
 import org.eclipse.birt.report.engine.api.*;
-import org.eclipse.birt.report.model.api.DesignElementHandle;
-import org.eclipse.birt.report.model.api.OdaDataSourceHandle;
-import org.eclipse.birt.report.model.api.ReportDesignHandle;
-import org.eclipse.birt.report.model.api.SlotHandle;
-import org.eclipse.birt.report.model.api.activity.SemanticException;
 import org.orienteer.birt.AbstractBirtHTMLImageHandler;
 import org.orienteer.birt.BirtImage;
 import org.orienteer.birt.Module;
+import org.orienteer.birt.component.service.BirtReportDocumentCache;
+import org.orienteer.birt.component.service.BirtReportDocumentCache.CachedReportDocument;
+import org.orienteer.birt.component.service.BirtReportExecutionService;
 import org.orienteer.birt.component.service.BirtReportParameterDefinition;
 import org.orienteer.birt.component.service.IBirtReportConfig;
-import org.orienteer.birt.orientdb.impl.Connection;
-import org.orienteer.birt.orientdb.impl.Driver;
 import org.orienteer.core.OrienteerWebApplication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ru.ydn.wicket.wicketorientdb.IOrientDbSettings;
-import ru.ydn.wicket.wicketorientdb.OrientDbWebApplication;
 import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
 
 import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 //import java.io.
 
 /**
@@ -46,15 +43,16 @@ public abstract class AbstractBirtReportPanel extends Panel implements IPageable
 	private static final Logger LOG = LoggerFactory.getLogger(AbstractBirtHTMLImageHandler.class);
 	protected static final String REPORT_COMPONENT_NAME = "reportContent";
 	protected static final String RESOURCE_IMAGE_ID = "imageId";
-
-	protected static final String CACHE_EXTENCION = ".rptdocument";
-	protected static final String CACHE_FOLDER = System.getProperty("java.io.tmpdir")+"/birt_cache";//"temp/";
+	protected static final Duration POLLING_INTERVAL = Duration.seconds(1);
 	
 	private long currentPage = 0;
 	private long pagesCount = 1;
 	private IBirtReportConfig config;
 
-	private String reportHash;
+	private String documentKey;
+	private transient CompletableFuture<CachedReportDocument> execution;
+	private transient Map<IReportDocument, CachedReportDocument> openedDocuments;
+	private AbstractAjaxTimerBehavior pollingBehavior;
 	private List<BirtReportParameterDefinition> paramDefinitions;
 	private List<BirtReportParameterDefinition> hiddenParamDefinitions;
 	
@@ -71,7 +69,19 @@ public abstract class AbstractBirtReportPanel extends Panel implements IPageable
 		this.config = config;
 		paramDefinitions = new ArrayList<BirtReportParameterDefinition>();
 		hiddenParamDefinitions = new ArrayList<BirtReportParameterDefinition>();
-		reportHash = makeReportHash();
+		setOutputMarkupId(true);
+		add(pollingBehavior = new AbstractAjaxTimerBehavior(POLLING_INTERVAL) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void onTimer(AjaxRequestTarget target) {
+				if (isReportReady()){
+					stop(target);
+					onReportReady(target);
+				}
+			}
+		});
+		initParametersDefinitions(getExecutionService().getDesign(config));
 		updateReportCache();
 		
 		Component reportComponent = new Label(REPORT_COMPONENT_NAME,""); 
@@ -113,10 +123,6 @@ public abstract class AbstractBirtReportPanel extends Panel implements IPageable
 		return get(REPORT_COMPONENT_NAME);
 	}
 	
-	private String makeReportHash() {
-		return Md5Util.getMD5(""+Math.random());
-	}
-	
 	public Object getParameter(String name){
 		return config.getParameters().get(name);
 	}
@@ -127,37 +133,78 @@ public abstract class AbstractBirtReportPanel extends Panel implements IPageable
 	
 	
 	
-	private IReportDocument getReportCache(InputStream reportInputStream) throws EngineException{
-		IReportEngine engine = getReportEngine();
-		IReportRunnable design;
-		design = engine.openReportDesign(reportInputStream);
-		if (isUseLocalDB()){
-			updateDBUriToLocal(design);
+	private String makeDocumentKey() {
+		String user = config.isUserScoped()?OrientDbWebSession.get().getUsername():null;
+		return BirtReportDocumentCache.toKey(config.getDesignVersion(), config.getParameters(), user);
+	}
+	
+	private CompletableFuture<CachedReportDocument> startExecution() throws EngineException{
+		if (execution==null){
+			if (documentKey==null){
+				documentKey = makeDocumentKey();
+			}
+			BirtReportExecutionService service = getExecutionService();
+			execution = service.execute(documentKey, service.getDesign(config), config.getParameters());
 		}
-		//////////////////////////////////////////////
-		 
-		//design.getDesignInstance().getDataSource("").set
-		//getting available report parameters
-		//paramTask = engine.createGetParameterDefinitionTask(design);
-		updateParametersDefinitions(design);
-		//paramTask.getParameterDefn("my_parameter_name").getHandle().getElement().getProperty(null, "dataType").toString();
-		//paramTask.pa
-		
-		//Create task to run the report - use the task to execute the report and save to disk.
-		IRunTask runTask = engine.createRunTask(design);
-
-		runTask.setParameterValues(config.getParameters());
-		//HashMap parameters1 = runTask.getParameterValues();
-		runTask.run(getReportCachePath());		
-		runTask.close();
-		IReportDocument cache = engine.openReportDocument(getReportCachePath());
-		return cache;
+		return execution;
 	}
 	
+	private CachedReportDocument getCachedDocument() throws EngineException{
+		CompletableFuture<CachedReportDocument> future = startExecution();
+		if (BirtReportExecutionService.isRejected(future)){
+			//Report should be executed again next time
+			execution = null;
+		}
+		CachedReportDocument document = BirtReportExecutionService.getResult(future);
+		if (!document.getFile().exists()){
+			//Document was evicted from the cache: execute report again
+			execution = null;
+			document = BirtReportExecutionService.getResult(startExecution());
+		}
+		pagesCount = document.getPageCount();
+		return document;
+	}
+	
+	/**
+	 * Start execution of the report for current parameters in background.
+	 * Report is not executed if there is already executed one in the cache
+	 * @throws EngineException if report design can't be opened
+	 */
 	public void updateReportCache() throws EngineException{
-		IReportDocument cache = getReportCache(getConfig().getReportDataStream());
-		pagesCount = cache.getPageCount();
-		cache.close();		
+		documentKey = makeDocumentKey();
+		execution = null;
+		startExecution();
+		if (isReportReady()){
+			pollingBehavior.stop(null);
+		}else{
+			RequestCycle requestCycle = RequestCycle.get();
+			pollingBehavior.restart(requestCycle!=null?requestCycle.find(AjaxRequestTarget.class).orElse(null):null);
+		}
+	}
+	
+	/**
+	 * @return true if execution of the report was completed: successfully or not
+	 */
+	public boolean isReportReady() {
+		try {
+			CompletableFuture<CachedReportDocument> future = startExecution();
+			if (!future.isDone()) return false;
+			if (!future.isCompletedExceptionally()){
+				pagesCount = future.join().getPageCount();
+			}
+			return true;
+		} catch (EngineException e) {
+			LOG.error("Can't start report execution", e);
+			return true;
+		}
+	}
+	
+	/**
+	 * Called once background execution of the report was completed
+	 * @param target target to add components to update
+	 */
+	protected void onReportReady(AjaxRequestTarget target) {
+		target.add(this);
 	}
 	
 	
@@ -170,32 +217,8 @@ public abstract class AbstractBirtReportPanel extends Panel implements IPageable
 	}
 	
 	
-	@SuppressWarnings("rawtypes")
-	private static void updateDBUriToLocal(IReportRunnable design){
-		ReportDesignHandle handle = (ReportDesignHandle) design.getDesignHandle();
-		SlotHandle datasources = handle.getDataSources();
-		Iterator dsiterator = datasources.iterator();
-		for (;dsiterator.hasNext();) {
-			DesignElementHandle dsHandle = (DesignElementHandle) dsiterator.next();
-			if (dsHandle instanceof OdaDataSourceHandle ) {
-				OdaDataSourceHandle odash = (OdaDataSourceHandle)dsHandle;
-				if (odash.getExtensionID().equals(Driver.ODA_DATA_SOURCE_ID)){
-					try {
-						IOrientDbSettings settings = OrientDbWebApplication.get().getOrientDbSettings();
-
-						odash.setProperty(Connection.DB_URI_PROPERTY, settings.getDbType() + ":" + settings.getDbName());
-						odash.setProperty(Connection.DB_USER_PROPERTY, OrientDbWebSession.get().getUsername());
-						odash.setProperty(Connection.DB_PASSWORD_PROPERTY, OrientDbWebSession.get().getPassword());
-					} catch (SemanticException e) {
-						LOG.error("Cen't part BIRT xml file", e);
-					}
-				}
-			}
-		}		
-	}
-	
 	@SuppressWarnings("unchecked")
-	private void updateParametersDefinitions(IReportRunnable design) {
+	private void initParametersDefinitions(IReportRunnable design) {
 		IGetParameterDefinitionTask paramTask = getReportEngine().createGetParameterDefinitionTask(design);
 		
 		Set<Object> visibleParams = getConfig().getVisibleParameters();
@@ -216,24 +239,82 @@ public abstract class AbstractBirtReportPanel extends Panel implements IPageable
 	}
 	
 	
+	/**
+	 * Open executed report document: it should be closed by {@link #releaseReportCache(IReportDocument)},
+	 * so file of the document is kept in the cache while it's rendered
+	 */
 	@Override
 	public IReportDocument getReportCache() throws EngineException{
-		return getReportEngine().openReportDocument(getReportCachePath());
+		BirtReportDocumentCache documentCache = getExecutionService().getDocumentCache();
+		CachedReportDocument document = getCachedDocument();
+		if (!documentCache.retain(document)){
+			//Document was evicted right before opening: execute report again
+			LOG.debug("Cached report document was removed: retrying");
+			execution = null;
+			document = getCachedDocument();
+			if (!documentCache.retain(document)){
+				throw new IllegalStateException("Report document was removed right after execution: "+document.getPath());
+			}
+		}
+		try {
+			IReportDocument ret = getReportEngine().openReportDocument(document.getPath());
+			getOpenedDocuments().put(ret, document);
+			return ret;
+		} catch (EngineException | RuntimeException e) {
+			documentCache.release(document);
+			throw e;
+		}
 	}
 	
-	public String getReportCachePath() {
-		OrientDbWebSession session = OrientDbWebSession.get();
-		String path = CACHE_FOLDER+"/"+session.getUsername()+"/"+session.getId()+"/"+reportHash+CACHE_EXTENCION;
-		return path;
+	@Override
+	public void releaseReportCache(IReportDocument document) {
+		try {
+			document.close();
+		} finally {
+			CachedReportDocument cached = getOpenedDocuments().remove(document);
+			if (cached!=null){
+				getExecutionService().getDocumentCache().release(cached);
+			}
+		}
+	}
+	
+	private synchronized Map<IReportDocument, CachedReportDocument> getOpenedDocuments() {
+		if (openedDocuments==null){
+			openedDocuments = Collections.synchronizedMap(new IdentityHashMap<>());
+		}
+		return openedDocuments;
+	}
+	
+	public String getReportCachePath() throws EngineException {
+		return getCachedDocument().getPath();
 	}
 	
 	@Override
 	public IReportEngine getReportEngine(){
-		Module module = (Module)OrienteerWebApplication.get().getModuleByName("orienteer-birt");
-		return module.getEngine();
+		return getModule().getEngine();
+	}
+	
+	protected BirtReportExecutionService getExecutionService() {
+		return getModule().getExecutionService();
+	}
+	
+	private static Module getModule() {
+		return (Module)OrienteerWebApplication.get().getModuleByName(Module.MODULE_NAME);
 	}
 	
 	private void updateReportOut() throws EngineException {
+		if (!isReportReady()){
+			get(REPORT_COMPONENT_NAME).setDefaultModelObject(
+					Strings.escapeMarkup(getString("birt.report.running", null, "Report is being prepared...")));
+			return;
+		}
+		if (BirtReportExecutionService.isRejected(startExecution())){
+			//Report will be executed again on next rendering
+			execution = null;
+			get(REPORT_COMPONENT_NAME).setDefaultModelObject(
+					Strings.escapeMarkup(getString("birt.report.busy", null, "Too many reports are being prepared: please try again later")));
+			return;
+		}
 		ByteArrayOutputStream buf = new ByteArrayOutputStream();
 		IReportDocument cache = getReportCache();
 		IRenderTask renderTask = getReportEngine().createRenderTask(cache);
@@ -248,8 +329,11 @@ public abstract class AbstractBirtReportPanel extends Panel implements IPageable
 		renderTask.setPageNumber(currentPage+1);
 		
 		//run the report
-		renderTask.render();
-		cache.close();
+		try {
+			renderTask.render();
+		} finally {
+			releaseReportCache(cache);
+		}
 		
 		Object out;
 		try {
@@ -268,6 +352,7 @@ public abstract class AbstractBirtReportPanel extends Panel implements IPageable
 			updateReportOut();
 		} catch (EngineException e) {
 			LOG.error("Can't update report output", e);
+			get(REPORT_COMPONENT_NAME).setDefaultModelObject(Strings.escapeMarkup("Report error: "+e.getMessage()));
 		}
 		super.onBeforeRender();
 	}
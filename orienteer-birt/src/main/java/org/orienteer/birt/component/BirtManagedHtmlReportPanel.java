@@ -1,5 +1,6 @@
 package org.orienteer.birt.component;
 
+import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.eclipse.birt.report.engine.api.EngineException;
 import org.orienteer.birt.component.service.IBirtReportConfig;
@@ -21,7 +22,15 @@ public class BirtManagedHtmlReportPanel extends Panel{
 	public BirtManagedHtmlReportPanel(String id,IBirtReportConfig config) throws EngineException {
 		super(id);
 		setOutputMarkupPlaceholderTag(true);
-		final BirtHtmlReportPanel birtPanel = new BirtHtmlReportPanel(REPORT_PANEL_NAME,config);
+		final BirtHtmlReportPanel birtPanel = new BirtHtmlReportPanel(REPORT_PANEL_NAME,config) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void onReportReady(AjaxRequestTarget target) {
+				//Number of pages is known only after execution: paginator should be updated as well
+				target.add(BirtManagedHtmlReportPanel.this);
+			}
+		};
 		birtPanel.setOutputMarkupId(true);
 		add(birtPanel,
 			new BirtManagementPanel(MANAGEMENT_PANEL_NAME,birtPanel));
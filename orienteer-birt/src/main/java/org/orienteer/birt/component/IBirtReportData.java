@@ -11,6 +11,13 @@ import org.eclipse.birt.report.engine.api.IReportEngine;
  */
 public interface IBirtReportData {
 	public IReportDocument getReportCache() throws EngineException;
+	/**
+	 * Close report document returned by {@link #getReportCache()}
+	 * @param document report document to close
+	 */
+	public default void releaseReportCache(IReportDocument document) {
+		document.close();
+	}
 	public IReportEngine getReportEngine();
 	public IHTMLImageHandler getIHTMLImageHandler();
 	public String getOutName();
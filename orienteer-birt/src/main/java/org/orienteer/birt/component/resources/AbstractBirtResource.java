@@ -2,6 +2,7 @@ package org.orienteer.birt.component.resources;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.wicket.request.resource.AbstractResource;
 import org.eclipse.birt.report.engine.api.EngineException;
 import org.eclipse.birt.report.engine.api.IRenderOption;
@@ -29,6 +30,18 @@ public abstract class AbstractBirtResource extends AbstractResource {
 	@Override
 	protected ResourceResponse newResourceResponse(Attributes attributes) {
 	    final ResourceResponse resourceResponse = new ResourceResponse();
+	    final IReportDocument cache;
+	    try {
+			//Document is taken from the report documents cache: report is executed only if required
+			cache = reportData.getReportCache();
+		} catch (RejectedExecutionException e) {
+			resourceResponse.setError(503, "Too many reports are being prepared: please try again later");
+			return resourceResponse;
+		} catch (EngineException e) {
+			LOG.error("BIRT report generation failed", e);
+			resourceResponse.setError(500, e.getMessage());
+			return resourceResponse;
+		}
 	    setResourceData(resourceResponse);
 	    
 	    resourceResponse.setWriteCallback(new WriteCallback()
@@ -36,18 +49,18 @@ public abstract class AbstractBirtResource extends AbstractResource {
 	      @Override
 	      public void writeData(Attributes attributes) throws  IOException
 	      {
-	  		IReportDocument cache;
 			try {
-				cache = reportData.getReportCache();
 				IRenderTask renderTask = reportData.getReportEngine().createRenderTask(cache);
 				
 		        OutputStream outputStream = attributes.getResponse().getOutputStream();
 				renderTask.setRenderOption(getRenderOptions(outputStream));
 				//run the report
 				renderTask.render();
-				cache.close();	        
+				renderTask.close();
 			} catch (EngineException e) {
 				LOG.error("BIRT report generation failed", e);
+			} finally {
+				reportData.releaseReportCache(cache);
 			}
 	      }
 	    });
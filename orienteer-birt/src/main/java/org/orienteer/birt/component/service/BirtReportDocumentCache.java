@@ -0,0 +1,275 @@
+package org.orienteer.birt.component.service;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.orienteer.core.util.CommonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Cache of executed BIRT report documents (*.rptdocument).
+ * Documents are keyed by version of a report design and normalized values of parameters,
+ * so the same report with the same parameters is executed once and then just rendered for every viewer.
+ * Documents of reports which use local DB are additionally scoped by user, because content depends on user rights.
+ * Documents are evicted after TTL or once there are too many of them: files of evicted documents
+ * and leftovers of previous runs are removed by background cleaner.
+ * Documents opened for rendering should be retained by {@link #retain(CachedReportDocument)}:
+ * file of an evicted document is removed only once all renders released it.
+ */
+public class BirtReportDocumentCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BirtReportDocumentCache.class);
+
+	public static final String DOCUMENT_EXTENSION = ".rptdocument";
+	public static final String DEFAULT_FOLDER = System.getProperty("java.io.tmpdir")+"/birt_cache";
+	public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+	public static final int DEFAULT_MAX_DOCUMENTS = 200;
+
+	private static final long MIN_CLEANUP_PERIOD = TimeUnit.SECONDS.toMillis(10);
+	private static final long MAX_CLEANUP_PERIOD = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Executes report into a document
+	 */
+	@FunctionalInterface
+	public static interface IReportRunner {
+		/**
+		 * Execute report and save result to specified path
+		 * @param documentPath path to save report document to
+		 * @return number of pages in the document
+		 * @throws EngineException if report can't be executed
+		 */
+		public long run(String documentPath) throws EngineException;
+	}
+
+	private final File folder;
+	private final long ttl;
+	private final Cache<String, CachedReportDocument> documents;
+	private final Set<CachedReportDocument> evictedRetained = ConcurrentHashMap.newKeySet();
+	private final AtomicLong counter = new AtomicLong();
+	private final ScheduledExecutorService cleaner;
+
+	public BirtReportDocumentCache() {
+		this(new File(DEFAULT_FOLDER), DEFAULT_TTL, DEFAULT_MAX_DOCUMENTS);
+	}
+
+	public BirtReportDocumentCache(File folder, long ttl, int maxDocuments) {
+		this.folder = folder;
+		this.ttl = ttl;
+		this.documents = CacheBuilder.newBuilder()
+								.expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+								.maximumSize(maxDocuments)
+								.removalListener((RemovalListener<String, CachedReportDocument>) n -> onEviction(n.getValue()))
+								.build();
+		if(!folder.exists() && !folder.mkdirs()) {
+			LOG.warn("Can't create folder for BIRT report documents: "+folder.getAbsolutePath());
+		}
+		long period = Math.max(MIN_CLEANUP_PERIOD, Math.min(MAX_CLEANUP_PERIOD, ttl/2));
+		cleaner = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+																.setNameFormat("birt-cache-cleaner")
+																.setDaemon(true)
+																.build());
+		cleaner.scheduleWithFixedDelay(this::cleanUp, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Lookup executed document or execute report if there is no document yet.
+	 * Concurrent requests for the same key wait for a single execution
+	 * @param key key of the document: see {@link #toKey(String, Map, String)}
+	 * @param runner runner to execute report if required
+	 * @return cached report document
+	 * @throws EngineException if report can't be executed
+	 */
+	public CachedReportDocument getDocument(String key, IReportRunner runner) throws EngineException {
+		CachedReportDocument document = loadDocument(key, runner);
+		if(!document.getFile().exists()) {
+			//File was removed externally: execute report again
+			documents.asMap().remove(key, document);
+			document = loadDocument(key, runner);
+		}
+		return document;
+	}
+
+	private CachedReportDocument loadDocument(String key, IReportRunner runner) throws EngineException {
+		try {
+			return documents.get(key, () -> {
+				File file = new File(folder, CommonUtils.digest(key)+"-"+counter.incrementAndGet()+DOCUMENT_EXTENSION);
+				long pageCount = runner.run(file.getAbsolutePath());
+				return new CachedReportDocument(key, file, pageCount);
+			});
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof EngineException) throw (EngineException)cause;
+			else if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+			else throw new IllegalStateException("Can't execute BIRT report", cause);
+		}
+	}
+
+	/**
+	 * Retain document to open it: file of the document is kept till {@link #release(CachedReportDocument)}
+	 * even if the document is evicted meanwhile
+	 * @param document document to retain
+	 * @return true if document was retained or false if document was already evicted and its file was removed
+	 */
+	public boolean retain(CachedReportDocument document) {
+		synchronized (document) {
+			if(document.evicted && document.retained==0) return false;
+			document.retained++;
+			return true;
+		}
+	}
+
+	/**
+	 * Release previously retained document: file of evicted document is removed once it's not retained anymore
+	 * @param document document to release
+	 */
+	public void release(CachedReportDocument document) {
+		synchronized (document) {
+			if(document.retained>0) document.retained--;
+			if(document.evicted && document.retained==0) {
+				evictedRetained.remove(document);
+				delete(document.getFile());
+			}
+		}
+	}
+
+	private void onEviction(CachedReportDocument document) {
+		synchronized (document) {
+			document.evicted = true;
+			if(document.retained==0) delete(document.getFile());
+			else evictedRetained.add(document);
+		}
+	}
+
+	public CachedReportDocument getIfPresent(String key) {
+		return key!=null?documents.getIfPresent(key):null;
+	}
+
+	public void invalidate(String key) {
+		documents.invalidate(key);
+	}
+
+	public void clear() {
+		documents.invalidateAll();
+	}
+
+	/**
+	 * Evict expired documents and remove files which are not tracked by the cache anymore
+	 */
+	public void cleanUp() {
+		try {
+			documents.cleanUp();
+			File[] files = folder.listFiles((dir, name) -> name.endsWith(DOCUMENT_EXTENSION));
+			if(files==null) return;
+			long threshold = System.currentTimeMillis() - ttl;
+			for (File file : files) {
+				if(file.lastModified()<threshold && !isTracked(file)) delete(file);
+			}
+		} catch (Exception e) {
+			LOG.error("Can't clean up BIRT report documents", e);
+		}
+	}
+
+	private boolean isTracked(File file) {
+		for (CachedReportDocument document : documents.asMap().values()) {
+			if(document.getFile().equals(file)) return true;
+		}
+		for (CachedReportDocument document : evictedRetained) {
+			if(document.getFile().equals(file)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Stop background cleaner and remove all documents
+	 */
+	public void close() {
+		cleaner.shutdownNow();
+		clear();
+	}
+
+	private static void delete(File file) {
+		if(file.exists() && !file.delete()) {
+			LOG.debug("Can't delete BIRT report document "+file.getAbsolutePath()+": will try later");
+		}
+	}
+
+	/**
+	 * Build key for a report document
+	 * @param designVersion version of a report design: see {@link IBirtReportConfig#getDesignVersion()}
+	 * @param parameters parameters of a report
+	 * @param user user to scope document by or null if document can be shared between users
+	 * @return key for a report document
+	 */
+	public static String toKey(String designVersion, Map<String, Object> parameters, String user) {
+		StringBuilder sb = new StringBuilder(designVersion);
+		if(parameters!=null) {
+			for (Map.Entry<String, Object> entry : new TreeMap<>(parameters).entrySet()) {
+				String value = normalize(entry.getValue());
+				if(value!=null) sb.append('|').append(entry.getKey()).append('=').append(value);
+			}
+		}
+		if(user!=null) sb.append("|@").append(user);
+		return sb.toString();
+	}
+
+	private static String normalize(Object value) {
+		if(value==null) return null;
+		else if(value instanceof Object[]) return Arrays.deepToString((Object[])value);
+		else if(value.getClass().isArray()) return Arrays.deepToString(new Object[]{value});
+		else {
+			String ret = value.toString();
+			return ret.isEmpty()?null:ret;
+		}
+	}
+
+	/**
+	 * Executed report document
+	 */
+	public static final class CachedReportDocument {
+		private final String key;
+		private final File file;
+		private final long pageCount;
+		private int retained = 0;
+		private boolean evicted = false;
+
+		private CachedReportDocument(String key, File file, long pageCount) {
+			this.key = key;
+			this.file = file;
+			this.pageCount = pageCount;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		public String getPath() {
+			return file.getAbsolutePath();
+		}
+
+		public long getPageCount() {
+			return pageCount;
+		}
+	}
+}
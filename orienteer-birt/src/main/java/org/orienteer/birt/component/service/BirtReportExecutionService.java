@@ -0,0 +1,259 @@
+package org.orienteer.birt.component.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.api.IReportDocument;
+import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.IReportRunnable;
+import org.eclipse.birt.report.engine.api.IRunTask;
+import org.eclipse.birt.report.model.api.DesignElementHandle;
+import org.eclipse.birt.report.model.api.OdaDataSourceHandle;
+import org.eclipse.birt.report.model.api.ReportDesignHandle;
+import org.eclipse.birt.report.model.api.activity.SemanticException;
+import org.orienteer.birt.component.service.BirtReportDocumentCache.CachedReportDocument;
+import org.orienteer.birt.orientdb.impl.Connection;
+import org.orienteer.birt.orientdb.impl.Driver;
+import org.orienteer.core.tasks.OTaskManager;
+import org.orienteer.core.util.CommonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import ru.ydn.wicket.wicketorientdb.IOrientDbSettings;
+import ru.ydn.wicket.wicketorientdb.OrientDbWebApplication;
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+
+/**
+ * Service to execute BIRT reports in background.
+ * Opened report designs are cached per design version, so design is parsed once and then shared by all run tasks.
+ * Reports are executed on pool {@link #POOL} of {@link OTaskManager} into {@link BirtReportDocumentCache}:
+ * concurrent requests for the same report document are served by a single execution.
+ * If queue of the pool is full, execution is rejected rather than run in the calling thread: see {@link #isRejected(CompletableFuture)}
+ */
+public class BirtReportExecutionService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BirtReportExecutionService.class);
+
+	public static final String POOL = "birt";
+	public static final int DEFAULT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	public static final int DEFAULT_QUEUE_SIZE = 100;
+	public static final int DEFAULT_MAX_DESIGNS = 100;
+
+	private final IReportEngine engine;
+	private final BirtReportDocumentCache documentCache;
+	private final Cache<String, IReportRunnable> designs;
+	private final Map<String, CompletableFuture<CachedReportDocument>> running = new ConcurrentHashMap<>();
+	private final Executor executor;
+
+	public BirtReportExecutionService(IReportEngine engine, BirtReportDocumentCache documentCache) {
+		this(engine, documentCache, 
+				OTaskManager.get().getExecutor(POOL, DEFAULT_THREADS, DEFAULT_QUEUE_SIZE, false), 
+				DEFAULT_MAX_DESIGNS);
+	}
+
+	/**
+	 * @param engine BIRT report engine
+	 * @param documentCache cache to execute documents into
+	 * @param executor executor to run reports on
+	 * @param maxDesigns max number of opened designs to keep
+	 */
+	public BirtReportExecutionService(IReportEngine engine, BirtReportDocumentCache documentCache,
+										Executor executor, int maxDesigns) {
+		this.engine = engine;
+		this.documentCache = documentCache;
+		this.designs = CacheBuilder.newBuilder().maximumSize(maxDesigns).build();
+		this.executor = executor;
+	}
+
+	public IReportEngine getEngine() {
+		return engine;
+	}
+
+	public BirtReportDocumentCache getDocumentCache() {
+		return documentCache;
+	}
+
+	/**
+	 * Lookup opened report design or open it if there is no such design in the cache yet.
+	 * Designs which use local DB are opened per user, because credentials of a user are stored in a design.
+	 * Should be called within Wicket request
+	 * @param config config of a report
+	 * @return opened report design
+	 * @throws EngineException if design can't be opened
+	 */
+	public IReportRunnable getDesign(IBirtReportConfig config) throws EngineException {
+		String key = config.getDesignVersion();
+		if(config.isUseLocalDB()) {
+			OrientDbWebSession session = OrientDbWebSession.get();
+			key += "|@"+session.getUsername()+":"+CommonUtils.digest(""+session.getPassword());
+		}
+		try {
+			return designs.get(key, () -> {
+				IReportRunnable design = engine.openReportDesign(config.getReportDataStream());
+				if(config.isUseLocalDB()) {
+					updateDBUriToLocal(design);
+				}
+				return design;
+			});
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof EngineException) throw (EngineException)cause;
+			else if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+			else throw new IllegalStateException("Can't open BIRT report design", cause);
+		}
+	}
+
+	/**
+	 * Execute report in background or take already executed document from the cache
+	 * @param key key of a report document: see {@link BirtReportDocumentCache#toKey(String, Map, String)}
+	 * @param design opened report design
+	 * @param parameters values of report parameters
+	 * @return future of a report document
+	 */
+	public CompletableFuture<CachedReportDocument> execute(String key, IReportRunnable design, Map<String, Object> parameters) {
+		CachedReportDocument cached = documentCache.getIfPresent(key);
+		if(cached!=null && cached.getFile().exists()) return CompletableFuture.completedFuture(cached);
+		CompletableFuture<CachedReportDocument> future = new CompletableFuture<>();
+		while(true) {
+			CompletableFuture<CachedReportDocument> existing = running.putIfAbsent(key, future);
+			if(existing==null) break;
+			else if(!existing.isDone()) return existing;
+			else if(running.replace(key, existing, future)) break;
+		}
+		final Map<String, Object> values = parameters!=null?new HashMap<>(parameters):new HashMap<>();
+		Runnable task = () -> {
+			try {
+				future.complete(documentCache.getDocument(key, path -> run(design, values, path)));
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			} finally {
+				running.remove(key, future);
+			}
+		};
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			LOG.warn("Too many BIRT reports are queued for execution: report '"+key+"' was rejected");
+			running.remove(key, future);
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Check that execution of a report was rejected, because there are too many reports queued already.
+	 * Such execution can be started again later
+	 * @param future future returned by {@link #execute(String, IReportRunnable, Map)}
+	 * @return true if execution was rejected
+	 */
+	public static boolean isRejected(CompletableFuture<CachedReportDocument> future) {
+		if(!future.isCompletedExceptionally()) return false;
+		try {
+			future.join();
+			return false;
+		} catch (CompletionException e) {
+			return e.getCause() instanceof RejectedExecutionException;
+		} catch (CancellationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Execute report and wait for a result
+	 * @param key key of a report document: see {@link BirtReportDocumentCache#toKey(String, Map, String)}
+	 * @param design opened report design
+	 * @param parameters values of report parameters
+	 * @return executed report document
+	 * @throws EngineException if report can't be executed
+	 */
+	public CachedReportDocument executeAndWait(String key, IReportRunnable design, Map<String, Object> parameters) throws EngineException {
+		return getResult(execute(key, design, parameters));
+	}
+
+	/**
+	 * Wait for a result of report execution
+	 * @param future future returned by {@link #execute(String, IReportRunnable, Map)}
+	 * @return executed report document
+	 * @throws EngineException if report can't be executed
+	 */
+	public static CachedReportDocument getResult(CompletableFuture<CachedReportDocument> future) throws EngineException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof EngineException) throw (EngineException)cause;
+			else if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+			else throw new IllegalStateException("Can't execute BIRT report", cause);
+		}
+	}
+
+	private long run(IReportRunnable design, Map<String, Object> parameters, String documentPath) throws EngineException {
+		IRunTask runTask = engine.createRunTask(design);
+		try {
+			runTask.setParameterValues(parameters);
+			runTask.run(documentPath);
+		} finally {
+			runTask.close();
+		}
+		IReportDocument document = engine.openReportDocument(documentPath);
+		try {
+			return document.getPageCount();
+		} finally {
+			document.close();
+		}
+	}
+
+	/**
+	 * Drop opened designs: should be called if designs were changed without change of a version
+	 */
+	public void clearDesigns() {
+		designs.invalidateAll();
+	}
+
+	/**
+	 * Cancel reports which are still executed. Pool of threads is owned by {@link OTaskManager}
+	 */
+	public void close() {
+		for(CompletableFuture<CachedReportDocument> future : running.values()) {
+			future.cancel(true);
+		}
+		running.clear();
+		designs.invalidateAll();
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static void updateDBUriToLocal(IReportRunnable design){
+		ReportDesignHandle handle = (ReportDesignHandle) design.getDesignHandle();
+		Iterator dsiterator = handle.getDataSources().iterator();
+		for (;dsiterator.hasNext();) {
+			DesignElementHandle dsHandle = (DesignElementHandle) dsiterator.next();
+			if (dsHandle instanceof OdaDataSourceHandle ) {
+				OdaDataSourceHandle odash = (OdaDataSourceHandle)dsHandle;
+				if (odash.getExtensionID().equals(Driver.ODA_DATA_SOURCE_ID)){
+					try {
+						IOrientDbSettings settings = OrientDbWebApplication.get().getOrientDbSettings();
+
+						odash.setProperty(Connection.DB_URI_PROPERTY, settings.getDbType() + ":" + settings.getDbName());
+						odash.setProperty(Connection.DB_USER_PROPERTY, OrientDbWebSession.get().getUsername());
+						odash.setProperty(Connection.DB_PASSWORD_PROPERTY, OrientDbWebSession.get().getPassword());
+					} catch (SemanticException e) {
+						LOG.error("Cen't part BIRT xml file", e);
+					}
+				}
+			}
+		}
+	}
+}
@@ -77,4 +77,10 @@ public class BirtReportFileConfig implements IBirtReportConfig {
 
 		return filename;
 	}
+	
+	@Override
+	public String getDesignVersion() {
+		File file = new File(reportFileName);
+		return file.getAbsolutePath()+":"+file.lastModified()+":"+file.length();
+	}
 }
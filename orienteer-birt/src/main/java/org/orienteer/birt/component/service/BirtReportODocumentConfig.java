@@ -10,6 +10,7 @@ import org.apache.wicket.util.string.Strings;
 import org.eclipse.birt.report.engine.api.EngineException;
 import org.orienteer.birt.component.widget.AbstractBirtWidget;
 import org.orienteer.core.component.property.BinaryEditPanel;
+import org.orienteer.core.util.CommonUtils;
 
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
@@ -81,6 +82,17 @@ public class BirtReportODocumentConfig implements IBirtReportConfig{
 		return Strings.isEmpty(filename)?"report":filename.replaceFirst("\\.[^\\.]*$", "");
 	}
 	
+	@Override
+	public String getDesignVersion() {
+		ODocument modelObject = configDocModel.getObject();
+		if (modelObject.getIdentity().isPersistent()){
+			return modelObject.getIdentity()+":"+modelObject.getVersion();
+		}
+		//Not yet saved document: version is defined by content of the design
+		byte[] reportData = modelObject.field(AbstractBirtWidget.REPORT_FIELD_NAME);
+		return "design:"+CommonUtils.digest(reportData!=null?reportData:new byte[0]);
+	}
+	
 	
 
 }
@@ -19,4 +19,16 @@ public interface IBirtReportConfig extends Serializable {
 	public Set<Object> getVisibleParameters();
 	
 	public String getOutName();
+	
+	/**
+	 * @return version of report design: should be changed once design was changed
+	 */
+	public String getDesignVersion();
+	
+	/**
+	 * @return true if executed report should not be shared between users
+	 */
+	public default boolean isUserScoped() {
+		return isUseLocalDB();
+	}
 }
@@ -0,0 +1,116 @@
+package org.orienteer.birt.task;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.orienteer.birt.Module;
+import org.orienteer.birt.component.service.BirtReportDocumentCache;
+import org.orienteer.birt.component.service.BirtReportExecutionService;
+import org.orienteer.birt.component.service.BirtReportODocumentConfig;
+import org.orienteer.birt.component.service.IBirtReportConfig;
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.core.component.BootstrapType;
+import org.orienteer.core.component.FAIconType;
+import org.orienteer.core.method.IMethodContext;
+import org.orienteer.core.method.OFilter;
+import org.orienteer.core.method.OMethod;
+import org.orienteer.core.method.filters.PlaceFilter;
+import org.orienteer.core.method.filters.WidgetTypeFilter;
+import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskSessionRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.model.ODocumentModel;
+
+/**
+ * Task to execute BIRT reports of specified widgets in advance, so users get already executed reports.
+ * Reports are executed by {@link BirtReportExecutionService}: session of the task is finished once all reports are ready.
+ * Reports which use local DB are skipped, because their documents are executed per user
+ */
+public class OBirtPrerenderTask extends OTask {
+	private static final long serialVersionUID = 1L;
+	private static final Logger LOG = LoggerFactory.getLogger(OBirtPrerenderTask.class);
+	public static final String TASK_CLASS = "OBirtPrerenderTask";
+	
+	/**
+	 * data fields
+	 */
+	public enum Field{
+		REPORTS("reports");
+		
+		private String fieldName;
+		public String fieldName(){ return fieldName;}
+		private Field(String fieldName){	this.fieldName = fieldName;}
+	}
+	///////////////////////////////////////////////////////////////////////////////////
+	//OMethods
+	@OMethod(
+			icon = FAIconType.play, bootstrap=BootstrapType.SUCCESS,titleKey="task.command.start",
+			filters={@OFilter(fClass = PlaceFilter.class, fData = "STRUCTURE_TABLE"),
+					@OFilter(fClass = WidgetTypeFilter.class, fData = "parameters"),		
+			},
+			behaviors={}
+		)
+	public void startNewSession( IMethodContext data){
+		startNewSession();
+	}
+	///////////////////////////////////////////////////////////////////////////////////
+	
+	public OBirtPrerenderTask(ODocument oTask) {
+		super(oTask);
+	}
+
+	@Override
+	public OTaskSessionRuntime startNewSession() {
+		final OTaskSessionRuntime otaskSession = new OTaskSessionRuntime();
+		otaskSession.setDeleteOnFinish(isAutodeleteSessions());
+		otaskSession.setOTask(this);
+		otaskSession.start();
+		
+		List<OIdentifiable> reports = getDocument().field(Field.REPORTS.fieldName());
+		if (reports==null || reports.isEmpty()){
+			otaskSession.finish();
+			return otaskSession;
+		}
+		otaskSession.setFinalProgress(reports.size());
+		
+		BirtReportExecutionService service = getExecutionService();
+		AtomicInteger remaining = new AtomicInteger(reports.size());
+		for (OIdentifiable report : reports) {
+			CompletableFuture<?> future = CompletableFuture.completedFuture(null);
+			try {
+				IBirtReportConfig config = new BirtReportODocumentConfig(new ODocumentModel(report.getIdentity()), null);
+				if (config.isUserScoped()){
+					LOG.warn("Report "+report.getIdentity()+" uses local DB and can't be executed in advance");
+				}else{
+					String key = BirtReportDocumentCache.toKey(config.getDesignVersion(), config.getParameters(), null);
+					future = service.execute(key, service.getDesign(config), config.getParameters());
+				}
+			} catch (EngineException e) {
+				LOG.error("Can't execute report "+report.getIdentity(), e);
+			}
+			future.whenComplete((result, error) -> {
+				if (error!=null){
+					LOG.error("Can't execute report "+report.getIdentity(), error);
+				}
+				otaskSession.incrementCurrentProgress();
+				if (remaining.decrementAndGet()==0){
+					otaskSession.finish();
+				}
+			});
+		}
+		return otaskSession;
+	}
+	
+	private static BirtReportExecutionService getExecutionService() {
+		Module module = (Module)OrienteerWebApplication.lookupApplication().getModuleByName(Module.MODULE_NAME);
+		return module.getExecutionService();
+	}
+	
+}
@@ -0,0 +1,4 @@
+/**
+ * Tasks of 'orienteer-birt' module
+ */
+package org.orienteer.birt.task;
\ No newline at end of file
@@ -0,0 +1,177 @@
+package org.orienteer.birt.component.service;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.orienteer.birt.component.service.BirtReportDocumentCache.CachedReportDocument;
+import org.orienteer.birt.component.service.BirtReportDocumentCache.IReportRunner;
+
+public class BirtReportDocumentCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private BirtReportDocumentCache cache;
+	private AtomicInteger runs;
+	private IReportRunner runner;
+
+	@Before
+	public void init() {
+		cache = new BirtReportDocumentCache(folder.getRoot(), TimeUnit.HOURS.toMillis(1), 10);
+		runs = new AtomicInteger();
+		runner = path -> {
+			runs.incrementAndGet();
+			try {
+				Files.write(new File(path).toPath(), new byte[]{1});
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			return 3;
+		};
+	}
+
+	@After
+	public void destroy() {
+		cache.close();
+	}
+
+	@Test
+	public void testKeyNormalization() {
+		Map<String, Object> first = new LinkedHashMap<>();
+		first.put("b", 2);
+		first.put("a", "x");
+		Map<String, Object> second = new LinkedHashMap<>();
+		second.put("a", "x");
+		second.put("b", 2);
+		second.put("empty", "");
+		second.put("null", null);
+		assertEquals("v1|a=x|b=2", BirtReportDocumentCache.toKey("v1", first, null));
+		assertEquals(BirtReportDocumentCache.toKey("v1", first, null), BirtReportDocumentCache.toKey("v1", second, null));
+		assertNotEquals(BirtReportDocumentCache.toKey("v1", first, null), BirtReportDocumentCache.toKey("v2", first, null));
+		assertEquals("v1", BirtReportDocumentCache.toKey("v1", null, null));
+		assertEquals("v1", BirtReportDocumentCache.toKey("v1", Collections.emptyMap(), null));
+
+		assertEquals("v1|a=[1, 2]", BirtReportDocumentCache.toKey("v1", Collections.singletonMap("a", new Object[]{1, 2}), null));
+		assertEquals("v1|a=[[1, 2]]", BirtReportDocumentCache.toKey("v1", Collections.singletonMap("a", new int[]{1, 2}), null));
+
+		assertEquals("v1|a=x|b=2|@admin", BirtReportDocumentCache.toKey("v1", first, "admin"));
+		assertNotEquals(BirtReportDocumentCache.toKey("v1", first, "admin"), BirtReportDocumentCache.toKey("v1", first, "reader"));
+	}
+
+	@Test
+	public void testDocumentIsExecutedOnce() throws EngineException {
+		String key = BirtReportDocumentCache.toKey("v1", new HashMap<>(), null);
+		CachedReportDocument document = cache.getDocument(key, runner);
+		assertEquals(key, document.getKey());
+		assertEquals(3, document.getPageCount());
+		assertTrue(document.getFile().exists());
+		assertTrue(document.getPath().endsWith(BirtReportDocumentCache.DOCUMENT_EXTENSION));
+		assertSame(document, cache.getDocument(key, runner));
+		assertSame(document, cache.getIfPresent(key));
+		assertEquals(1, runs.get());
+
+		assertTrue(document.getFile().delete());
+		CachedReportDocument reexecuted = cache.getDocument(key, runner);
+		assertNotSame(document, reexecuted);
+		assertTrue(reexecuted.getFile().exists());
+		assertEquals(2, runs.get());
+	}
+
+	@Test
+	public void testFilesAreRemovedOnInvalidation() throws EngineException {
+		CachedReportDocument first = cache.getDocument("first", runner);
+		CachedReportDocument second = cache.getDocument("second", runner);
+		cache.invalidate("first");
+		assertNull(cache.getIfPresent("first"));
+		assertFalse(first.getFile().exists());
+		assertTrue(second.getFile().exists());
+		cache.clear();
+		assertFalse(second.getFile().exists());
+	}
+
+	@Test
+	public void testRetainedDocumentIsRemovedOnRelease() throws Exception {
+		CachedReportDocument document = cache.getDocument("retained", runner);
+		assertTrue(cache.retain(document));
+		assertTrue(cache.retain(document));
+		cache.invalidate("retained");
+		assertNull(cache.getIfPresent("retained"));
+		assertTrue("Evicted document is still rendered", document.getFile().exists());
+
+		assertTrue(document.getFile().setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+		cache.cleanUp();
+		assertTrue("Evicted document is still rendered", document.getFile().exists());
+
+		cache.release(document);
+		assertTrue(document.getFile().exists());
+		cache.release(document);
+		assertFalse(document.getFile().exists());
+		assertFalse("Removed document can't be retained", cache.retain(document));
+
+		CachedReportDocument other = cache.getDocument("other", runner);
+		assertTrue(cache.retain(other));
+		cache.release(other);
+		assertTrue("Document in the cache is kept after release", other.getFile().exists());
+	}
+
+	@Test
+	public void testCleanUpRemovesUntrackedFiles() throws Exception {
+		CachedReportDocument tracked = cache.getDocument("tracked", runner);
+		File untracked = folder.newFile("untracked"+BirtReportDocumentCache.DOCUMENT_EXTENSION);
+		File recent = folder.newFile("recent"+BirtReportDocumentCache.DOCUMENT_EXTENSION);
+		File other = folder.newFile("other.txt");
+		long old = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2);
+		assertTrue(untracked.setLastModified(old));
+		assertTrue(tracked.getFile().setLastModified(old));
+		assertTrue(other.setLastModified(old));
+
+		cache.cleanUp();
+		assertFalse(untracked.exists());
+		assertTrue(recent.exists());
+		assertTrue(other.exists());
+		assertTrue(tracked.getFile().exists());
+		assertSame(tracked, cache.getIfPresent("tracked"));
+	}
+
+	@Test
+	public void testExpiredDocumentsAreRemoved() throws Exception {
+		BirtReportDocumentCache shortCache = new BirtReportDocumentCache(folder.newFolder("short"), 50, 10);
+		try {
+			CachedReportDocument document = shortCache.getDocument("expiring", runner);
+			assertTrue(document.getFile().exists());
+			Thread.sleep(100);
+			shortCache.cleanUp();
+			assertNull(shortCache.getIfPresent("expiring"));
+			assertFalse(document.getFile().exists());
+		} finally {
+			shortCache.close();
+		}
+	}
+
+	@Test
+	public void testMaxDocuments() throws EngineException {
+		CachedReportDocument first = cache.getDocument("0", runner);
+		for(int i=1; i<20; i++) {
+			cache.getDocument(""+i, runner);
+		}
+		assertNull(cache.getIfPresent("0"));
+		assertFalse(first.getFile().exists());
+		File[] files = folder.getRoot().listFiles((dir, name) -> name.endsWith(BirtReportDocumentCache.DOCUMENT_EXTENSION));
+		assertTrue(files.length<=10);
+	}
+}
@@ -0,0 +1,240 @@
+package org.orienteer.birt.component.service;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.api.IReportDocument;
+import org.eclipse.birt.report.engine.api.IReportEngine;
+import org.eclipse.birt.report.engine.api.IReportRunnable;
+import org.eclipse.birt.report.engine.api.IRunTask;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.orienteer.birt.component.service.BirtReportDocumentCache.CachedReportDocument;
+
+public class BirtReportExecutionServiceTest {
+
+	private static final long PAGES = 5;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final AtomicInteger designsOpened = new AtomicInteger();
+	private final AtomicInteger runs = new AtomicInteger();
+	private final AtomicReference<Map<?, ?>> lastParameters = new AtomicReference<>();
+	private volatile RuntimeException failure;
+
+	private final Queue<Runnable> queued = new ArrayDeque<>();
+	private BirtReportDocumentCache documentCache;
+	private IReportRunnable design;
+
+	@Before
+	public void init() {
+		documentCache = new BirtReportDocumentCache(folder.getRoot(), TimeUnit.HOURS.toMillis(1), 10);
+		design = proxy(IReportRunnable.class, (p, method, args) -> null);
+	}
+
+	@After
+	public void destroy() {
+		documentCache.close();
+	}
+
+	@Test
+	public void testExecuteAndCache() throws EngineException {
+		BirtReportExecutionService service = newService(Runnable::run);
+		CachedReportDocument document = service.executeAndWait("key", design, Collections.singletonMap("a", 1));
+		assertEquals(PAGES, document.getPageCount());
+		assertTrue(document.getFile().exists());
+		assertEquals(Collections.singletonMap("a", 1), lastParameters.get());
+		assertEquals(1, runs.get());
+
+		CompletableFuture<CachedReportDocument> cached = service.execute("key", design, null);
+		assertTrue(cached.isDone());
+		assertSame(document, cached.join());
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	public void testConcurrentRequestsShareExecution() throws EngineException {
+		BirtReportExecutionService service = newService(queued::add);
+		CompletableFuture<CachedReportDocument> first = service.execute("key", design, null);
+		CompletableFuture<CachedReportDocument> second = service.execute("key", design, null);
+		CompletableFuture<CachedReportDocument> other = service.execute("other", design, null);
+		assertSame(first, second);
+		assertNotSame(first, other);
+		assertEquals(2, queued.size());
+		assertFalse(first.isDone());
+
+		runQueued();
+		assertEquals(2, runs.get());
+		assertSame(BirtReportExecutionService.getResult(first), BirtReportExecutionService.getResult(second));
+		assertNotSame(first.join(), other.join());
+	}
+
+	@Test
+	public void testRejectedExecutionIsNotRunInCallingThread() {
+		AtomicBoolean saturated = new AtomicBoolean(true);
+		BirtReportExecutionService service = newService(task -> {
+			if(saturated.get()) throw new RejectedExecutionException("saturated");
+			task.run();
+		});
+		CompletableFuture<CachedReportDocument> future = service.execute("key", design, null);
+		assertTrue(future.isDone());
+		assertTrue(BirtReportExecutionService.isRejected(future));
+		assertEquals(0, runs.get());
+
+		saturated.set(false);
+		CompletableFuture<CachedReportDocument> next = service.execute("key", design, null);
+		assertFalse(BirtReportExecutionService.isRejected(next));
+		assertEquals(PAGES, next.join().getPageCount());
+	}
+
+	@Test
+	public void testFailureIsPropagated() throws EngineException {
+		BirtReportExecutionService service = newService(Runnable::run);
+		failure = new IllegalStateException("Report failed");
+		try {
+			service.executeAndWait("key", design, null);
+			fail("Failure of report execution should be propagated");
+		} catch (IllegalStateException e) {
+			assertSame(failure, e);
+		}
+		assertNull(documentCache.getIfPresent("key"));
+
+		failure = null;
+		assertEquals(PAGES, service.executeAndWait("key", design, null).getPageCount());
+	}
+
+	@Test
+	public void testCloseCancelsRunningReports() {
+		BirtReportExecutionService service = newService(queued::add);
+		CompletableFuture<CachedReportDocument> future = service.execute("key", design, null);
+		service.close();
+		assertTrue(future.isCancelled());
+
+		CompletableFuture<CachedReportDocument> next = service.execute("key", design, null);
+		assertNotSame(future, next);
+		runQueued();
+		assertEquals(PAGES, next.join().getPageCount());
+	}
+
+	@Test
+	public void testDesignsAreOpenedOnce() throws EngineException {
+		BirtReportExecutionService service = newService(Runnable::run);
+		IBirtReportConfig v1 = new TestConfig("v1");
+		IReportRunnable opened = service.getDesign(v1);
+		assertSame(opened, service.getDesign(v1));
+		assertEquals(1, designsOpened.get());
+
+		assertNotSame(opened, service.getDesign(new TestConfig("v2")));
+		assertEquals(2, designsOpened.get());
+
+		service.clearDesigns();
+		service.getDesign(v1);
+		assertEquals(3, designsOpened.get());
+	}
+
+	private void runQueued() {
+		Runnable task;
+		while((task = queued.poll())!=null) task.run();
+	}
+
+	private BirtReportExecutionService newService(Executor executor) {
+		IReportEngine engine = proxy(IReportEngine.class, (p, method, args) -> {
+			switch (method.getName()) {
+				case "openReportDesign":
+					designsOpened.incrementAndGet();
+					return proxy(IReportRunnable.class, (d, m, a) -> null);
+				case "createRunTask":
+					return newRunTask();
+				case "openReportDocument":
+					return proxy(IReportDocument.class, (d, m, a) -> "getPageCount".equals(m.getName())?PAGES:null);
+				default:
+					return null;
+			}
+		});
+		return new BirtReportExecutionService(engine, documentCache, executor, 10);
+	}
+
+	private IRunTask newRunTask() {
+		return proxy(IRunTask.class, (p, method, args) -> {
+			switch (method.getName()) {
+				case "setParameterValues":
+					lastParameters.set((Map<?, ?>) args[0]);
+					return null;
+				case "run":
+					if(failure!=null) throw failure;
+					runs.incrementAndGet();
+					Files.write(new File((String) args[0]).toPath(), new byte[]{1});
+					return null;
+				default:
+					return null;
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+	}
+
+	private static class TestConfig implements IBirtReportConfig {
+		private static final long serialVersionUID = 1L;
+		private final String version;
+
+		private TestConfig(String version) {
+			this.version = version;
+		}
+
+		@Override
+		public InputStream getReportDataStream() {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public Map<String, Object> getParameters() {
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public boolean isUseLocalDB() {
+			return false;
+		}
+
+		@Override
+		public Set<Object> getVisibleParameters() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public String getOutName() {
+			return version;
+		}
+
+		@Override
+		public String getDesignVersion() {
+			return version;
+		}
+	}
+}
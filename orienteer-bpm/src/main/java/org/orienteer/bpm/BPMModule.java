@@ -8,9 +8,11 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.camunda.bpm.application.ProcessApplicationReference;
 import org.camunda.bpm.application.ProcessApplicationUnavailableException;
 import org.orienteer.bpm.camunda.BpmnHook;
+import org.orienteer.bpm.camunda.OEntityCache;
 import org.orienteer.bpm.camunda.OProcessApplication;
 import org.orienteer.bpm.camunda.handler.HandlersManager;
 import org.orienteer.bpm.camunda.handler.IEntityHandler;
+import org.orienteer.bpm.camunda.handler.JobEntityHandler;
 import org.orienteer.core.CustomAttribute;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.module.AbstractOrienteerModule;
@@ -33,7 +35,7 @@ public class BPMModule extends AbstractOrienteerModule{
 	private ProcessApplicationReference processApplicationReference;
 	
 	protected BPMModule() {
-		super("bpm", 2, "devutils");
+		super("bpm", 3, "devutils");
 	}
 	
 	@Override
@@ -45,6 +47,10 @@ public class BPMModule extends AbstractOrienteerModule{
 			  		.updateCustomAttribute(CustomAttribute.UI_READONLY, true)
 			  		.oIndex(INDEX_TYPE.UNIQUE);
 		HandlersManager.get().applySchema(helper);
+		//Indexes for acquisition of jobs by job executor
+		helper.oClass(JobEntityHandler.OCLASS_NAME)
+				.oIndex(JobEntityHandler.ACQUISITION_INDEX, INDEX_TYPE.NOTUNIQUE, "suspensionState", "duedate")
+				.oIndex(JobEntityHandler.LOCK_EXPIRATION_INDEX, INDEX_TYPE.NOTUNIQUE, "lockExpirationTime");
 		return null;
 	}
 	
@@ -72,6 +78,7 @@ public class BPMModule extends AbstractOrienteerModule{
 		app.unregisterWidgets("org.orienteer.bpm.component.widget");
 		app.unmountPackage("org.orienteer.bpm.web");
 		app.getOrientDbSettings().removeORecordHooks(BpmnHook.class);
+		OEntityCache.get().clear();
 
 		if (processApplicationReference != null) {
 			undeployApplication(processApplicationReference);
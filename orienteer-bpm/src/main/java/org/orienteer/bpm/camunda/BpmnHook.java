@@ -45,12 +45,37 @@ public class BpmnHook implements ORecordHook {
                     res = RESULT.RECORD_CHANGED;
                 }
             }
+            invalidateCache(iType, oClass, doc);
             RESULT handlerRes = HandlersManager.get().onTrigger(database, doc, iType);
             res = (handlerRes == RESULT.RECORD_NOT_CHANGED || handlerRes == null) ? res : handlerRes;
         }
         return res;
     }
 
+    /**
+     * Invalidate {@link OEntityCache} for changed document, if its handler is cacheable.
+     * Invalidation is repeated after commit of transaction to drop state cached concurrently before commit
+     */
+    private void invalidateCache(TYPE iType, OClass oClass, ODocument doc) {
+        IEntityHandler<?> handler = HandlersManager.get().getHandlerBySchemaClass(oClass);
+        if (handler == null || !handler.isCacheable()) return;
+        switch (iType) {
+            case AFTER_CREATE:
+            case AFTER_UPDATE:
+            case AFTER_DELETE:
+            case FINALIZE_CREATION:
+            case FINALIZE_UPDATE:
+            case FINALIZE_DELETION:
+            case CREATE_REPLICATED:
+            case UPDATE_REPLICATED:
+            case DELETE_REPLICATED:
+                OEntityCache.get().invalidate(oClass.getName(), doc.field("id"));
+                break;
+            default:
+                break;
+        }
+    }
+
     public static String getNextId() {
         return ((OProcessEngineConfiguration) BpmPlatform.getDefaultProcessEngine()
                 .getProcessEngineConfiguration()).getIdGenerator().getNextId();
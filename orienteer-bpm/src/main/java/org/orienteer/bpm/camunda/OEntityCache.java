@@ -0,0 +1,206 @@
+package org.orienteer.bpm.camunda;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.orientechnologies.orient.core.id.ORID;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JVM-wide cache of BPM entities which are not changed after deployment: definitions, deployments, resources.
+ * Cache keeps state of entities loaded from DB, so every session gets own instance of an entity without querying DB.
+ * Entries are invalidated by {@link BpmnHook} once corresponding documents were changed.
+ * To not cache a state which was read before concurrent invalidation, readers take {@link #stamp()} before read
+ * and state is put only if its class was not invalidated after the stamp. Entries also expire after write.
+ * Keys of statements' results contain generation of a class: so invalidation of the class just makes them unreachable
+ */
+public final class OEntityCache {
+
+	public static final long DEFAULT_MAX_WEIGHT = 32 * 1024 * 1024;
+	public static final long DEFAULT_EXPIRE_AFTER_WRITE_MINUTES = 60;
+
+	private static final int ENTRY_OVERHEAD = 256;
+
+	private static final OEntityCache INSTANCE = new OEntityCache(DEFAULT_MAX_WEIGHT);
+
+	private final Cache<String, CachedEntity> entities;
+	private final Cache<String, String> statements;
+	private final AtomicLong clock = new AtomicLong();
+	private final Map<String, Long> invalidated = new ConcurrentHashMap<>();
+
+	public OEntityCache(long maxWeight) {
+		this(maxWeight, DEFAULT_EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES);
+	}
+
+	public OEntityCache(long maxWeight, long expireAfterWrite, TimeUnit unit) {
+		entities = CacheBuilder.newBuilder()
+							.maximumWeight(maxWeight)
+							.weigher((String key, CachedEntity value) -> value.getWeight())
+							.expireAfterWrite(expireAfterWrite, unit)
+							.build();
+		statements = CacheBuilder.newBuilder()
+							.maximumSize(maxWeight / ENTRY_OVERHEAD)
+							.expireAfterWrite(expireAfterWrite, unit)
+							.build();
+	}
+
+	public static OEntityCache get() {
+		return INSTANCE;
+	}
+
+	public CachedEntity getEntity(String schemaClass, String id) {
+		return id!=null?entities.getIfPresent(schemaClass+":"+id):null;
+	}
+
+	/**
+	 * @return current stamp of the cache: should be taken before read of data to be cached
+	 */
+	public long stamp() {
+		return clock.get();
+	}
+
+	/**
+	 * Put state of an entity, if entities of the class were not invalidated after the stamp
+	 * @param schemaClass schema class of an entity
+	 * @param entity state of an entity
+	 * @param stamp stamp taken by {@link #stamp()} before the state was read
+	 * @return true if state was put to the cache
+	 */
+	public boolean putEntity(String schemaClass, CachedEntity entity, long stamp) {
+		if(!isValid(schemaClass, stamp)) return false;
+		String key = schemaClass+":"+entity.getId();
+		entities.put(key, entity);
+		if(isValid(schemaClass, stamp)) return true;
+		entities.asMap().remove(key, entity);
+		return false;
+	}
+
+	/**
+	 * Lookup id of an entity previously returned by a statement
+	 * @param schemaClass schema class of a handler of the statement
+	 * @param statementKey key of the statement: see {@link #toStatementKey(String, Object)}
+	 * @return id of an entity or null
+	 */
+	public String getStatementResult(String schemaClass, String statementKey) {
+		return statementKey!=null?statements.getIfPresent(toKey(schemaClass, statementKey)):null;
+	}
+
+	/**
+	 * Put id of an entity returned by a statement, if entities of the class were not invalidated after the stamp
+	 * @param schemaClass schema class of a handler of the statement
+	 * @param statementKey key of the statement: see {@link #toStatementKey(String, Object)}
+	 * @param id id of an entity
+	 * @param stamp stamp taken by {@link #stamp()} before the statement was executed
+	 * @return true if result was put to the cache
+	 */
+	public boolean putStatementResult(String schemaClass, String statementKey, String id, long stamp) {
+		if(statementKey==null || id==null || !isValid(schemaClass, stamp)) return false;
+		String key = toKey(schemaClass, statementKey);
+		statements.put(key, id);
+		if(isValid(schemaClass, stamp)) return true;
+		statements.asMap().remove(key, id);
+		return false;
+	}
+
+	private String toKey(String schemaClass, String statementKey) {
+		return schemaClass+"|"+invalidated.getOrDefault(schemaClass, -1L)+"|"+statementKey;
+	}
+
+	private boolean isValid(String schemaClass, long stamp) {
+		return stamp>=0 && invalidated.getOrDefault(schemaClass, -1L)<stamp;
+	}
+
+	/**
+	 * Invalidate cached data of a document.
+	 * Results of statements are invalidated for the whole class, because new or changed document might change them:
+	 * generation of the class is changed and stale results are evicted later by size or expiration
+	 * @param schemaClass schema class of a document
+	 * @param id id of a document
+	 */
+	public void invalidate(String schemaClass, String id) {
+		invalidated.merge(schemaClass, clock.getAndIncrement(), Math::max);
+		if(id!=null) entities.invalidate(schemaClass+":"+id);
+	}
+
+	public void clear() {
+		entities.invalidateAll();
+		statements.invalidateAll();
+	}
+
+	/**
+	 * Build key for a statement
+	 * @param statement name of a statement
+	 * @param parameter parameter of a statement
+	 * @return key of the statement or null if results for such parameter can't be cached
+	 */
+	@SuppressWarnings("unchecked")
+	public static String toStatementKey(String statement, Object parameter) {
+		if(parameter instanceof String) return statement+"|"+parameter;
+		else if(parameter instanceof Map) {
+			try {
+				return statement+"|"+new TreeMap<>((Map<String, ?>)parameter);
+			} catch (ClassCastException e) {
+				return null;
+			}
+		}
+		else return null;
+	}
+
+	/**
+	 * State of a single entity as it was loaded from DB
+	 */
+	public static final class CachedEntity {
+		private final String id;
+		private final ORID identity;
+		private final int version;
+		private final Object plan;
+		private final Object[] values;
+		private final int weight;
+
+		public CachedEntity(String id, ORID identity, int version, Object plan, Object[] values) {
+			this.id = id;
+			this.identity = identity;
+			this.version = version;
+			this.plan = plan;
+			this.values = values;
+			int weight = ENTRY_OVERHEAD;
+			for(Object value : values) {
+				if(value instanceof byte[]) weight+=((byte[])value).length;
+				else if(value instanceof String) weight+=((String)value).length()*2;
+			}
+			this.weight = weight;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public ORID getIdentity() {
+			return identity;
+		}
+
+		public int getVersion() {
+			return version;
+		}
+
+		/**
+		 * @return mapping plan which was used to collect values
+		 */
+		public Object getPlan() {
+			return plan;
+		}
+
+		public Object[] getValues() {
+			return values;
+		}
+
+		public int getWeight() {
+			return weight;
+		}
+	}
+
+}
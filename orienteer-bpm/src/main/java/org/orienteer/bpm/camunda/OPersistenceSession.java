@@ -1,18 +1,20 @@
 package org.orienteer.bpm.camunda;
 
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import com.orientechnologies.orient.core.db.ODatabaseSession;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OConcurrentModificationException;
+import com.orientechnologies.orient.core.exception.ORecordNotFoundException;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OSchema;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.camunda.bpm.engine.OptimisticLockingException;
 import org.camunda.bpm.engine.impl.db.AbstractPersistenceSession;
 import org.camunda.bpm.engine.impl.db.DbEntity;
 import org.camunda.bpm.engine.impl.db.PersistenceSession;
 import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbBulkOperation;
 import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbEntityOperation;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbOperation;
 import org.orienteer.bpm.camunda.handler.HandlersManager;
 import org.orienteer.bpm.camunda.handler.IEntityHandler;
 import org.slf4j.Logger;
@@ -24,7 +26,9 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * OrientDB enalbes {@link PersistenceSession} 
+ * OrientDB enalbes {@link PersistenceSession}.
+ * {@link DbOperation}s are executed immediately as Camunda provides them, but within single OrientDB transaction
+ * which is committed together with Camunda transaction, so all operations of a flush are stored at once.
  */
 public class OPersistenceSession extends AbstractPersistenceSession {
 	
@@ -32,9 +36,13 @@ public class OPersistenceSession extends AbstractPersistenceSession {
 	
 	private ODatabaseSession db;
 	
-	private BiMap<String, OIdentifiable> idToOIdentifiableCache = HashBiMap.create(10);
+	private Map<String, OIdentifiable> idToOIdentifiableCache = new HashMap<>();
 	private Map<String, DbEntity> entitiesCache = new HashMap<>();
 	
+	private boolean flushTransaction = false;
+	
+	private long cacheStamp = -1;
+	
 	public OPersistenceSession(ODatabaseSession db) {
 		this.db = db;
 	}
@@ -66,8 +74,37 @@ public class OPersistenceSession extends AbstractPersistenceSession {
 	
 	public void cacheODocument(ODocument doc) {
 		ORID orid = doc.getIdentity();
-//		idToOIdentifiableCache.put((String) doc.field("id"), orid.isPersistent()?orid:doc);
-		idToOIdentifiableCache.put((String) doc.field("id"), orid);
+		idToOIdentifiableCache.put((String) doc.field("id"), orid.isPersistent()?orid:doc);
+	}
+	
+	/**
+	 * Notify about entity restored from {@link OEntityCache}
+	 * @param oid id of an entity stored in DB
+	 * @param identity identity of a document of the entity
+	 * @param object restored entity
+	 */
+	public void fireEntityLoaded(String oid, ORID identity, Object object) {
+		super.fireEntityLoaded(object);
+		idToOIdentifiableCache.put(oid, identity);
+	}
+	
+	/**
+	 * Stamp of {@link OEntityCache} taken before current read from the database.
+	 * Data read within the operation can be cached only if it was not invalidated after the stamp
+	 * @return stamp of {@link OEntityCache} or -1 if there is no read in progress
+	 */
+	public long getCacheStamp() {
+		return cacheStamp;
+	}
+	
+	private boolean startRead() {
+		if(cacheStamp>=0) return false;
+		cacheStamp = OEntityCache.get().stamp();
+		return true;
+	}
+	
+	private void endRead(boolean started) {
+		if(started) cacheStamp = -1;
 	}
 	
 	/**
@@ -91,30 +128,56 @@ public class OPersistenceSession extends AbstractPersistenceSession {
 	@Override
 	public List<?> selectList(String statement, Object parameter) {
 		db.activateOnCurrentThread();
-		IEntityHandler<?> handler = HandlersManager.get().getHandlerSafe(statement);
-		if(handler!=null) {
-			return handler.selectList(statement, parameter, this);
-		} else {
-			LOG.error("Handler 'selectList' for statement '"+statement+"' was not found");
-			return new ArrayList<Object>();
+		boolean started = startRead();
+		try {
+			IEntityHandler<?> handler = HandlersManager.get().getHandlerSafe(statement);
+			if(handler!=null) {
+				return handler.selectList(statement, parameter, this);
+			} else {
+				LOG.error("Handler 'selectList' for statement '"+statement+"' was not found");
+				return new ArrayList<Object>();
+			}
+		} finally {
+			endRead(started);
 		}
 	}
 
 	@Override
 	public <T extends DbEntity> T selectById(Class<T> type, String id) {
 		db.activateOnCurrentThread();
-		return (T) HandlersManager.get().getHandler(type).read(id, this);
+		boolean started = startRead();
+		try {
+			return (T) HandlersManager.get().getHandler(type).read(id, this);
+		} finally {
+			endRead(started);
+		}
 	}
 
 	@Override
 	public Object selectOne(String statement, Object parameter) {
 		db.activateOnCurrentThread();
-		IEntityHandler<?> handler = HandlersManager.get().getHandlerSafe(statement);
-		if(handler!=null) {
-			return handler.selectOne(statement, parameter, this);
-		} else {
-			LOG.error("Handler 'selectOne' for statement '"+statement+"' was not found");
-			return null;
+		boolean started = startRead();
+		try {
+			IEntityHandler<?> handler = HandlersManager.get().getHandlerSafe(statement);
+			if(handler!=null) {
+				if(!handler.isCacheable()) return handler.selectOne(statement, parameter, this);
+				OEntityCache cache = OEntityCache.get();
+				String key = OEntityCache.toStatementKey(statement, parameter);
+				String id = cache.getStatementResult(handler.getSchemaClass(), key);
+				Object ret = id!=null?handler.read(id, this):null;
+				if(ret==null) {
+					ret = handler.selectOne(statement, parameter, this);
+					if(ret instanceof DbEntity) {
+						cache.putStatementResult(handler.getSchemaClass(), key, ((DbEntity)ret).getId(), cacheStamp);
+					}
+				}
+				return ret;
+			} else {
+				LOG.error("Handler 'selectOne' for statement '"+statement+"' was not found");
+				return null;
+			}
+		} finally {
+			endRead(started);
 		}
 	}
 
@@ -131,32 +194,74 @@ public class OPersistenceSession extends AbstractPersistenceSession {
 
 	@Override
 	public void commit() {
-		db.commit();
+		flushTransaction = false;
+		commitTransaction();
 	}
 
 	@Override
 	public void rollback() {
+		flushTransaction = false;
+		db.activateOnCurrentThread();
 		db.rollback();
 	}
+	
+	/**
+	 * Commit current transaction. Conflicting concurrent modifications are reported to Camunda as
+	 * {@link OptimisticLockingException}, so they are handled in the same way as for SQL databases
+	 */
+	private void commitTransaction() {
+		db.activateOnCurrentThread();
+		try {
+			db.commit();
+		} catch (OConcurrentModificationException e) {
+			throw new OptimisticLockingException(e.getMessage());
+		}
+	}
 
 	@Override
 	public void dbSchemaCheckVersion() {
 
 	}
 
+	/**
+	 * Operations are already executed within transaction which is committed by {@link #commit()}:
+	 * so changes of a flush are stored atomically
+	 */
 	@Override
 	public void flush() {
-		/*boolean isInTransaction = db.getTransaction().isActive();
-		db.commit();
-		if(isInTransaction) db.begin();*/
+		
 	}
 
 	@Override
 	public void close() {
+		if(flushTransaction) {
+			LOG.warn("Not committed operations were rolled back on close of the session");
+			rollback();
+		}
 		db.close();
 		db = null;
 	}
 	
+	/**
+	 * Execute {@link DbOperation} within transaction of current flush: transaction is started if needed.
+	 * Camunda checks {@link DbOperation#isFailed()} right after execution,
+	 * so an entity modified or removed concurrently marks the operation as failed.
+	 */
+	@Override
+	public void executeDbOperation(DbOperation operation) {
+		db.activateOnCurrentThread();
+		if(!db.getTransaction().isActive()) {
+			db.begin();
+			flushTransaction = true;
+		}
+		try {
+			super.executeDbOperation(operation);
+		} catch (OptimisticLockingException | OConcurrentModificationException | ORecordNotFoundException e) {
+			if(!(operation instanceof DbEntityOperation)) throw e;
+			((DbEntityOperation) operation).setFailed(true);
+		}
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Override
 	protected void insertEntity(DbEntityOperation operation) {
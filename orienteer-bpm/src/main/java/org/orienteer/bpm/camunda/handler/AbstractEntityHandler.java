@@ -9,6 +9,7 @@ import com.gitub.raymanrt.orientqb.delete.Delete;
 import com.google.common.base.Converter;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
+import com.google.common.primitives.Primitives;
 import com.google.common.reflect.TypeToken;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
@@ -23,10 +24,13 @@ import org.apache.wicket.core.util.lang.PropertyResolver;
 import org.apache.wicket.core.util.lang.PropertyResolver.IGetAndSet;
 import org.apache.wicket.core.util.lang.PropertyResolverConverter;
 import org.apache.wicket.util.string.Strings;
+import org.camunda.bpm.engine.OptimisticLockingException;
 import org.camunda.bpm.engine.ProcessEngineException;
 import org.camunda.bpm.engine.impl.db.DbEntity;
 import org.camunda.bpm.engine.impl.db.HasDbRevision;
 import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbBulkOperation;
+import org.orienteer.bpm.camunda.OEntityCache;
+import org.orienteer.bpm.camunda.OEntityCache.CachedEntity;
 import org.orienteer.bpm.camunda.OPersistenceSession;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.util.OSchemaHelper;
@@ -35,6 +39,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
 
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
@@ -71,7 +78,13 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 	protected Map<String, Converter<Object, Object>> mappingConvertors = new HashMap<>();
 	
 	
-	private Map<String, Method> statementMethodsMapping = new HashMap<>();
+	private Map<String, MethodHandle> statementMethodsMapping = new HashMap<>();
+	
+	/**
+	 * Mapping plans compiled from {@link #mappingFromDocToEntity} and {@link #mappingFromEntityToDoc}
+	 */
+	private volatile List<FieldMapping> toEntityPlan;
+	private volatile List<FieldMapping> toDocPlan;
 	
 	public AbstractEntityHandler(String schemaClass) {
 		this(schemaClass, "id");
@@ -85,11 +98,28 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 			if(statement!=null) {
 				String st = statement.value();
 				if(Strings.isEmpty(st)) st = method.getName();
-				statementMethodsMapping.put(st, method);
+				statementMethodsMapping.put(st, toStatementHandle(method));
 			}
 		}
 	}
 	
+	private MethodHandle toStatementHandle(Method method) {
+		try {
+			return MethodHandles.lookup().unreflect(method).bindTo(this)
+					.asSpreader(Object[].class, method.getParameterCount())
+					.asType(MethodType.methodType(Object.class, Object[].class));
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Statement method should be public: "+method, e);
+		}
+	}
+	
+	/**
+	 * @return names of statements supported by {@link Statement} annotated methods of this handler
+	 */
+	public Set<String> getStatements() {
+		return Collections.unmodifiableSet(statementMethodsMapping.keySet());
+	}
+	
 	@Override
 	public Class<T> getEntityClass() {
 		return (Class<T>) type.getRawType();
@@ -114,10 +144,54 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 	
 	@Override
 	public T read(String id, OPersistenceSession session) {
+		if(isCacheable()) {
+			T entity = readFromCache((String) convertValueFromEntity("id", id), session);
+			if(entity!=null) return entity;
+		}
 		ODocument doc = readAsDocument(id, session);
 		return doc==null?null:mapToEntity(doc, null, session);
 	}
 	
+	/**
+	 * Create entity from a state cached in {@link OEntityCache}
+	 * @param oid id of an entity stored in DB
+	 * @param session current {@link OPersistenceSession}
+	 * @return entity or null if there is no cached state
+	 */
+	protected T readFromCache(String oid, OPersistenceSession session) {
+		CachedEntity cached = OEntityCache.get().getEntity(getSchemaClass(), oid);
+		if(cached==null) return null;
+		checkMapping(session);
+		List<FieldMapping> plan = toEntityPlan;
+		if(cached.getPlan()!=plan) return null;
+		try {
+			T entity = getEntityClass().newInstance();
+			Object[] values = cached.getValues();
+			for(int i=0; i<values.length; i++) {
+				plan.get(i).setValue(entity, copyOfMutable(values[i]));
+			}
+			if(entity instanceof HasDbRevision) {
+				((HasDbRevision)entity).setRevision(cached.getVersion());
+			}
+			session.fireEntityLoaded(cached.getId(), cached.getIdentity(), entity);
+			return entity;
+		} catch (Exception e) {
+			logger.error("There shouldn't be this exception in case of predefined mapping", e);
+			throw new IllegalStateException("There shouldn't be this exception in case of predefined mapping", e);
+		}
+	}
+	
+	/**
+	 * Copy mutable values, so state cached in {@link OEntityCache} is not shared between entities
+	 * @param value value to be copied
+	 * @return copy of the value for byte arrays and dates or the value itself
+	 */
+	private static Object copyOfMutable(Object value) {
+		if(value instanceof byte[]) return ((byte[])value).clone();
+		else if(value instanceof Date) return ((Date)value).clone();
+		else return value;
+	}
+	
 	@Override
 	public ODocument readAsDocument(String id, OPersistenceSession session) {
 		String oid = (String) convertValueFromEntity("id", id);
@@ -135,8 +209,9 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 	@Override
 	public void update(T entity, OPersistenceSession session) {
 		ODocument doc = readAsDocument(entity.getId(), session);
+		if(doc==null) throw new OptimisticLockingException(getSchemaClass()+" with id '"+entity.getId()+"' was removed concurrently");
 		mapToODocument(entity, doc, session);
-		session.getDatabase().save(doc);
+		if(doc.isDirty()) session.getDatabase().save(doc);
 	}
 	
 	@Override
@@ -154,11 +229,54 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 	}
 	
 	protected void checkMapping(OPersistenceSession session) {
-		if(mappingFromDocToEntity==null || mappingFromEntityToDoc==null){
-			if(session!=null) initMapping(session);
+		if(toEntityPlan==null || toDocPlan==null){
+			if(session!=null) {
+				synchronized (this) {
+					if(toEntityPlan==null || toDocPlan==null) {
+						initMapping(session);
+						compileMapping(session);
+					}
+				}
+			}
 		}
 	}
 	
+	/**
+	 * Compile mapping plans: accessors and converters are resolved once per handler,
+	 * so mapping of every entity doesn't need to lookup them again.
+	 * Invoked right after {@link #initMapping(OPersistenceSession)}
+	 * @param session current {@link OPersistenceSession}
+	 */
+	protected void compileMapping(OPersistenceSession session) {
+		Class<T> entityClass = getEntityClass();
+		OClass oClass = session.getClass(getSchemaClass());
+		List<FieldMapping> toEntity = new ArrayList<>(mappingFromDocToEntity.size());
+		for(Map.Entry<String, String> mapToEntity : mappingFromDocToEntity.entrySet()) {
+			toEntity.add(new FieldMapping(entityClass, mapToEntity.getValue(), mapToEntity.getKey(), null));
+		}
+		List<FieldMapping> toDoc = new ArrayList<>(mappingFromEntityToDoc.size());
+		for(Map.Entry<String, String> mapToDoc : mappingFromEntityToDoc.entrySet()) {
+			String docField = mapToDoc.getValue();
+			IEntityHandler<?> refHandler = null;
+			int refIndex = docField.indexOf('.');
+			if(refIndex>=0) {
+				String refPkField = docField.substring(refIndex+1); 
+				docField = docField.substring(0, refIndex);
+				OProperty refProperty = oClass!=null?oClass.getProperty(docField):null;
+				refHandler = refProperty!=null
+								? HandlersManager.get().getHandlerBySchemaClass(refProperty.getLinkedClass())
+								: null;
+				if(refHandler==null || !Objects.equal(refPkField, refHandler.getPkField())) {
+					logger.error("Mapping for entity field '"+mapToDoc.getKey()+"' is wrongly set to '"+mapToDoc.getValue()+"'");
+					continue;
+				}
+			}
+			toDoc.add(new FieldMapping(entityClass, mapToDoc.getKey(), docField, refHandler));
+		}
+		toEntityPlan = toEntity;
+		toDocPlan = toDoc;
+	}
+	
 	protected IGetAndSet getGetAndSetter(Class<?> clazz, String property) {
 		return PropertyResolver.getLocator().get(clazz, property);
 	}
@@ -210,18 +328,24 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 			if(entity==null) {
 				entity = getEntityClass().newInstance();
 			}
-			for(Map.Entry<String, String> mapToEntity : mappingFromDocToEntity.entrySet()) {
-				Object valueToSet = doc.field(mapToEntity.getKey());
-				valueToSet = convertValueToEntity(mapToEntity.getValue(), valueToSet);
-				if(valueToSet!=null) PropertyResolver.setValue(mapToEntity.getValue(), entity, valueToSet, PROPERTY_RESOLVER_CONVERTEER);
-				else {
-					IGetAndSet getAndSet = getGetAndSetter(entity.getClass(), mapToEntity.getValue());
-					if(!getAndSet.getTargetClass().isPrimitive()) getAndSet.setValue(entity, null, PROPERTY_RESOLVER_CONVERTEER);
-				}
+			List<FieldMapping> plan = toEntityPlan;
+			long cacheStamp = session!=null?session.getCacheStamp():-1;
+			boolean cache = isCacheable() && cacheStamp>=0 && doc.getIdentity().isPersistent() && !doc.isDirty();
+			Object[] values = cache?new Object[plan.size()]:null;
+			for(int i=0; i<plan.size(); i++) {
+				FieldMapping mapping = plan.get(i);
+				Object valueToSet = mapping.toEntityValue(doc.field(mapping.docField));
+				if(cache) values[i] = copyOfMutable(valueToSet);
+				mapping.setValue(entity, valueToSet);
 			}
 			if(entity instanceof HasDbRevision) {
 				((HasDbRevision)entity).setRevision(doc.getVersion());
 			}
+			if(cache) {
+				OEntityCache.get().putEntity(getSchemaClass(), 
+						new CachedEntity((String) doc.field(getPkField()), doc.getIdentity().copy(), doc.getVersion(), plan, values),
+						cacheStamp);
+			}
 			if(session!=null) session.fireEntityLoaded(doc, entity, hasNeedInCache());
 			return entity;
 		} catch (Exception e) {
@@ -234,6 +358,11 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 	public boolean hasNeedInCache() {
 		return false;
 	}
+	
+	@Override
+	public boolean isCacheable() {
+		return false;
+	}
 
 	@Override
 	public ODocument mapToODocument(T entity, ODocument doc, OPersistenceSession session) {
@@ -241,39 +370,25 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 		if(doc==null) {
 			doc = new ODocument(getSchemaClass());
 		}
-		for(Map.Entry<String, String> mapToDoc : mappingFromEntityToDoc.entrySet()) {
-			Object value = PropertyResolver.getValue(mapToDoc.getKey(), entity);
-			String docField = mapToDoc.getValue();
-			
-			
-			int refIndex = docField.indexOf('.');
-			if(refIndex>=0 || !Objects.equal(value, doc.field(docField))) {
-				if(refIndex>=0) {
-					String refPkField = docField.substring(refIndex+1); 
-					docField = docField.substring(0, refIndex);
-					OProperty refProperty = doc.getSchemaClass().getProperty(docField);
-					IEntityHandler<?> refHandler = refProperty!=null
-															? HandlersManager.get().getHandlerBySchemaClass(refProperty.getLinkedClass())
-															: null;
-					if(refHandler==null || !Objects.equal(refPkField, refHandler.getPkField())) {
-						logger.error("Mapping for entity field '"+mapToDoc.getKey()+"' is wrongly set to '"+mapToDoc.getValue()+"'");
-						continue;
-					}
-					if(value!=null)
-					{
-						String referToId = value.toString();
-						OIdentifiable referTo = session.lookupOIdentifiableForIdInCache(referToId);
-						if(referTo==null) {
-							referTo = refHandler.readAsDocument(referToId, session);
-						}
-						if(!Objects.equal(doc.field(docField), referTo)) doc.field(docField, referTo);
-					} else
-					{
-						doc.field(docField, (Object) null);
+		for(FieldMapping mapping : toDocPlan) {
+			Object value = mapping.getValue(entity);
+			String docField = mapping.docField;
+			if(mapping.refHandler!=null) {
+				if(value!=null)
+				{
+					String referToId = value.toString();
+					OIdentifiable referTo = session.lookupOIdentifiableForIdInCache(referToId);
+					if(referTo==null) {
+						referTo = mapping.refHandler.readAsDocument(referToId, session);
 					}
-				} else {
-					doc.field(docField, convertValueFromEntity(mapToDoc.getKey(), value));
+					if(!Objects.equal(doc.field(docField), referTo)) doc.field(docField, referTo);
+				} else if(doc.field(docField)!=null)
+				{
+					doc.field(docField, (Object) null);
 				}
+			} else {
+				value = mapping.toDocValue(value);
+				if(!Objects.equal(value, doc.field(docField))) doc.field(docField, value);
 			}
 		}
 		return doc;
@@ -295,11 +410,12 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 	}
 	
 	protected <T> T invokeStatement(String statement, Object... args) {
-		Method method = statementMethodsMapping.get(statement);
+		MethodHandle handle = statementMethodsMapping.get(statement);
 		try {
-			return (T) method.invoke(this, args);
-		} catch (Exception e) {
-			throw new IllegalStateException("With good defined handler we should not be here. Method: "+method, e);
+			Object ret = handle.invokeExact(args);
+			return (T) ret;
+		} catch (Throwable e) {
+			throw new IllegalStateException("With good defined handler we should not be here. Statement: "+statement, e);
 		}
 	}
 	
@@ -391,7 +507,7 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 			List<Object> args = new ArrayList<>();
 			enrichWhereByBean(session, q, schemaClass, query, args, Arrays.asList(ignoreFileds));
 			if(queryManger!=null) q = queryManger.apply(q);
-			command(session, q.toString(), args.toArray());
+			deleteBulk(session, q, args);
 		} catch (Exception e) {
 			throw new ProcessEngineException("Problems with read method of "+query.getClass().getName(), e);
 		} 
@@ -407,7 +523,21 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 		List<Object> args = new ArrayList<>();
 		enrichWhereByMap(session, q, schemaClass, query, args, Arrays.asList(ignoreFileds));
 		if(queryManger!=null) q = queryManger.apply(q);
-		command(session, q.toString(), args.toArray());
+		deleteBulk(session, q, args);
+	}
+	
+	/**
+	 * Remove all documents matched by a query by single DELETE statement
+	 * @param session current {@link OPersistenceSession}
+	 * @param q query to select documents to be deleted
+	 * @param args arguments for the query
+	 */
+	protected void deleteBulk(final OPersistenceSession session, Query q, List<Object> args) {
+		String sql = q.toString();
+		if(!sql.contains(" WHERE ")) {
+			throw new ProcessEngineException("Bulk delete from '"+getSchemaClass()+"' without any condition is not allowed");
+		}
+		command(session, "DELETE"+sql.substring(sql.indexOf(" FROM ")), args.toArray());
 	}
 	
 	
@@ -433,7 +563,7 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 	protected void enrichWhereByMap(OPersistenceSession session, AbstractQuery q, OClass schemaClass, Map<String, ?> query, List<Object> args, List<String> ignore) {
 		checkMapping(session);
 		for(Map.Entry<String, ?> entry : query.entrySet()) {
-			if((mappingFromEntityToDoc.containsKey(entry.getKey()) || mappingFromEntityToDoc.containsKey(entry.getKey()))
+			if((mappingFromEntityToDoc.containsKey(entry.getKey()) || mappingFromQueryToDoc.containsKey(entry.getKey()))
 					&& (ignore==null || !ignore.contains(entry.getKey()))) {
 				String docMapping = mappingFromEntityToDoc.get(entry.getKey());
 				if(docMapping==null) docMapping = mappingFromQueryToDoc.get(entry.getKey());
@@ -457,4 +587,80 @@ public abstract class AbstractEntityHandler<T extends DbEntity> implements IEnti
 		return RESULT.RECORD_NOT_CHANGED;
 	}
 	
+	/**
+	 * Precompiled mapping of a single field between entity and {@link ODocument}.
+	 * Uses {@link MethodHandle}s of bean getter and setter if they are available
+	 */
+	private final class FieldMapping {
+		private final String entityField;
+		private final String docField;
+		private final IEntityHandler<?> refHandler;
+		private final Converter<Object, Object> converter;
+		private final IGetAndSet getAndSet;
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+		private final Class<?> targetClass;
+		private final Class<?> wrappedTargetClass;
+		
+		private FieldMapping(Class<?> entityClass, String entityField, String docField, IEntityHandler<?> refHandler) {
+			this.entityField = entityField;
+			this.docField = docField;
+			this.refHandler = refHandler;
+			this.converter = mappingConvertors.get(entityField);
+			this.getAndSet = getGetAndSetter(entityClass, entityField);
+			this.getter = getAndSet!=null?toHandle(getAndSet.getGetter(), MethodType.methodType(Object.class, Object.class)):null;
+			this.setter = getAndSet!=null?toHandle(getAndSet.getSetter(), MethodType.methodType(void.class, Object.class, Object.class)):null;
+			this.targetClass = getAndSet!=null?getAndSet.getTargetClass():null;
+			this.wrappedTargetClass = targetClass!=null?Primitives.wrap(targetClass):null;
+		}
+		
+		private MethodHandle toHandle(Method method, MethodType type) {
+			if(method==null) return null;
+			try {
+				return MethodHandles.lookup().unreflect(method).asType(type);
+			} catch (IllegalAccessException e) {
+				logger.debug("Method '"+method+"' is not accessible: reflection will be used", e);
+				return null;
+			}
+		}
+		
+		private Object toEntityValue(Object value) {
+			return converter==null?value:converter.reverse().convert(value);
+		}
+		
+		private Object toDocValue(Object value) {
+			return converter==null?value:converter.convert(value);
+		}
+		
+		private Object getValue(Object entity) {
+			if(getter==null) return PropertyResolver.getValue(entityField, entity);
+			try {
+				return (Object) getter.invokeExact(entity);
+			} catch (Throwable e) {
+				throw toRuntimeException(e);
+			}
+		}
+		
+		private void setValue(Object entity, Object value) {
+			if(setter==null) {
+				if(value!=null) PropertyResolver.setValue(entityField, entity, value, PROPERTY_RESOLVER_CONVERTEER);
+				else if(getAndSet!=null && !targetClass.isPrimitive()) getAndSet.setValue(entity, null, PROPERTY_RESOLVER_CONVERTEER);
+				return;
+			}
+			if(value==null && targetClass.isPrimitive()) return;
+			if(value!=null && !wrappedTargetClass.isInstance(value)) value = PROPERTY_RESOLVER_CONVERTEER.convert(value, targetClass);
+			try {
+				setter.invokeExact(entity, value);
+			} catch (Throwable e) {
+				throw toRuntimeException(e);
+			}
+		}
+		
+		private RuntimeException toRuntimeException(Throwable e) {
+			if(e instanceof RuntimeException) return (RuntimeException) e;
+			if(e instanceof Error) throw (Error) e;
+			return new IllegalStateException("Can't access field '"+entityField+"' of "+getEntityClass().getName(), e);
+		}
+	}
+	
 }
@@ -19,6 +19,11 @@ public class ByteArrayEntityHandler extends AbstractEntityHandler<ByteArrayEntit
 		super(OCLASS_NAME);
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+	
 	@Override
 	public void applySchema(OSchemaHelper helper) {
 		super.applySchema(helper);
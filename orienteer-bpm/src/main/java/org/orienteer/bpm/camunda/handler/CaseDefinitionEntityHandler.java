@@ -24,6 +24,11 @@ public class CaseDefinitionEntityHandler extends AbstractEntityHandler<CaseDefin
         super(OCLASS_NAME);
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     public void applySchema(OSchemaHelper helper) {
         super.applySchema(helper);
@@ -23,6 +23,11 @@ public class DecisionDefinitionEntityHandler extends AbstractEntityHandler<Decis
         super(OCLASS_NAME);
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     public void applySchema(OSchemaHelper helper) {
         super.applySchema(helper);
@@ -21,6 +21,11 @@ public class DeploymentEntityHandler extends AbstractEntityHandler<DeploymentEnt
 		super(OCLASS_NAME);
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+	
 	@Override
 	public void applySchema(OSchemaHelper helper) {
 		super.applySchema(helper);
@@ -3,6 +3,8 @@ package org.orienteer.bpm.camunda.handler;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.camunda.bpm.engine.impl.db.DbEntity;
 import org.orienteer.bpm.camunda.handler.history.HistoricActivityInstanceEventEntityHandler;
@@ -44,7 +46,10 @@ public final class HandlersManager {
 	private Map<Class<?>, IEntityHandler<?>> handlerByHandlerClass = new HashMap<>();
 	private Map<String, IEntityHandler<?>> handlerBySchemaClass = new HashMap<>();
 	
-	private Map<String, IEntityHandler<?>> statementHandlersCache = new HashMap<>();
+	/**
+	 * Handlers of statements resolved on first use: the last of handlers supporting a statement is used
+	 */
+	private Map<String, Optional<IEntityHandler<?>>> statementHandlersCache = new ConcurrentHashMap<>();
 	
 	private HandlersManager() {
 		register(new PropertyEntityHandler(),
@@ -105,6 +110,7 @@ public final class HandlersManager {
 			handlerBySchemaClass.put(handler.getSchemaClass(), handler);
 		}
 		cachedInheritedHandlers.clear();
+		statementHandlersCache.clear();
 	}
 	
 	public <T extends IEntityHandler<?>> T getHandlerBySchemaClass(String schemaClass) {
@@ -150,18 +156,15 @@ public final class HandlersManager {
 	}
 	
 	public <T extends DbEntity> IEntityHandler<T> getHandlerSafe(String statement) {
-		IEntityHandler<T> ret = null;
-		if(statementHandlersCache.containsKey(statement)) {
-			ret = (IEntityHandler<T>) statementHandlersCache.get(statement);
-		} else {
+		return (IEntityHandler<T>) statementHandlersCache.computeIfAbsent(statement, st -> {
+			IEntityHandler<?> found = null;
 			for(IEntityHandler<?> handler:handlers.values()) {
-				if(handler.supportsStatement(statement)) {
-					ret = (IEntityHandler<T>)handler;
+				if(handler.supportsStatement(st)) {
+					found = handler;
 				}
 			}
-			statementHandlersCache.put(statement, ret);
-		}
-		return ret;
+			return Optional.ofNullable(found);
+		}).orElse(null);
 	}
 	
 	
@@ -32,6 +32,11 @@ public interface IEntityHandler<T extends DbEntity> {
 	
 	public boolean hasNeedInCache();
 	
+	/**
+	 * @return true if entities are not changed after creation and can be shared through {@link org.orienteer.bpm.camunda.OEntityCache}
+	 */
+	public boolean isCacheable();
+	
 	public Class<T> getEntityClass();
 	public String getSchemaClass();
 	public String getPkField();
@@ -3,14 +3,20 @@ package org.orienteer.bpm.camunda.handler;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.apache.wicket.util.string.Strings;
+import org.camunda.bpm.engine.impl.QueryOrderingProperty;
+import org.camunda.bpm.engine.impl.context.Context;
 import org.camunda.bpm.engine.impl.db.ListQueryParameterObject;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutor;
 import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
 import org.camunda.bpm.engine.impl.persistence.entity.MessageEntity;
 import org.camunda.bpm.engine.impl.persistence.entity.TimerEntity;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
 import org.camunda.bpm.engine.runtime.JobQuery;
 import org.orienteer.bpm.camunda.OPersistenceSession;
 import org.orienteer.bpm.camunda.handler.history.UserOperationLogEntryEventEntityHandler;
@@ -21,6 +27,8 @@ import com.github.raymanrt.orientqb.query.Clause;
 import com.github.raymanrt.orientqb.query.Operator;
 import com.github.raymanrt.orientqb.query.Parameter;
 import com.github.raymanrt.orientqb.query.Query;
+import com.orientechnologies.common.concur.ONeedRetryException;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
@@ -31,6 +39,26 @@ public class JobEntityHandler extends AbstractEntityHandler<JobEntity> {
 
 	public static final String OCLASS_NAME = "BPMJob";
 	
+	/**
+	 * Composite index for acquisition of jobs: see {@link #selectNextJobsToExecute(OPersistenceSession, ListQueryParameterObject)}
+	 */
+	public static final String ACQUISITION_INDEX = OCLASS_NAME+".acquisition";
+	public static final String LOCK_EXPIRATION_INDEX = OCLASS_NAME+".lockExpirationTime";
+	
+	private static final String ACQUIRABLE_CONDITION = " where suspensionState = 1"
+														+ " and (duedate <= ? or duedate is null)"
+														+ " and retries > 0"
+														+ " and (lockOwner is null or lockExpirationTime < ?)";
+	
+	private static final Map<String, String> ORDERING_FIELDS = new HashMap<>();
+	
+	static {
+		ORDERING_FIELDS.put("PRIORITY_", "priority");
+		ORDERING_FIELDS.put("DUEDATE_", "duedate");
+		ORDERING_FIELDS.put("TYPE_", "type");
+		ORDERING_FIELDS.put("ID_", "id");
+	}
+	
 	public JobEntityHandler() {
 		super(OCLASS_NAME);
 	}
@@ -124,30 +152,92 @@ public class JobEntityHandler extends AbstractEntityHandler<JobEntity> {
 	@Statement
 	public List<JobEntity> selectExclusiveJobsToExecute(OPersistenceSession session, ListQueryParameterObject query) {
 		Map<String, Object> params = (Map<String, Object>) query.getParameter();
-	    Date now=(Date) params.get("now");
-	    int maxResults=query.getMaxResults();
-	    return queryList(session, "select from "+getSchemaClass()+
-	    					" where retries > 0"
-	    					+ " and (duedate is null or duedate <= ?)"
-	    					+ " and (lockOwner is null or lockExpirationTime < ?)"
-	    					+ " and exclusive = true"
-	    					+ " and suspensionState = 1"
-	    					+ " LIMIT ?", now, now, maxResults);
+		return acquireJobs(session, (Date) params.get("now"), " and exclusive = true", null, query.getMaxResults());
 	}
 	
 	@Statement
 	public List<JobEntity> selectNextJobsToExecute(OPersistenceSession session, ListQueryParameterObject query) {
 		Map<String, Object> params = (Map<String, Object>) query.getParameter();
-	    Date now=(Date) params.get("now");
-	    int maxResults=query.getMaxResults();
-	    String orderBy = query.getOrderBy();
-	    return queryList(session, "select from "+getSchemaClass()+
-	    					" where retries > 0"
-	    					+ " and (duedate is null or duedate <= ?)"
-	    					+ " and (lockOwner is null or lockExpirationTime < ?)"
-	    					+ " and suspensionState = 1"
-	    					+ (Strings.isEmpty(orderBy)?" order by "+orderBy:"")
-	    					+ " LIMIT ?", now, now, maxResults);
+		return acquireJobs(session, (Date) params.get("now"), "", 
+							toOrderBy((List<QueryOrderingProperty>) params.get("orderingProperties")), 
+							query.getMaxResults());
+	}
+	
+	/**
+	 * Acquire batch of jobs which are ready to be executed.
+	 * If there is an active job executor, jobs are claimed for its lock owner:
+	 * see {@link #acquireJobs(OPersistenceSession, Date, String, String, int, String, long)}
+	 * @param session current {@link OPersistenceSession}
+	 * @param now current time
+	 * @param extraCondition additional condition for jobs
+	 * @param orderBy ordering of jobs or null
+	 * @param maxResults maximum number of jobs to acquire
+	 * @return acquired jobs
+	 */
+	protected List<JobEntity> acquireJobs(OPersistenceSession session, Date now, String extraCondition, String orderBy, int maxResults) {
+		JobExecutor jobExecutor = Context.getProcessEngineConfiguration()!=null
+										? Context.getProcessEngineConfiguration().getJobExecutor()
+										: null;
+		if(jobExecutor==null || jobExecutor.getLockOwner()==null) {
+			String order = Strings.isEmpty(orderBy)?"":" order by "+orderBy;
+			return queryList(session, "select from "+getSchemaClass()+ACQUIRABLE_CONDITION+extraCondition+order+" LIMIT ?", 
+								now, now, maxResults);
+		}
+		return acquireJobs(session, now, extraCondition, orderBy, maxResults, 
+							jobExecutor.getLockOwner(), jobExecutor.getLockTimeInMillis());
+	}
+	
+	/**
+	 * Claim batch of jobs which are ready to be executed for a lock owner.
+	 * Every job is claimed by separate save of its document, which is checked against version of the document:
+	 * so a job changed concurrently, for example claimed by other node, is just skipped
+	 * and jobs can't be claimed twice or left claimed but not returned
+	 * @param session current {@link OPersistenceSession}
+	 * @param now current time
+	 * @param extraCondition additional condition for jobs
+	 * @param orderBy ordering of jobs or null
+	 * @param maxResults maximum number of jobs to acquire
+	 * @param lockOwner owner to claim jobs for
+	 * @param lockTimeInMillis time to lock jobs for
+	 * @return claimed jobs
+	 */
+	protected List<JobEntity> acquireJobs(OPersistenceSession session, Date now, String extraCondition, String orderBy, int maxResults,
+											String lockOwner, long lockTimeInMillis) {
+		String order = Strings.isEmpty(orderBy)?"":" order by "+orderBy;
+		ODatabaseDocument db = session.getDatabase();
+		List<ODocument> candidates = db.query("select from "+getSchemaClass()+ACQUIRABLE_CONDITION+extraCondition+order+" LIMIT ?", 
+												now, now, maxResults)
+									.elementStream().map(e -> (ODocument) e)
+									.collect(Collectors.toList());
+		Date lockExpirationTime = new Date(ClockUtil.getCurrentTime().getTime() + lockTimeInMillis);
+		List<JobEntity> ret = new ArrayList<>();
+		for(ODocument doc : candidates) {
+			doc.field("lockOwner", lockOwner);
+			doc.field("lockExpirationTime", lockExpirationTime);
+			try {
+				db.save(doc);
+			} catch (ONeedRetryException e) {
+				logger.debug("Job '"+doc.field("id")+"' was concurrently changed and skipped", e);
+				doc.undo();
+				continue;
+			}
+			ret.add(mapToEntity(doc, null, session));
+		}
+		return ret;
+	}
+	
+	protected String toOrderBy(List<QueryOrderingProperty> orderingProperties) {
+		if(orderingProperties==null || orderingProperties.isEmpty()) return null;
+		List<String> ret = new ArrayList<>();
+		for(QueryOrderingProperty property : orderingProperties) {
+			if(property.getQueryProperty()==null) continue;
+			String name = property.getQueryProperty().getName();
+			String field = ORDERING_FIELDS.get(name.substring(name.lastIndexOf('.')+1));
+			if(field!=null) {
+				ret.add(field+(property.getDirection()!=null?" "+property.getDirection().getName():""));
+			}
+		}
+		return ret.isEmpty()?null:String.join(", ", ret);
 	}
 	
 	@Statement
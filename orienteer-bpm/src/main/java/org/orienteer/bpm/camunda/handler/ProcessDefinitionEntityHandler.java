@@ -36,6 +36,11 @@ public class ProcessDefinitionEntityHandler extends AbstractEntityHandler<Proces
 		super(OCLASS_NAME);
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+	
 	@Override
 	public void applySchema(OSchemaHelper helper) {
 		super.applySchema(helper);
@@ -29,6 +29,11 @@ public class ResourceEntityHandler extends AbstractEntityHandler<ResourceEntity>
 		super(OCLASS_NAME);
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+	
 	@Override
 	public void applySchema(OSchemaHelper helper) {
 		super.applySchema(helper);
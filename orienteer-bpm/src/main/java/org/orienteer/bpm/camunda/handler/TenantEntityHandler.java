@@ -73,6 +73,11 @@ public class TenantEntityHandler implements IEntityHandler<TenantEntity> {
 	public String getPkField() {
 		return null;
 	}
+	
+	@Override
+	public boolean isCacheable() {
+		return false;
+	}
 
 	@Override
 	public boolean supportsStatement(String statement) {
@@ -0,0 +1,76 @@
+package org.orienteer.bpm;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.BpmPlatform;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.repository.Deployment;
+import org.camunda.bpm.engine.task.Task;
+import org.camunda.bpm.engine.test.ProcessEngineRule;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.junit.OrienteerTestRunner;
+
+import com.google.inject.Singleton;
+
+/**
+ * Benchmark of BPM persistence: every process instance is started and its user task is completed,
+ * so every step flushes a batch of inserts, updates, deletes and history events to OrientDB.
+ * Number of process instances can be specified by system property 'orienteer.bpm.benchmark.instances'
+ */
+@RunWith(OrienteerTestRunner.class)
+@Singleton
+public class BPMPersistenceBenchmarkSlowTest {
+
+	private static final int INSTANCES = Integer.getInteger("orienteer.bpm.benchmark.instances", 1000);
+	private static final String PROCESS_KEY = "persistenceBenchmark";
+
+	@Rule
+	public ProcessEngineRule processEngineRule = new ProcessEngineRule(
+			BpmPlatform.getProcessEngineService().getDefaultProcessEngine());
+
+	@Test
+	public void benchmark() {
+		ProcessEngine processEngine = processEngineRule.getProcessEngine();
+		BpmnModelInstance model = Bpmn.createExecutableProcess(PROCESS_KEY)
+				.startEvent()
+				.userTask("benchmarkTask")
+				.endEvent()
+				.done();
+		Deployment deployment = processEngine.getRepositoryService()
+				.createDeployment().addModelInstance("persistenceBenchmark.bpmn", model).deploy();
+		try {
+			Map<String, Object> vars = new HashMap<>();
+			long start = System.currentTimeMillis();
+			for (int i = 0; i < INSTANCES; i++) {
+				vars.put("index", i);
+				vars.put("name", "Instance " + i);
+				processEngine.getRuntimeService().startProcessInstanceByKey(PROCESS_KEY, vars);
+			}
+			long started = System.currentTimeMillis() - start;
+
+			start = System.currentTimeMillis();
+			List<Task> tasks = processEngine.getTaskService().createTaskQuery()
+					.processDefinitionKey(PROCESS_KEY).list();
+			assertEquals(INSTANCES, tasks.size());
+			for (Task task : tasks) {
+				processEngine.getTaskService().complete(task.getId());
+			}
+			long completed = System.currentTimeMillis() - start;
+			assertEquals(0, processEngine.getRuntimeService().createProcessInstanceQuery()
+					.processDefinitionKey(PROCESS_KEY).count());
+			System.out.printf("BPM persistence of %d instances: start %d ms (%.0f instances/s), complete %d ms (%.0f tasks/s)%n",
+					INSTANCES, started, INSTANCES * 1000.0 / Math.max(started, 1),
+					completed, INSTANCES * 1000.0 / Math.max(completed, 1));
+		} finally {
+			processEngine.getRepositoryService().deleteDeployment(deployment.getId(), true);
+		}
+	}
+}
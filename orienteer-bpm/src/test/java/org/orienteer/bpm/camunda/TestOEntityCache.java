@@ -0,0 +1,111 @@
+package org.orienteer.bpm.camunda;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.orienteer.bpm.camunda.OEntityCache.CachedEntity;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+
+public class TestOEntityCache {
+	
+	private static final Object PLAN = new Object();
+
+	@Test
+	public void testEntityInvalidation() {
+		OEntityCache cache = new OEntityCache(OEntityCache.DEFAULT_MAX_WEIGHT);
+		cache.putEntity("BPMResource", new CachedEntity("1", new ORecordId(10, 1), 1, PLAN, new Object[]{"test.bpmn", new byte[]{1, 2, 3}}), cache.stamp());
+		cache.putEntity("BPMResource", new CachedEntity("2", new ORecordId(10, 2), 1, PLAN, new Object[]{"other.bpmn", null}), cache.stamp());
+		CachedEntity cached = cache.getEntity("BPMResource", "1");
+		assertNotNull(cached);
+		assertEquals(new ORecordId(10, 1), cached.getIdentity());
+		assertArrayEquals(new byte[]{1, 2, 3}, (byte[])cached.getValues()[1]);
+		assertNull(cache.getEntity("BPMDeployment", "1"));
+		
+		cache.invalidate("BPMResource", "1");
+		assertNull(cache.getEntity("BPMResource", "1"));
+		assertNotNull(cache.getEntity("BPMResource", "2"));
+	}
+	
+	@Test
+	public void testStatementInvalidation() {
+		OEntityCache cache = new OEntityCache(OEntityCache.DEFAULT_MAX_WEIGHT);
+		Map<String, Object> params = new HashMap<>();
+		params.put("processDefinitionKey", "test");
+		params.put("tenantId", null);
+		String key = OEntityCache.toStatementKey("selectLatestProcessDefinitionByKeyWithoutTenantId", params);
+		assertNotNull(key);
+		cache.putStatementResult("BPMProcessDefinition", key, "1", cache.stamp());
+		cache.putStatementResult("BPMDeployment", key, "2", cache.stamp());
+		assertEquals("1", cache.getStatementResult("BPMProcessDefinition", key));
+		
+		cache.invalidate("BPMProcessDefinition", "3");
+		assertNull(cache.getStatementResult("BPMProcessDefinition", key));
+		assertEquals("2", cache.getStatementResult("BPMDeployment", key));
+		
+		assertTrue(cache.putStatementResult("BPMProcessDefinition", key, "3", cache.stamp()));
+		assertEquals("3", cache.getStatementResult("BPMProcessDefinition", key));
+		cache.invalidate("BPMProcessDefinition", null);
+		assertNull(cache.getStatementResult("BPMProcessDefinition", key));
+	}
+	
+	@Test
+	public void testStatementKeys() {
+		assertEquals("selectDeployment|1", OEntityCache.toStatementKey("selectDeployment", "1"));
+		assertNull(OEntityCache.toStatementKey("selectDeployment", 1));
+		Map<String, Object> first = new HashMap<>();
+		first.put("a", 1);
+		first.put("b", 2);
+		Map<String, Object> second = new HashMap<>();
+		second.put("b", 2);
+		second.put("a", 1);
+		assertEquals(OEntityCache.toStatementKey("select", first), OEntityCache.toStatementKey("select", second));
+	}
+	
+	@Test
+	public void testWeightLimit() {
+		OEntityCache cache = new OEntityCache(10 * 1024);
+		for(int i=0; i<10; i++) {
+			cache.putEntity("BPMByteArray", new CachedEntity(""+i, new ORecordId(11, i), 1, PLAN, new Object[]{new byte[4 * 1024]}), cache.stamp());
+		}
+		int cached = 0;
+		for(int i=0; i<10; i++) {
+			if(cache.getEntity("BPMByteArray", ""+i)!=null) cached++;
+		}
+		assertTrue(cached<=2);
+	}
+	
+	@Test
+	public void testStalePutIsIgnored() {
+		OEntityCache cache = new OEntityCache(OEntityCache.DEFAULT_MAX_WEIGHT);
+		long stamp = cache.stamp();
+		cache.invalidate("BPMProcessDefinition", "1");
+		assertFalse(cache.putEntity("BPMProcessDefinition", new CachedEntity("1", new ORecordId(10, 1), 1, PLAN, new Object[]{"old"}), stamp));
+		assertNull(cache.getEntity("BPMProcessDefinition", "1"));
+		assertFalse(cache.putStatementResult("BPMProcessDefinition", "selectProcessDefinition|1", "1", stamp));
+		assertNull(cache.getStatementResult("BPMProcessDefinition", "selectProcessDefinition|1"));
+		
+		assertTrue(cache.putEntity("BPMDeployment", new CachedEntity("1", new ORecordId(11, 1), 1, PLAN, new Object[]{"other"}), stamp));
+		assertNotNull(cache.getEntity("BPMDeployment", "1"));
+		
+		stamp = cache.stamp();
+		assertTrue(cache.putEntity("BPMProcessDefinition", new CachedEntity("1", new ORecordId(10, 1), 2, PLAN, new Object[]{"new"}), stamp));
+		assertEquals(2, cache.getEntity("BPMProcessDefinition", "1").getVersion());
+		assertFalse(cache.putEntity("BPMProcessDefinition", new CachedEntity("2", new ORecordId(10, 2), 1, PLAN, new Object[]{"new"}), -1));
+	}
+	
+	@Test
+	public void testExpiration() throws InterruptedException {
+		OEntityCache cache = new OEntityCache(OEntityCache.DEFAULT_MAX_WEIGHT, 50, TimeUnit.MILLISECONDS);
+		cache.putEntity("BPMResource", new CachedEntity("1", new ORecordId(10, 1), 1, PLAN, new Object[]{"test.bpmn"}), cache.stamp());
+		cache.putStatementResult("BPMResource", "selectResource|1", "1", cache.stamp());
+		assertNotNull(cache.getEntity("BPMResource", "1"));
+		Thread.sleep(100);
+		assertNull(cache.getEntity("BPMResource", "1"));
+		assertNull(cache.getStatementResult("BPMResource", "selectResource|1"));
+	}
+}
@@ -0,0 +1,130 @@
+package org.orienteer.bpm.camunda;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.camunda.bpm.engine.impl.persistence.entity.ByteArrayEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.bpm.camunda.handler.ByteArrayEntityHandler;
+import org.orienteer.bpm.camunda.handler.ProcessDefinitionEntityHandler;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.junit.Sudo;
+
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+
+/**
+ * Test of {@link OEntityCache} usage by {@link OPersistenceSession}
+ */
+@RunWith(OrienteerTestRunner.class)
+@Singleton
+public class TestOEntityCacheSession {
+
+	private static final String STATEMENT = "selectLatestProcessDefinitionByKeyWithoutTenantId";
+	private static final String KEY = "entityCacheSessionTest";
+
+	private ODocument doc;
+	private String id;
+	private OPersistenceSession session;
+
+	@Before
+	@Sudo
+	public void init() {
+		OEntityCache.get().clear();
+		doc = new ODocument(ProcessDefinitionEntityHandler.OCLASS_NAME);
+		doc.field("name", "Cache Test");
+		doc.field("key", KEY);
+		doc.field("suspensionState", 1);
+		doc.save();
+		id = doc.field("id");
+		assertNotNull(id);
+		session = new OPersistenceSession((ODatabaseSession) OrientDbWebSession.get().getDatabase());
+	}
+
+	@After
+	@Sudo
+	public void destroy() {
+		doc.delete();
+		assertNull(OEntityCache.get().getEntity(ProcessDefinitionEntityHandler.OCLASS_NAME, id));
+	}
+
+	@Test
+	@Sudo
+	public void testSelectById() {
+		OEntityCache cache = OEntityCache.get();
+		assertNull(cache.getEntity(ProcessDefinitionEntityHandler.OCLASS_NAME, id));
+		ProcessDefinitionEntity first = session.selectById(ProcessDefinitionEntity.class, id);
+		assertEquals("Cache Test", first.getName());
+		assertEquals(-1, session.getCacheStamp());
+		assertNotNull(cache.getEntity(ProcessDefinitionEntityHandler.OCLASS_NAME, id));
+
+		ProcessDefinitionEntity second = session.selectById(ProcessDefinitionEntity.class, id);
+		assertNotSame(first, second);
+		assertEquals("Cache Test", second.getName());
+		assertEquals(first.getRevision(), second.getRevision());
+
+		doc.field("name", "Changed");
+		doc.save();
+		assertNull(cache.getEntity(ProcessDefinitionEntityHandler.OCLASS_NAME, id));
+		ProcessDefinitionEntity changed = session.selectById(ProcessDefinitionEntity.class, id);
+		assertEquals("Changed", changed.getName());
+		assertEquals(doc.getVersion(), changed.getRevision());
+	}
+
+	@Test
+	@Sudo
+	public void testSelectOne() {
+		OEntityCache cache = OEntityCache.get();
+		Map<String, Object> params = new HashMap<>();
+		params.put("processDefinitionKey", KEY);
+		String statementKey = OEntityCache.toStatementKey(STATEMENT, params);
+
+		ProcessDefinitionEntity first = (ProcessDefinitionEntity) session.selectOne(STATEMENT, params);
+		assertEquals(id, first.getId());
+		assertEquals(id, cache.getStatementResult(ProcessDefinitionEntityHandler.OCLASS_NAME, statementKey));
+		assertEquals(-1, session.getCacheStamp());
+
+		ODocument newer = new ODocument(ProcessDefinitionEntityHandler.OCLASS_NAME);
+		newer.field("name", "Cache Test 2");
+		newer.field("key", KEY);
+		newer.field("suspensionState", 1);
+		newer.save();
+		try {
+			assertNull(cache.getStatementResult(ProcessDefinitionEntityHandler.OCLASS_NAME, statementKey));
+			ProcessDefinitionEntity latest = (ProcessDefinitionEntity) session.selectOne(STATEMENT, params);
+			assertEquals(newer.field("id"), latest.getId());
+		} finally {
+			newer.delete();
+		}
+	}
+
+	@Test
+	@Sudo
+	public void testCachedBytesAreNotShared() {
+		ODocument bytesDoc = new ODocument(ByteArrayEntityHandler.OCLASS_NAME);
+		bytesDoc.field("name", "Cache Test");
+		bytesDoc.field("bytes", new byte[]{1, 2, 3});
+		bytesDoc.save();
+		try {
+			String bytesId = bytesDoc.field("id");
+			ByteArrayEntity first = session.selectById(ByteArrayEntity.class, bytesId);
+			assertNotNull(OEntityCache.get().getEntity(ByteArrayEntityHandler.OCLASS_NAME, bytesId));
+			first.getBytes()[0] = 9;
+			ByteArrayEntity second = session.selectById(ByteArrayEntity.class, bytesId);
+			assertArrayEquals(new byte[]{1, 2, 3}, second.getBytes());
+			second.getBytes()[1] = 9;
+			assertArrayEquals(new byte[]{1, 2, 3}, session.selectById(ByteArrayEntity.class, bytesId).getBytes());
+		} finally {
+			bytesDoc.delete();
+		}
+	}
+}
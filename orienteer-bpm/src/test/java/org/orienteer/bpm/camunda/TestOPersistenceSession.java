@@ -0,0 +1,83 @@
+package org.orienteer.bpm.camunda;
+
+import static org.junit.Assert.*;
+
+import java.util.UUID;
+
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbEntityOperation;
+import org.camunda.bpm.engine.impl.db.entitymanager.operation.DbOperationType;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.bpm.camunda.handler.ProcessDefinitionEntityHandler;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.junit.Sudo;
+
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+
+/**
+ * Test of execution of {@link org.camunda.bpm.engine.impl.db.entitymanager.operation.DbOperation}s by {@link OPersistenceSession}
+ */
+@RunWith(OrienteerTestRunner.class)
+@Singleton
+public class TestOPersistenceSession {
+
+	@Test
+	@Sudo
+	public void testOperationIsExecutedImmediately() {
+		OPersistenceSession session = newSession();
+		ProcessDefinitionEntity entity = new ProcessDefinitionEntity();
+		entity.setId(UUID.randomUUID().toString());
+		entity.setKey("persistenceSessionTest");
+		entity.setName("Insert Test");
+		entity.setSuspensionState(1);
+		DbEntityOperation operation = operation(DbOperationType.INSERT, entity);
+		session.executeDbOperation(operation);
+		try {
+			assertFalse(operation.isFailed());
+			ProcessDefinitionEntity inserted = session.selectById(ProcessDefinitionEntity.class, entity.getId());
+			assertNotNull(inserted);
+			assertEquals("Insert Test", inserted.getName());
+		} finally {
+			session.rollback();
+		}
+		assertNull(session.selectById(ProcessDefinitionEntity.class, entity.getId()));
+	}
+
+	@Test
+	@Sudo
+	public void testUpdateOfRemovedEntityIsFailed() {
+		ODocument doc = new ODocument(ProcessDefinitionEntityHandler.OCLASS_NAME);
+		doc.field("name", "Update Test");
+		doc.field("key", "persistenceSessionTest");
+		doc.field("suspensionState", 1);
+		doc.save();
+		OPersistenceSession session = newSession();
+		ProcessDefinitionEntity entity = session.selectById(ProcessDefinitionEntity.class, (String) doc.field("id"));
+		assertNotNull(entity);
+		doc.delete();
+		OEntityCache.get().clear();
+
+		entity.setName("Changed");
+		DbEntityOperation operation = operation(DbOperationType.UPDATE, entity);
+		session.executeDbOperation(operation);
+		session.rollback();
+		assertTrue(operation.isFailed());
+	}
+
+	private static OPersistenceSession newSession() {
+		return new OPersistenceSession((ODatabaseSession) OrientDbWebSession.get().getDatabase());
+	}
+
+	private static DbEntityOperation operation(DbOperationType type, ProcessDefinitionEntity entity) {
+		DbEntityOperation operation = new DbEntityOperation();
+		operation.setOperationType(type);
+		operation.setEntity(entity);
+		operation.setEntityType(ProcessDefinitionEntity.class);
+		return operation;
+	}
+}
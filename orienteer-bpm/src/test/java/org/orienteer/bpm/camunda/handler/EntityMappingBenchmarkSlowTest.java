@@ -0,0 +1,72 @@
+package org.orienteer.bpm.camunda.handler;
+
+import static org.junit.Assert.*;
+
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.bpm.camunda.OPersistenceSession;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.junit.Sudo;
+
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+
+/**
+ * Benchmark of mapping between entities and {@link ODocument}s by {@link AbstractEntityHandler}.
+ * Number of iterations can be specified by system property 'orienteer.bpm.benchmark.mappings'
+ */
+@RunWith(OrienteerTestRunner.class)
+@Singleton
+public class EntityMappingBenchmarkSlowTest {
+
+	private static final int MAPPINGS = Integer.getInteger("orienteer.bpm.benchmark.mappings", 1000000);
+	private static final int WARMUP = Math.min(MAPPINGS, 10000);
+
+	@Test
+	@Sudo
+	public void benchmark() {
+		ProcessDefinitionEntityHandler handler = HandlersManager.get().getHandlerByClass(ProcessDefinitionEntityHandler.class);
+		OPersistenceSession session = new OPersistenceSession((ODatabaseSession) OrientDbWebSession.get().getDatabase());
+		ODocument deployment = new ODocument(DeploymentEntityHandler.OCLASS_NAME);
+		deployment.field("id", "benchmark-deployment");
+		session.cacheODocument(deployment);
+
+		ProcessDefinitionEntity entity = new ProcessDefinitionEntity();
+		entity.setId("benchmark");
+		entity.setName("Benchmark");
+		entity.setKey("benchmark");
+		entity.setCategory("benchmark");
+		entity.setResourceName("benchmark.bpmn");
+		entity.setSuspensionState(1);
+		entity.setDeploymentId("benchmark-deployment");
+
+		run(handler, session, entity, WARMUP);
+		long toDoc = System.nanoTime();
+		ODocument doc = run(handler, session, entity, MAPPINGS);
+		toDoc = System.nanoTime() - toDoc;
+
+		long toEntity = System.nanoTime();
+		ProcessDefinitionEntity mapped = null;
+		for (int i = 0; i < MAPPINGS; i++) {
+			mapped = handler.mapToEntity(doc, null, session);
+		}
+		toEntity = System.nanoTime() - toEntity;
+		assertEquals("benchmark-deployment", mapped.getDeploymentId());
+
+		System.out.printf("Mapping of %d entities: to document %d ms (%.0f ops/s), to entity %d ms (%.0f ops/s)%n",
+				MAPPINGS, toDoc / 1000000, MAPPINGS * 1e9 / toDoc, toEntity / 1000000, MAPPINGS * 1e9 / toEntity);
+	}
+
+	private static ODocument run(ProcessDefinitionEntityHandler handler, OPersistenceSession session,
+								 ProcessDefinitionEntity entity, int times) {
+		ODocument doc = null;
+		for (int i = 0; i < times; i++) {
+			doc = handler.mapToODocument(entity, null, session);
+		}
+		return doc;
+	}
+}
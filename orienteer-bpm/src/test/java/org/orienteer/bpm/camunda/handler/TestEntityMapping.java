@@ -0,0 +1,147 @@
+package org.orienteer.bpm.camunda.handler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.bpm.camunda.OPersistenceSession;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.junit.Sudo;
+
+import com.github.raymanrt.orientqb.query.Query;
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+
+/**
+ * Test of precompiled mapping between entities and {@link ODocument}s in {@link AbstractEntityHandler}
+ */
+@RunWith(OrienteerTestRunner.class)
+@Singleton
+public class TestEntityMapping {
+
+	private static final String DEPLOYMENT_ID = "mapping-test-deployment";
+
+	private ProcessDefinitionEntityHandler handler;
+	private OPersistenceSession session;
+	private ODocument deployment;
+
+	@Before
+	@Sudo
+	public void init() {
+		handler = HandlersManager.get().getHandlerByClass(ProcessDefinitionEntityHandler.class);
+		assertNotNull(handler);
+		session = new OPersistenceSession((ODatabaseSession) OrientDbWebSession.get().getDatabase());
+		deployment = new ODocument(DeploymentEntityHandler.OCLASS_NAME);
+		deployment.field("id", DEPLOYMENT_ID);
+		session.cacheODocument(deployment);
+	}
+
+	@Test
+	@Sudo
+	public void testMapToDocumentAndBack() {
+		ProcessDefinitionEntity entity = newEntity();
+		ODocument doc = handler.mapToODocument(entity, null, session);
+		assertEquals(ProcessDefinitionEntityHandler.OCLASS_NAME, doc.getClassName());
+		assertEquals("mapping-test", doc.field("id"));
+		assertEquals("Mapping Test", doc.field("name"));
+		assertEquals("mappingTest", doc.field("key"));
+		assertEquals(2, (Object) doc.field("suspensionState"));
+		assertSame(deployment, doc.field("deployment"));
+
+		ProcessDefinitionEntity mapped = handler.mapToEntity(doc, null, session);
+		assertNotSame(entity, mapped);
+		assertEquals("mapping-test", mapped.getId());
+		assertEquals("Mapping Test", mapped.getName());
+		assertEquals("mappingTest", mapped.getKey());
+		assertEquals(2, mapped.getSuspensionState());
+		assertEquals(DEPLOYMENT_ID, mapped.getDeploymentId());
+	}
+
+	@Test
+	@Sudo
+	public void testNullIsNotSetToPrimitive() {
+		ODocument doc = handler.mapToODocument(newEntity(), null, session);
+		doc.field("suspensionState", (Object) null);
+		doc.field("deployment", (Object) null);
+		ProcessDefinitionEntity entity = newEntity();
+		handler.mapToEntity(doc, entity, session);
+		assertEquals(2, entity.getSuspensionState());
+		assertNull(entity.getDeploymentId());
+	}
+
+	@Test
+	@Sudo
+	public void testUnchangedFieldsAreNotSet() {
+		ProcessDefinitionEntity entity = newEntity();
+		ODocument doc = handler.mapToODocument(entity, null, session);
+		ORecordInternal.unsetDirty(doc);
+		handler.mapToODocument(entity, doc, session);
+		assertFalse(doc.isDirty());
+
+		entity.setName("Changed Name");
+		handler.mapToODocument(entity, doc, session);
+		assertTrue(doc.isDirty());
+		assertEquals("Changed Name", doc.field("name"));
+
+		entity.setDeploymentId(null);
+		handler.mapToODocument(entity, doc, session);
+		assertNull(doc.field("deployment"));
+	}
+
+	@Test
+	public void testStatementDispatch() {
+		assertTrue(handler.getStatements().contains("selectProcessDefinitionsByQueryCriteria"));
+		assertTrue(handler.supportsStatement("selectProcessDefinitionsByQueryCriteria"));
+		assertSame(handler, HandlersManager.get().getHandler("selectProcessDefinitionsByQueryCriteria"));
+		assertFalse(handler.supportsStatement("selectNotExistingStatement"));
+		assertNull(HandlersManager.get().getHandlerSafe("selectNotExistingStatement"));
+	}
+
+	@Test
+	@Sudo
+	public void testWhereByQueryMapping() {
+		ODocument task = new ODocument(TaskEntityHandler.OCLASS_NAME);
+		task.field("name", "Query Mapping Test");
+		task.save();
+		try {
+			TaskEntityHandler taskHandler = HandlersManager.get().getHandlerByClass(TaskEntityHandler.class);
+			Map<String, Object> params = new HashMap<>();
+			params.put("taskId", task.field("id"));
+			Query q = new Query().from(TaskEntityHandler.OCLASS_NAME);
+			List<Object> args = new ArrayList<>();
+			taskHandler.enrichWhereByMap(session, q, session.getClass(TaskEntityHandler.OCLASS_NAME), params, args, null);
+			assertEquals(Arrays.asList((Object) task.field("id")), args);
+			List<ORID> found = session.getDatabase().query(q.toString(), args.toArray())
+											.elementStream()
+											.map(e -> e.getIdentity())
+											.collect(Collectors.toList());
+			assertEquals(Arrays.asList(task.getIdentity()), found);
+		} finally {
+			task.delete();
+		}
+	}
+
+	private static ProcessDefinitionEntity newEntity() {
+		ProcessDefinitionEntity entity = new ProcessDefinitionEntity();
+		entity.setId("mapping-test");
+		entity.setName("Mapping Test");
+		entity.setKey("mappingTest");
+		entity.setSuspensionState(2);
+		entity.setDeploymentId(DEPLOYMENT_ID);
+		return entity;
+	}
+}
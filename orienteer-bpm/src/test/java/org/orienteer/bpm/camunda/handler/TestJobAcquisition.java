@@ -0,0 +1,177 @@
+package org.orienteer.bpm.camunda.handler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.ThreadContext;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.MessageEntity;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.bpm.camunda.OPersistenceSession;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.junit.Sudo;
+
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+/**
+ * Test of claiming of jobs by {@link JobEntityHandler}
+ */
+@RunWith(OrienteerTestRunner.class)
+@Singleton
+public class TestJobAcquisition {
+
+	private static final String HANDLER_TYPE = "acquisition-test";
+	private static final String CONDITION = " and jobHandlerType = '"+HANDLER_TYPE+"'";
+	private static final long LOCK_TIME = TimeUnit.MINUTES.toMillis(5);
+
+	private JobEntityHandler handler;
+	private List<ODocument> jobs = new ArrayList<>();
+
+	@Before
+	public void init() {
+		handler = HandlersManager.get().getHandlerByClass(JobEntityHandler.class);
+		assertNotNull(handler);
+	}
+
+	@After
+	public void destroy() {
+		DBClosure.sudoConsumer(db -> jobs.forEach(job -> db.delete(job.getIdentity())));
+		jobs.clear();
+	}
+
+	@Test
+	@Sudo
+	public void testLockedJobIsNotAcquiredTwice() {
+		for(int i=0; i<3; i++) createJob(false, null, null);
+		Set<String> first = acquire("first", "", 10);
+		assertEquals(ids(jobs), first);
+		assertTrue(acquire("second", "", 10).isEmpty());
+		assertTrue(acquire("first", "", 10).isEmpty());
+		for(ODocument job : jobs) {
+			job.reload();
+			assertEquals("first", job.field("lockOwner"));
+			assertNotNull(job.field("lockExpirationTime"));
+		}
+	}
+
+	@Test
+	@Sudo
+	public void testExpiredLockIsAcquired() {
+		Date now = ClockUtil.getCurrentTime();
+		ODocument expired = createJob(false, "other", new Date(now.getTime() - LOCK_TIME));
+		createJob(false, "other", new Date(now.getTime() + LOCK_TIME));
+		Set<String> acquired = acquire("owner", "", 10);
+		assertEquals(ids(expired), acquired);
+		expired.reload();
+		assertEquals("owner", expired.field("lockOwner"));
+	}
+
+	@Test
+	@Sudo
+	public void testExclusiveJobs() {
+		ODocument exclusive = createJob(true, null, null);
+		ODocument notExclusive = createJob(false, null, null);
+		assertEquals(ids(exclusive), acquire("owner", " and exclusive = true", 10));
+		assertEquals(ids(notExclusive), acquire("owner", "", 10));
+	}
+
+	@Test
+	@Sudo
+	public void testConcurrentAcquisition() throws Exception {
+		for(int i=0; i<30; i++) createJob(i % 2 == 0, null, null);
+		Application app = Application.get();
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<List<String>> first = executor.submit(acquireAll(app, barrier, "first"));
+			Future<List<String>> second = executor.submit(acquireAll(app, barrier, "second"));
+			List<String> firstIds = first.get(1, TimeUnit.MINUTES);
+			List<String> secondIds = second.get(1, TimeUnit.MINUTES);
+
+			Set<String> all = new HashSet<>(firstIds);
+			all.addAll(secondIds);
+			assertEquals("Job was claimed twice", firstIds.size() + secondIds.size(), all.size());
+			assertEquals("Job was lost", ids(jobs), all);
+			for(ODocument job : jobs) {
+				job.reload();
+				String owner = firstIds.contains(job.field("id")) ? "first" : "second";
+				assertEquals(owner, job.field("lockOwner"));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Callable<List<String>> acquireAll(Application app, CyclicBarrier barrier, String lockOwner) {
+		return () -> {
+			ThreadContext.setApplication(app);
+			try {
+				barrier.await(1, TimeUnit.MINUTES);
+				return DBClosure.sudo(db -> {
+					OPersistenceSession session = new OPersistenceSession((ODatabaseSession) db);
+					List<String> ret = new ArrayList<>();
+					List<JobEntity> acquired;
+					do {
+						acquired = handler.acquireJobs(session, ClockUtil.getCurrentTime(), CONDITION, null, 4, lockOwner, LOCK_TIME);
+						acquired.forEach(job -> ret.add(job.getId()));
+					} while(!acquired.isEmpty());
+					return ret;
+				});
+			} finally {
+				ThreadContext.detach();
+			}
+		};
+	}
+
+	private Set<String> acquire(String lockOwner, String extraCondition, int maxResults) {
+		OPersistenceSession session = new OPersistenceSession((ODatabaseSession) OrientDbWebSession.get().getDatabase());
+		return handler.acquireJobs(session, ClockUtil.getCurrentTime(), CONDITION+extraCondition, null, maxResults, lockOwner, LOCK_TIME)
+							.stream().map(JobEntity::getId).collect(Collectors.toSet());
+	}
+
+	private ODocument createJob(boolean exclusive, String lockOwner, Date lockExpirationTime) {
+		ODocument job = new ODocument(JobEntityHandler.OCLASS_NAME);
+		job.field("type", MessageEntity.TYPE);
+		job.field("jobHandlerType", HANDLER_TYPE);
+		job.field("suspensionState", 1);
+		job.field("retries", 3);
+		job.field("exclusive", exclusive);
+		job.field("lockOwner", lockOwner);
+		job.field("lockExpirationTime", lockExpirationTime);
+		job.save();
+		jobs.add(job);
+		return job;
+	}
+
+	private static Set<String> ids(ODocument... docs) {
+		Set<String> ret = new HashSet<>();
+		for(ODocument doc : docs) ret.add(doc.field("id"));
+		return ret;
+	}
+
+	private static Set<String> ids(List<ODocument> docs) {
+		return ids(docs.toArray(new ODocument[docs.size()]));
+	}
+}
@@ -1,9 +1,8 @@
 package org.orienteer.camel;
 
-import java.util.concurrent.ConcurrentHashMap;
-
-import org.apache.camel.CamelContext;
 import org.orienteer.camel.component.OIntegrationConfig;
+import org.orienteer.camel.component.OIntegrationMetrics;
+import org.orienteer.camel.component.OIntegrationRuntime;
 import org.orienteer.camel.tasks.OCamelTaskSession;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.method.OMethodsManager;
@@ -49,7 +48,8 @@ public class Module extends AbstractOrienteerModule{
 	public void onInitialize(OrienteerWebApplication app, ODatabaseSession db) {
 		super.onInitialize(app, db);
 		
-		app.setMetaData(OIntegrationConfig.INTEGRATION_SESSIONS_KEY, new ConcurrentHashMap<String,CamelContext>());
+		OIntegrationRuntime.install(app);
+		OIntegrationMetrics.register();
 		app.mountPages("org.orienteer.camel.web");
 		//app.registerWidgets("org.orienteer.camel.widget");
 		OMethodsManager.get().addModule(Module.class);
@@ -67,6 +67,8 @@ public class Module extends AbstractOrienteerModule{
 	
 	@Override
 	public void onDestroy(OrienteerWebApplication app, ODatabaseSession db) {
+		OIntegrationRuntime.uninstall(app);
+		OIntegrationMetrics.unregister();
 		super.onDestroy(app, db);
 		app.unmountPages("org.orienteer.camel.web");
 		//app.unregisterWidgets("org.orienteer.camel.widget");
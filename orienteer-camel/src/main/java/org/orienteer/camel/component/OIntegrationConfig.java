@@ -6,9 +6,7 @@ import org.apache.camel.ServiceStatus;
 import org.apache.camel.impl.DefaultCamelContext;
 import org.apache.camel.model.RouteDefinition;
 import org.apache.camel.model.RoutesDefinition;
-import org.apache.wicket.Application;
 import org.apache.wicket.Component;
-import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.authorization.UnauthorizedActionException;
 import org.orienteer.camel.behavior.OIntegrationConfigStopBehavior;
 import org.orienteer.camel.tasks.CamelEventHandler;
@@ -42,11 +40,8 @@ public class OIntegrationConfig extends OTask {
     private static final Logger LOG = LoggerFactory.getLogger(OIntegrationConfig.class);
 	private static final long serialVersionUID = 1L;
 	public static final String TASK_CLASS = "OIntegrationConfig";
+	public static final String INTEGRATION_POOL = "integration";
 	
-	public static final MetaDataKey<Map<String,CamelContext>> INTEGRATION_SESSIONS_KEY = new MetaDataKey<Map<String,CamelContext>>()
-	{
-		private static final long serialVersionUID = 1L;
-	};
 /////////////////////////////////////////////////////////////////////////////////////////////////////	
 	@OMethod(
 			order=10,bootstrap=BootstrapType.SUCCESS,icon = FAIconType.play,
@@ -59,25 +54,18 @@ public class OIntegrationConfig extends OTask {
 	)
 	public void start(IMethodContext data){
 		final CamelContext context = getOrMakeContextByRid(getDocument().getIdentity().toString(),data.getCurrentWidget());
-		new Thread(new Runnable() {
-			@Override
-			public void run() {
-				try {
-					if (context.getStatus().isSuspended()){
-						context.resume();
-						//target.add(CamelWidget.this.form);
-					}else if (!context.getStatus().isStarted()){
-						clearContext(context);
-						String script = getDocument().field("script");
-						RoutesDefinition routes = context.loadRoutesDefinition(new ByteArrayInputStream( script.getBytes()));
-						context.addRouteDefinitions(routes.getRoutes());
-						context.start();
-					}
-				} catch (Exception e) {
-					LOG.error("Cannot start or resume Camel Context",e);
-				}
-			}
-		}).start();
+		try {
+			OIntegrationRuntime.get().start(context, c -> {
+				clearContext(c);
+				String script = getDocument().field("script");
+				RoutesDefinition routes = c.loadRoutesDefinition(new ByteArrayInputStream( script.getBytes()));
+				c.addRouteDefinitions(routes.getRoutes());
+				c.start();
+			});
+		} catch (IllegalStateException e) {
+			data.getCurrentWidget().error(e.getMessage());
+			return;
+		}
 		waitingRefresh(context);
 	}
 /////////////////////////////////////////////////////////////////////////////////////////////////////	
@@ -90,14 +78,9 @@ public class OIntegrationConfig extends OTask {
 			behaviors={OIntegrationConfigStopBehavior.class}
 	)
 	public void stop(IMethodContext data){
-
 		CamelContext context = getOrMakeContextByRid(getDocument().getIdentity().toString(),data.getCurrentWidget());
-		try {
-			context.stop();
-		} catch (Exception e) {
-			LOG.error("Cannot stop Camel Context",e);
-		}
-		waitingRefresh(context);		
+		OIntegrationRuntime.get().stop(context);
+		waitingRefresh(context);
 	} 
 /////////////////////////////////////////////////////////////////////////////////////////////////////	
 	@OMethod(
@@ -110,21 +93,7 @@ public class OIntegrationConfig extends OTask {
 	)
 	public void suspend(IMethodContext data){
 			final CamelContext context = getOrMakeContext(data.getCurrentWidget());
-			new Thread(new Runnable() {
-				@Override
-				public void run() {
-					try {
-						ServiceStatus status = context.getStatus();
-						if (status.isSuspended()){
-							context.start();
-						}else if(status.isStarted()){
-							context.suspend();
-						}
-					} catch (Exception e) {
-						LOG.error("Cannot start or suspend Camel Context",e);
-					}
-				}
-			}).start();			
+			OIntegrationRuntime.get().suspend(context);
 			waitingRefresh(context);
 	}
 /////////////////////////////////////////////////////////////////////////////////////////////////////	
@@ -133,26 +102,25 @@ public class OIntegrationConfig extends OTask {
 	}
 
 	public CamelContext getOrMakeContextByRid(String rid,Component component){
-		CamelContext context;
-		Map<String,CamelContext> contextMap = Application.get().getMetaData(INTEGRATION_SESSIONS_KEY);
-		if (contextMap.containsKey(rid)){
-			context = contextMap.get(rid);
-		}else{
+		OIntegrationRuntime runtime = OIntegrationRuntime.get();
+		CamelContext context = runtime.getContext(rid);
+		if (context==null){
 			IOrientDbSettings dbSettings = OrientDbWebApplication.get().getOrientDbSettings();
 			OrientDbWebSession session = OrientDbWebSession.get();
 			if (session.getUsername()==null){
 				throw new UnauthorizedActionException(component, Component.RENDER);
 			}
-			context = new DefaultCamelContext();
-			Map<String, String> properties = context.getProperties();
-			properties.put(OrientDBComponent.DB_URL, dbSettings.getDbType() + ":" + dbSettings.getDbName());
-			properties.put(OrientDBComponent.DB_USERNAME, session.getUsername());
-			properties.put(OrientDBComponent.DB_PASSWORD, session.getPassword());
-			context.setProperties(properties);
-			
-			context.getManagementStrategy().addEventNotifier(new CamelEventHandler(new OCamelTaskSessionCallback(context),this,context));
-
-			contextMap.put(rid, context);
+			context = runtime.getOrCreateContext(rid, () -> {
+				CamelContext newContext = new DefaultCamelContext();
+				Map<String, String> properties = newContext.getProperties();
+				properties.put(OrientDBComponent.DB_URL, dbSettings.getDbType() + ":" + dbSettings.getDbName());
+				properties.put(OrientDBComponent.DB_USERNAME, session.getUsername());
+				properties.put(OrientDBComponent.DB_PASSWORD, session.getPassword());
+				newContext.setProperties(properties);
+				
+				newContext.getManagementStrategy().addEventNotifier(new CamelEventHandler(new OCamelTaskSessionCallback(newContext),this,newContext,runtime));
+				return newContext;
+			});
 		}
 		return context;
 	}
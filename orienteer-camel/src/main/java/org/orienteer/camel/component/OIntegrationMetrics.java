@@ -0,0 +1,61 @@
+package org.orienteer.camel.component;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+
+/**
+ * Per route metrics of integrations: number of processed exchanges and their latency.
+ * Metrics are registered in default Prometheus registry, so they are exported by 'metrics' module if it's installed
+ */
+public final class OIntegrationMetrics {
+
+	private static final Counter COUNTER_EXCHANGES = Counter.build()
+															.namespace("camel")
+															.name("exchanges_total")
+															.help("Total number of completed exchanges per route")
+															.labelNames("context", "route", "status")
+															.create();
+
+	private static final Histogram HISTOGRAM_EXCHANGES = Histogram.build()
+															.namespace("camel")
+															.name("exchange_duration_seconds")
+															.help("Processing time of exchanges per route")
+															.labelNames("context", "route")
+															.buckets(0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 60)
+															.create();
+
+	private static volatile boolean registered = false;
+
+	private OIntegrationMetrics() {
+	}
+
+	public static synchronized void register() {
+		if(!registered) {
+			CollectorRegistry.defaultRegistry.register(COUNTER_EXCHANGES);
+			CollectorRegistry.defaultRegistry.register(HISTOGRAM_EXCHANGES);
+			registered = true;
+		}
+	}
+
+	public static synchronized void unregister() {
+		if(registered) {
+			CollectorRegistry.defaultRegistry.unregister(COUNTER_EXCHANGES);
+			CollectorRegistry.defaultRegistry.unregister(HISTOGRAM_EXCHANGES);
+			registered = false;
+		}
+	}
+
+	/**
+	 * Record completed exchange
+	 * @param context name of camel context
+	 * @param route id of a route or null
+	 * @param failed true if exchange was failed
+	 * @param durationMs processing time of the exchange in milliseconds or negative if unknown
+	 */
+	public static void record(String context, String route, boolean failed, long durationMs) {
+		String routeLabel = route!=null?route:"";
+		COUNTER_EXCHANGES.labels(context, routeLabel, failed?"failed":"completed").inc();
+		if(durationMs>=0) HISTOGRAM_EXCHANGES.labels(context, routeLabel).observe(durationMs / 1000.0);
+	}
+}
@@ -0,0 +1,293 @@
+package org.orienteer.camel.component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ServiceStatus;
+import org.apache.camel.ThreadPoolRejectedPolicy;
+import org.apache.camel.builder.ThreadPoolProfileBuilder;
+import org.apache.camel.spi.ThreadPoolProfile;
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.orienteer.camel.tasks.CamelEventHandler;
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.core.service.Orienteer;
+import org.orienteer.core.tasks.OTaskExecutor;
+import org.orienteer.core.tasks.OTaskManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Key;
+
+/**
+ * Runtime for {@link CamelContext}s of {@link OIntegrationConfig}s.
+ * Runtime limits number of concurrently running contexts, applies the same thread pool profile to all contexts,
+ * periodically flushes events collected by {@link CamelEventHandler}s and stops all contexts on shutdown.
+ * Runtime can be configured by properties: orienteer.camel.maxRunningContexts, orienteer.camel.pool.size,
+ * orienteer.camel.pool.maxSize, orienteer.camel.pool.queue, orienteer.camel.events.interval, orienteer.camel.events.max
+ */
+public class OIntegrationRuntime {
+	private static final Logger LOG = LoggerFactory.getLogger(OIntegrationRuntime.class);
+
+	public static final MetaDataKey<OIntegrationRuntime> INTEGRATION_RUNTIME_KEY = new MetaDataKey<OIntegrationRuntime>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	public static final String PROPERTY_PREFIX = "orienteer.camel.";
+	public static final String THREAD_POOL_PROFILE = "orienteer";
+	public static final int DEFAULT_MAX_RUNNING_CONTEXTS = 10;
+	public static final int DEFAULT_POOL_SIZE = 4;
+	public static final int DEFAULT_MAX_POOL_SIZE = 16;
+	public static final int DEFAULT_MAX_QUEUE_SIZE = 1000;
+	public static final long DEFAULT_EVENTS_INTERVAL = 1000;
+	public static final int DEFAULT_MAX_EVENTS = 100;
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+	private final Map<String, CamelContext> contexts = new ConcurrentHashMap<>();
+	private final Set<CamelEventHandler> handlers = ConcurrentHashMap.newKeySet();
+	private final Set<CamelContext> pendingStarts = ConcurrentHashMap.newKeySet();
+	private final Future<?> flusher;
+	private final int maxRunningContexts;
+	private final int poolSize;
+	private final int maxPoolSize;
+	private final int maxQueueSize;
+	private final long eventsInterval;
+	private final int maxEvents;
+
+	/**
+	 * @param properties properties to configure runtime
+	 * @param executor pool to flush events in
+	 */
+	public OIntegrationRuntime(Properties properties, OTaskExecutor executor) {
+		maxRunningContexts = getIntProperty(properties, "maxRunningContexts", DEFAULT_MAX_RUNNING_CONTEXTS);
+		poolSize = getIntProperty(properties, "pool.size", DEFAULT_POOL_SIZE);
+		maxPoolSize = Math.max(poolSize, getIntProperty(properties, "pool.maxSize", DEFAULT_MAX_POOL_SIZE));
+		maxQueueSize = getIntProperty(properties, "pool.queue", DEFAULT_MAX_QUEUE_SIZE);
+		eventsInterval = getIntProperty(properties, "events.interval", (int) DEFAULT_EVENTS_INTERVAL);
+		maxEvents = getIntProperty(properties, "events.max", DEFAULT_MAX_EVENTS);
+		flusher = executor.schedule(this::flushEvents, eventsInterval, eventsInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Create runtime for the application
+	 * @param app application to install runtime to
+	 */
+	public static void install(OrienteerWebApplication app) {
+		Properties properties;
+		try {
+			properties = app.getInjector().getInstance(Key.get(Properties.class, Orienteer.class));
+		} catch (Exception e) {
+			properties = new Properties();
+		}
+		app.setMetaData(INTEGRATION_RUNTIME_KEY, 
+				new OIntegrationRuntime(properties, OTaskManager.get().getExecutor(OIntegrationConfig.INTEGRATION_POOL)));
+	}
+
+	/**
+	 * Stop all contexts and remove runtime from the application
+	 * @param app application to remove runtime from
+	 */
+	public static void uninstall(Application app) {
+		OIntegrationRuntime runtime = app.getMetaData(INTEGRATION_RUNTIME_KEY);
+		if(runtime!=null) {
+			runtime.shutdown(DEFAULT_SHUTDOWN_TIMEOUT);
+			app.setMetaData(INTEGRATION_RUNTIME_KEY, null);
+		}
+	}
+
+	public static OIntegrationRuntime get() {
+		OIntegrationRuntime runtime = Application.get().getMetaData(INTEGRATION_RUNTIME_KEY);
+		if(runtime==null) throw new IllegalStateException("Integration runtime is not installed");
+		return runtime;
+	}
+
+	private static int getIntProperty(Properties properties, String name, int defaultValue) {
+		String value = properties.getProperty(PROPERTY_PREFIX+name);
+		if(value==null) return defaultValue;
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Wrong value of property "+PROPERTY_PREFIX+name+": "+value);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Lookup context of an integration or create it
+	 * @param id id of integration config
+	 * @param factory factory for a new context
+	 * @return context of the integration
+	 */
+	public CamelContext getOrCreateContext(String id, Supplier<CamelContext> factory) {
+		return contexts.computeIfAbsent(id, k -> {
+			CamelContext context = factory.get();
+			context.getExecutorServiceManager().setDefaultThreadPoolProfile(newThreadPoolProfile());
+			return context;
+		});
+	}
+
+	public CamelContext getContext(String id) {
+		return contexts.get(id);
+	}
+
+	public Map<String, CamelContext> getContexts() {
+		return Collections.unmodifiableMap(contexts);
+	}
+
+	/**
+	 * All contexts use the same thread pool settings, so total number of threads is bounded by number of running contexts
+	 * @return new instance of thread pool profile for a context
+	 */
+	protected ThreadPoolProfile newThreadPoolProfile() {
+		return new ThreadPoolProfileBuilder(THREAD_POOL_PROFILE)
+						.poolSize(poolSize)
+						.maxPoolSize(maxPoolSize)
+						.maxQueueSize(maxQueueSize)
+						.keepAliveTime(60L)
+						.rejectedPolicy(ThreadPoolRejectedPolicy.CallerRuns)
+						.build();
+	}
+
+	/**
+	 * @return number of started or suspended contexts including contexts which are going to be started
+	 */
+	public int getRunningCount() {
+		int count = 0;
+		for(CamelContext context : contexts.values()) {
+			if(isRunning(context.getStatus()) || pendingStarts.contains(context)) count++;
+		}
+		return count;
+	}
+
+	private static boolean isRunning(ServiceStatus status) {
+		return status.isStarted() || status.isStarting() || status.isSuspended() || status.isSuspending();
+	}
+
+	/**
+	 * Start or resume a context in background
+	 * @param context context to start
+	 * @param starter action to configure and start not running context
+	 * @throws IllegalStateException if max number of running contexts was reached
+	 */
+	public synchronized void start(CamelContext context, ContextAction starter) {
+		ServiceStatus status = context.getStatus();
+		if(!isRunning(status) && !pendingStarts.contains(context) && getRunningCount()>=maxRunningContexts) {
+			throw new IllegalStateException("Max number of running integrations ("+maxRunningContexts+") was reached");
+		}
+		pendingStarts.add(context);
+		try {
+			execute(context, c -> {
+				try {
+					if(c.getStatus().isSuspended()) c.resume();
+					else if(!c.getStatus().isStarted()) starter.execute(c);
+				} finally {
+					pendingStarts.remove(c);
+				}
+			}, "start");
+		} catch (RuntimeException e) {
+			pendingStarts.remove(context);
+			throw e;
+		}
+	}
+
+	/**
+	 * Suspend started context or resume suspended one in background
+	 * @param context context to suspend or resume
+	 */
+	public void suspend(CamelContext context) {
+		execute(context, c -> {
+			ServiceStatus status = c.getStatus();
+			if(status.isSuspended()) c.resume();
+			else if(status.isStarted()) c.suspend();
+		}, "suspend");
+	}
+
+	/**
+	 * Stop context in background
+	 * @param context context to stop
+	 */
+	public void stop(CamelContext context) {
+		execute(context, CamelContext::stop, "stop");
+	}
+
+	private void execute(CamelContext context, ContextAction action, String actionName) {
+		OTaskManager.get().getExecutor(OIntegrationConfig.INTEGRATION_POOL).execute(() -> {
+			try {
+				action.execute(context);
+			} catch (Exception e) {
+				LOG.error("Cannot "+actionName+" Camel Context "+context.getName(), e);
+			}
+		});
+	}
+
+	public void register(CamelEventHandler handler) {
+		handlers.add(handler);
+	}
+
+	public void unregister(CamelEventHandler handler) {
+		handlers.remove(handler);
+	}
+
+	private void flushEvents() {
+		for(CamelEventHandler handler : handlers) {
+			try {
+				handler.flush(false);
+			} catch (Exception e) {
+				LOG.error("Can't flush events of integration", e);
+			}
+		}
+	}
+
+	/**
+	 * @return min interval in milliseconds between writes of events to task sessions
+	 */
+	public long getEventsInterval() {
+		return eventsInterval;
+	}
+
+	/**
+	 * @return max number of events to write to a task session per interval: other events are just counted
+	 */
+	public int getMaxEvents() {
+		return maxEvents;
+	}
+
+	public int getMaxRunningContexts() {
+		return maxRunningContexts;
+	}
+
+	/**
+	 * Stop all contexts
+	 * @param timeout max time in milliseconds to wait for every context
+	 */
+	public void shutdown(long timeout) {
+		flusher.cancel(false);
+		for(CamelContext context : contexts.values()) {
+			if(context.getStatus().isStopped()) continue;
+			try {
+				context.getShutdownStrategy().setTimeout(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeout)));
+				context.stop();
+			} catch (Exception e) {
+				LOG.error("Cannot stop Camel Context "+context.getName(), e);
+			}
+		}
+		contexts.clear();
+		handlers.clear();
+	}
+
+	/**
+	 * Action over a {@link CamelContext}
+	 */
+	@FunctionalInterface
+	public interface ContextAction {
+		public void execute(CamelContext context) throws Exception;
+	}
+}
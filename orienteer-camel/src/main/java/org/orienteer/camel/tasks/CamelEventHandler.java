@@ -1,80 +1,143 @@
 package org.orienteer.camel.tasks;
 
+import java.util.Date;
 import java.util.EventObject;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.management.event.AbstractExchangeEvent;
+import org.apache.camel.management.event.ExchangeCompletedEvent;
+import org.apache.camel.management.event.ExchangeFailedEvent;
 import org.apache.camel.management.event.ExchangeSentEvent;
 import org.apache.camel.support.EventNotifierSupport;
 import org.orienteer.camel.component.OIntegrationConfig;
+import org.orienteer.camel.component.OIntegrationMetrics;
+import org.orienteer.camel.component.OIntegrationRuntime;
 import org.orienteer.core.tasks.ITaskSessionCallback;
 import org.orienteer.core.tasks.OTask;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
- * To handle camel events
- *
+ * To handle camel events.
+ * Events are written to a task session in throttled way: not more than configured number of events per interval,
+ * progress of the session is updated periodically by {@link OIntegrationRuntime}
  */
 public class CamelEventHandler extends EventNotifierSupport{
-	
-	private static final Logger LOG = LoggerFactory.getLogger(CamelEventHandler.class);
+
 	private ITaskSessionCallback callback;
 	private volatile OCamelTaskSession taskSession;
 	private OIntegrationConfig config;
 	private CamelContext context;
-	
-	public CamelEventHandler(ITaskSessionCallback callback,OIntegrationConfig config,CamelContext context) {
+	private OIntegrationRuntime runtime;
+
+	private final AtomicLong sentExchanges = new AtomicLong();
+	private long flushedExchanges = 0;
+	private long windowStart = 0;
+	private int windowEvents = 0;
+	private long skippedEvents = 0;
+
+	public CamelEventHandler(ITaskSessionCallback callback,OIntegrationConfig config,CamelContext context,OIntegrationRuntime runtime) {
 		this.callback = callback;
 		this.config = config;
 		this.context = context;
+		this.runtime = runtime;
 	}
 
 	@Override
 	public void notify(EventObject event) throws Exception {
-        if (event instanceof ExchangeSentEvent) {
-        	ExchangeSentEvent sent = (ExchangeSentEvent) event;
-        	String logRecord ="Took " + sent.getTimeTaken() + " millis to send to: " + sent.getEndpoint(); 
-//        	LOG.info(logRecord);
-        	taskSession.incrementCurrentProgress();
-        }
-//        LOG.info("Event = "+ event);		
-    	taskSession.appendOut(event.toString());
+		if (event instanceof ExchangeSentEvent) {
+			sentExchanges.incrementAndGet();
+		} else if (event instanceof ExchangeCompletedEvent || event instanceof ExchangeFailedEvent) {
+			Exchange exchange = ((AbstractExchangeEvent) event).getExchange();
+			Date created = exchange.getProperty(Exchange.CREATED_TIMESTAMP, Date.class);
+			OIntegrationMetrics.record(context.getName(), exchange.getFromRouteId(), event instanceof ExchangeFailedEvent,
+										created!=null?System.currentTimeMillis()-created.getTime():-1);
+		}
+		appendEvent(event.toString());
+	}
+
+	private synchronized void appendEvent(String event) {
+		OCamelTaskSession session = taskSession;
+		if(session==null) return;
+		long now = System.currentTimeMillis();
+		if(now-windowStart>=runtime.getEventsInterval()) {
+			appendSkipped(session);
+			windowStart = now;
+			windowEvents = 0;
+		}
+		if(windowEvents<runtime.getMaxEvents()) {
+			windowEvents++;
+			session.appendOut(event);
+		} else {
+			skippedEvents++;
+		}
+	}
+
+	private void appendSkipped(OCamelTaskSession session) {
+		if(skippedEvents>0) {
+			session.appendOut("... "+skippedEvents+" events were skipped");
+			skippedEvents = 0;
+		}
+	}
+
+	/**
+	 * Write collected progress and number of skipped events to the task session
+	 * @param force write even if interval for events is not over
+	 */
+	public synchronized void flush(boolean force) {
+		OCamelTaskSession session = taskSession;
+		if(session==null) return;
+		if(force || System.currentTimeMillis()-windowStart>=runtime.getEventsInterval()) appendSkipped(session);
+		long sent = sentExchanges.get();
+		if(sent!=flushedExchanges) {
+			flushedExchanges = sent;
+			session.setCurrentProgress(sent);
+		}
 	}
 
 	@Override
 	public boolean isEnabled(EventObject event) {
 		return true;
 	}
-	
+
 	public void onAllRoutesComplete(){
+		flush(true);
 		if(taskSession!=null) {
 			taskSession.finish();
 			taskSession = null;
 		}
 	}
-	
+
 	@Override
 	protected void doStart() throws Exception {
-        LOG.info(Thread.currentThread().getName());		
-
-//		if (taskSession == null){
-			taskSession = new OCamelTaskSession();
-			taskSession.setOTask(config);
-			taskSession.setCallback(callback);
-			Object deleteOnFinish = config.getDocument().field(OTask.Field.AUTODELETE_SESSIONS.fieldName());
-			taskSession.setDeleteOnFinish(deleteOnFinish!=null?(Boolean)deleteOnFinish:false);
-			taskSession.setConfig(config.getDocument().getIdentity().toString());
-			taskSession.setFinalProgress(context.getRoutes().size());
-			taskSession.start();
-//		}
+		OCamelTaskSession session = new OCamelTaskSession();
+		session.setOTask(config);
+		session.setCallback(callback);
+		Object deleteOnFinish = config.getDocument().field(OTask.Field.AUTODELETE_SESSIONS.fieldName());
+		session.setDeleteOnFinish(deleteOnFinish!=null?(Boolean)deleteOnFinish:false);
+		session.setConfig(config.getDocument().getIdentity().toString());
+		session.setFinalProgress(context.getRoutes().size());
+		session.start();
+		synchronized (this) {
+			sentExchanges.set(0);
+			flushedExchanges = 0;
+			windowStart = 0;
+			windowEvents = 0;
+			skippedEvents = 0;
+			taskSession = session;
+		}
+		runtime.register(this);
 		super.doStart();
 	}
-	
+
 	@Override
 	protected void doStop() throws Exception {
-		if(taskSession!=null) taskSession.interrupt();
+		runtime.unregister(this);
+		flush(true);
+		OCamelTaskSession session = taskSession;
+		if(session!=null && session.isInterruptable()) session.interrupt();
 		super.doStop();
 	}
-	
+
 
 }
@@ -52,11 +52,15 @@ public class OCamelTaskSession extends OTaskSessionRuntime {
 	}
 	
 	public OCamelTaskSession appendOut(String out){
-		out = getOTaskSessionPersisted().getDocument().field(Field.OUTPUT.fieldName())+out+"\n";
-		getOTaskSessionPersisted().setField(Field.OUTPUT.fieldName(), out);
+		getOutput().append(out);
 		return this;
 	}
 	
+	@Override
+	protected String getOutputTailField() {
+		return Field.OUTPUT.fieldName();
+	}
+	
 	public OCamelTaskSession setConfig(String configId){
 		getOTaskSessionPersisted().setField(Field.CONFIG.fieldName(), new ORecordId(configId));
 		return this;
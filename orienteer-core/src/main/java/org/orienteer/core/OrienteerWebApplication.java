@@ -41,13 +41,16 @@ import org.orienteer.core.component.meta.WicketPropertyResolver;
 import org.orienteer.core.component.visualizer.UIVisualizersRegistry;
 import org.orienteer.core.hook.CalculablePropertiesHook;
 import org.orienteer.core.hook.CallbackHook;
+import org.orienteer.core.hook.DataVersionHook;
 import org.orienteer.core.hook.ReferencesConsistencyHook;
 import org.orienteer.core.method.OMethodsManager;
 import org.orienteer.core.module.*;
 import org.orienteer.core.orientd.plugin.OrienteerHazelcastPlugin;
 import org.orienteer.core.service.IOClassIntrospector;
 import org.orienteer.core.service.OrienteerEmbeddedStartupListener;
+import org.orienteer.core.tasks.OTaskManager;
 import org.orienteer.core.tasks.console.OConsoleTasksModule;
+import org.orienteer.core.tasks.export.ODatabaseExportTasksModule;
 import org.orienteer.core.util.WicketProtector;
 import org.orienteer.core.util.converter.ODateConverter;
 import org.orienteer.core.web.HomePage;
@@ -198,10 +201,12 @@ public class OrienteerWebApplication extends OrientDbWebApplication
 		registerModule(UserOnlineModule.class);
 		registerModule(TaskManagerModule.class);
 		registerModule(OConsoleTasksModule.class);
+		registerModule(ODatabaseExportTasksModule.class);
 		registerModule(OrienteerClusterModule.class);
 		getOrientDbSettings().addORecordHooks(CalculablePropertiesHook.class, 
 											  ReferencesConsistencyHook.class,
-											  CallbackHook.class);
+											  CallbackHook.class,
+											  DataVersionHook.class);
 		mountOrientDbRestApi();
 		if(authenticateLazy) getRequestCycleListeners().add(new LazyAuthorizationRequestCycleListener());
 		if(!Strings.isEmpty(corsOrigin)) {
@@ -252,6 +257,7 @@ public class OrienteerWebApplication extends OrientDbWebApplication
 
 	@Override
 	protected void onDestroy() {
+		OTaskManager.shutdown(this);
 		super.onDestroy();
 	}
 
@@ -53,9 +53,11 @@ public class OrienteerClassLoader extends URLClassLoader {
 
         List<OArtifact> modulesForLoad = Lists.newArrayList();
         Set<Path> paths = oArtifacts.keySet();
-        modulesForLoad.addAll(updateMetadataFromJars(manager, Lists.newArrayList(Sets.difference(jars, paths))));
-        modulesForLoad.addAll(oArtifacts.values());
-        modulesForLoad = filterModules(manager, modulesForLoad);
+        manager.updateMetadataInBatch(() -> {
+            List<OArtifact> modules = updateMetadataFromJars(manager, Lists.newArrayList(Sets.difference(jars, paths)));
+            modules.addAll(oArtifacts.values());
+            modulesForLoad.addAll(filterModules(manager, modules));
+        });
 
         if (modulesForLoad.size() != 0)
             LOG.info("Resolving dependencies for {} module(s). Please wait...", modulesForLoad.size());
@@ -25,7 +25,7 @@ public class UpdateModulesInMetadataTask extends AbstractTask implements Runnabl
     public void run() {
         InternalOModuleManager manager = getModuleManager();
         updateInfoAboutFiles(manager);
-        modulesForUpdate.forEach(manager::updateOArtifactInMetadata);
+        manager.updateMetadataInBatch(() -> modulesForUpdate.forEach(manager::updateOArtifactInMetadata));
         executeCallback();
     }
 
@@ -240,11 +240,26 @@ class AetherUtils implements IReindexSupport {
         return result;
     }
 
+    /**
+     * Resolve artifact requests in one batch, so Aether can process requests to the same repository together
+     * @param requests {@link Set<ArtifactRequest>} requests for resolve
+     * @return {@link List<ArtifactResult>} of successfully resolved artifacts
+     */
     private List<ArtifactResult> resolveArtifactRequests(Set<ArtifactRequest> requests) {
+        if (requests.isEmpty()) return Lists.newArrayList();
+        List<ArtifactResult> results;
+        try {
+            results = system.resolveArtifacts(session, requests);
+        } catch (ArtifactResolutionException e) {
+            results = e.getResults();
+            for (ArtifactResult result : results) {
+                if (!result.isResolved()) LOG.warn("Cannot resolve artifact: " + result.getRequest().getArtifact());
+            }
+            if (LOG.isDebugEnabled()) LOG.debug(e.getMessage(), e);
+        }
         List<ArtifactResult> artifactResults = Lists.newArrayList();
-        for (ArtifactRequest request : requests) {
-            ArtifactResult result = resolveArtifactRequest(request);
-            if (result != null) artifactResults.add(result);
+        for (ArtifactResult result : results) {
+            if (result.isResolved()) artifactResults.add(result);
         }
         return artifactResults;
     }
@@ -54,7 +54,7 @@ public class InternalOModuleManager implements IReindexSupport, Serializable {
         jarsManager = new OJarsManager(config.getPathToModulesFolder());
         metadataUtil = new MetadataUtil(config.getMetadataPath());
         aetherUtils = new AetherUtils(config.getMavenLocalRepository(), config.getRemoteRepositories());
-        mavenResolver = new MavenResolver(config.isResolvingDependenciesRecursively());
+        mavenResolver = new MavenResolver(config);
     }
 
 
@@ -432,6 +432,16 @@ public class InternalOModuleManager implements IReindexSupport, Serializable {
         updateOArtifactsInMetadata(new LinkedList<>(artifacts));
     }
 
+    /**
+     * Execute updates of metadata.xml in batch: metadata.xml is written once after all operations
+     * @param operations {@link Runnable} which updates metadata.xml through this manager
+     * @throws IllegalArgumentException if operations is null
+     */
+    public void updateMetadataInBatch(Runnable operations) {
+        Args.notNull(operations, "operations");
+        metadataUtil.batch(operations);
+    }
+
     /**
      * Read and get artifacts from metadata.xml
      * @return {@link List} artifacts from metadata.xml
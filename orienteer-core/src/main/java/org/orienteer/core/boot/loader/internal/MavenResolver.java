@@ -2,6 +2,7 @@ package org.orienteer.core.boot.loader.internal;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.collection.DependencyCollectionException;
@@ -16,15 +17,24 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 /**
  * Utility class for download maven dependencies.
+ * Independent artifacts are resolved concurrently. Resolved dependencies are stored in {@link ResolutionCache},
+ * so artifacts which are already resolved in local repository are not resolved again.
  */
 public class MavenResolver implements IReindexSupport {
 	
 	private static final Logger LOG = LoggerFactory.getLogger(MavenResolver.class);
 
     private boolean resolvingRecursively;
+    private int threads;
+    private ResolutionCache cache;
 
     private static final String UNKNOWN_GROUP_ID    = "UNKNOWN_GROUP_ID_";
     private static final String UNKNOWN_ARTIFACT_ID = "UNKNOWN_ARTIFACT_ID_";
@@ -32,13 +42,15 @@ public class MavenResolver implements IReindexSupport {
 
 
 
-    MavenResolver(boolean resolvingRecursively) {
-        this.resolvingRecursively = resolvingRecursively;
+    MavenResolver(OModulesMicroFrameworkConfig config) {
+        reindex(config);
     }
 
     @Override
     public void reindex(OModulesMicroFrameworkConfig config) {
         resolvingRecursively = config.isResolvingDependenciesRecursively();
+        threads = config.getResolvingThreads();
+        cache = new ResolutionCache(config.getResolutionCachePath(), config.getMavenLocalRepository());
     }
 
     /**
@@ -47,13 +59,18 @@ public class MavenResolver implements IReindexSupport {
      * @return modules with dependencies
      */
     public List<OArtifact> setDependencies(List<OArtifact> oArtifacts) {
-        for (OArtifact artifact : oArtifacts) {
+        resolveConcurrently(oArtifacts, artifact -> {
             OArtifactReference artifactReference = artifact.getArtifactReference();
-            List<Artifact> dependencies = InternalOModuleManager.get().resolveAndGetArtifactDependencies(artifactReference.toAetherArtifact());
-            if (dependencies.size() != 0) {
+            List<Artifact> dependencies = resolveArtifactDependencies(artifactReference.toAetherArtifact());
+            if (dependencies.isEmpty() && artifactReference.getFile() != null) {
+                dependencies = resolveDependenciesFromPomXml(getPomXml(artifactReference.getFile().toPath()));
+            }
+            if (!dependencies.isEmpty()) {
                 artifact.setDependencies(toOArtifactDependencies(dependencies));
-            } else resolveDependenciesFromPomXml(getPomXml(artifactReference.getFile().toPath()));
-        }
+            }
+            return artifact;
+        });
+        cache.save();
         return oArtifacts;
     }
 
@@ -64,15 +81,22 @@ public class MavenResolver implements IReindexSupport {
      */
     public List<OArtifact> getResolvedOArtifacts(List<Path> jars) {
         List<OArtifact> metadata = Lists.newArrayList();
-        for (Path jarFile : jars) {
-            OArtifact moduleMetadata = getOArtifact(jarFile);
+        for (OArtifact moduleMetadata : resolveConcurrently(jars, this::getOArtifact)) {
             if (moduleMetadata != null) {
                 metadata.add(moduleMetadata);
             }
         }
+        cache.save();
         return metadata;
     }
 
+    /**
+     * Remove all resolved dependencies from cache, so artifacts will be resolved again
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
     /**
      * @param file - path to Orienteer module pom.xml or jar archive.
      * @return module metadata for write in metadata.xml
@@ -130,6 +154,7 @@ public class MavenResolver implements IReindexSupport {
     }
 
     private List<Artifact> resolveDependenciesFromPomXml(Path pomXml) {
+        if (pomXml == null) return Lists.newArrayList();
         Set<Artifact> dependencies = InternalOModuleManager.get().readDependencies(pomXml);
         return resolveDependencies(dependencies);
     }
@@ -139,7 +164,47 @@ public class MavenResolver implements IReindexSupport {
         if (Strings.isNullOrEmpty(groupArtifactVersion)) return Lists.newArrayList();
 
         Artifact artifact = new DefaultArtifact(groupArtifactVersion);
-        return InternalOModuleManager.get().resolveAndGetArtifactDependencies(artifact);
+        return resolveArtifactDependencies(artifact);
+    }
+
+    private List<Artifact> resolveArtifactDependencies(Artifact artifact) {
+        List<Artifact> dependencies = cache.get(artifact);
+        if (dependencies == null) {
+            dependencies = InternalOModuleManager.get().resolveAndGetArtifactDependencies(artifact);
+            cache.put(artifact, dependencies);
+        } else LOG.debug("Dependencies of {} were taken from cache", artifact);
+        return dependencies;
+    }
+
+    /**
+     * Apply resolver to each item concurrently in bounded pool of threads.
+     * Pool is created only for the time of resolution, because resolution happens before Orienteer application is started.
+     * @param items items for resolve
+     * @param resolver function which resolves an item
+     * @return results of resolution in the same order as items
+     */
+    private <T, R> List<R> resolveConcurrently(List<T> items, Function<T, R> resolver) {
+        List<R> results = Lists.newArrayListWithCapacity(items.size());
+        if (items.size() <= 1 || threads <= 1) {
+            for (T item : items) results.add(resolver.apply(item));
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, items.size()),
+                new ThreadFactoryBuilder().setNameFormat("orienteer-resolver-%d").setDaemon(true).build());
+        try {
+            List<Future<R>> futures = Lists.newArrayListWithCapacity(items.size());
+            for (T item : items) futures.add(executor.submit(() -> resolver.apply(item)));
+            for (Future<R> future : futures) results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Resolving of artifacts was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Can't resolve artifacts", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     private List<Artifact> resolveDependencies(Set<Artifact> dependencies) {
@@ -21,6 +21,7 @@ class MetadataUtil implements IReindexSupport {
     private static final Logger LOG = LoggerFactory.getLogger(MetadataUtil.class);
 
     private Path metadataPath;
+    private final ThreadLocal<OMetadataUpdater> batchUpdater = new ThreadLocal<>();
 
     /**
      * Constructor
@@ -37,6 +38,33 @@ class MetadataUtil implements IReindexSupport {
         metadataPath = config.getMetadataPath();
     }
 
+    /**
+     * Execute updates of metadata.xml in batch: all changes made by operations are written to metadata.xml once.
+     * Reading of metadata.xml inside batch returns content before the batch.
+     * @param operations operations which update metadata.xml
+     * @throws IllegalArgumentException if operations is null
+     */
+    public void batch(Runnable operations) {
+        Args.notNull(operations, "operations");
+        if (batchUpdater.get() != null) {
+            operations.run();
+            return;
+        }
+        if (!isMetadataExists()) createOArtifactsMetadata(Collections.<OArtifact>emptyList());
+        OMetadataUpdater updater = new OMetadataUpdater(metadataPath);
+        batchUpdater.set(updater);
+        try {
+            updater.batch(operations);
+        } finally {
+            batchUpdater.remove();
+        }
+    }
+
+    private OMetadataUpdater getUpdater() {
+        OMetadataUpdater updater = batchUpdater.get();
+        return updater != null ? updater : new OMetadataUpdater(metadataPath);
+    }
+
     /**
      * Create metadata.xml with artifacts
      * @param artifacts artifact for write in metadata.xml
@@ -45,7 +73,7 @@ class MetadataUtil implements IReindexSupport {
     public void createOArtifactsMetadata(List<OArtifact> artifacts) {
         Args.notNull(artifacts, "artifacts");
         createIfNotExistsDirectory(metadataPath.getParent());
-        OMetadataUpdater updater = new OMetadataUpdater(metadataPath);
+        OMetadataUpdater updater = getUpdater();
         updater.create(artifacts);
     }
 
@@ -145,7 +173,7 @@ class MetadataUtil implements IReindexSupport {
         if (!isMetadataExists()) {
             createOArtifactsMetadata(Lists.newArrayList(oArtifact));
         } else {
-            OMetadataUpdater updater = new OMetadataUpdater(metadataPath);
+            OMetadataUpdater updater = getUpdater();
             updater.update(oArtifact);
         }
     }
@@ -164,7 +192,7 @@ class MetadataUtil implements IReindexSupport {
             return;
         }
 
-        OMetadataUpdater updater = new OMetadataUpdater(metadataPath);
+        OMetadataUpdater updater = getUpdater();
         updater.update(artifactForUpdate, newArtifact);
     }
 
@@ -179,7 +207,7 @@ class MetadataUtil implements IReindexSupport {
         if (!isMetadataExists()) {
             createOArtifactsMetadata(oArtifacts);
         } else {
-            OMetadataUpdater updater = new OMetadataUpdater(metadataPath);
+            OMetadataUpdater updater = getUpdater();
             updater.update(oArtifacts);
         }
     }
@@ -194,7 +222,7 @@ class MetadataUtil implements IReindexSupport {
         if (!isMetadataExists()) {
             createOArtifactsMetadata(oArtifacts);
         } else {
-            OMetadataUpdater updater = new OMetadataUpdater(metadataPath);
+            OMetadataUpdater updater = getUpdater();
             updater.update(oArtifacts, true);
         }
     }
@@ -219,7 +247,7 @@ class MetadataUtil implements IReindexSupport {
     public void deleteOArtifactsFromMetadata(List<OArtifact> oArtifacts) {
         Args.notNull(oArtifacts, "oArtifacts");
         if (!isMetadataExists()) return;
-        OMetadataUpdater updater = new OMetadataUpdater(metadataPath);
+        OMetadataUpdater updater = getUpdater();
         updater.delete(oArtifacts);
     }
 
@@ -231,7 +259,7 @@ class MetadataUtil implements IReindexSupport {
     public void deleteOArtifactFromMetadata(OArtifact oArtifact) {
         Args.notNull(oArtifact, "oArtifact");
         if (!isMetadataExists()) return;
-        OMetadataUpdater updater = new OMetadataUpdater(metadataPath);
+        OMetadataUpdater updater = getUpdater();
         updater.delete(oArtifact);
     }
 
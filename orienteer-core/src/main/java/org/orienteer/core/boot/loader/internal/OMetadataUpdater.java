@@ -14,10 +14,12 @@ import java.util.List;
 
 /**
  * Utility class for update metadata.xml
+ * Changes made inside {@link OMetadataUpdater#batch(Runnable)} are applied to one document which is written once.
  */
 class OMetadataUpdater extends AbstractXmlHandler {
 
     private final Path pathToMetadata;
+    private Document batchDocument;
 
     private static final String ALL_MODULES_EXP = String.format("/%s/*", MetadataTag.METADATA.get());
 
@@ -31,6 +33,28 @@ class OMetadataUpdater extends AbstractXmlHandler {
         this.pathToMetadata = pathToMetadata;
     }
 
+    /**
+     * Execute operations of this updater in batch: metadata.xml is read once before operations
+     * and written once after all of them
+     * @param operations operations of this updater
+     * @throws IllegalArgumentException if operations is null
+     */
+    void batch(Runnable operations) {
+        Args.notNull(operations, "operations");
+        if (batchDocument != null) {
+            operations.run();
+            return;
+        }
+        batchDocument = readDocumentFromFile(pathToMetadata);
+        if (batchDocument == null) documentCannotReadException(pathToMetadata);
+        try {
+            operations.run();
+            saveDocument(batchDocument, pathToMetadata);
+        } finally {
+            batchDocument = null;
+        }
+    }
+
     /**
      * Create new metadata.xml with oArtifacts
      * @param oArtifacts list of {@link OArtifact} for write in metadata.xml
@@ -44,7 +68,7 @@ class OMetadataUpdater extends AbstractXmlHandler {
         Element root = document.createElement(MetadataTag.METADATA.get());
         document.appendChild(root);
         addArtifacts(oArtifacts, document);
-        saveDocument(document, pathToMetadata);
+        writeDocument(document);
     }
 
     /**
@@ -90,7 +114,7 @@ class OMetadataUpdater extends AbstractXmlHandler {
     @SuppressWarnings("unchecked")
     void update(List<OArtifact> oArtifacts, boolean updateJar) {
         Args.notNull(oArtifacts, "oArtifacts");
-        Document document = readDocumentFromFile(pathToMetadata);
+        Document document = readDocument();
         if (document == null) documentCannotReadException(pathToMetadata);
 
         NodeList nodeList = executeExpression(ALL_MODULES_EXP, document);
@@ -114,7 +138,7 @@ class OMetadataUpdater extends AbstractXmlHandler {
         if (updatedModules.size() != oArtifacts.size()) {
             addArtifacts(difference(updatedModules, oArtifacts), document);
         }
-        saveDocument(document, pathToMetadata);
+        writeDocument(document);
     }
 
     /**
@@ -127,7 +151,7 @@ class OMetadataUpdater extends AbstractXmlHandler {
     void update(OArtifact artifactForReplace, OArtifact newArtifact) {
         Args.notNull(artifactForReplace, "artifactForUpdate");
         Args.notNull(newArtifact, "newArtifact");
-        Document document = readDocumentFromFile(pathToMetadata);
+        Document document = readDocument();
         if (document == null) documentCannotReadException(pathToMetadata);
         NodeList nodeList = executeExpression(ALL_MODULES_EXP, document);
         if (nodeList != null) {
@@ -143,7 +167,7 @@ class OMetadataUpdater extends AbstractXmlHandler {
                     }
                 }
             }
-            saveDocument(document, pathToMetadata);
+            writeDocument(document);
         }
     }
 
@@ -155,7 +179,7 @@ class OMetadataUpdater extends AbstractXmlHandler {
     @SuppressWarnings("unchecked")
     void delete(OArtifact oArtifact) {
         Args.notNull(oArtifact, "oArtifact");
-        Document document = readDocumentFromFile(pathToMetadata);
+        Document document = readDocument();
         if (document == null) documentCannotReadException(pathToMetadata);
         NodeList nodeList = executeExpression(ALL_MODULES_EXP, document);
 
@@ -172,7 +196,7 @@ class OMetadataUpdater extends AbstractXmlHandler {
                     }
                 }
             }
-            saveDocument(document, pathToMetadata);
+            writeDocument(document);
         }
     }
 
@@ -184,7 +208,7 @@ class OMetadataUpdater extends AbstractXmlHandler {
     @SuppressWarnings("unchecked")
     void delete(List<OArtifact> oArtifacts) {
         Args.notNull(oArtifacts, "oArtifacts");
-        Document document = readDocumentFromFile(pathToMetadata);
+        Document document = readDocument();
         if (document == null) documentCannotReadException(pathToMetadata);
         NodeList nodeList = executeExpression(ALL_MODULES_EXP, document);
         if (nodeList != null) {
@@ -200,10 +224,20 @@ class OMetadataUpdater extends AbstractXmlHandler {
                     }
                 }
             }
-            saveDocument(document, pathToMetadata);
+            writeDocument(document);
         }
     }
 
+    private Document readDocument() {
+        return batchDocument != null ? batchDocument : readDocumentFromFile(pathToMetadata);
+    }
+
+    private void writeDocument(Document document) {
+        if (batchDocument != null) {
+            batchDocument = document;
+        } else saveDocument(document, pathToMetadata);
+    }
+
     /**
      * Add artifacts to {@link Document} document
      * @param oArtifacts list of {@link OArtifact} for add to document
@@ -28,12 +28,15 @@ public class OModulesMicroFrameworkConfig {
     protected static final String DEFAULT                      = "default";
     protected static final String LIBS_FOLDER 	               = "orienteer.loader.libs.folder";
     protected static final String RECURSIVELY_RESOLVING_DEPS   = "orienteer.loader.resolve.dependencies.recursively";
+    protected static final String RESOLVING_THREADS            = "orienteer.loader.resolve.threads";
+    protected static final String RESOLUTION_CACHE             = "orienteer.loader.resolve.cache";
     protected static final String ORIENTEER_MODULES_URL        = "orienteer.loader.orienteer.modules.list.url";
     protected static final String ORIENTEER_MODULES_FILE       = "orienteer.loader.orienteer.modules.metadata";
     protected static final String ORIENTEER_GROUP_ID           = "orienteer.groupId";
     protected static final String ORIENTEER_ARTIFACT_ID        = "orienteer.artifactId";
     protected static final String ORIENTEER_VERSION            = "orienteer.version";
     protected static final String METADATA_FILE                = "metadata.xml";
+    protected static final String RESOLUTION_CACHE_FILE        = "resolution-cache.properties";
 
     protected static final String DEFAULT_LIBS_FOLDER          = "libs/";
     protected static final String DEFAULT_MAVEN_LOCAL_REPOSITORY = DEFAULT_LIBS_FOLDER + "deps/";
@@ -61,6 +64,24 @@ public class OModulesMicroFrameworkConfig {
         return Boolean.valueOf(properties.getProperty(RECURSIVELY_RESOLVING_DEPS));
     }
 
+    /**
+     * @return number of threads to resolve independent artifacts concurrently
+     */
+    public int getResolvingThreads() {
+        String threads = properties != null ? properties.getProperty(RESOLVING_THREADS) : null;
+        return Strings.isEmpty(threads) ? Math.min(Runtime.getRuntime().availableProcessors(), 4)
+                                        : Math.max(Integer.parseInt(threads.trim()), 1);
+    }
+
+    /**
+     * @return {@link Path} of file with cache of resolved dependencies or null if cache is disabled
+     */
+    public Path getResolutionCachePath() {
+        if (properties != null && "false".equalsIgnoreCase(properties.getProperty(RESOLUTION_CACHE)))
+            return null;
+        return getPathToModulesFolder().resolve(RESOLUTION_CACHE_FILE);
+    }
+
     /**
      * @return {@link Path} of file metadata.xml
      */
@@ -0,0 +1,172 @@
+package org.orienteer.core.boot.loader.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Persistent cache of resolved dependencies of artifacts.
+ * Entry is stored by coordinates of an artifact together with checksum of local repository state: path of
+ * local repository, files of resolved dependencies and its pom.xml (size and time of modification).
+ * Entry is valid only while checksum is the same, so warm start doesn't need any resolution at all,
+ * but any change of local repository for resolved artifacts leads to new resolution.
+ * Artifacts with snapshot, range or LATEST/RELEASE versions are not cached: they can be resolved
+ * to newer versions from remote repositories without any change of local repository.
+ */
+class ResolutionCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ResolutionCache.class);
+
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String FILE_SEPARATOR = "\t";
+    private static final String POM_EXTENSION  = ".pom";
+    private static final String LATEST_VERSION  = "LATEST";
+    private static final String RELEASE_VERSION = "RELEASE";
+
+    private final Path cachePath;
+    private final String localRepository;
+    private Properties entries;
+    private boolean changed;
+
+    /**
+     * Constructor
+     * @param cachePath {@link Path} of file with cache. If null - cache is disabled
+     * @param localRepository path to maven local repository
+     */
+    ResolutionCache(Path cachePath, String localRepository) {
+        this.cachePath = cachePath;
+        this.localRepository = localRepository;
+    }
+
+    /**
+     * @param artifact {@link Artifact} to get resolved dependencies for
+     * @return resolved dependencies of artifact or null if there is no valid entry in cache
+     */
+    public synchronized List<Artifact> get(Artifact artifact) {
+        if (cachePath == null || !isCacheable(artifact)) return null;
+        String key = key(artifact);
+        String value = getEntries().getProperty(key);
+        if (value == null) return null;
+        String [] lines = value.split(LINE_SEPARATOR);
+        List<Artifact> dependencies = Lists.newArrayListWithCapacity(lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            int separator = lines[i].indexOf(FILE_SEPARATOR);
+            if (separator < 0) return invalidate(key);
+            dependencies.add(new DefaultArtifact(lines[i].substring(0, separator))
+                                    .setFile(new File(lines[i].substring(separator + 1))));
+        }
+        return lines[0].equals(checksum(dependencies)) ? dependencies : invalidate(key);
+    }
+
+    /**
+     * Put resolved dependencies of artifact to cache. Not completely resolved dependencies are not cached
+     * @param artifact {@link Artifact} which was resolved
+     * @param dependencies resolved dependencies of artifact
+     */
+    public synchronized void put(Artifact artifact, List<Artifact> dependencies) {
+        if (cachePath == null || dependencies == null || dependencies.isEmpty() || !isCacheable(artifact)) return;
+        StringBuilder value = new StringBuilder(checksum(dependencies));
+        for (Artifact dependency : dependencies) {
+            File file = dependency.getFile();
+            if (file == null || !file.isFile() || !isCacheable(dependency)) return;
+            value.append(LINE_SEPARATOR).append(dependency).append(FILE_SEPARATOR).append(file.getAbsolutePath());
+        }
+        getEntries().setProperty(key(artifact), value.toString());
+        changed = true;
+    }
+
+    /**
+     * Write cache to the disk if it was changed
+     */
+    public synchronized void save() {
+        if (cachePath == null || !changed) return;
+        Path tmp = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                getEntries().store(out, "Resolved dependencies of Orienteer modules");
+            }
+            Files.move(tmp, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            changed = false;
+        } catch (IOException e) {
+            LOG.warn("Can't save cache of resolved dependencies: {}", cachePath.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Remove all entries from the cache
+     */
+    public synchronized void clear() {
+        entries = new Properties();
+        changed = true;
+        save();
+    }
+
+    private Properties getEntries() {
+        if (entries == null) {
+            entries = new Properties();
+            if (Files.isRegularFile(cachePath)) {
+                try (InputStream in = Files.newInputStream(cachePath)) {
+                    entries.load(in);
+                } catch (IOException | IllegalArgumentException e) {
+                    LOG.warn("Can't read cache of resolved dependencies: {}", cachePath.toAbsolutePath(), e);
+                    entries.clear();
+                }
+            }
+        }
+        return entries;
+    }
+
+    private List<Artifact> invalidate(String key) {
+        getEntries().remove(key);
+        changed = true;
+        return null;
+    }
+
+    private static boolean isCacheable(Artifact artifact) {
+        String version = artifact.getBaseVersion();
+        if (version == null || version.isEmpty() || artifact.isSnapshot()) return false;
+        if (version.equals(LATEST_VERSION) || version.equals(RELEASE_VERSION)) return false;
+        return version.indexOf('[') < 0 && version.indexOf('(') < 0 && version.indexOf(',') < 0;
+    }
+
+    private String key(Artifact artifact) {
+        return String.format("%s:%s:%s:%s", artifact.getGroupId(), artifact.getArtifactId(),
+                artifact.getExtension(), artifact.getVersion());
+    }
+
+    private String checksum(List<Artifact> dependencies) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(localRepository, Charsets.UTF_8);
+        for (Artifact dependency : dependencies) {
+            hasher.putString(dependency.toString(), Charsets.UTF_8);
+            File file = dependency.getFile();
+            if (file != null) {
+                putFileState(hasher, file);
+                String name = file.getName();
+                int extension = name.lastIndexOf('.');
+                if (extension > 0) putFileState(hasher, new File(file.getParentFile(), name.substring(0, extension) + POM_EXTENSION));
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private void putFileState(Hasher hasher, File file) {
+        hasher.putString(file.getAbsolutePath(), Charsets.UTF_8)
+                .putLong(file.length())
+                .putLong(file.lastModified());
+    }
+}
@@ -0,0 +1,41 @@
+package org.orienteer.core.hook;
+
+import org.orienteer.core.util.ODataVersions;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.hook.ODocumentHookAbstract;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * {@link ODocumentHookAbstract} to increase versions of data in {@link ODataVersions} once documents are changed
+ */
+public class DataVersionHook extends ODocumentHookAbstract {
+
+	public DataVersionHook(ODatabaseDocument database) {
+		super(database);
+	}
+
+	@Override
+	public DISTRIBUTED_EXECUTION_MODE getDistributedExecutionMode() {
+		return DISTRIBUTED_EXECUTION_MODE.BOTH;
+	}
+
+	@Override
+	public void onRecordAfterCreate(ODocument iDocument) {
+		touch(iDocument);
+	}
+
+	@Override
+	public void onRecordAfterUpdate(ODocument iDocument) {
+		touch(iDocument);
+	}
+
+	@Override
+	public void onRecordAfterDelete(ODocument iDocument) {
+		touch(iDocument);
+	}
+
+	private void touch(ODocument doc) {
+		ODataVersions.get().touch(database.getName(), doc.getSchemaClass());
+	}
+}
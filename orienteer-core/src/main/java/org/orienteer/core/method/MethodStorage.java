@@ -27,7 +27,9 @@ public class MethodStorage {
 	public MethodStorage() {
 		paths = new HashSet<String>();
 		paths.add(CORE_PATH);
-		reload();
+		//Classes are scanned on first reload requested by OMethodsManager
+		methodClasses = new HashSet<Class<?>>();
+		methodFields = new HashSet<java.lang.reflect.Method>();
 	}
 	
 	public void reload(){
@@ -25,6 +25,7 @@ public class OMethodsManager {
 	
 	private MethodStorage methodStorage;
 	private Set<IMethodDefinitionStorage> definitionsStorages;
+	private volatile boolean reloadRequired = true;
 	
 	private static final OMethodsManager INSTANCE = new OMethodsManager();
 
@@ -39,16 +40,37 @@ public class OMethodsManager {
 		addDefinitionsStorage(new JavaMethodOMethodDefinitionStorage(methodStorage));
 	}
 	
+	/**
+	 * Request reload of methods. Classpath is scanned only once on next request of methods,
+	 * so registration of many modules doesn't lead to many scans
+	 */
 	public void reload(){
-		methodStorage.reload();
-		for (IMethodDefinitionStorage iMethodDefinitionStorage : definitionsStorages) {
-			iMethodDefinitionStorage.reload();
+		reloadRequired = true;
+	}
+	
+	private void reloadIfRequired() {
+		if(reloadRequired) {
+			synchronized (this) {
+				if(reloadRequired) {
+					reloadRequired = false;
+					try {
+						methodStorage.reload();
+						for (IMethodDefinitionStorage iMethodDefinitionStorage : definitionsStorages) {
+							iMethodDefinitionStorage.reload();
+						}
+					} catch (RuntimeException e) {
+						reloadRequired = true;
+						throw e;
+					}
+				}
+			}
 		}
 	}
 	
 	public void addDefinitionsStorage(IMethodDefinitionStorage storage){
 		definitionsStorages.add(storage);
 		storage.setMethodStorage(methodStorage);
+		reloadRequired = true;
 	}
 	
 	public void removeDefinitionsStorage(IMethodDefinitionStorage storage){
@@ -65,6 +87,7 @@ public class OMethodsManager {
 
 	
 	public List<IMethod> getMethods(IMethodContext context){
+		reloadIfRequired();
 		return definitionsStorages.stream()
 				.flatMap(s -> s.getMethodsDefinitions(context).stream())
 				.sorted((c1, c2) -> {
@@ -14,13 +14,18 @@ import org.slf4j.LoggerFactory;
 import ru.ydn.wicket.wicketorientdb.AbstractDataInstallator;
 import ru.ydn.wicket.wicketorientdb.OrientDbWebApplication;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Data installator of modules specific classes
+ * Data installator of modules specific classes.
+ * Modules are installed, updated and initialized one by one in order of registration.
+ * Time of every phase of every module is reported to the log
  */
 public class ModuledDataInstallator extends AbstractDataInstallator
 {
@@ -94,31 +99,74 @@ public class ModuledDataInstallator extends AbstractDataInstallator
 	
 	protected void loadOrienteerModules(OrienteerWebApplication app, ODatabaseSession db) {
 		Map<String, ODocument> installedModules = getInstalledModules(db);
-		
-		for(IOrienteerModule module: app.getRegisteredModules())
-		{
-			String name = module.getName();
-			int version = module.getVersion();
-			ODocument moduleDoc = installedModules.get(name);
-			Integer oldVersion = moduleDoc!=null?(Integer)moduleDoc.field(IOrienteerModule.OMODULE_VERSION, Integer.class):null;
-			if(moduleDoc==null || oldVersion==null)
+		ModulesDependencyGraph graph = new ModulesDependencyGraph(app.getRegisteredModules());
+		Map<String, Map<String, Long>> timings = new LinkedHashMap<>();
+		long start = System.nanoTime();
+		try {
+			for(IOrienteerModule module: graph.getModules())
 			{
-				moduleDoc = module.onInstall(app, db);
-				if(moduleDoc==null) moduleDoc = new ODocument(IOrienteerModule.OMODULE_CLASS);
-				moduleDoc.field(IOrienteerModule.OMODULE_NAME, module.getName());
-				moduleDoc.field(IOrienteerModule.OMODULE_VERSION, module.getVersion());
-				moduleDoc.save();
+				loadOrienteerModule(app, db, module, installedModules.get(module.getName()), timings);
 			}
-			else if(oldVersion<version)
-			{
-				ODocument temp = module.onUpdate(app, db, moduleDoc, oldVersion, version);
-				if(temp!=null) moduleDoc = temp;
-				moduleDoc.field(IOrienteerModule.OMODULE_VERSION, version);
-				moduleDoc.save();
+		} finally {
+			reportTimings(graph, timings, System.nanoTime() - start);
+		}
+	}
+	
+	private void loadOrienteerModule(OrienteerWebApplication app, ODatabaseSession db, IOrienteerModule module, 
+									ODocument moduleDoc, Map<String, Map<String, Long>> timings) {
+		String name = module.getName();
+		int version = module.getVersion();
+		Map<String, Long> moduleTimings = new LinkedHashMap<>();
+		timings.put(name, moduleTimings);
+		Integer oldVersion = moduleDoc!=null?(Integer)moduleDoc.field(IOrienteerModule.OMODULE_VERSION, Integer.class):null;
+		long start = System.nanoTime();
+		if(moduleDoc==null || oldVersion==null)
+		{
+			moduleDoc = module.onInstall(app, db);
+			if(moduleDoc==null) moduleDoc = new ODocument(IOrienteerModule.OMODULE_CLASS);
+			moduleDoc.field(IOrienteerModule.OMODULE_NAME, module.getName());
+			moduleDoc.field(IOrienteerModule.OMODULE_VERSION, module.getVersion());
+			moduleDoc.save();
+			moduleTimings.put("install", System.nanoTime() - start);
+		}
+		else if(oldVersion<version)
+		{
+			ODocument temp = module.onUpdate(app, db, moduleDoc, oldVersion, version);
+			if(temp!=null) moduleDoc = temp;
+			moduleDoc.field(IOrienteerModule.OMODULE_VERSION, version);
+			moduleDoc.save();
+			moduleTimings.put("update", System.nanoTime() - start);
+		}
+		Boolean activate = moduleDoc.field(IOrienteerModule.OMODULE_ACTIVATE);
+		if(activate==null || activate) {
+			start = System.nanoTime();
+			module.onInitialize(app, db, moduleDoc);
+			moduleTimings.put("initialize", System.nanoTime() - start);
+		}
+	}
+	
+	private void reportTimings(ModulesDependencyGraph graph, Map<String, Map<String, Long>> timings, long total) {
+		if(!LOG.isInfoEnabled()) return;
+		StringBuilder sb = new StringBuilder();
+		sb.append(timings.size()).append(" module(s) were loaded in ")
+		  .append(TimeUnit.NANOSECONDS.toMillis(total)).append(" ms");
+		List<String> names = new ArrayList<>(timings.keySet());
+		names.sort((n1, n2) -> Long.compare(sum(timings.get(n2)), sum(timings.get(n1))));
+		for (String name : names) {
+			sb.append("\n\t").append(name).append(": ").append(TimeUnit.NANOSECONDS.toMillis(sum(timings.get(name)))).append(" ms");
+			for (Map.Entry<String, Long> phase : timings.get(name).entrySet()) {
+				sb.append(", ").append(phase.getKey()).append(" ")
+				  .append(TimeUnit.NANOSECONDS.toMillis(phase.getValue())).append(" ms");
 			}
-			Boolean activate = moduleDoc.field(IOrienteerModule.OMODULE_ACTIVATE);
-			if(activate==null || activate) module.onInitialize(app, db, moduleDoc);
+			if(!graph.getDependencies(name).isEmpty()) sb.append(", depends on ").append(graph.getDependencies(name));
 		}
+		LOG.info(sb.toString());
+	}
+	
+	private static long sum(Map<String, Long> moduleTimings) {
+		long ret = 0;
+		for (Long time : moduleTimings.values()) ret+=time;
+		return ret;
 	}
 
 	@Override
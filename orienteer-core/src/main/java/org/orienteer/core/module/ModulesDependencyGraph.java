@@ -0,0 +1,88 @@
+package org.orienteer.core.module;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency graph (DAG) of Orienteer modules built from {@link IOrienteerModule#getDependencies()}.
+ * Used to report dependencies of modules and to detect missing and cyclic dependencies
+ */
+public class ModulesDependencyGraph {
+	private static final Logger LOG = LoggerFactory.getLogger(ModulesDependencyGraph.class);
+
+	private final Map<String, IOrienteerModule> modules = new LinkedHashMap<>();
+	private final Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+
+	/**
+	 * Build graph for modules. Dependencies on not registered modules are ignored.
+	 * Modules with cyclic dependencies are chained one by one after all other modules
+	 * @param modules modules to build graph for
+	 */
+	public ModulesDependencyGraph(Collection<? extends IOrienteerModule> modules) {
+		for (IOrienteerModule module : modules) {
+			this.modules.put(module.getName(), module);
+		}
+		for (IOrienteerModule module : modules) {
+			Set<String> moduleDependencies = new LinkedHashSet<>();
+			if(module.getDependencies()!=null) {
+				for (String dependency : module.getDependencies()) {
+					if(this.modules.containsKey(dependency)) moduleDependencies.add(dependency);
+					else LOG.warn("Module '"+module.getName()+"' depends on not registered module '"+dependency+"'");
+				}
+			}
+			dependencies.put(module.getName(), moduleDependencies);
+		}
+		breakCycles();
+	}
+
+	private void breakCycles() {
+		Set<String> resolved = new LinkedHashSet<>();
+		boolean changed = true;
+		while(changed) {
+			changed = false;
+			for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+				if(!resolved.contains(entry.getKey()) && resolved.containsAll(entry.getValue())) {
+					resolved.add(entry.getKey());
+					changed = true;
+				}
+			}
+		}
+		if(resolved.size()<modules.size()) {
+			List<String> unresolved = new ArrayList<>(modules.keySet());
+			unresolved.removeAll(resolved);
+			LOG.error("Modules with cyclic dependencies: "+unresolved);
+			String previous = null;
+			for (String name : unresolved) {
+				Set<String> moduleDependencies = new LinkedHashSet<>(resolved);
+				if(previous!=null) moduleDependencies.add(previous);
+				dependencies.put(name, moduleDependencies);
+				previous = name;
+			}
+		}
+	}
+
+	/**
+	 * @return all modules of the graph in order of registration
+	 */
+	public List<IOrienteerModule> getModules() {
+		return new ArrayList<>(modules.values());
+	}
+
+	/**
+	 * @param name name of a module
+	 * @return names of registered modules which specified module depends on
+	 */
+	public Set<String> getDependencies(String name) {
+		Set<String> ret = dependencies.get(name);
+		return ret!=null?Collections.unmodifiableSet(ret):Collections.emptySet();
+	}
+}
@@ -4,10 +4,12 @@ import org.orienteer.core.CustomAttribute;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.tasks.ITaskSession;
 import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskOutput;
 import org.orienteer.core.tasks.OTaskSessionRuntime;
 import org.orienteer.core.util.OSchemaHelper;
 
 import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
@@ -18,7 +20,7 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 public class TaskManagerModule extends AbstractOrienteerModule {
 	
     public static final String NAME = "task-manager";
-    public static final int VERSION = 1;
+    public static final int VERSION = 2;
     
     TaskManagerModule(){
     	super(NAME, VERSION);
@@ -51,6 +53,15 @@ public class TaskManagerModule extends AbstractOrienteerModule {
 			.oProperty(ITaskSession.Field.ERROR_TYPE.fieldName(),OType.INTEGER,110)
 			.oProperty(ITaskSession.Field.ERROR.fieldName(),OType.STRING,120);
 		helper.setupRelationship(OTask.TASK_CLASS, OTask.Field.SESSIONS.fieldName(), OTaskSessionRuntime.TASK_SESSION_CLASS, ITaskSession.Field.TASK_LINK.fieldName());
+		
+		helper.oClass(OTaskOutput.OUTPUT_CHUNK_CLASS)
+			.oProperty(OTaskOutput.Field.SESSION.fieldName(),OType.LINK,10).linkedClass(OTaskSessionRuntime.TASK_SESSION_CLASS).markAsLinkToParent()
+			.oProperty(OTaskOutput.Field.SEQUENCE.fieldName(),OType.LONG,20)
+			.oProperty(OTaskOutput.Field.LINES.fieldName(),OType.INTEGER,30)
+			.oProperty(OTaskOutput.Field.TIMESTAMP.fieldName(),OType.DATETIME,40)
+			.oProperty(OTaskOutput.Field.CONTENT.fieldName(),OType.STRING,50).assignVisualization("textarea")
+			.oIndex(OTaskOutput.OUTPUT_CHUNK_CLASS+".session_seq", INDEX_TYPE.NOTUNIQUE, 
+					OTaskOutput.Field.SESSION.fieldName(), OTaskOutput.Field.SEQUENCE.fieldName());
 		return null;
 	}
 	
@@ -0,0 +1,145 @@
+package org.orienteer.core.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.util.string.Strings;
+import org.orienteer.core.util.CommonUtils;
+import org.orienteer.core.util.ODataVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+
+/**
+ * Base {@link AbstractResource} to provide JSON data selected by a query.
+ * ETag is calculated from a key of requested data, versions of queried classes (see {@link ODataVersions})
+ * and a version provided by a client, so unchanged data is answered by 304 without execution of the query.
+ * Data is written directly to the response or, if {@link #isCacheable()}, cached per user for a short time.
+ * Parameters:
+ * sql - query to select records
+ * v (optional) - version of data provided by a client: for example, version of a document with configuration
+ */
+public abstract class AbstractQueryDataResource extends AbstractResource {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger LOG = LoggerFactory.getLogger(AbstractQueryDataResource.class);
+
+	public static final String SQL_PARAMETER = "sql";
+	public static final String VERSION_PARAMETER = "v";
+
+	public static final long DEFAULT_CACHE_TTL = TimeUnit.MINUTES.toMillis(1);
+	public static final long DEFAULT_CACHE_SIZE = 16L * 1024 * 1024;
+
+	private static final int NOT_MODIFIED = 304;
+
+	private final Cache<String, byte[]> cache = CacheBuilder.newBuilder()
+														.maximumWeight(DEFAULT_CACHE_SIZE)
+														.weigher((String key, byte[] content) -> content.length)
+														.expireAfterWrite(DEFAULT_CACHE_TTL, TimeUnit.MILLISECONDS)
+														.build();
+
+	@Override
+	protected ResourceResponse newResourceResponse(Attributes attributes) {
+		ResourceResponse response = new ResourceResponse();
+		response.setContentType("application/json");
+		response.setTextEncoding("UTF-8");
+		PageParameters params = attributes.getParameters();
+		String sql = params.get(SQL_PARAMETER).toOptionalString();
+		String key = Strings.isEmpty(sql)?null:getDataKey(params);
+		if(key==null) {
+			response.setError(400, "Parameter '"+SQL_PARAMETER+"' is required");
+			return response;
+		}
+		OrientDbWebSession session = OrientDbWebSession.get();
+		String eTag = "\""+CommonUtils.digest(session.getUsername(), key,
+												params.get(VERSION_PARAMETER).toString(""),
+												ODataVersions.get().getVersion(session.getDatabase(), sql))+"\"";
+		response.getHeaders().addHeader("ETag", eTag);
+		String ifNoneMatch = ((WebRequest)attributes.getRequest()).getHeader("If-None-Match");
+		if(ifNoneMatch!=null && ifNoneMatch.contains(eTag)) {
+			response.setStatusCode(NOT_MODIFIED);
+		} else if(isCacheable()) {
+			byte[] content;
+			try {
+				content = cache.get(eTag, () -> toBytes(session.getDatabase(), params));
+			} catch (ExecutionException | UncheckedExecutionException e) {
+				LOG.error("Can't load data for "+getClass().getSimpleName(), e.getCause());
+				response.setError(500, e.getCause().getMessage());
+				return response;
+			}
+			response.setContentLength(content.length);
+			response.setWriteCallback(new WriteCallback() {
+				@Override
+				public void writeData(Attributes attributes) throws IOException {
+					attributes.getResponse().write(content);
+				}
+			});
+		} else {
+			response.setWriteCallback(new WriteCallback() {
+				@Override
+				public void writeData(Attributes attributes) throws IOException {
+					write(OrientDbWebSession.get().getDatabase(), params, attributes.getResponse().getOutputStream());
+				}
+			});
+		}
+		return response;
+	}
+
+	@Override
+	protected void configureCache(ResourceResponse data, Attributes attributes) {
+		//Always revalidate: data might be changed, but ETag allows to skip transferring of the same data
+		((WebResponse)attributes.getResponse()).setHeader("Cache-Control", "private, no-cache");
+	}
+
+	private byte[] toBytes(ODatabaseDocument db, PageParameters params) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(db, params, out);
+		return out.toByteArray();
+	}
+
+	private void write(ODatabaseDocument db, PageParameters params, OutputStream out) throws IOException {
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		writeData(db, params, writer);
+		writer.flush();
+	}
+
+	/**
+	 * @return true if serialized data should be kept in memory for a short time,
+	 * false if data should be written directly to the response
+	 */
+	protected boolean isCacheable() {
+		return false;
+	}
+
+	/**
+	 * Calculate key of requested data: it should contain all parameters which affect data except version
+	 * @param params parameters of a request
+	 * @return key of requested data or null if request is not valid
+	 */
+	protected abstract String getDataKey(PageParameters params);
+
+	/**
+	 * Execute query and write JSON data
+	 * @param db database to execute query on
+	 * @param params parameters of a request
+	 * @param writer writer for JSON data
+	 * @throws IOException if data can't be written
+	 */
+	protected abstract void writeData(ODatabaseDocument db, PageParameters params, Writer writer) throws IOException;
+}
@@ -0,0 +1,76 @@
+package org.orienteer.core.resource;
+
+import java.io.File;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.request.resource.SharedResourceReference;
+import org.apache.wicket.resource.FileSystemResource;
+import org.orienteer.core.MountPath;
+import org.orienteer.core.tasks.export.ODatabaseExportTaskSession;
+import org.orienteer.core.tasks.export.OParallelDatabaseExport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.exception.OSecurityException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Resource to download archive exported by {@link ODatabaseExportTaskSession}.
+ * Archive contains all data of the database including users and roles, so it's available only for users
+ * who can update the database (see {@link OParallelDatabaseExport#isAllowed}) and read the session.
+ * Ranges are supported, so download can be resumed
+ */
+@MountPath("/export/${rid}")
+public class DatabaseExportArchiveResource implements IResource {
+	private static final long serialVersionUID = 1L;
+	private static final Logger LOG = LoggerFactory.getLogger(DatabaseExportArchiveResource.class);
+
+	public static SharedResourceReference getSharedResourceReference() {
+		return new SharedResourceReference(DatabaseExportArchiveResource.class.getName());
+	}
+
+	public static CharSequence urlFor(ODocument session) {
+		PageParameters params = new PageParameters();
+		params.add("rid", session.getIdentity().toString().substring(1));
+		return RequestCycle.get().urlFor(getSharedResourceReference(), params);
+	}
+
+	@Override
+	public void respond(Attributes attributes) {
+		if(!OParallelDatabaseExport.isAllowed(ODatabaseRecordThreadLocal.instance().get())) {
+			((WebResponse) attributes.getResponse()).sendError(HttpServletResponse.SC_FORBIDDEN, null);
+			return;
+		}
+		File archive = getArchive(attributes.getParameters());
+		if(archive!=null) {
+			new FileSystemResource(archive.toPath()).respond(attributes);
+		} else {
+			((WebResponse) attributes.getResponse()).sendError(HttpServletResponse.SC_NOT_FOUND, null);
+		}
+	}
+
+	protected File getArchive(PageParameters params) {
+		String ridStr = "#"+params.get("rid").toOptionalString();
+		ORID orid = ORecordId.isA(ridStr) ? new ORecordId(ridStr) : null;
+		if(orid==null) return null;
+		try {
+			ODocument session = orid.getRecord();
+			String name = session!=null?session.field(ODatabaseExportTaskSession.Field.ARCHIVE.fieldName()):null;
+			if(name==null) return null;
+			//Only name of an archive is used, so files outside of export directory are not accessible
+			File archive = new File(OParallelDatabaseExport.getExportDirectory(), new File(name).getName());
+			return archive.isFile()?archive:null;
+		} catch (OSecurityException e) {
+			LOG.debug("Access to exported archive was denied", e);
+			return null;
+		}
+	}
+}
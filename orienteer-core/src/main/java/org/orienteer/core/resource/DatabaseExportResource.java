@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.wicket.request.resource.AbstractResource;
+import org.orienteer.core.tasks.export.ODatabaseExportTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,7 +16,8 @@ import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.tool.ODatabaseExport;
 
 /**
- * {@link AbstractResource} to export database schema
+ * {@link AbstractResource} to export database schema.
+ * Export is done in a request thread, so for export of whole database use {@link ODatabaseExportTask}
  */
 public class DatabaseExportResource extends AbstractResource
 {
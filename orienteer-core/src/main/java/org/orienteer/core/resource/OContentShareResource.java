@@ -1,8 +1,13 @@
 package org.orienteer.core.resource;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -10,47 +15,64 @@ import org.apache.tika.Tika;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.Url.StringMode;
 import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.AbstractResource;
 import org.apache.wicket.request.resource.IResource;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.request.resource.SharedResourceReference;
 import org.apache.wicket.util.string.Strings;
-import org.apache.wicket.util.time.Time;
 import org.orienteer.core.MountPath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordLazyMultiValue;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.OBlob;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
-import net.coobird.thumbnailator.Thumbnails;
-
 /**
  * Share dynamic resources such as image, video and other. Params
  * type (optional) - content type of the content
  * s (optional) - size of image to resize to
- * q (optional) - quality of output image after resizing 
+ * q (optional) - quality of output image after resizing
+ * Version of a document is used as ETag, so conditional requests (If-None-Match, If-Range) and ranges are supported.
+ * Content of blobs linked from a field (LINK to a blob or LINKLIST of blob chunks) is streamed without loading it entirely.
+ * Thumbnails are cached by {@link OContentThumbnailCache}
  */
 @MountPath("/content/${rid}/${field}")
 public class OContentShareResource extends AbstractResource {
-	
+
 	private static final Logger LOG = LoggerFactory.getLogger(OContentShareResource.class);
-    
+
+	private static final int DETECTION_PREFIX_SIZE = 8 * 1024;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final Tika TIKA = new Tika();
+
+	private static final Cache<String, String> CONTENT_TYPES = CacheBuilder.newBuilder()
+																	.maximumSize(10000)
+																	.build();
+
     public static SharedResourceReference getSharedResourceReference() {
     	return new SharedResourceReference(OContentShareResource.class.getName());
     }
-    
+
     public static CharSequence urlFor(ODocument document, String field, String contentType,  boolean fullUrl) {
     	return urlFor(getSharedResourceReference(), document, field, contentType, null, null, fullUrl);
     }
-    
+
     public static CharSequence urlFor(ODocument document, String field, String contentType, Integer imageSize, boolean fullUrl) {
     	return urlFor(getSharedResourceReference(), document, field, contentType, imageSize, null, fullUrl);
     }
-    
+
     public static CharSequence urlFor(ODocument document, String field, String contentType, Integer imageSize, Double imageQuality, boolean fullUrl) {
     	return urlFor(getSharedResourceReference(), document, field, contentType, imageSize, imageQuality, fullUrl);
     }
@@ -74,55 +96,114 @@ public class OContentShareResource extends AbstractResource {
     @Override
     protected ResourceResponse newResourceResponse(IResource.Attributes attributes) {
         final ResourceResponse response = new ResourceResponse();
-        response.setLastModified(Time.now());
-        if (response.dataNeedsToBeWritten(attributes)) {
-            PageParameters params = attributes.getParameters();
-            String ridStr = "#"+params.get("rid").toOptionalString();
-            ORID orid = ORecordId.isA(ridStr) ? new ORecordId(ridStr) : null;
-            if (orid != null) {
-                String field = params.get("field").toString();
-                byte [] data = getContent(orid, field);
-                if (data != null && data.length > 0) {
-                    String contentType = params.get("type").toOptionalString();
-                	if (Strings.isEmpty(contentType)) {
-                		contentType = new Tika().detect(data);
-                	}
-                	if(isCacheAllowed()) {
-	                	if(params.get("v").isEmpty()) response.disableCaching();
-	                	else response.setCacheDurationToMaximum();
-                	}
-                    response.setContentType(contentType);
-                    Integer maxSize = params.get("s").toOptionalInteger();
-                    if(maxSize!=null && maxSize>0 && contentType.startsWith("image/")) {
-                    	double quality = params.get("q").toDouble(0.8);
-                    	ByteArrayOutputStream thumbnailOS = new ByteArrayOutputStream();
-                    	try {
-							Thumbnails.of(new ByteArrayInputStream(data))
-										.size(maxSize, maxSize)
-										.keepAspectRatio(true)
-										.outputQuality(quality)
-										.toOutputStream(thumbnailOS);
-							data = thumbnailOS.toByteArray();
-						} catch (IOException e) {
-							LOG.error("Can't create thumbnail. Using original image. ", e);
-						}
-                    }
-                    response.setWriteCallback(createWriteCallback(data));
-                }
-            }
-
-            if (response.getWriteCallback() == null) {
-                response.setError(HttpServletResponse.SC_NOT_FOUND);
-            }
-
+        PageParameters params = attributes.getParameters();
+        String ridStr = "#"+params.get("rid").toOptionalString();
+        ORID orid = ORecordId.isA(ridStr) ? new ORecordId(ridStr) : null;
+        ODocument doc = orid != null ? orid.getRecord() : null;
+        String field = params.get("field").toOptionalString();
+        if (doc == null || Strings.isEmpty(field)) {
+        	response.setError(HttpServletResponse.SC_NOT_FOUND);
+        	return response;
+        }
+        String rid = orid.toString().substring(1);
+        Integer maxSize = params.get("s").toOptionalInteger();
+        double quality = params.get("q").toDouble(0.8);
+        String eTag = eTag(rid, doc.getVersion(), null);
+        String thumbnailETag = maxSize!=null && maxSize>0 ? eTag(rid, doc.getVersion(), maxSize+":"+quality) : null;
+        //ETag depends only on identity and version of the document: not modified content is not read at all
+        String ifNoneMatch = getHeader(attributes, "If-None-Match");
+        String matched = matches(ifNoneMatch, eTag) ? eTag 
+        					: (thumbnailETag != null && matches(ifNoneMatch, thumbnailETag) ? thumbnailETag : null);
+        if (matched != null) {
+        	response.getHeaders().addHeader("ETag", matched);
+        	response.setStatusCode(HttpServletResponse.SC_NOT_MODIFIED);
+        	return response;
+        }
+        Content content = getContent(doc, field);
+        if (content == null || content.isEmpty()) {
+        	response.setError(HttpServletResponse.SC_NOT_FOUND);
+        	return response;
+        }
+        String contentType = params.get("type").toOptionalString();
+        if (Strings.isEmpty(contentType)) {
+        	contentType = detectContentType(doc, field, content);
+        }
+        if(isCacheAllowed()) {
+        	if(params.get("v").isEmpty()) response.disableCaching();
+        	else response.setCacheDurationToMaximum();
         }
+        response.setContentType(contentType);
+        if(thumbnailETag != null && contentType.startsWith("image/")) {
+        	OContentThumbnailCache cache = OContentThumbnailCache.get();
+        	String key = OContentThumbnailCache.key(rid, field, doc.getVersion(), maxSize, quality);
+        	File file = cache.lookup(key);
+        	if(file == null) {
+        		try {
+        			file = cache.getThumbnail(key, content.toBytes(), maxSize, quality);
+        		} catch (IOException e) {
+        			LOG.error("Can't read image for thumbnail", e);
+        		}
+        	}
+        	if(file != null) {
+        		content = new FileContent(file);
+        		eTag = thumbnailETag;
+        	} else {
+        		LOG.warn("Thumbnail is not available. Using original image.");
+        	}
+        }
+        response.getHeaders().addHeader("ETag", eTag);
+        response.setAcceptRange(ContentRangeType.BYTES);
+        String ifRange = getHeader(attributes, "If-Range");
+        if (ifRange != null && !ifRange.trim().equals(eTag)) clearRange();
+        final long[] range;
+        if (content.isLengthKnown() || isRangeRequested()) {
+        	long length = content.getLength();
+        	response.setContentLength(length);
+        	range = getRange(length);
+        } else {
+        	//Length of content stored in blobs is not known before reading: whole content is streamed without length
+        	range = new long[]{0, Long.MAX_VALUE};
+        }
+        final Content data = content;
+        response.setWriteCallback(new WriteCallback() {
+            @Override
+            public void writeData(IResource.Attributes attributes) throws IOException {
+                data.write(attributes.getResponse().getOutputStream(), range[0], range[1]);
+            }
+        });
         return response;
     }
-    
+
     protected boolean isCacheAllowed() {
     	return false;
     }
-    
+
+    /**
+     * Lookup content of a field. Blobs linked from the field are streamed on writing
+     * @param doc document to get content from
+     * @param field field with content
+     * @return content or null if there is no content
+     */
+    protected Content getContent(ODocument doc, String field) {
+    	OType type = doc.fieldType(field);
+    	if (type == OType.LINK || type == OType.LINKLIST) {
+    		Object value = doc.rawField(field);
+    		List<ORID> chunks = new ArrayList<>();
+    		if (value instanceof OIdentifiable) {
+    			chunks.add(((OIdentifiable) value).getIdentity());
+    		} else if (value instanceof ORecordLazyMultiValue) {
+    			Iterator<OIdentifiable> it = ((ORecordLazyMultiValue) value).rawIterator();
+    			while (it.hasNext()) {
+    				OIdentifiable chunk = it.next();
+    				if (chunk != null) chunks.add(chunk.getIdentity());
+    			}
+    		}
+    		return chunks.isEmpty() ? null : new BlobsContent(doc.getIdentity()+"|"+field+"|"+doc.getVersion(), chunks);
+    	}
+    	byte[] data = getContent((OIdentifiable) doc, field);
+    	return data != null ? new BytesContent(data) : null;
+    }
+
     protected byte[] getContent(OIdentifiable rid, String field) {
     	ODocument doc = rid.getRecord();
     	Object data = doc != null ? doc.field(field) : null;
@@ -140,12 +221,265 @@ public class OContentShareResource extends AbstractResource {
     	return result;
     }
 
-    private WriteCallback createWriteCallback(byte [] data) {
-        return new WriteCallback() {
-            @Override
-            public void writeData(IResource.Attributes attributes) throws IOException {
-                attributes.getResponse().write(data);
-            }
-        };
+    /**
+     * Detect content type by first bytes of content. Result is cached for the version of the document
+     * @param doc document with content
+     * @param field field with content
+     * @param content content to detect type of
+     * @return detected content type
+     */
+    protected String detectContentType(ODocument doc, String field, Content content) {
+    	String key = doc.getIdentity()+"|"+field+"|"+doc.getVersion();
+    	String contentType = CONTENT_TYPES.getIfPresent(key);
+    	if (contentType == null) {
+    		try {
+    			contentType = TIKA.detect(content.getPrefix(DETECTION_PREFIX_SIZE));
+    		} catch (IOException e) {
+    			LOG.error("Can't detect content type", e);
+    			return "application/octet-stream";
+    		}
+    		CONTENT_TYPES.put(key, contentType);
+    	}
+    	return contentType;
+    }
+
+    private static String eTag(String rid, int version, String suffix) {
+    	return "\""+rid+":"+version+(suffix != null ? ":"+suffix : "")+"\"";
+    }
+
+    private static String getHeader(IResource.Attributes attributes, String name) {
+    	return attributes.getRequest() instanceof WebRequest
+    				? ((WebRequest) attributes.getRequest()).getHeader(name) : null;
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+    	if (Strings.isEmpty(ifNoneMatch)) return false;
+    	for (String tag : ifNoneMatch.split(",")) {
+    		tag = tag.trim();
+    		if (tag.startsWith("W/")) tag = tag.substring(2);
+    		if (tag.equals(eTag)) return true;
+    	}
+    	return false;
+    }
+
+    private static boolean isRangeRequested() {
+    	return RequestCycle.get().getMetaData(CONTENT_RANGE_STARTBYTE) != null;
+    }
+
+    private static void clearRange() {
+    	RequestCycle cycle = RequestCycle.get();
+    	cycle.setMetaData(CONTENT_RANGE_STARTBYTE, null);
+    	cycle.setMetaData(CONTENT_RANGE_ENDBYTE, null);
+    }
+
+    /**
+     * Range requested by client is parsed by {@link AbstractResource}: check it against actual length of content.
+     * Not satisfiable range is ignored, so whole content is returned
+     * @param length length of content
+     * @return first and last bytes to write
+     */
+    private static long[] getRange(long length) {
+    	RequestCycle cycle = RequestCycle.get();
+    	Long start = cycle.getMetaData(CONTENT_RANGE_STARTBYTE);
+    	Long end = cycle.getMetaData(CONTENT_RANGE_ENDBYTE);
+    	if (start == null || end == null) return new long[]{0, length - 1};
+    	long last = end < 0 || end >= length ? length - 1 : end;
+    	if (start < 0 || start > last) {
+    		clearRange();
+    		return new long[]{0, length - 1};
+    	}
+    	cycle.setMetaData(CONTENT_RANGE_ENDBYTE, last);
+    	return new long[]{start, last};
+    }
+
+    /**
+     * Content of a field which can be written partially
+     */
+    public static abstract class Content {
+
+    	/**
+    	 * @return length of content in bytes: content is read if its length is not known yet
+    	 */
+    	public abstract long getLength();
+
+    	/**
+    	 * @return true if length of content is known without reading of the content
+    	 */
+    	public boolean isLengthKnown() {
+    		return true;
+    	}
+
+    	public boolean isEmpty() {
+    		return getLength() <= 0;
+    	}
+
+    	/**
+    	 * Write range of content
+    	 * @param out stream to write to
+    	 * @param start first byte to write
+    	 * @param end last byte to write (inclusive): might be beyond the end of content
+    	 * @throws IOException if content can't be read or written
+    	 */
+    	public abstract void write(OutputStream out, long start, long end) throws IOException;
+
+    	public byte[] getPrefix(int size) throws IOException {
+    		ByteArrayOutputStream out = new ByteArrayOutputStream();
+    		write(out, 0, size - 1);
+    		return out.toByteArray();
+    	}
+
+    	public byte[] toBytes() throws IOException {
+    		ByteArrayOutputStream out = new ByteArrayOutputStream();
+    		write(out, 0, Long.MAX_VALUE);
+    		return out.toByteArray();
+    	}
+    }
+
+    /**
+     * Content stored in a field as array of bytes or string
+     */
+    public static class BytesContent extends Content {
+    	private final byte[] data;
+
+    	public BytesContent(byte[] data) {
+    		this.data = data;
+    	}
+
+		@Override
+		public long getLength() {
+			return data.length;
+		}
+
+		@Override
+		public void write(OutputStream out, long start, long end) throws IOException {
+			long last = Math.min(end, data.length - 1);
+			if (last >= start) out.write(data, (int) start, (int) (last - start + 1));
+		}
+
+		@Override
+		public byte[] toBytes() {
+			return data;
+		}
+    }
+
+    /**
+     * Content stored in linked blobs: blobs are loaded one by one and only blobs which overlap requested range are written.
+     * Sizes of blobs are not known before reading: they are measured on the first complete reading
+     * and cached for the version of a document, so whole content is not read just to calculate its length
+     */
+    public static class BlobsContent extends Content {
+    	private static final Cache<String, long[]> SIZES = CacheBuilder.newBuilder()
+    																	.maximumSize(10000)
+    																	.build();
+
+    	private final String key;
+    	private final List<ORID> chunks;
+    	private volatile long[] sizes;
+
+    	public BlobsContent(List<ORID> chunks) {
+    		this(null, chunks);
+    	}
+
+    	/**
+    	 * @param key key of the content to cache sizes of blobs by: should contain version of a document. Might be null
+    	 * @param chunks identities of blobs
+    	 */
+    	public BlobsContent(String key, List<ORID> chunks) {
+    		this.key = key;
+    		this.chunks = chunks;
+    		this.sizes = key != null ? SIZES.getIfPresent(key) : null;
+    	}
+
+    	private long[] getSizes() {
+    		long[] current = sizes;
+    		if (current == null) {
+    			current = new long[chunks.size()];
+    			for (int i = 0; i < current.length; i++) current[i] = read(chunks.get(i)).length;
+    			setSizes(current);
+    		}
+    		return current;
+    	}
+
+    	private void setSizes(long[] sizes) {
+    		this.sizes = sizes;
+    		if (key != null) SIZES.put(key, sizes);
+    	}
+
+    	private static byte[] read(ORID rid) {
+    		ORecord record = ODatabaseRecordThreadLocal.instance().get().load(rid, null, true);
+    		return record instanceof OBlob ? record.toStream() : new byte[0];
+    	}
+
+		@Override
+		public long getLength() {
+			long length = 0;
+			for (long size : getSizes()) length += size;
+			return length;
+		}
+
+		@Override
+		public boolean isLengthKnown() {
+			return sizes != null;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return chunks.isEmpty() || isLengthKnown() && getLength() <= 0;
+		}
+
+		@Override
+		public void write(OutputStream out, long start, long end) throws IOException {
+			long[] known = sizes;
+			long[] measured = known == null ? new long[chunks.size()] : null;
+			long offset = 0;
+			int i = 0;
+			for (; i < chunks.size() && offset <= end; i++) {
+				long size = known != null ? known[i] : -1;
+				//Blob is loaded only if it overlaps the range or if its size is not known yet
+				if (size < 0 || size > 0 && offset + size - 1 >= start) {
+					byte[] data = read(chunks.get(i));
+					size = data.length;
+					long from = Math.max(0, start - offset);
+					long to = Math.min(data.length - 1, end - offset);
+					if (to >= from) out.write(data, (int) from, (int) (to - from + 1));
+				}
+				if (measured != null) measured[i] = size;
+				offset += size;
+			}
+			if (measured != null && i == chunks.size()) setSizes(measured);
+		}
+    }
+
+    /**
+     * Content stored in a file, for example, cached thumbnail
+     */
+    public static class FileContent extends Content {
+    	private final File file;
+    	private final long length;
+
+    	public FileContent(File file) {
+    		this.file = file;
+    		this.length = file.length();
+    	}
+
+		@Override
+		public long getLength() {
+			return length;
+		}
+
+		@Override
+		public void write(OutputStream out, long start, long end) throws IOException {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+				raf.seek(start);
+				byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(1, end - start + 1))];
+				long remaining = end - start + 1;
+				while (remaining > 0) {
+					int read = raf.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+					if (read < 0) break;
+					out.write(buffer, 0, read);
+					remaining -= read;
+				}
+			}
+		}
     }
 }
@@ -0,0 +1,233 @@
+package org.orienteer.core.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.wicket.MetaDataKey;
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.core.service.Orienteer;
+import org.orienteer.core.tasks.OTaskManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hashing;
+import com.google.inject.Key;
+
+import net.coobird.thumbnailator.Thumbnails;
+
+/**
+ * Bounded on-disk cache of thumbnails of images shared by {@link OContentShareResource}.
+ * Thumbnails are generated in background by pool of {@link OTaskManager}: concurrent requests for the same thumbnail
+ * wait for the same generation. Least recently used thumbnails are removed if total size of the cache exceeds the limit.
+ * Cache can be configured by properties: orienteer.content.thumbnails.dir, orienteer.content.thumbnails.maxSize (in bytes)
+ */
+public class OContentThumbnailCache {
+	private static final Logger LOG = LoggerFactory.getLogger(OContentThumbnailCache.class);
+
+	private static final MetaDataKey<OContentThumbnailCache> THUMBNAIL_CACHE_KEY = new MetaDataKey<OContentThumbnailCache>(){};
+
+	public static final String THUMBNAILS_POOL = "thumbnails";
+	public static final String PROPERTY_DIRECTORY = "orienteer.content.thumbnails.dir";
+	public static final String PROPERTY_MAX_SIZE = "orienteer.content.thumbnails.maxSize";
+	public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+	public static final long DEFAULT_GENERATION_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+	private final File directory;
+	private final long maxSize;
+	private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, CompletableFuture<File>> pending = new ConcurrentHashMap<>();
+	private long totalSize = 0;
+
+	public OContentThumbnailCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if(files!=null) {
+			Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+			for (File file : files) {
+				if(file.isFile() && !file.getName().endsWith(".tmp")) {
+					index.put(file.getName(), file.length());
+					totalSize += file.length();
+				} else if(file.isFile()) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	public static OContentThumbnailCache get() {
+		OrienteerWebApplication app = OrienteerWebApplication.get();
+		OContentThumbnailCache cache = app.getMetaData(THUMBNAIL_CACHE_KEY);
+		if(cache==null) {
+			synchronized (OContentThumbnailCache.class) {
+				cache = app.getMetaData(THUMBNAIL_CACHE_KEY);
+				if(cache==null) {
+					Properties properties;
+					try {
+						properties = app.getInjector().getInstance(Key.get(Properties.class, Orienteer.class));
+					} catch (Exception e) {
+						properties = new Properties();
+					}
+					File directory = new File(properties.getProperty(PROPERTY_DIRECTORY,
+													new File(System.getProperty("java.io.tmpdir"), "orienteer-thumbnails").getPath()));
+					long maxSize = DEFAULT_MAX_SIZE;
+					try {
+						maxSize = Long.parseLong(properties.getProperty(PROPERTY_MAX_SIZE, Long.toString(DEFAULT_MAX_SIZE)).trim());
+					} catch (NumberFormatException e) {
+						LOG.warn("Wrong value of property "+PROPERTY_MAX_SIZE);
+					}
+					cache = new OContentThumbnailCache(directory, maxSize);
+					app.setMetaData(THUMBNAIL_CACHE_KEY, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * @param rid identity of a document
+	 * @param field field with an image
+	 * @param version version of the document
+	 * @param size max size of a thumbnail
+	 * @param quality quality of a thumbnail
+	 * @return key of a thumbnail in the cache
+	 */
+	public static String key(String rid, String field, int version, int size, double quality) {
+		return Hashing.sha256().hashString(rid+"|"+field+"|"+version+"|"+size+"|"+quality, StandardCharsets.UTF_8).toString();
+	}
+
+	/**
+	 * Lookup thumbnail in the cache
+	 * @param key key of a thumbnail
+	 * @return file with the thumbnail or null if it's not cached yet
+	 */
+	public File lookup(String key) {
+		synchronized (index) {
+			if(index.get(key)==null) return null;
+		}
+		File file = new File(directory, key);
+		if(file.isFile()) return file;
+		remove(key);
+		return null;
+	}
+
+	/**
+	 * Lookup thumbnail in the cache or generate it
+	 * @param key key of a thumbnail
+	 * @param image original image
+	 * @param size max size of a thumbnail
+	 * @param quality quality of a thumbnail
+	 * @return file with the thumbnail or null if it can't be generated in time
+	 */
+	public File getThumbnail(String key, byte[] image, int size, double quality) {
+		File file = lookup(key);
+		if(file!=null) return file;
+		CompletableFuture<File> future = new CompletableFuture<>();
+		CompletableFuture<File> existing = pending.putIfAbsent(key, future);
+		if(existing!=null) {
+			future = existing;
+		} else {
+			final CompletableFuture<File> generation = future;
+			try {
+				OTaskManager.get().getExecutor(THUMBNAILS_POOL).execute(() -> {
+					try {
+						generation.complete(generate(key, image, size, quality));
+					} catch (Throwable e) {
+						generation.completeExceptionally(e);
+					} finally {
+						pending.remove(key);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				pending.remove(key);
+				LOG.warn("Thumbnail generation was rejected: pool is saturated");
+				return null;
+			}
+		}
+		return await(future);
+	}
+
+	private File await(Future<File> future) {
+		try {
+			return future.get(DEFAULT_GENERATION_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			LOG.error("Can't create thumbnail", e.getCause());
+		} catch (TimeoutException e) {
+			LOG.warn("Thumbnail was not generated in time");
+		}
+		return null;
+	}
+
+	private File generate(String key, byte[] image, int size, double quality) throws IOException {
+		File tmp = new File(directory, key+".tmp");
+		try(OutputStream os = Files.newOutputStream(tmp.toPath())) {
+			Thumbnails.of(new ByteArrayInputStream(image))
+						.size(size, size)
+						.keepAspectRatio(true)
+						.outputQuality(quality)
+						.toOutputStream(os);
+		}
+		File file = new File(directory, key);
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		add(key, file.length());
+		return file;
+	}
+
+	private void add(String key, long length) {
+		synchronized (index) {
+			Long previous = index.put(key, length);
+			if(previous!=null) totalSize -= previous;
+			totalSize += length;
+			Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+			while(totalSize>maxSize && it.hasNext()) {
+				Map.Entry<String, Long> eldest = it.next();
+				if(eldest.getKey().equals(key)) continue;
+				totalSize -= eldest.getValue();
+				it.remove();
+				new File(directory, eldest.getKey()).delete();
+			}
+		}
+	}
+
+	private void remove(String key) {
+		synchronized (index) {
+			Long length = index.remove(key);
+			if(length!=null) totalSize -= length;
+		}
+	}
+
+	public long getTotalSize() {
+		synchronized (index) {
+			return totalSize;
+		}
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+}
@@ -0,0 +1,346 @@
+package org.orienteer.core.tasks;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Named pool of threads with bounded queue for background tasks. Pools are owned by {@link OTaskManager}.
+ * On JDKs with virtual threads pool can execute tasks on virtual threads: number of concurrently executed tasks
+ * and number of waiting tasks are still bounded.
+ * Tasks can be scheduled: shared timer thread only dispatches them to the pool.
+ * Pool collects simple metrics: number of submitted, completed, failed and rejected tasks.
+ */
+public class OTaskExecutor implements Executor {
+	private static final Logger LOG = LoggerFactory.getLogger(OTaskExecutor.class);
+
+	private static final Method VIRTUAL_EXECUTOR_FACTORY = lookupVirtualExecutorFactory();
+	private static final ScheduledThreadPoolExecutor TIMER = newTimer();
+
+	private final String name;
+	private final int threads;
+	private final int queueSize;
+	private final boolean virtual;
+	private final boolean callerRunsOnReject;
+	private final ExecutorService executor;
+	private final ThreadPoolExecutor pool;
+	private final Semaphore admitted;
+	private final Semaphore running;
+
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicInteger active = new AtomicInteger();
+
+	/**
+	 * @param name name of the pool: used as prefix for names of threads
+	 * @param threads max number of concurrently executed tasks
+	 * @param queueSize max number of tasks waiting for execution
+	 * @param virtual execute tasks on virtual threads if JDK supports them
+	 * @param callerRunsOnReject execute task in the calling thread if pool is saturated instead of rejecting it
+	 */
+	public OTaskExecutor(String name, int threads, int queueSize, boolean virtual, boolean callerRunsOnReject) {
+		this(name, threads, queueSize, virtual?newVirtualExecutor(name):null, callerRunsOnReject);
+	}
+
+	/**
+	 * @param name name of the pool
+	 * @param threads max number of concurrently executed tasks
+	 * @param queueSize max number of tasks waiting for execution
+	 * @param threadPerTaskExecutor executor which starts new thread for every task or null to use pool of platform threads
+	 * @param callerRunsOnReject execute task in the calling thread if pool is saturated instead of rejecting it
+	 */
+	OTaskExecutor(String name, int threads, int queueSize, ExecutorService threadPerTaskExecutor, boolean callerRunsOnReject) {
+		this.name = name;
+		this.threads = Math.max(1, threads);
+		this.queueSize = Math.max(0, queueSize);
+		this.callerRunsOnReject = callerRunsOnReject;
+		this.virtual = threadPerTaskExecutor!=null;
+		if(threadPerTaskExecutor!=null) {
+			this.executor = threadPerTaskExecutor;
+			this.pool = null;
+			//Every task gets own virtual thread: it waits for one of running permits while it's queued
+			this.admitted = new Semaphore(this.threads + this.queueSize);
+			this.running = new Semaphore(this.threads);
+		} else {
+			BlockingQueue<Runnable> queue = this.queueSize>0?new ArrayBlockingQueue<>(this.queueSize):new SynchronousQueue<>();
+			this.pool = new ThreadPoolExecutor(this.threads, this.threads, 60, TimeUnit.SECONDS, queue,
+												new ThreadFactoryBuilder()
+													.setNameFormat(name+"-%d")
+													.setDaemon(true)
+													.build());
+			this.pool.allowCoreThreadTimeOut(true);
+			this.executor = pool;
+			this.admitted = null;
+			this.running = null;
+		}
+	}
+
+	private static ScheduledThreadPoolExecutor newTimer() {
+		ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+																				.setNameFormat("tasks-timer")
+																				.setDaemon(true)
+																				.build());
+		timer.setRemoveOnCancelPolicy(true);
+		return timer;
+	}
+
+	private static Method lookupVirtualExecutorFactory() {
+		try {
+			return java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static ExecutorService newVirtualExecutor(String name) {
+		if(VIRTUAL_EXECUTOR_FACTORY==null) return null;
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name+"-", 0L);
+			ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			return (ExecutorService) VIRTUAL_EXECUTOR_FACTORY.invoke(null, factory);
+		} catch (Exception e) {
+			LOG.warn("Virtual threads are not available for pool '"+name+"': platform threads will be used");
+			return null;
+		}
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		dispatch(track(command));
+	}
+
+	/**
+	 * Submit task for execution
+	 * @param task task to execute
+	 * @return future of the task: cancellation interrupts running task
+	 */
+	public Future<?> submit(Runnable task) {
+		FutureTask<Object> future = new FutureTask<>(track(task), null);
+		dispatch(future);
+		return future;
+	}
+
+	private Runnable track(Runnable task) {
+		return () -> {
+			active.incrementAndGet();
+			try {
+				task.run();
+				completed.incrementAndGet();
+			} catch (RuntimeException | Error e) {
+				failed.incrementAndGet();
+				throw e;
+			} finally {
+				active.decrementAndGet();
+			}
+		};
+	}
+
+	/**
+	 * Schedule execution of a task in this pool.
+	 * Periodical task is scheduled with fixed delay: next execution is scheduled once previous one is finished.
+	 * Failures of periodical task are logged and don't stop next executions
+	 * @param task task to execute
+	 * @param delay delay before the first execution
+	 * @param period delay between executions or 0 for single execution
+	 * @param unit unit of delays
+	 * @return future of scheduled task: cancellation stops next executions
+	 */
+	public Future<?> schedule(Runnable task, long delay, long period, TimeUnit unit) {
+		ScheduledTask scheduled = new ScheduledTask(task, unit.toNanos(period));
+		scheduled.schedule(unit.toNanos(delay));
+		return scheduled;
+	}
+
+	private void dispatch(Runnable task) {
+		submitted.incrementAndGet();
+		if(admitted!=null) {
+			if(!admitted.tryAcquire()) {
+				reject(task);
+				return;
+			}
+			try {
+				executor.execute(() -> {
+					try {
+						running.acquire();
+					} catch (InterruptedException e) {
+						admitted.release();
+						Thread.currentThread().interrupt();
+						return;
+					}
+					try {
+						task.run();
+					} finally {
+						running.release();
+						admitted.release();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				admitted.release();
+				reject(task);
+			}
+		} else {
+			try {
+				executor.execute(task);
+			} catch (RejectedExecutionException e) {
+				reject(task);
+			}
+		}
+	}
+
+	private void reject(Runnable task) {
+		rejected.incrementAndGet();
+		if(callerRunsOnReject && !executor.isShutdown()) {
+			task.run();
+		} else {
+			throw new RejectedExecutionException("Pool '"+name+"' is saturated or stopped: "+getActiveCount()+" active, "+getQueueSize()+" queued");
+		}
+	}
+
+	/**
+	 * Stop accepting new tasks and wait for already submitted ones
+	 * @param timeout max time to wait in milliseconds: running tasks are interrupted after that
+	 * @return true if all tasks were completed in time
+	 */
+	public boolean shutdown(long timeout) {
+		executor.shutdown();
+		try {
+			if(executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		LOG.warn("Pool '"+name+"' was not stopped in time: interrupting "+getActiveCount()+" active tasks");
+		executor.shutdownNow();
+		return false;
+	}
+
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getMaxQueueSize() {
+		return queueSize;
+	}
+
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	public int getQueueSize() {
+		if(pool!=null) return pool.getQueue().size();
+		else return Math.max(0, threads + queueSize - admitted.availablePermits() - active.get());
+	}
+
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	public long getCompletedCount() {
+		return completed.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * Task which is dispatched to the pool by the timer
+	 */
+	private class ScheduledTask extends CompletableFuture<Void> implements Runnable {
+		private final Runnable task;
+		private final long period;
+		private volatile Future<?> timer;
+		private volatile Future<?> execution;
+
+		public ScheduledTask(Runnable task, long period) {
+			this.task = task;
+			this.period = period;
+		}
+
+		private void schedule(long delay) {
+			if(isDone()) return;
+			timer = TIMER.schedule(this, delay, TimeUnit.NANOSECONDS);
+			//Task might be cancelled concurrently
+			if(isDone()) timer.cancel(false);
+		}
+
+		@Override
+		public void run() {
+			if(isDone()) return;
+			try {
+				execution = submit(() -> {
+					try {
+						if(!isDone()) task.run();
+					} catch (RuntimeException e) {
+						LOG.error("Scheduled task of pool '"+name+"' was failed", e);
+						if(period<=0) completeExceptionally(e);
+						throw e;
+					} finally {
+						if(period>0) schedule(period);
+						else complete(null);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				if(isShutdown()) cancel(false);
+				else {
+					LOG.warn("Scheduled task was rejected by pool '"+name+"': it will be retried later");
+					schedule(Math.max(period, TimeUnit.SECONDS.toNanos(1)));
+				}
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean ret = super.cancel(mayInterruptIfRunning);
+			Future<?> current = timer;
+			if(current!=null) current.cancel(false);
+			current = execution;
+			if(current!=null && mayInterruptIfRunning) current.cancel(true);
+			return ret;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "OTaskExecutor[name="+name+", threads="+threads+", queue="+queueSize+", virtual="+virtual
+				+", active="+getActiveCount()+", queued="+getQueueSize()+", submitted="+getSubmittedCount()
+				+", completed="+getCompletedCount()+", failed="+getFailedCount()+", rejected="+getRejectedCount()+"]";
+	}
+}
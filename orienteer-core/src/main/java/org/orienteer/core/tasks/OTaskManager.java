@@ -1,24 +1,55 @@
 package org.orienteer.core.tasks;
 
 import com.google.common.collect.MapMaker;
+import com.google.inject.Key;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
+import org.apache.wicket.Application;
 import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.ThreadContext;
 import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.core.service.Orienteer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Task Manager class to provide required management capabilities over set of running tasks 
+ * Task Manager class to provide required management capabilities over set of running tasks.
+ * Task Manager owns named pools of threads for background work: see {@link OTaskExecutor}.
+ * Default configuration of a pool should be registered before the pool is used for the first time:
+ * see {@link #registerExecutor(String, int, int, boolean)}.
+ * Pools can be configured by properties: orienteer.tasks.pool.&lt;name&gt;.threads, .queue, .virtual, .callerRuns
+ * (orienteer.tasks.virtual enables virtual threads for all pools)
  */
 public class OTaskManager {
+	private static final Logger LOG = LoggerFactory.getLogger(OTaskManager.class);
 	
 	private static final MetaDataKey<OTaskManager> TASK_MANAGER_KEY = new MetaDataKey<OTaskManager>(){};
 	
+	public static final String DEFAULT_POOL = "tasks";
+	public static final String PROPERTY_PREFIX = "orienteer.tasks.";
+	public static final int DEFAULT_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+	public static final int DEFAULT_QUEUE_SIZE = 100;
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+	
 	private Map<ORID, OTaskSessionRuntime> activeSessions = new MapMaker().weakValues().makeMap(); 
+	
+	private final Map<String, OTaskExecutor> executors = new ConcurrentHashMap<>();
+	private final Map<String, PoolConfig> configs = new ConcurrentHashMap<>();
+	private final Properties properties;
+	private volatile boolean shutdown = false;
 
-	private OTaskManager() {
+	private OTaskManager(Properties properties) {
+		this.properties = properties;
 	}
 	
 	public static OTaskManager get() {
@@ -28,7 +59,7 @@ public class OTaskManager {
 			synchronized(OTaskManager.class){
 				taskManager = app.getMetaData(TASK_MANAGER_KEY);
 				if(taskManager==null){
-					taskManager = new OTaskManager();
+					taskManager = new OTaskManager(lookupProperties(app));
 					app.setMetaData(TASK_MANAGER_KEY, taskManager);
 				}
 			}
@@ -36,6 +67,158 @@ public class OTaskManager {
 		return taskManager;
 	}
 	
+	private static Properties lookupProperties(OrienteerWebApplication app) {
+		try {
+			return app.getInjector().getInstance(Key.get(Properties.class, Orienteer.class));
+		} catch (Exception e) {
+			return new Properties();
+		}
+	}
+	
+	/**
+	 * Stop all pools of task manager of the application if it was created
+	 * @param app application to stop task manager for
+	 */
+	public static void shutdown(Application app) {
+		OTaskManager taskManager = app.getMetaData(TASK_MANAGER_KEY);
+		if(taskManager!=null) {
+			taskManager.shutdown(DEFAULT_SHUTDOWN_TIMEOUT);
+			app.setMetaData(TASK_MANAGER_KEY, null);
+		}
+	}
+	
+	/**
+	 * Register default configuration of a pool: should be done before the pool is used for the first time,
+	 * for example, on initialization of a module. Configuration can be overridden by properties.
+	 * If the pool was already registered or created with different configuration, the first one is kept
+	 * @param name name of the pool
+	 * @param threads default number of threads
+	 * @param queueSize default size of queue
+	 * @param callerRunsOnReject default policy for saturated pool: execute in calling thread or reject
+	 * @return true if configuration was registered or the same configuration is already registered
+	 */
+	public boolean registerExecutor(String name, int threads, int queueSize, boolean callerRunsOnReject) {
+		PoolConfig config = new PoolConfig(threads, queueSize, callerRunsOnReject);
+		PoolConfig registered = configs.putIfAbsent(name, config);
+		if(registered!=null && !registered.equals(config)) {
+			LOG.warn("Pool '"+name+"' is already configured as "+registered+": configuration "+config+" is ignored");
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Lookup pool or create it with registered configuration or default one if configuration was not registered
+	 * @param name name of the pool
+	 * @return pool of threads
+	 */
+	public OTaskExecutor getExecutor(String name) {
+		if(shutdown) throw new IllegalStateException("Task manager is stopped");
+		return executors.computeIfAbsent(name, n -> {
+			PoolConfig config = configs.computeIfAbsent(n, k -> PoolConfig.DEFAULT);
+			String prefix = PROPERTY_PREFIX+"pool."+n+".";
+			boolean virtual = Boolean.parseBoolean(properties.getProperty(prefix+"virtual", 
+													properties.getProperty(PROPERTY_PREFIX+"virtual", "false")));
+			OTaskExecutor executor = new OTaskExecutor(n, 
+													getIntProperty(prefix+"threads", config.threads), 
+													getIntProperty(prefix+"queue", config.queueSize), 
+													virtual, 
+													Boolean.parseBoolean(properties.getProperty(prefix+"callerRuns", Boolean.toString(config.callerRunsOnReject))));
+			LOG.info("Pool of threads was created: "+executor);
+			return executor;
+		});
+	}
+	
+	/**
+	 * Register configuration of a pool (see {@link #registerExecutor(String, int, int, boolean)}) and lookup the pool:
+	 * should be used only if there are no other users of the pool with different configuration
+	 * @param name name of the pool
+	 * @param threads default number of threads
+	 * @param queueSize default size of queue
+	 * @param callerRunsOnReject default policy for saturated pool: execute in calling thread or reject
+	 * @return pool of threads
+	 */
+	public OTaskExecutor getExecutor(String name, int threads, int queueSize, boolean callerRunsOnReject) {
+		registerExecutor(name, threads, queueSize, callerRunsOnReject);
+		return getExecutor(name);
+	}
+	
+	private int getIntProperty(String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if(value==null) return defaultValue;
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Wrong value of property "+key+": "+value);
+			return defaultValue;
+		}
+	}
+	
+	/**
+	 * @return all pools with their metrics
+	 */
+	public Collection<OTaskExecutor> getExecutors() {
+		return Collections.unmodifiableCollection(new ArrayList<>(executors.values()));
+	}
+	
+	/**
+	 * Execute background work of a session in default pool
+	 * @param session session of a task or null
+	 * @param task work to execute
+	 * @return future of the work
+	 */
+	public Future<?> execute(OTaskSessionRuntime session, Runnable task) {
+		return execute(DEFAULT_POOL, session, task);
+	}
+	
+	/**
+	 * Execute background work of a session in a named pool.
+	 * Interruption of the session cancels the work
+	 * @param pool name of a pool
+	 * @param session session of a task or null
+	 * @param task work to execute
+	 * @return future of the work
+	 */
+	public Future<?> execute(String pool, OTaskSessionRuntime session, Runnable task) {
+		final Application app = ThreadContext.getApplication();
+		Future<?> future = getExecutor(pool).submit(() -> {
+			ThreadContext previous = ThreadContext.get(false);
+			if(app!=null) ThreadContext.setApplication(app);
+			try {
+				task.run();
+			} finally {
+				ThreadContext.restore(previous);
+			}
+		});
+		if(session!=null) session.setFuture(future);
+		return future;
+	}
+	
+	/**
+	 * Stop a pool: should be used by modules which are destroyed while application is running.
+	 * Registered configuration is dropped as well, so the pool can be registered again with new configuration
+	 * @param name name of the pool
+	 * @param timeout max time to wait for running tasks in milliseconds
+	 */
+	public void shutdownExecutor(String name, long timeout) {
+		configs.remove(name);
+		OTaskExecutor executor = executors.remove(name);
+		if(executor!=null) executor.shutdown(timeout);
+	}
+	
+	/**
+	 * Stop all pools: wait for running tasks and interrupt them after timeout
+	 * @param timeout max time to wait for running tasks in milliseconds
+	 */
+	public void shutdown(long timeout) {
+		shutdown = true;
+		long deadline = System.currentTimeMillis() + timeout;
+		for(OTaskExecutor executor : executors.values()) {
+			executor.shutdown(Math.max(0, deadline - System.currentTimeMillis()));
+		}
+		executors.clear();
+	}
+	
 	public Collection<OTaskSessionRuntime> getActiveTaskSessions() {
 		return activeSessions.values();
 	}
@@ -59,5 +242,39 @@ public class OTaskManager {
 	void unregister(OTaskSessionRuntime session) {
 		activeSessions.remove(session.getOTaskSessionPersisted().getDocument().getIdentity());
 	}
+	
+	/**
+	 * Default configuration of a pool
+	 */
+	private static final class PoolConfig {
+		private static final PoolConfig DEFAULT = new PoolConfig(DEFAULT_THREADS, DEFAULT_QUEUE_SIZE, false);
+		
+		private final int threads;
+		private final int queueSize;
+		private final boolean callerRunsOnReject;
+		
+		public PoolConfig(int threads, int queueSize, boolean callerRunsOnReject) {
+			this.threads = threads;
+			this.queueSize = queueSize;
+			this.callerRunsOnReject = callerRunsOnReject;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof PoolConfig)) return false;
+			PoolConfig other = (PoolConfig) obj;
+			return threads==other.threads && queueSize==other.queueSize && callerRunsOnReject==other.callerRunsOnReject;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(threads, queueSize, callerRunsOnReject);
+		}
+		
+		@Override
+		public String toString() {
+			return "[threads="+threads+", queue="+queueSize+", callerRuns="+callerRunsOnReject+"]";
+		}
+	}
 
 }
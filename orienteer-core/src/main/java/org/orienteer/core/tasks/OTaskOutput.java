@@ -0,0 +1,279 @@
+package org.orienteer.core.tasks;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.executor.OResult;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffered output of a task session.
+ * Output is collected in memory and flushed by size- or time-bounded batches as append-only chunk records
+ * linked to the session, so a task which prints N lines writes O(N) bytes to DB.
+ * Optionally, tail of the output is mirrored to a field of the session for display.
+ * Only last {@link #getRetention()} chunks are kept for a session.
+ */
+public class OTaskOutput {
+	private static final Logger LOG = LoggerFactory.getLogger(OTaskOutput.class);
+
+	public static final String OUTPUT_CHUNK_CLASS = "OTaskOutputChunk";
+
+	public static final long DEFAULT_FLUSH_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+	public static final int DEFAULT_MAX_CHUNK_SIZE = 64 * 1024;
+	public static final int DEFAULT_RETENTION = 1000;
+	public static final int DEFAULT_TAIL_SIZE = 16 * 1024;
+
+	/**
+	 * Fields of output chunk ODocument
+	 */
+	public enum Field{
+		SESSION("session"),
+		SEQUENCE("seq"),
+		CONTENT("content"),
+		LINES("lines"),
+		TIMESTAMP("timestamp");
+
+		private String fieldName;
+		public String fieldName(){ return fieldName;}
+		private Field(String fieldName){	this.fieldName = fieldName;}
+	}
+
+	private static final Set<OTaskOutput> PENDING = ConcurrentHashMap.newKeySet();
+	private static volatile ScheduledExecutorService flusher;
+
+	private final OTaskSession session;
+	private final String tailField;
+	private final StringBuilder buffer = new StringBuilder();
+	private final StringBuilder tail = new StringBuilder();
+	private int bufferedLines = 0;
+	private long bufferedSince = 0;
+	private long sequence = 0;
+	private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+	private int maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+	private int retention = DEFAULT_RETENTION;
+	private int tailSize = DEFAULT_TAIL_SIZE;
+
+	/**
+	 * @param session session to write output for
+	 * @param tailField field of the session to mirror tail of the output to or null
+	 */
+	public OTaskOutput(OTaskSession session, String tailField) {
+		this.session = session;
+		this.tailField = tailField;
+	}
+
+	/**
+	 * Append line to the output
+	 * @param line line to append
+	 * @return this output
+	 */
+	public OTaskOutput append(String line) {
+		boolean flush;
+		synchronized (this) {
+			if(buffer.length()==0) {
+				bufferedSince = System.currentTimeMillis();
+				schedule(this);
+			}
+			buffer.append(line).append('\n');
+			bufferedLines++;
+			flush = buffer.length()>=maxChunkSize;
+		}
+		if(flush) flush();
+		return this;
+	}
+
+	/**
+	 * Write buffered output to DB
+	 */
+	public synchronized void flush() {
+		PENDING.remove(this);
+		if(buffer.length()==0) return;
+		final String content = buffer.toString();
+		final int lines = bufferedLines;
+		final long seq = sequence++;
+		buffer.setLength(0);
+		bufferedLines = 0;
+		tail.append(content);
+		if(tail.length()>tailSize) tail.delete(0, tail.length()-tailSize);
+		final ORID sessionId = session.getDocument().getIdentity();
+		try {
+			DBClosure.sudoConsumer(db -> {
+				ODocument chunk = new ODocument(OUTPUT_CHUNK_CLASS);
+				chunk.field(Field.SESSION.fieldName(), sessionId);
+				chunk.field(Field.SEQUENCE.fieldName(), seq);
+				chunk.field(Field.CONTENT.fieldName(), content);
+				chunk.field(Field.LINES.fieldName(), lines);
+				chunk.field(Field.TIMESTAMP.fieldName(), new Date());
+				chunk.save();
+				if(retention>0 && seq>=retention && seq % Math.max(1, retention/10)==0) {
+					db.command("delete from "+OUTPUT_CHUNK_CLASS+" where "+Field.SESSION.fieldName()+" = ? and "
+									+Field.SEQUENCE.fieldName()+" <= ?", sessionId, seq-retention).close();
+				}
+			});
+			if(tailField!=null) session.setField(tailField, tail.toString());
+		} catch (Exception e) {
+			LOG.error("Can't write output of task session "+sessionId, e);
+		}
+	}
+
+	private synchronized boolean isExpired(long now) {
+		return buffer.length()>0 && now-bufferedSince>=flushInterval;
+	}
+
+	/**
+	 * Flush remaining output: should be called once session is finished
+	 */
+	public void close() {
+		flush();
+	}
+
+	private static void schedule(OTaskOutput output) {
+		PENDING.add(output);
+		if(flusher==null) {
+			synchronized (OTaskOutput.class) {
+				if(flusher==null) {
+					ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+																		.setNameFormat("task-output-flusher")
+																		.setDaemon(true)
+																		.build());
+					long period = Math.max(100, DEFAULT_FLUSH_INTERVAL/4);
+					executor.scheduleWithFixedDelay(OTaskOutput::flushExpired, period, period, TimeUnit.MILLISECONDS);
+					flusher = executor;
+				}
+			}
+		}
+	}
+
+	private static void flushExpired() {
+		long now = System.currentTimeMillis();
+		for(OTaskOutput output : PENDING) {
+			try {
+				if(output.isExpired(now)) output.flush();
+			} catch (Exception e) {
+				LOG.error("Can't flush output of a task session", e);
+			}
+		}
+	}
+
+	/**
+	 * Read chunks of output of a session
+	 * @param sessionId id of a session
+	 * @param fromSequence sequence number of the first chunk to read
+	 * @param limit max number of chunks to read
+	 * @return content of chunks ordered by sequence
+	 */
+	public static List<String> readPage(ORID sessionId, long fromSequence, int limit) {
+		return DBClosure.sudo(db -> {
+			List<String> ret = new ArrayList<>();
+			try(OResultSet rs = db.query("select "+Field.CONTENT.fieldName()+" from "+OUTPUT_CHUNK_CLASS
+											+" where "+Field.SESSION.fieldName()+" = ? and "+Field.SEQUENCE.fieldName()+" >= ?"
+											+" order by "+Field.SEQUENCE.fieldName()+" limit ?", sessionId, fromSequence, limit)) {
+				while(rs.hasNext()) ret.add(rs.next().getProperty(Field.CONTENT.fieldName()));
+			}
+			return ret;
+		});
+	}
+
+	/**
+	 * Read last chunks of output of a session
+	 * @param sessionId id of a session
+	 * @param chunks max number of chunks to read
+	 * @return joined content of last chunks
+	 */
+	public static String readTail(ORID sessionId, int chunks) {
+		List<String> ret = DBClosure.sudo(db -> {
+			List<String> contents = new ArrayList<>();
+			try(OResultSet rs = db.query("select "+Field.CONTENT.fieldName()+" from "+OUTPUT_CHUNK_CLASS
+											+" where "+Field.SESSION.fieldName()+" = ?"
+											+" order by "+Field.SEQUENCE.fieldName()+" desc limit ?", sessionId, chunks)) {
+				while(rs.hasNext()) contents.add(rs.next().getProperty(Field.CONTENT.fieldName()));
+			}
+			return contents;
+		});
+		Collections.reverse(ret);
+		return String.join("", ret);
+	}
+
+	/**
+	 * @param sessionId id of a session
+	 * @return number of stored chunks of output of a session
+	 */
+	public static long countChunks(ORID sessionId) {
+		return DBClosure.sudo(db -> {
+			try(OResultSet rs = db.query("select count(*) as count from "+OUTPUT_CHUNK_CLASS
+											+" where "+Field.SESSION.fieldName()+" = ?", sessionId)) {
+				if(!rs.hasNext()) return 0L;
+				OResult result = rs.next();
+				Number count = result.getProperty("count");
+				return count!=null?count.longValue():0L;
+			}
+		});
+	}
+
+	/**
+	 * Remove all output of a session
+	 * @param sessionId id of a session
+	 */
+	public static void delete(ORID sessionId) {
+		DBClosure.sudoConsumer(db -> {
+			db.command("delete from "+OUTPUT_CHUNK_CLASS+" where "+Field.SESSION.fieldName()+" = ?", sessionId).close();
+		});
+	}
+
+	public OTaskSession getSession() {
+		return session;
+	}
+
+	public long getFlushInterval() {
+		return flushInterval;
+	}
+
+	public OTaskOutput setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+		return this;
+	}
+
+	public int getMaxChunkSize() {
+		return maxChunkSize;
+	}
+
+	public OTaskOutput setMaxChunkSize(int maxChunkSize) {
+		this.maxChunkSize = maxChunkSize;
+		return this;
+	}
+
+	public int getRetention() {
+		return retention;
+	}
+
+	/**
+	 * @param retention max number of chunks to keep for a session: 0 or less to keep all
+	 * @return this output
+	 */
+	public OTaskOutput setRetention(int retention) {
+		this.retention = retention;
+		return this;
+	}
+
+	public int getTailSize() {
+		return tailSize;
+	}
+
+	public OTaskOutput setTailSize(int tailSize) {
+		this.tailSize = tailSize;
+		return this;
+	}
+}
@@ -6,6 +6,7 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
 
 import java.util.Date;
+import java.util.concurrent.Future;
 
 /**
  * Runtime object to hold and manage session status
@@ -15,6 +16,8 @@ public class OTaskSessionRuntime implements ITaskSession {
 	private OTaskSession persistedSession;
 	private ITaskSessionCallback callback;
 	private Status status = Status.NOT_STARTED;
+	private OTaskOutput output;
+	private volatile Future<?> future;
 	
 	public OTaskSessionRuntime() {
 		this(TASK_SESSION_CLASS);
@@ -73,8 +76,32 @@ public class OTaskSessionRuntime implements ITaskSession {
 		return this;
 	}
 
+	/**
+	 * @return buffered output of this session
+	 */
+	public synchronized OTaskOutput getOutput() {
+		if(output==null) output = new OTaskOutput(getOTaskSessionPersisted(), getOutputTailField());
+		return output;
+	}
+	
+	/**
+	 * @return field of the session document to mirror tail of the output to or null
+	 */
+	protected String getOutputTailField() {
+		return null;
+	}
+	
+	protected void closeOutput() {
+		OTaskOutput output;
+		synchronized (this) {
+			output = this.output;
+		}
+		if(output!=null) output.close();
+	}
+
 	@Override
 	public OTaskSessionRuntime finish() {
+		closeOutput();
 		if (isDeleteOnFinish()){
 			delSelf();
 		}else{
@@ -88,6 +115,7 @@ public class OTaskSessionRuntime implements ITaskSession {
 		new DBClosure<Boolean>() {
 			@Override
 			protected Boolean execute(ODatabaseSession db) {
+				OTaskOutput.delete(getOTaskSessionPersisted().getDocument().getIdentity());
 				db.delete(getOTaskSessionPersisted().getDocument());
 				return true;
 			}
@@ -97,8 +125,11 @@ public class OTaskSessionRuntime implements ITaskSession {
 	@Override
 	public OTaskSessionRuntime interrupt() throws Exception {
 		ITaskSessionCallback callback = getCallback();
-		if(callback==null) throw new IllegalStateException("Session can't be interrupted: no callback specified");
-		callback.interrupt();
+		Future<?> future = this.future;
+		if(callback==null && future==null) throw new IllegalStateException("Session can't be interrupted: no callback specified");
+		if(callback!=null) callback.interrupt();
+		if(future!=null) future.cancel(true);
+		closeOutput();
 		getOTaskSessionPersisted().setField(Field.FINISH_TIMESTAMP.fieldName(), new Date());
 		setStatus(Status.INTERRUPTED);
 		return this;
@@ -106,7 +137,15 @@ public class OTaskSessionRuntime implements ITaskSession {
 	
 	@Override
 	public boolean isInterruptable() {
-		return Status.RUNNING.equals(getStatus()) && getCallback()!=null;
+		return Status.RUNNING.equals(getStatus()) && (getCallback()!=null || (future!=null && !future.isDone()));
+	}
+	
+	/**
+	 * Link background work of this session: interruption of the session cancels it
+	 * @param future future of background work
+	 */
+	void setFuture(Future<?> future) {
+		this.future = future;
 	}
 	
 	@Override
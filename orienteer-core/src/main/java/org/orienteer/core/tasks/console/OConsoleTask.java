@@ -14,6 +14,7 @@ import org.orienteer.core.method.filters.PlaceFilter;
 import org.orienteer.core.method.filters.WidgetTypeFilter;
 import org.orienteer.core.tasks.ITaskSessionCallback;
 import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskManager;
 import org.orienteer.core.tasks.OTaskSessionRuntime;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 /**
@@ -59,7 +60,7 @@ public class OConsoleTask extends OTask {
 		otaskSession.setDeleteOnFinish((boolean) getField(OTask.Field.AUTODELETE_SESSIONS));
 		otaskSession.setOTask(this);
 		try{
-			Thread innerThread = new Thread(new Runnable(){
+			OTaskManager.get().execute(otaskSession, new Runnable(){
 				@Override
 				public void run() {
 					otaskSession.start();
@@ -98,7 +99,6 @@ public class OConsoleTask extends OTask {
 				}
 				
 			});
-			innerThread.start();
 
 		} catch (Exception e) {
 			otaskSession.finish();
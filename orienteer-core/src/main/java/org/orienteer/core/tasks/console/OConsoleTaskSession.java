@@ -38,9 +38,13 @@ public class OConsoleTaskSession extends OTaskSessionRuntime{
 	}
 
 	public OConsoleTaskSession appendOut(String out){
-		out = getOTaskSessionPersisted().getDocument().field("out")+out+"\n";
-		getOTaskSessionPersisted().setField("out", out);
+		getOutput().append(out);
 		return this;
 	}
+	
+	@Override
+	protected String getOutputTailField() {
+		return Field.OUTPUT.fieldName();
+	}
 
 }
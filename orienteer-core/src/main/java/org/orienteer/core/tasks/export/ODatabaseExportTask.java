@@ -0,0 +1,122 @@
+package org.orienteer.core.tasks.export;
+
+import java.util.Date;
+
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.util.string.Strings;
+import org.orienteer.core.component.BootstrapType;
+import org.orienteer.core.component.FAIconType;
+import org.orienteer.core.component.property.DisplayMode;
+import org.orienteer.core.method.IMethodContext;
+import org.orienteer.core.method.OFilter;
+import org.orienteer.core.method.OMethod;
+import org.orienteer.core.method.filters.PlaceFilter;
+import org.orienteer.core.method.filters.WidgetTypeFilter;
+import org.orienteer.core.resource.DatabaseExportArchiveResource;
+import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskManager;
+import org.orienteer.core.tasks.OTaskSessionRuntime;
+import org.orienteer.core.web.ODocumentPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.exception.OSecurityException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.model.ODocumentModel;
+
+/**
+ * OTask to export database in background. See {@link OParallelDatabaseExport} for details.
+ * Export is executed with full access to the database, so it can be started only by users who can update the database
+ */
+public class ODatabaseExportTask extends OTask {
+	private static final long serialVersionUID = 1L;
+	private static final Logger LOG = LoggerFactory.getLogger(ODatabaseExportTask.class);
+	public static final String TASK_CLASS = "ODatabaseExportTask";
+
+	/**
+	 * data fields
+	 */
+	public enum Field{
+		WORKERS("workers"),
+		COMPRESSION_LEVEL("compressionLevel"),
+		SINCE("since"),
+		SINCE_PROPERTY("sinceProperty");
+
+		private String fieldName;
+		public String fieldName(){ return fieldName;}
+		private Field(String fieldName){	this.fieldName = fieldName;}
+	}
+
+	public ODatabaseExportTask(ODocument oTask) {
+		super(oTask);
+	}
+
+	@OMethod(
+		order=10,bootstrap=BootstrapType.SUCCESS,icon = FAIconType.play,titleKey="task.command.start",
+		permission="EXECUTE",
+		filters={
+				@OFilter(fClass = PlaceFilter.class, fData = "STRUCTURE_TABLE"),
+				@OFilter(fClass = WidgetTypeFilter.class, fData = "parameters"),
+		}
+	)
+	public void run(IMethodContext data){
+		OTaskSessionRuntime newSession = startNewSession();
+		data.getCurrentWidget().setResponsePage(new ODocumentPage(new ODocumentModel(newSession.getOTaskSessionPersisted().getDocument()))
+														.setModeObject(DisplayMode.VIEW));
+	}
+
+	@Override
+	public OTaskSessionRuntime startNewSession() {
+		if(!OParallelDatabaseExport.isAllowed(ODatabaseRecordThreadLocal.instance().get())) {
+			throw new OSecurityException("Export of the database is not allowed for current user");
+		}
+		final ODatabaseExportTaskSession session = new ODatabaseExportTaskSession();
+		//Session holds link to the archive, so it's not deleted on finish
+		session.setDeleteOnFinish(false);
+		session.setOTask(this);
+		session.start();
+		try {
+			Integer workers = getField(Field.WORKERS);
+			Integer compressionLevel = getField(Field.COMPRESSION_LEVEL);
+			Date since = getField(Field.SINCE);
+			String sinceProperty = getField(Field.SINCE_PROPERTY);
+			if(since!=null && Strings.isEmpty(sinceProperty)) {
+				throw new IllegalArgumentException("Property with timestamp of modification should be specified for incremental export");
+			}
+			final OParallelDatabaseExport export = new OParallelDatabaseExport(
+													workers!=null?workers:OParallelDatabaseExport.DEFAULT_WORKERS,
+													compressionLevel!=null?compressionLevel:OParallelDatabaseExport.DEFAULT_COMPRESSION_LEVEL,
+													since, sinceProperty);
+			final String downloadUrl = RequestCycle.get()!=null
+											?DatabaseExportArchiveResource.urlFor(session.getOTaskSessionPersisted().getDocument()).toString()
+											:null;
+			OTaskManager.get().execute(session, () -> {
+				try {
+					String archive = export.execute(session).getName();
+					session.setArchive(archive, downloadUrl);
+					session.appendOut("Database was exported to "+archive);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					session.appendOut("Export was interrupted");
+				} catch (Exception e) {
+					LOG.error("Database export failed", e);
+					session.appendOut("Database export failed: "+e.getMessage());
+				} finally {
+					session.finish();
+				}
+			});
+		} catch (Exception e) {
+			LOG.error("Database export can't be started", e);
+			session.appendOut("Database export can't be started: "+e.getMessage());
+			session.finish();
+		}
+		return session;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <V> V getField(Field field) {
+		return (V) getDocument().field(field.fieldName());
+	}
+}
@@ -0,0 +1,48 @@
+package org.orienteer.core.tasks.export;
+
+import org.orienteer.core.tasks.OTaskSessionRuntime;
+
+import com.orientechnologies.orient.core.metadata.schema.OType;
+
+/**
+ * Task session of {@link ODatabaseExportTask}: holds name of exported archive and link to download it
+ */
+public class ODatabaseExportTaskSession extends OTaskSessionRuntime {
+
+	public static final String TASK_SESSION_CLASS = "ODatabaseExportTaskSession";
+
+	/**
+	 * Fields of task session ODocument
+	 */
+	public enum Field{
+		ARCHIVE("archive",OType.STRING),
+		DOWNLOAD("download",OType.STRING),
+		OUTPUT("out",OType.STRING);
+
+		private String fieldName;
+		private OType type;
+		public String fieldName(){ return fieldName;}
+		public OType type(){ return type;}
+		private Field(String fieldName,OType type){	this.fieldName = fieldName;	this.type = type;}
+	}
+
+	public ODatabaseExportTaskSession() {
+		super(TASK_SESSION_CLASS,true);
+	}
+
+	public ODatabaseExportTaskSession appendOut(String out){
+		getOutput().append(out);
+		return this;
+	}
+
+	public ODatabaseExportTaskSession setArchive(String archive, String downloadUrl) {
+		getOTaskSessionPersisted().setField(Field.ARCHIVE.fieldName(), archive);
+		getOTaskSessionPersisted().setField(Field.DOWNLOAD.fieldName(), downloadUrl);
+		return this;
+	}
+
+	@Override
+	protected String getOutputTailField() {
+		return Field.OUTPUT.fieldName();
+	}
+}
@@ -0,0 +1,92 @@
+package org.orienteer.core.tasks.export;
+
+import java.io.File;
+
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.core.component.visualizer.UrlLinkVisualizer;
+import org.orienteer.core.module.AbstractOrienteerModule;
+import org.orienteer.core.module.IOrienteerModule;
+import org.orienteer.core.module.TaskManagerModule;
+import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskSessionRuntime;
+import org.orienteer.core.util.OSchemaHelper;
+
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.hook.ODocumentHookAbstract;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * {@link IOrienteerModule} to install datamodel for database export tasks.
+ * Exported archives are deleted together with their task sessions
+ */
+public class ODatabaseExportTasksModule extends AbstractOrienteerModule {
+	public static final String NAME = "export-tasks";
+
+	public ODatabaseExportTasksModule() {
+		super(NAME, 2, TaskManagerModule.NAME);
+	}
+
+	@Override
+	public ODocument onInstall(OrienteerWebApplication app, ODatabaseSession db) {
+		OSchemaHelper helper = OSchemaHelper.bind(db);
+		helper.oClass(ODatabaseExportTask.TASK_CLASS,OTask.TASK_CLASS)
+				.oProperty(ODatabaseExportTask.Field.WORKERS.fieldName(),OType.INTEGER,25)
+				.oProperty(ODatabaseExportTask.Field.COMPRESSION_LEVEL.fieldName(),OType.INTEGER,26)
+				.oProperty(ODatabaseExportTask.Field.SINCE.fieldName(),OType.DATETIME,27)
+				.oProperty(ODatabaseExportTask.Field.SINCE_PROPERTY.fieldName(),OType.STRING,28);
+		OTask.TASK_JAVA_CLASS_ATTRIBUTE.setValue(db.getMetadata().getSchema().getClass(ODatabaseExportTask.TASK_CLASS), ODatabaseExportTask.class.getName());
+
+		helper.oClass(ODatabaseExportTaskSession.TASK_SESSION_CLASS,OTaskSessionRuntime.TASK_SESSION_CLASS)
+				.oProperty(ODatabaseExportTaskSession.Field.ARCHIVE.fieldName(),OType.STRING,35).markAsDocumentName()
+				.oProperty(ODatabaseExportTaskSession.Field.DOWNLOAD.fieldName(),OType.STRING,36).assignVisualization(UrlLinkVisualizer.NAME)
+				.oProperty(ODatabaseExportTaskSession.Field.OUTPUT.fieldName(),OType.STRING,38).assignVisualization("textarea");
+		return null;
+	}
+
+	@Override
+	public void onUpdate(OrienteerWebApplication app, ODatabaseSession db, int oldVersion, int newVersion) {
+		if(oldVersion<2) {
+			//LSN of storage is not stored anymore: it's meaningless for restore of an archive
+			OClass sessionClass = db.getMetadata().getSchema().getClass(ODatabaseExportTaskSession.TASK_SESSION_CLASS);
+			if(sessionClass!=null && sessionClass.existsProperty("lsn")) sessionClass.dropProperty("lsn");
+		}
+		onInstall(app, db);
+	}
+
+	@Override
+	public void onInitialize(OrienteerWebApplication app, ODatabaseSession db) {
+		app.getOrientDbSettings().addORecordHooks(ArchiveCleanupHook.class);
+	}
+
+	@Override
+	public void onDestroy(OrienteerWebApplication app, ODatabaseSession db) {
+		app.getOrientDbSettings().removeORecordHooks(ArchiveCleanupHook.class);
+	}
+
+	/**
+	 * {@link ODocumentHookAbstract} to delete exported archive once its task session is deleted
+	 */
+	public static class ArchiveCleanupHook extends ODocumentHookAbstract {
+
+		public ArchiveCleanupHook(ODatabaseDocument database) {
+			super(database);
+			setIncludeClasses(ODatabaseExportTaskSession.TASK_SESSION_CLASS);
+		}
+
+		@Override
+		public DISTRIBUTED_EXECUTION_MODE getDistributedExecutionMode() {
+			return DISTRIBUTED_EXECUTION_MODE.BOTH;
+		}
+
+		@Override
+		public void onRecordAfterDelete(ODocument iDocument) {
+			String name = iDocument.field(ODatabaseExportTaskSession.Field.ARCHIVE.fieldName());
+			//Only name of an archive is used, so files outside of export directory are never deleted
+			if(name!=null) new File(OParallelDatabaseExport.getExportDirectory(), new File(name).getName()).delete();
+		}
+	}
+
+}
@@ -0,0 +1,324 @@
+package org.orienteer.core.tasks.export;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.core.service.Orienteer;
+import org.orienteer.core.tasks.OTaskManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Key;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.db.tool.ODatabaseExport;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.security.ORole;
+import com.orientechnologies.orient.core.metadata.security.ORule;
+import com.orientechnologies.orient.core.metadata.security.OSecurityUser;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.executor.OResult;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+import ru.ydn.wicket.wicketorientdb.utils.LoggerOCommandOutputListener;
+
+/**
+ * Export of a database to ZIP archive of gzipped segments: schema and a segment per cluster.
+ * Segments are written in parallel by workers of {@link OTaskManager} pool, every worker uses its own database instance.
+ * Full export writes segments by {@link ODatabaseExport}, so every segment can be imported separately.
+ * Incremental export writes only records of classes with specified timestamp property which were modified since
+ * specified date: such segments contain records as JSON lines.
+ * Archive contains all records including users, roles and hashes of passwords,
+ * so export and download of archives are allowed only for users who can update the database: see {@link #isAllowed(ODatabaseDocument)}.
+ * Archives are stored in directory specified by property orienteer.export.dir
+ */
+public class OParallelDatabaseExport {
+	private static final Logger LOG = LoggerFactory.getLogger(OParallelDatabaseExport.class);
+
+	public static final String EXPORT_POOL = "export";
+	public static final String PROPERTY_DIRECTORY = "orienteer.export.dir";
+	public static final int DEFAULT_WORKERS = 4;
+	public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+	public static final String MANIFEST = "manifest.json";
+
+	private static final String SCHEMA_SEGMENT = "schema";
+	private static final long PROGRESS_INTERVAL = 1000;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final int workers;
+	private final int compressionLevel;
+	private final Date since;
+	private final String sinceProperty;
+
+	/**
+	 * @param workers number of segments to write in parallel
+	 * @param compressionLevel level of gzip compression of segments: from 0 to 9 or -1 for default level
+	 * @param since date to export modifications since or null for full export
+	 * @param sinceProperty property with timestamp of modification: required for incremental export
+	 */
+	public OParallelDatabaseExport(int workers, int compressionLevel, Date since, String sinceProperty) {
+		this.workers = Math.max(1, workers);
+		this.compressionLevel = Math.max(Deflater.DEFAULT_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, compressionLevel));
+		this.since = since;
+		this.sinceProperty = sinceProperty;
+	}
+
+	/**
+	 * @return directory to store archives to
+	 */
+	public static File getExportDirectory() {
+		String directory = null;
+		try {
+			//Directory is also required out of requests: for example, by hook which deletes archives of deleted sessions
+			Properties properties = OrienteerWebApplication.lookupApplication().getInjector().getInstance(Key.get(Properties.class, Orienteer.class));
+			directory = properties.getProperty(PROPERTY_DIRECTORY);
+		} catch (Exception e) {
+			LOG.debug("Properties are not available", e);
+		}
+		return directory!=null?new File(directory):new File(System.getProperty("java.io.tmpdir"), "orienteer-exports");
+	}
+
+	/**
+	 * Check that current user of a database can export it and download exported archives
+	 * @param db database of current user
+	 * @return true if user has permission to update the database
+	 */
+	public static boolean isAllowed(ODatabaseDocument db) {
+		OSecurityUser user = db.getUser();
+		return user==null || user.checkIfAllowed(ORule.ResourceGeneric.DATABASE, null, ORole.PERMISSION_UPDATE)!=null;
+	}
+
+	/**
+	 * Export database: blocks until all segments are written
+	 * @param session session to report progress to
+	 * @return archive with exported database
+	 * @throws Exception if export was failed or interrupted
+	 */
+	public File execute(ODatabaseExportTaskSession session) throws Exception {
+		File directory = getExportDirectory();
+		directory.mkdirs();
+		List<Segment> segments = DBClosure.sudo(this::planSegments);
+		session.setFinalProgress(segments.size());
+		session.appendOut((since!=null?"Incremental export since "+since:"Full export")+": "+segments.size()+" segments");
+		File segmentsDirectory = Files.createTempDirectory(directory.toPath(), "segments-").toFile();
+		Queue<Segment> queue = new ConcurrentLinkedQueue<>(segments);
+		Queue<String> messages = new ConcurrentLinkedQueue<>();
+		AtomicInteger completed = new AtomicInteger();
+		AtomicReference<Exception> failure = new AtomicReference<>();
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			OTaskManager taskManager = OTaskManager.get();
+			//Pool is shared by all exports: number of workers is limited by size of the pool
+			int poolWorkers = Math.min(workers, taskManager.getExecutor(EXPORT_POOL).getThreads());
+			for(int i=0; i<Math.min(poolWorkers, segments.size()); i++) {
+				futures.add(taskManager.execute(EXPORT_POOL, null, () -> {
+					Segment segment;
+					while(failure.get()==null && !Thread.currentThread().isInterrupted() && (segment = queue.poll())!=null) {
+						try {
+							final Segment current = segment;
+							current.records = DBClosure.sudo(db -> {
+								try {
+									return current.write(db, new File(segmentsDirectory, current.getFileName()));
+								} catch (IOException e) {
+									throw new UncheckedIOException(e);
+								}
+							});
+							completed.incrementAndGet();
+							messages.add("Segment '"+current.name+"' was exported: "+current.records+" records");
+						} catch (Exception e) {
+							failure.compareAndSet(null, e);
+							LOG.error("Segment '"+segment.name+"' was not exported", e);
+						}
+					}
+				}));
+			}
+			for(Future<?> future : futures) {
+				while(!isDone(future)) report(session, completed, messages);
+			}
+			report(session, completed, messages);
+			Exception exc = failure.get();
+			if(exc!=null) throw exc;
+			return assemble(directory, segmentsDirectory, segments);
+		} finally {
+			for(Future<?> future : futures) future.cancel(true);
+			deleteDirectory(segmentsDirectory);
+		}
+	}
+
+	private static boolean isDone(Future<?> future) throws InterruptedException {
+		try {
+			future.get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException | CancellationException e) {
+			return true;
+		}
+	}
+
+	private static void report(ODatabaseExportTaskSession session, AtomicInteger completed, Queue<String> messages) {
+		String message;
+		while((message = messages.poll())!=null) session.appendOut(message);
+		session.setCurrentProgress(completed.get());
+	}
+
+	private List<Segment> planSegments(ODatabaseSession db) {
+		List<Segment> segments = new ArrayList<>();
+		if(since==null) {
+			segments.add(new Segment(SCHEMA_SEGMENT));
+			for(String cluster : db.getClusterNames()) segments.add(new Segment(cluster));
+		} else {
+			for(OClass oClass : db.getMetadata().getSchema().getClasses()) {
+				//Property can be inherited: every class has own clusters, so clusters are not duplicated
+				if(oClass.getProperty(sinceProperty)==null) continue;
+				for(int clusterId : oClass.getClusterIds()) {
+					String cluster = db.getClusterNameById(clusterId);
+					if(cluster!=null) segments.add(new Segment(cluster));
+				}
+			}
+		}
+		return segments;
+	}
+
+	private File assemble(File directory, File segmentsDirectory, List<Segment> segments) throws IOException {
+		String name = "export-"+new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+							+(since!=null?"-incremental":"")+".zip";
+		File tmp = new File(segmentsDirectory, name);
+		try(ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath()), BUFFER_SIZE))) {
+			//Segments are compressed already
+			zip.setLevel(Deflater.NO_COMPRESSION);
+			List<ODocument> segmentsManifest = new ArrayList<>();
+			for(Segment segment : segments) {
+				zip.putNextEntry(new ZipEntry(segment.getFileName()));
+				Files.copy(new File(segmentsDirectory, segment.getFileName()).toPath(), zip);
+				zip.closeEntry();
+				ODocument segmentManifest = new ODocument();
+				segmentManifest.field("name", segment.name);
+				segmentManifest.field("file", segment.getFileName());
+				segmentManifest.field("records", segment.records);
+				segmentsManifest.add(segmentManifest);
+			}
+			ODocument manifest = new ODocument();
+			manifest.field("incremental", since!=null);
+			if(since!=null) {
+				manifest.field("since", since.getTime());
+				manifest.field("sinceProperty", sinceProperty);
+			}
+			manifest.field("segments", segmentsManifest);
+			zip.putNextEntry(new ZipEntry(MANIFEST));
+			zip.write(manifest.toJSON().getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+		File archive = new File(directory, name);
+		Files.move(tmp.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return archive;
+	}
+
+	private static void deleteDirectory(File directory) {
+		File[] files = directory.listFiles();
+		if(files!=null) {
+			for(File file : files) file.delete();
+		}
+		directory.delete();
+	}
+
+	private OutputStream openSegment(File file) throws IOException {
+		OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE);
+		return new GZIPOutputStream(out, BUFFER_SIZE) {
+			{
+				def.setLevel(compressionLevel);
+			}
+		};
+	}
+
+	/**
+	 * Segment of an archive: schema or records of a cluster
+	 */
+	private class Segment {
+		private final String name;
+		private volatile long records;
+
+		public Segment(String name) {
+			this.name = name;
+		}
+
+		public String getFileName() {
+			return (since!=null?name+".jsonl":name+".json")+".gz";
+		}
+
+		public long write(ODatabaseSession db, File file) throws IOException {
+			if(since!=null) return writeModified(db, file);
+			SegmentExport export = new SegmentExport((ODatabaseDocumentInternal) db, openSegment(file));
+			if(SCHEMA_SEGMENT.equals(name)) export.setOptions("-includeRecords=false");
+			else export.setOptions("-includeInfo=false -includeClusterDefinitions=false -includeSchema=false"
+									+ " -includeSecurity=false -includeIndexDefinitions=false -includeManualIndexes=false"
+									+ " -includeCluster="+name);
+			try {
+				export.exportDatabase();
+			} finally {
+				export.close();
+			}
+			return export.getRecordExported();
+		}
+
+		private long writeModified(ODatabaseSession db, File file) throws IOException {
+			long count = 0;
+			try(Writer writer = new OutputStreamWriter(openSegment(file), StandardCharsets.UTF_8);
+				OResultSet rs = db.query("select from cluster:"+name+" where `"+sinceProperty+"` >= ?", since)) {
+				while(rs.hasNext()) {
+					OResult result = rs.next();
+					ORecord record = result.getRecord().orElse(null);
+					if(record==null) continue;
+					writer.write(record.toJSON("rid,version,class,type,keepTypes"));
+					writer.write('\n');
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * {@link ODatabaseExport} which provides number of exported records
+	 */
+	private static class SegmentExport extends ODatabaseExport {
+
+		public SegmentExport(ODatabaseDocumentInternal db, OutputStream out) throws IOException {
+			super(db, out, LoggerOCommandOutputListener.INSTANCE);
+		}
+
+		public long getRecordExported() {
+			return recordExported;
+		}
+	}
+}
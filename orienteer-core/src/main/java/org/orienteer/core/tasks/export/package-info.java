@@ -0,0 +1,4 @@
+/**
+ * Package with background database export task
+ */
+package org.orienteer.core.tasks.export;
@@ -1,5 +1,7 @@
 package org.orienteer.core.util;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
@@ -10,6 +12,7 @@ import org.apache.wicket.util.string.Strings;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.OrienteerWebSession;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -310,6 +313,29 @@ public class CommonUtils {
 		}
 	}
 	
+	/**
+	 * Calculate hex encoded SHA-256 digest of given strings: might be used for ETags or keys of caches
+	 * @param parts strings to calculate digest for. Nulls are allowed
+	 * @return hex encoded digest
+	 */
+	public static String digest(CharSequence... parts) {
+		Hasher hasher = Hashing.sha256().newHasher();
+		for (CharSequence part : parts) {
+			if(part==null) hasher.putInt(-1);
+			else hasher.putInt(part.length()).putString(part, StandardCharsets.UTF_8);
+		}
+		return hasher.hash().toString();
+	}
+	
+	/**
+	 * Calculate hex encoded SHA-256 digest of given content
+	 * @param content content to calculate digest for
+	 * @return hex encoded digest
+	 */
+	public static String digest(byte[] content) {
+		return Hashing.sha256().hashBytes(content).toString();
+	}
+	
 	/**
 	 * Capitalizes a string.
 	 * 
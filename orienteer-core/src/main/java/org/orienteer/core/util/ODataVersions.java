@@ -0,0 +1,107 @@
+package org.orienteer.core.util;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.apache.wicket.util.string.Strings;
+import org.orienteer.core.hook.DataVersionHook;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+
+/**
+ * Registry of versions of data per database and class.
+ * Versions are increased by {@link DataVersionHook} once documents of a class or of its subclasses are changed,
+ * so version of data selected by a query can be calculated without execution of the query.
+ * Versions are tracked within current JVM only: restart of the application changes all versions
+ */
+public final class ODataVersions {
+
+	private static final ODataVersions INSTANCE = new ODataVersions();
+	private static final Pattern TOKENS = Pattern.compile("[^\\w$]+");
+	private static final String ALL_CLASSES = "*";
+
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+	private final Map<String, Map<String, AtomicLong>> versions = new ConcurrentHashMap<>();
+
+	private ODataVersions() {
+	}
+
+	public static ODataVersions get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Mark that data of a class has been changed
+	 * @param dbName name of a database
+	 * @param oClass class of changed document. Might be null
+	 */
+	public void touch(String dbName, OClass oClass) {
+		Map<String, AtomicLong> dbVersions = getVersions(dbName);
+		if(oClass!=null) {
+			increment(dbVersions, oClass.getName());
+			for(OClass superClass : oClass.getAllSuperClasses()) {
+				increment(dbVersions, superClass.getName());
+			}
+		}
+		increment(dbVersions, ALL_CLASSES);
+	}
+
+	/**
+	 * @param dbName name of a database
+	 * @param className name of a class
+	 * @return current version of data of the class and its subclasses
+	 */
+	public long getVersion(String dbName, String className) {
+		AtomicLong version = getVersions(dbName).get(className.toLowerCase());
+		return version!=null?version.get():0;
+	}
+
+	/**
+	 * @param dbName name of a database
+	 * @return current version of all data of the database
+	 */
+	public long getVersion(String dbName) {
+		return getVersion(dbName, ALL_CLASSES);
+	}
+
+	/**
+	 * Calculate version of data which is selected by a query.
+	 * Version depends on versions of all classes which are mentioned in the query.
+	 * If there are no such classes (for example, records are selected by RIDs), version of whole database is used
+	 * @param db database to execute query on
+	 * @param sql query
+	 * @return version of data of the query
+	 */
+	public String getVersion(ODatabaseDocument db, String sql) {
+		String dbName = db.getName();
+		Set<String> classes = new HashSet<>();
+		if(!Strings.isEmpty(sql)) {
+			OSchema schema = db.getMetadata().getSchema();
+			for(String token : TOKENS.split(sql)) {
+				if(!token.isEmpty() && schema.existsClass(token)) classes.add(token.toLowerCase());
+			}
+		}
+		long version;
+		if(classes.isEmpty()) version = getVersion(dbName);
+		else {
+			//Versions are never decreased: so sum is changed once version of any class is changed
+			version = 0;
+			for(String className : classes) version += getVersion(dbName, className);
+		}
+		return epoch+"."+version;
+	}
+
+	private Map<String, AtomicLong> getVersions(String dbName) {
+		return versions.computeIfAbsent(dbName, k -> new ConcurrentHashMap<>());
+	}
+
+	private static void increment(Map<String, AtomicLong> dbVersions, String className) {
+		dbVersions.computeIfAbsent(className.toLowerCase(), k -> new AtomicLong()).incrementAndGet();
+	}
+}
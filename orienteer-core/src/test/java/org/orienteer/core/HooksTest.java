@@ -12,6 +12,7 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.orienteer.core.hook.CallbackHook;
+import org.orienteer.core.util.ODataVersions;
 import org.orienteer.junit.OrienteerTestRunner;
 import org.orienteer.junit.Sudo;
 import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
@@ -30,6 +31,8 @@ public class HooksTest
 	private static final String TEST_CLASS_B = "TestClassB";
 	private static final String TEST_CLASS_C = "TestClassC";
 	private static final String TEST_CLASS_CALLBACK = "TestClassCallbacks";
+	private static final String TEST_CLASS_VERSIONS = "TestClassVersions";
+	private static final String TEST_CLASS_VERSIONS_CHILD = "TestClassVersionsChild";
 	@Test
 	@Sudo
 	public void testCalculableHook() throws Exception
@@ -318,4 +321,45 @@ public class HooksTest
 			schema.dropClass(TEST_CLASS_CALLBACK);
 		}
 	}
+	
+	@Test
+	@Sudo
+	public void testDataVersionHook() throws Exception {
+		ODatabaseDocument db = OrientDbWebSession.get().getDatabase();
+		OSchema schema = db.getMetadata().getSchema();
+		OClass parent = schema.createClass(TEST_CLASS_VERSIONS);
+		OClass child = schema.createClass(TEST_CLASS_VERSIONS_CHILD, parent);
+		ODataVersions versions = ODataVersions.get();
+		String parentSql = "select from "+TEST_CLASS_VERSIONS;
+		String childSql = "select from "+TEST_CLASS_VERSIONS_CHILD+" where name = 'test'";
+		try {
+			String parentVersion = versions.getVersion(db, parentSql);
+			String childVersion = versions.getVersion(db, childSql);
+			assertEquals(parentVersion, versions.getVersion(db, parentSql));
+			
+			ODocument doc = new ODocument(parent);
+			doc.field("name", "test");
+			doc.save();
+			assertNotEquals(parentVersion, parentVersion = versions.getVersion(db, parentSql));
+			assertEquals(childVersion, versions.getVersion(db, childSql));
+			
+			ODocument childDoc = new ODocument(child);
+			childDoc.field("name", "test");
+			childDoc.save();
+			assertNotEquals(parentVersion, parentVersion = versions.getVersion(db, parentSql));
+			assertNotEquals(childVersion, childVersion = versions.getVersion(db, childSql));
+			
+			childDoc.delete();
+			assertNotEquals(parentVersion, versions.getVersion(db, parentSql));
+			assertNotEquals(childVersion, versions.getVersion(db, childSql));
+			
+			String ridVersion = versions.getVersion(db, "select from "+doc.getIdentity());
+			doc.field("name", "changed");
+			doc.save();
+			assertNotEquals(ridVersion, versions.getVersion(db, "select from "+doc.getIdentity()));
+		} finally {
+			schema.dropClass(TEST_CLASS_VERSIONS_CHILD);
+			schema.dropClass(TEST_CLASS_VERSIONS);
+		}
+	}
 }
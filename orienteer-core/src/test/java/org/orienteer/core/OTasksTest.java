@@ -7,6 +7,7 @@ import org.junit.runner.RunWith;
 import org.orienteer.core.tasks.ITaskSession;
 import org.orienteer.core.tasks.ITaskSession.Status;
 import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskOutput;
 import org.orienteer.core.tasks.OTaskSessionRuntime;
 import org.orienteer.core.tasks.TestTask;
 import org.orienteer.core.tasks.console.OConsoleTask;
@@ -16,6 +17,7 @@ import static org.junit.Assert.*;
 import com.google.inject.Singleton;
 import com.orientechnologies.orient.core.db.ODatabaseSession;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
 import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
@@ -78,6 +80,25 @@ public class OTasksTest {
 		assertNotNull(session.getOTaskSessionPersisted().getDocument().field(ITaskSession.Field.FINISH_TIMESTAMP.fieldName()));
 	}
 	
+	@Test
+	public void testSessionOutput() throws Exception {
+		OTaskSessionRuntime session = new OTaskSessionRuntime(OTaskSessionRuntime.TASK_SESSION_CLASS, true);
+		session.getOutput().setMaxChunkSize(16).setRetention(0);
+		session.start();
+		StringBuilder expected = new StringBuilder();
+		for(int i=0; i<20; i++) {
+			session.getOutput().append("line "+i);
+			expected.append("line ").append(i).append('\n');
+		}
+		session.finish();
+		ORID sessionId = session.getOTaskSessionPersisted().getDocument().getIdentity();
+		assertTrue(OTaskOutput.countChunks(sessionId)>1);
+		assertEquals(expected.toString(), String.join("", OTaskOutput.readPage(sessionId, 0, 1000)));
+		assertTrue(OTaskOutput.readTail(sessionId, 1).endsWith("line 19\n"));
+		OTaskOutput.delete(sessionId);
+		assertEquals(0, OTaskOutput.countChunks(sessionId));
+	}
+	
 	@Test
 	@Ignore
 	public void taskTestAndTaskSessionTest() throws Exception{
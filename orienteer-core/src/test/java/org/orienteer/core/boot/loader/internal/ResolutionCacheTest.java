@@ -0,0 +1,126 @@
+package org.orienteer.core.boot.loader.internal;
+
+import com.google.common.collect.Lists;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test resolution of artifacts from local file-based repository and cache of resolved dependencies
+ */
+public class ResolutionCacheTest {
+
+    private static final String POM_TEMPLATE = "<project><modelVersion>4.0.0</modelVersion>"
+            + "<groupId>org.test</groupId><artifactId>%s</artifactId><version>1.0</version>"
+            + "<dependencies>%s</dependencies></project>";
+    private static final String DEPENDENCY_TEMPLATE = "<dependency><groupId>org.test</groupId>"
+            + "<artifactId>%s</artifactId><version>1.0</version></dependency>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File localRepository;
+    private Path cachePath;
+    private Artifact root;
+
+    @Before
+    public void init() throws IOException {
+        localRepository = folder.newFolder("repository");
+        cachePath = folder.getRoot().toPath().resolve("resolution-cache.properties");
+        installArtifact("dependency", "");
+        installArtifact("root", String.format(DEPENDENCY_TEMPLATE, "dependency"));
+        root = new DefaultArtifact("org.test:root:jar:1.0");
+    }
+
+    @Test
+    public void resolveFromLocalRepository() {
+        List<Artifact> dependencies = resolve();
+        assertEquals("root and its dependency", 2, dependencies.size());
+        for (Artifact dependency : dependencies) {
+            assertNotNull("resolved file of " + dependency, dependency.getFile());
+        }
+    }
+
+    @Test
+    public void cacheResolvedDependencies() {
+        List<Artifact> dependencies = resolve();
+        ResolutionCache cache = new ResolutionCache(cachePath, localRepository.getAbsolutePath());
+        assertNull("nothing cached", cache.get(root));
+        cache.put(root, dependencies);
+        cache.save();
+        assertTrue("cache is saved", Files.isRegularFile(cachePath));
+
+        List<Artifact> cached = new ResolutionCache(cachePath, localRepository.getAbsolutePath()).get(root);
+        assertNotNull("dependencies from cache", cached);
+        assertEquals(dependencies.size(), cached.size());
+        for (int i = 0; i < dependencies.size(); i++) {
+            assertEquals(dependencies.get(i).toString(), cached.get(i).toString());
+            assertEquals(dependencies.get(i).getFile().getAbsoluteFile(), cached.get(i).getFile().getAbsoluteFile());
+        }
+        assertNull("other local repository", new ResolutionCache(cachePath, folder.getRoot().getAbsolutePath()).get(root));
+    }
+
+    @Test
+    public void invalidateOnChangeOfLocalRepository() throws IOException {
+        ResolutionCache cache = new ResolutionCache(cachePath, localRepository.getAbsolutePath());
+        cache.put(root, resolve());
+        cache.save();
+
+        Path dependencyJar = localRepository.toPath().resolve("org/test/dependency/1.0/dependency-1.0.jar");
+        Files.write(dependencyJar, "changed".getBytes(StandardCharsets.UTF_8));
+
+        cache = new ResolutionCache(cachePath, localRepository.getAbsolutePath());
+        assertNull("local repository was changed", cache.get(root));
+    }
+
+    @Test
+    public void notCacheableVersions() {
+        List<Artifact> dependencies = resolve();
+        ResolutionCache cache = new ResolutionCache(cachePath, localRepository.getAbsolutePath());
+        for (String version : new String[]{"1.1-SNAPSHOT", "[1.0,2.0)", "LATEST", "RELEASE"}) {
+            Artifact artifact = new DefaultArtifact("org.test:root:jar:" + version);
+            cache.put(artifact, dependencies);
+            assertNull("version " + version, cache.get(artifact));
+        }
+        Artifact snapshot = new DefaultArtifact("org.test:dependency:jar:1.1-SNAPSHOT")
+                .setFile(dependencies.get(1).getFile());
+        cache.put(root, Lists.newArrayList(dependencies.get(0), snapshot));
+        assertNull("snapshot dependency", cache.get(root));
+    }
+
+    @Test
+    public void disabledCache() {
+        ResolutionCache cache = new ResolutionCache(null, localRepository.getAbsolutePath());
+        cache.put(root, resolve());
+        cache.save();
+        assertNull(cache.get(root));
+    }
+
+    private List<Artifact> resolve() {
+        AetherUtils aetherUtils = new AetherUtils(localRepository.getAbsolutePath(), Lists.newArrayList());
+        return aetherUtils.resolveDependency(new Dependency(root, "compile"));
+    }
+
+    private void installArtifact(String artifactId, String dependencies) throws IOException {
+        Path dir = Files.createDirectories(localRepository.toPath().resolve("org/test/" + artifactId + "/1.0"));
+        Files.write(dir.resolve(artifactId + "-1.0.pom"),
+                String.format(POM_TEMPLATE, artifactId, dependencies).getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve(artifactId + "-1.0.jar"), artifactId.getBytes(StandardCharsets.UTF_8));
+    }
+}
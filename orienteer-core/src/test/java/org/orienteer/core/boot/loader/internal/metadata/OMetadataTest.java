@@ -88,6 +88,29 @@ public class OMetadataTest {
         assertTrue("metadata size must be 1", metadataAsList.size() == 1);
     }
 
+    @Test
+    public void updateInBatch() throws Exception {
+        Artifact artifact = new DefaultArtifact("org.orienteer:devutils:1.3-SNAPSHOT");
+        artifact = artifact.setFile(new File("orienteer-devutils.jar"));
+        OArtifact oArtifact = new OArtifact();
+        oArtifact.setArtifactReference(OArtifactReference.valueOf(artifact));
+        oArtifact.setLoad(true);
+        oArtifact.setTrusted(false);
+        metadata.setLoad(false);
+
+        moduleManager.updateMetadataInBatch(() -> {
+            moduleManager.updateOArtifactInMetadata(metadata);
+            moduleManager.updateOArtifactInMetadata(oArtifact);
+            assertEquals("metadata.xml is written after batch", 1, moduleManager.getOArtifactsMetadataAsList().size());
+        });
+        List<OArtifact> result = moduleManager.getOArtifactsMetadataAsList();
+        assertEquals(2, result.size());
+        testArtifact(metadata, result.get(0));
+        testArtifact(oArtifact, result.get(1));
+
+        moduleManager.deleteOArtifactFromMetadata(oArtifact);
+    }
+
     @After
     public void delete() throws Exception {
         moduleManager.deleteOArtifactFromMetadata(metadata);
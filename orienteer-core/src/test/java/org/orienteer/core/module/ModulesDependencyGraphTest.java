@@ -0,0 +1,47 @@
+package org.orienteer.core.module;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test dependencies of modules
+ */
+public class ModulesDependencyGraphTest {
+
+	private static class TestModule extends AbstractOrienteerModule {
+		TestModule(String name, String... dependencies) {
+			super(name, 1, dependencies);
+		}
+	}
+
+	@Test
+	public void testDependencies() {
+		ModulesDependencyGraph graph = new ModulesDependencyGraph(Arrays.asList(
+				new TestModule("a"),
+				new TestModule("b", "a"),
+				new TestModule("c", "a"),
+				new TestModule("d", "b", "c"),
+				new TestModule("e", "unknown")));
+		assertTrue(graph.getDependencies("a").isEmpty());
+		assertEquals(Collections.singleton("a"), graph.getDependencies("b"));
+		assertEquals(new LinkedHashSet<>(Arrays.asList("b", "c")), graph.getDependencies("d"));
+		assertTrue(graph.getDependencies("e").isEmpty());
+		assertTrue(graph.getDependencies("unknown").isEmpty());
+		assertEquals(5, graph.getModules().size());
+		assertEquals("a", graph.getModules().get(0).getName());
+	}
+
+	@Test
+	public void testCyclicDependencies() {
+		ModulesDependencyGraph graph = new ModulesDependencyGraph(Arrays.asList(
+				new TestModule("a"), new TestModule("b", "c"), new TestModule("c", "b")));
+		assertEquals(Collections.singleton("a"), graph.getDependencies("b"));
+		assertEquals(new LinkedHashSet<>(Arrays.asList("a", "b")), graph.getDependencies("c"));
+	}
+}
@@ -0,0 +1,96 @@
+package org.orienteer.core.resource;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.core.tasks.export.ODatabaseExportTaskSession;
+import org.orienteer.core.tasks.export.OParallelDatabaseExport;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.junit.Sudo;
+
+import com.google.inject.Inject;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+@RunWith(OrienteerTestRunner.class)
+public class DatabaseExportArchiveResourceTest {
+
+	@Inject
+	private WicketTester tester;
+
+	private File archive;
+	private ODocument session;
+
+	@Before
+	public void init() throws Exception {
+		File directory = OParallelDatabaseExport.getExportDirectory();
+		directory.mkdirs();
+		archive = File.createTempFile("export-", ".zip", directory);
+		Files.write(archive.toPath(), "archive".getBytes(StandardCharsets.UTF_8));
+		session = createSession(archive.getName());
+	}
+
+	@After
+	public void destroy() {
+		DBClosure.sudoConsumer(db -> db.delete(session.getIdentity()));
+		archive.delete();
+	}
+
+	@Test
+	@Sudo
+	public void testDownloadArchive() {
+		tester.executeUrl(DatabaseExportArchiveResource.urlFor(session).toString());
+		MockHttpServletResponse response = tester.getLastResponse();
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals("archive", response.getDocument());
+	}
+
+	@Test
+	@Sudo
+	public void testDownloadArchiveRange() {
+		tester.getRequest().addHeader("Range", "bytes=3-");
+		tester.executeUrl(DatabaseExportArchiveResource.urlFor(session).toString());
+		MockHttpServletResponse response = tester.getLastResponse();
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertEquals("hive", response.getDocument());
+	}
+
+	@Test
+	@Sudo
+	public void testMissingArchive() {
+		ODocument other = createSession("../"+archive.getName()+".missing");
+		try {
+			tester.executeUrl(DatabaseExportArchiveResource.urlFor(other).toString());
+			assertEquals(HttpServletResponse.SC_NOT_FOUND, tester.getLastResponse().getStatus());
+		} finally {
+			DBClosure.sudoConsumer(db -> db.delete(other.getIdentity()));
+		}
+	}
+
+	@Test
+	@Sudo(value="reader", password="reader")
+	public void testDownloadIsForbiddenForReader() {
+		tester.executeUrl(DatabaseExportArchiveResource.urlFor(session).toString());
+		assertEquals(HttpServletResponse.SC_FORBIDDEN, tester.getLastResponse().getStatus());
+	}
+
+	private static ODocument createSession(String archiveName) {
+		return DBClosure.sudo(db -> {
+			ODocument doc = new ODocument(ODatabaseExportTaskSession.TASK_SESSION_CLASS);
+			doc.field(ODatabaseExportTaskSession.Field.ARCHIVE.fieldName(), archiveName);
+			return doc.save();
+		});
+	}
+}
@@ -4,6 +4,7 @@ import com.google.inject.Inject;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OSchema;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.OBlob;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
 import org.apache.wicket.util.tester.WicketTester;
@@ -18,6 +19,10 @@ import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
 
 import javax.servlet.http.HttpServletResponse;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 
 @RunWith(OrienteerTestRunner.class)
@@ -25,6 +30,8 @@ public class OContentShareResourceTest {
 
     private static final Logger LOG = LoggerFactory.getLogger(OContentShareResourceTest.class);
 
+    private static final String BLOBS_CLUSTER = "contentsharechunks";
+
     @Inject
     private WicketTester tester;
 
@@ -38,9 +45,16 @@ public class OContentShareResourceTest {
             OClass test = schema.createClass("Customer");
             test.createProperty("name", OType.STRING);
             test.createProperty("phone", OType.STRING);
+            test.createProperty("file", OType.LINKLIST);
+            if (db.getClusterIdByName(BLOBS_CLUSTER) < 0) db.addBlobCluster(BLOBS_CLUSTER);
 
             ODocument document = new ODocument("Customer");
             document.field("name", "Test Name");
+            List<OBlob> chunks = new ArrayList<>();
+            for (String chunk : new String[]{"Hello, ", "chunked ", "world"}) {
+                chunks.add(db.save(db.newBlob(chunk.getBytes(StandardCharsets.UTF_8)), BLOBS_CLUSTER));
+            }
+            document.field("file", chunks, OType.LINKLIST);
             document.save();
             return document;
         });
@@ -72,6 +86,81 @@ public class OContentShareResourceTest {
         assertEquals(response.getStatus(), HttpServletResponse.SC_NOT_FOUND);
     }
     
+    @Test
+    public void testNotModifiedContent() {
+        String url = OContentShareResource.urlFor(doc, "name", null, false).toString();
+        tester.executeUrl(url);
+        String eTag = tester.getLastResponse().getHeader("ETag");
+        assertEquals("\""+doc.getIdentity().toString().substring(1)+":"+doc.getVersion()+"\"", eTag);
+
+        tester.getRequest().addHeader("If-None-Match", eTag);
+        tester.executeUrl(url);
+        MockHttpServletResponse response = tester.getLastResponse();
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        assertEquals("", response.getDocument());
+    }
+
+    @Test
+    public void testRetrieveContentRange() {
+        tester.getRequest().addHeader("Range", "bytes=5-");
+        tester.executeUrl(OContentShareResource.urlFor(doc, "name", "text/plain", false).toString());
+        MockHttpServletResponse response = tester.getLastResponse();
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 5-8/9", response.getHeader("Content-Range"));
+        assertEquals("Name", response.getDocument());
+    }
+
+    @Test
+    public void testRetrieveContentRangeIfChanged() {
+        tester.getRequest().addHeader("Range", "bytes=0-3");
+        tester.getRequest().addHeader("If-Range", "\"outdated\"");
+        tester.executeUrl(OContentShareResource.urlFor(doc, "name", "text/plain", false).toString());
+        MockHttpServletResponse response = tester.getLastResponse();
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("Test Name", response.getDocument());
+    }
+
+    @Test
+    public void testRetrieveBlobChunks() {
+        String url = OContentShareResource.urlFor(doc, "file", "text/plain", false).toString();
+        tester.executeUrl(url);
+        MockHttpServletResponse response = tester.getLastResponse();
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("Hello, chunked world", response.getDocument());
+
+        tester.getRequest().addHeader("Range", "bytes=5-9");
+        tester.executeUrl(url);
+        response = tester.getLastResponse();
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 5-9/20", response.getHeader("Content-Range"));
+        assertEquals(", chu", response.getDocument());
+    }
+
+    @Test
+    public void testRetrieveBlobChunksRange() {
+        String url = OContentShareResource.urlFor(doc, "file", "text/plain", false).toString();
+        tester.getRequest().addHeader("Range", "bytes=10-");
+        tester.executeUrl(url);
+        MockHttpServletResponse response = tester.getLastResponse();
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 10-19/20", response.getHeader("Content-Range"));
+        assertEquals("nked world", response.getDocument());
+    }
+
+    @Test
+    public void testNotModifiedBlobChunks() {
+        String url = OContentShareResource.urlFor(doc, "file", "text/plain", false).toString();
+        tester.executeUrl(url);
+        String eTag = tester.getLastResponse().getHeader("ETag");
+
+        tester.getRequest().addHeader("If-None-Match", eTag);
+        tester.executeUrl(url);
+        MockHttpServletResponse response = tester.getLastResponse();
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        assertEquals(eTag, response.getHeader("ETag"));
+        assertEquals("", response.getDocument());
+    }
+
     @Test
     public void testUrls() {
     	tester.setUseRequestUrlAsBase(true);
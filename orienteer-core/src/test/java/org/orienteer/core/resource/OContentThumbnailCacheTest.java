@@ -0,0 +1,100 @@
+package org.orienteer.core.resource;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.orienteer.junit.OrienteerTestRunner;
+
+@RunWith(OrienteerTestRunner.class)
+public class OContentThumbnailCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testThumbnailIsCached() throws IOException {
+		OContentThumbnailCache cache = new OContentThumbnailCache(folder.newFolder(), OContentThumbnailCache.DEFAULT_MAX_SIZE);
+		String key = key(1);
+		assertNull(cache.lookup(key));
+		File file = cache.getThumbnail(key, image(), 16, 0.8);
+		assertNotNull(file);
+		assertTrue(file.isFile());
+		assertEquals(file, cache.lookup(key));
+		assertEquals(file, cache.getThumbnail(key, image(), 16, 0.8));
+		assertEquals(file.length(), cache.getTotalSize());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedAreEvicted() throws IOException {
+		long size = new OContentThumbnailCache(folder.newFolder(), OContentThumbnailCache.DEFAULT_MAX_SIZE)
+							.getThumbnail(key(0), image(), 16, 0.8).length();
+		OContentThumbnailCache cache = new OContentThumbnailCache(folder.newFolder(), size * 2 + size / 2);
+		File first = cache.getThumbnail(key(1), image(), 16, 0.8);
+		File second = cache.getThumbnail(key(2), image(), 16, 0.8);
+		//Access makes the first thumbnail the most recently used one
+		assertNotNull(cache.lookup(key(1)));
+		File third = cache.getThumbnail(key(3), image(), 16, 0.8);
+		assertNotNull(third);
+		assertNull(cache.lookup(key(2)));
+		assertFalse(second.exists());
+		assertEquals(first, cache.lookup(key(1)));
+		assertEquals(third, cache.lookup(key(3)));
+		assertEquals(size * 2, cache.getTotalSize());
+		assertTrue(cache.getTotalSize() <= cache.getMaxSize());
+	}
+
+	@Test
+	public void testThumbnailLargerThanLimitIsKept() throws IOException {
+		OContentThumbnailCache cache = new OContentThumbnailCache(folder.newFolder(), 1);
+		File first = cache.getThumbnail(key(1), image(), 16, 0.8);
+		File second = cache.getThumbnail(key(2), image(), 16, 0.8);
+		assertNotNull(second);
+		assertFalse(first.exists());
+		assertEquals(second.length(), cache.getTotalSize());
+	}
+
+	@Test
+	public void testCacheIsRestoredFromDirectory() throws IOException {
+		File directory = folder.newFolder();
+		OContentThumbnailCache cache = new OContentThumbnailCache(directory, OContentThumbnailCache.DEFAULT_MAX_SIZE);
+		File file = cache.getThumbnail(key(1), image(), 16, 0.8);
+		File tmp = new File(directory, key(2)+".tmp");
+		Files.write(tmp.toPath(), new byte[]{1, 2, 3});
+
+		OContentThumbnailCache restored = new OContentThumbnailCache(directory, OContentThumbnailCache.DEFAULT_MAX_SIZE);
+		assertEquals(file, restored.lookup(key(1)));
+		assertEquals(file.length(), restored.getTotalSize());
+		assertFalse("Not completed thumbnail should be removed", tmp.exists());
+		assertTrue(file.delete());
+		assertNull("Removed thumbnail should be dropped from the index", restored.lookup(key(1)));
+		assertEquals(0, restored.getTotalSize());
+	}
+
+	private static String key(int version) {
+		return OContentThumbnailCache.key("1:1", "image", version, 16, 0.8);
+	}
+
+	private static byte[] image() throws IOException {
+		BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.ORANGE);
+		graphics.fillRect(0, 0, 32, 32);
+		graphics.dispose();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
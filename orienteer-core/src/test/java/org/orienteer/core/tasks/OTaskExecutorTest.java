@@ -0,0 +1,170 @@
+package org.orienteer.core.tasks;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class OTaskExecutorTest {
+
+	@Test
+	public void testBoundedPool() throws Exception {
+		OTaskExecutor executor = new OTaskExecutor("test-bounded", 1, 1, false, false);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			executor.execute(() -> {
+				started.countDown();
+				await(release);
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			executor.execute(() -> {});
+			try {
+				executor.execute(() -> {});
+				fail("Saturated pool should reject a task");
+			} catch (RejectedExecutionException e) {
+				//Expected
+			}
+			assertEquals(1, executor.getActiveCount());
+			assertEquals(1, executor.getQueueSize());
+			assertEquals(1, executor.getRejectedCount());
+		} finally {
+			release.countDown();
+		}
+		assertTrue(executor.shutdown(5000));
+		assertEquals(3, executor.getSubmittedCount());
+		assertEquals(2, executor.getCompletedCount());
+		assertEquals(0, executor.getFailedCount());
+	}
+
+	@Test
+	public void testThreadPerTaskPoolLimitsThreadsAndQueue() throws Exception {
+		OTaskExecutor executor = new OTaskExecutor("test-per-task", 2, 3, Executors.newCachedThreadPool(), false);
+		assertTrue(executor.isVirtual());
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(2);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		CountDownLatch finished = new CountDownLatch(5);
+		try {
+			for(int i=0; i<5; i++) {
+				executor.execute(() -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					started.countDown();
+					await(release);
+					running.decrementAndGet();
+					finished.countDown();
+				});
+			}
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			try {
+				executor.execute(() -> {});
+				fail("Saturated pool should reject a task");
+			} catch (RejectedExecutionException e) {
+				//Expected
+			}
+			Thread.sleep(100);
+			assertEquals(2, executor.getActiveCount());
+			assertEquals(3, executor.getQueueSize());
+			assertEquals(1, executor.getRejectedCount());
+		} finally {
+			release.countDown();
+		}
+		assertTrue(finished.await(5, TimeUnit.SECONDS));
+		assertEquals(2, maxRunning.get());
+		assertTrue(executor.shutdown(5000));
+		assertEquals(5, executor.getCompletedCount());
+	}
+
+	@Test
+	public void testCallerRunsOnReject() throws Exception {
+		OTaskExecutor executor = new OTaskExecutor("test-caller", 1, 0, false, true);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicReference<Thread> thread = new AtomicReference<>();
+		try {
+			executor.execute(() -> {
+				started.countDown();
+				await(release);
+			});
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			executor.execute(() -> thread.set(Thread.currentThread()));
+			assertSame(Thread.currentThread(), thread.get());
+			assertEquals(1, executor.getRejectedCount());
+		} finally {
+			release.countDown();
+		}
+		assertTrue(executor.shutdown(5000));
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		OTaskExecutor executor = new OTaskExecutor("test-cancel", 1, 1, false, false);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		Future<?> future = executor.submit(() -> {
+			started.countDown();
+			try {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertTrue(future.cancel(true));
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		assertTrue(executor.shutdown(5000));
+	}
+
+	@Test
+	public void testSchedule() throws Exception {
+		OTaskExecutor executor = new OTaskExecutor("test-schedule", 2, 2, false, false);
+		AtomicReference<String> thread = new AtomicReference<>();
+		Future<?> single = executor.schedule(() -> thread.set(Thread.currentThread().getName()), 10, 0, TimeUnit.MILLISECONDS);
+		single.get(5, TimeUnit.SECONDS);
+		assertTrue(thread.get().startsWith("test-schedule-"));
+
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+		CountDownLatch executed = new CountDownLatch(5);
+		Future<?> periodic = executor.schedule(() -> {
+			maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+			try {
+				if(executed.getCount()==3) throw new IllegalStateException("Failure should not stop next executions");
+				sleep(20);
+			} finally {
+				active.decrementAndGet();
+				executed.countDown();
+			}
+		}, 0, 1, TimeUnit.MILLISECONDS);
+		assertTrue(executed.await(5, TimeUnit.SECONDS));
+		assertTrue(periodic.cancel(false));
+		assertTrue(periodic.isCancelled());
+		assertEquals(1, maxActive.get());
+		assertTrue(executor.getFailedCount()>=1);
+		assertTrue(executor.shutdown(5000));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
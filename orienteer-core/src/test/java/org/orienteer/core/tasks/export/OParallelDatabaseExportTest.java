@@ -0,0 +1,122 @@
+package org.orienteer.core.tasks.export;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.junit.OrienteerTestRunner;
+
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+@RunWith(OrienteerTestRunner.class)
+@Singleton
+public class OParallelDatabaseExportTest {
+	private static final String INCREMENTAL_CLASS = "ExportIncrementalTest";
+	private static final String MODIFIED = "modified";
+
+	@Test
+	public void testFullExport() throws Exception {
+		ODatabaseExportTaskSession session = new ODatabaseExportTaskSession();
+		session.start();
+		File archive = null;
+		try {
+			archive = new OParallelDatabaseExport(2, 1, null, null).execute(session);
+			assertTrue(archive.isFile());
+			assertEquals(session.getFinalProgress(), session.getCurrentProgress(), 0.0);
+			try(ZipFile zip = new ZipFile(archive)) {
+				assertNotNull(zip.getEntry(OParallelDatabaseExport.MANIFEST));
+				assertNotNull(zip.getEntry("schema.json.gz"));
+				assertEquals((int) session.getFinalProgress() + 1, zip.size());
+			}
+		} finally {
+			session.finish();
+			if(archive!=null) archive.delete();
+		}
+	}
+
+	@Test
+	public void testIncrementalExport() throws Exception {
+		DBClosure.sudoConsumer(db -> {
+			OClass oClass = db.getMetadata().getSchema().createClass(INCREMENTAL_CLASS);
+			oClass.createProperty("name", OType.STRING);
+			oClass.createProperty(MODIFIED, OType.DATETIME);
+			new ODocument(INCREMENTAL_CLASS).field("name", "old").field(MODIFIED, new Date(1000)).save();
+			new ODocument(INCREMENTAL_CLASS).field("name", "new").field(MODIFIED, new Date()).save();
+		});
+		ODatabaseExportTaskSession session = new ODatabaseExportTaskSession();
+		session.start();
+		File archive = null;
+		try {
+			archive = new OParallelDatabaseExport(2, 1, new Date(2000), MODIFIED).execute(session);
+			assertTrue(archive.getName().endsWith("-incremental.zip"));
+			int clusters = DBClosure.sudo(db -> db.getMetadata().getSchema().getClass(INCREMENTAL_CLASS).getClusterIds().length);
+			assertEquals(clusters, (int) session.getFinalProgress());
+			List<String> records = new ArrayList<>();
+			try(ZipFile zip = new ZipFile(archive)) {
+				assertEquals(clusters + 1, zip.size());
+				assertNull("Only modified records should be exported", zip.getEntry("schema.json.gz"));
+				String manifest = read(zip, zip.getEntry(OParallelDatabaseExport.MANIFEST)).get(0);
+				ODocument manifestDoc = new ODocument().fromJSON(manifest);
+				assertEquals(Boolean.TRUE, manifestDoc.field("incremental"));
+				assertEquals(MODIFIED, manifestDoc.field("sinceProperty"));
+				assertFalse(manifestDoc.containsField("lsn"));
+				for(ZipEntry entry : Collections.list(zip.entries())) {
+					if(entry.getName().endsWith(".jsonl.gz")) records.addAll(read(zip, entry));
+				}
+			}
+			assertEquals(1, records.size());
+			assertTrue(records.get(0).contains("\"new\""));
+		} finally {
+			session.finish();
+			if(archive!=null) archive.delete();
+			DBClosure.sudoConsumer(db -> db.getMetadata().getSchema().dropClass(INCREMENTAL_CLASS));
+		}
+	}
+
+	@Test
+	public void testArchiveIsDeletedWithSession() throws Exception {
+		File directory = OParallelDatabaseExport.getExportDirectory();
+		directory.mkdirs();
+		File archive = File.createTempFile("export-", ".zip", directory);
+		ORID rid = DBClosure.sudo(db -> new ODocument(ODatabaseExportTaskSession.TASK_SESSION_CLASS)
+												.field(ODatabaseExportTaskSession.Field.ARCHIVE.fieldName(), archive.getName())
+												.save().getIdentity());
+		try {
+			assertTrue(archive.isFile());
+			DBClosure.sudoConsumer(db -> db.delete(rid));
+			assertFalse(archive.exists());
+		} finally {
+			archive.delete();
+		}
+	}
+
+	private static List<String> read(ZipFile zip, ZipEntry entry) throws IOException {
+		List<String> lines = new ArrayList<>();
+		boolean gzip = entry.getName().endsWith(".gz");
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(
+							gzip?new GZIPInputStream(zip.getInputStream(entry)):zip.getInputStream(entry), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = reader.readLine())!=null) if(!line.isEmpty()) lines.add(line);
+		}
+		return lines;
+	}
+}
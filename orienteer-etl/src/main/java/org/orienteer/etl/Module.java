@@ -4,6 +4,7 @@ import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.module.AbstractOrienteerModule;
 import org.orienteer.core.module.IOrienteerModule;
 import org.orienteer.core.util.OSchemaHelper;
+import org.orienteer.etl.pipeline.OETLPipelineSettings;
 import org.orienteer.etl.tasks.OETLTaskSession;
 
 import com.orientechnologies.orient.core.db.ODatabaseSession;
@@ -17,7 +18,7 @@ import com.orientechnologies.orient.core.metadata.schema.OType;
 public class Module extends AbstractOrienteerModule{
 
 	protected Module() {
-		super("orienteer-etl", 1);
+		super("orienteer-etl", 2);
 	}
 	
 	@Override
@@ -44,7 +45,19 @@ public class Module extends AbstractOrienteerModule{
 	public void makeSchema(OrienteerWebApplication app, ODatabaseSession db){
 		OSchemaHelper helper = OSchemaHelper.bind(db);
 		helper.oClass("OETLConfig", "OTask")
-			.oProperty("config", OType.STRING).assignVisualization("javascript");
+			.oProperty("config", OType.STRING).assignVisualization("javascript")
+			.oProperty(OETLPipelineSettings.Field.PARALLEL.fieldName(), OETLPipelineSettings.Field.PARALLEL.type(), 100)
+				.defaultValue("false")
+			.oProperty(OETLPipelineSettings.Field.WORKERS.fieldName(), OETLPipelineSettings.Field.WORKERS.type(), 110)
+				.min("1")
+			.oProperty(OETLPipelineSettings.Field.CHUNK_SIZE.fieldName(), OETLPipelineSettings.Field.CHUNK_SIZE.type(), 120)
+				.defaultValue(Integer.toString(OETLPipelineSettings.DEFAULT_CHUNK_SIZE)).min("1")
+			.oProperty(OETLPipelineSettings.Field.BATCH_COMMIT.fieldName(), OETLPipelineSettings.Field.BATCH_COMMIT.type(), 130)
+				.defaultValue(Integer.toString(OETLPipelineSettings.DEFAULT_BATCH_COMMIT)).min("1")
+			.oProperty(OETLPipelineSettings.Field.PROGRESS_INTERVAL.fieldName(), OETLPipelineSettings.Field.PROGRESS_INTERVAL.type(), 140)
+				.defaultValue(Long.toString(OETLPipelineSettings.DEFAULT_PROGRESS_INTERVAL)).min("100")
+			.oProperty(OETLPipelineSettings.Field.CHECKPOINT.fieldName(), OETLPipelineSettings.Field.CHECKPOINT.type(), 150)
+				.assignVisualization("textarea");
 		
 		OETLTaskSession.onInstallModule(app, db);
 	}
@@ -14,9 +14,12 @@ import org.orienteer.core.method.OMethod;
 import org.orienteer.core.method.filters.PlaceFilter;
 import org.orienteer.core.method.filters.WidgetTypeFilter;
 import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskManager;
 import org.orienteer.core.tasks.OTaskSessionRuntime;
 import org.orienteer.core.web.AbstractWidgetDisplayModeAwarePage;
 import org.orienteer.core.web.ODocumentPage;
+import org.orienteer.etl.pipeline.OETLParallelPipeline;
+import org.orienteer.etl.pipeline.OETLPipelineSettings;
 import org.orienteer.etl.tasks.OETLTaskSession;
 
 import ru.ydn.wicket.wicketorientdb.model.ODocumentModel;
@@ -57,13 +60,29 @@ public class OETLConfig extends OTask {
 
 		try {
 			final String configuration = getDocument().field(ETL_CONFIG_FIELD);
-			final OETLProcessor processor = new OrienteerETLProcessorConfigurator()
-													.parseConfigRecord(session,configuration);
-//			final OrienteerETLProcessorConfigurator processor = OrienteerETLProcessorConfigurator.parseConfigRecord(session,configuration);
+			final OETLPipelineSettings settings = OETLPipelineSettings.fromDocument(getDocument());
 
-			Thread thread = new Thread(new Runnable(){
-				@Override
-				public void run() {
+			session.setDeleteOnFinish((Boolean) document.field(OTask.Field.AUTODELETE_SESSIONS.fieldName()));
+			session.setOTask(this);
+
+			final Runnable execution;
+			if(settings.isParallel() && OETLParallelPipeline.isSupported(configuration)) {
+				final OETLParallelPipeline pipeline = new OETLParallelPipeline(getDocument().getIdentity(), configuration, settings, session);
+				execution = () -> {
+					try {
+						pipeline.execute();
+					} catch (Exception e) {
+						session.appendOut("ETL Processor runtime error! Execution can be resumed from the last checkpoint");
+						printCause(e, session);
+					}finally{
+						session.finish();
+					}
+				};
+			} else {
+				if(settings.isParallel()) session.appendOut("Parallel execution is supported only for file sources of CSV or JSON lines: executing sequentially");
+				final OETLProcessor processor = new OrienteerETLProcessorConfigurator()
+														.parseConfigRecord(session,configuration);
+				execution = () -> {
 					try {
 						processor.execute();
 					} catch (Exception e) {
@@ -72,13 +91,9 @@ public class OETLConfig extends OTask {
 					}finally{
 						session.finish();
 					}
-				}
-			});
-
-			session.setDeleteOnFinish((Boolean) document.field(OTask.Field.AUTODELETE_SESSIONS.fieldName()));
-			session.setOTask(this);
-
-			thread.start();
+				};
+			}
+			OTaskManager.get().execute(session, execution);
 		} catch (Exception e) {
 			session.appendOut("ETL Processor execute error!");
 			printCause(e, session);
@@ -0,0 +1,115 @@
+package org.orienteer.etl.pipeline;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Checkpoint of parallel ETL execution: set of chunks of a source which were successfully committed.
+ * Checkpoint is valid only for the same source file (path, size and modification time) and the same size of chunks.
+ */
+public class OETLCheckpoint {
+
+	private static final String SIGNATURE = "signature";
+	private static final String CHUNK_SIZE = "chunkSize";
+	private static final String RECORDS = "records";
+	private static final String COMPLETED = "completed";
+
+	private final String signature;
+	private final int chunkSize;
+	private final BitSet completed = new BitSet();
+	private long records = 0;
+
+	public OETLCheckpoint(String signature, int chunkSize) {
+		this.signature = signature;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * @param source source file of ETL
+	 * @return signature of the source file to detect its changes
+	 */
+	public static String signature(File source) {
+		return source.getAbsolutePath()+"|"+source.length()+"|"+source.lastModified();
+	}
+
+	/**
+	 * Restore checkpoint from JSON
+	 * @param json serialized checkpoint or null
+	 * @param signature signature of current source
+	 * @param chunkSize current size of chunks
+	 * @return restored checkpoint or new one if stored checkpoint doesn't match current source
+	 */
+	public static OETLCheckpoint fromJSON(String json, String signature, int chunkSize) {
+		OETLCheckpoint checkpoint = new OETLCheckpoint(signature, chunkSize);
+		if(json==null || json.trim().isEmpty()) return checkpoint;
+		ODocument doc = new ODocument().fromJSON(json, "noMap");
+		Number storedChunkSize = doc.field(CHUNK_SIZE);
+		if(!signature.equals(doc.field(SIGNATURE)) || storedChunkSize==null || storedChunkSize.intValue()!=chunkSize) {
+			return checkpoint;
+		}
+		Number records = doc.field(RECORDS);
+		if(records!=null) checkpoint.records = records.longValue();
+		Collection<Number> completed = doc.field(COMPLETED);
+		if(completed!=null) {
+			for(Number chunk : completed) checkpoint.completed.set(chunk.intValue());
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * @return serialized checkpoint
+	 */
+	public synchronized String toJSON() {
+		List<Integer> chunks = new ArrayList<>(completed.cardinality());
+		for(int i = completed.nextSetBit(0); i>=0; i = completed.nextSetBit(i+1)) chunks.add(i);
+		ODocument doc = new ODocument();
+		doc.field(SIGNATURE, signature);
+		doc.field(CHUNK_SIZE, chunkSize);
+		doc.field(RECORDS, records);
+		doc.field(COMPLETED, chunks);
+		return doc.toJSON();
+	}
+
+	/**
+	 * Mark chunk as committed
+	 * @param chunk index of a chunk
+	 * @param chunkRecords number of records in the chunk
+	 */
+	public synchronized void complete(int chunk, int chunkRecords) {
+		if(!completed.get(chunk)) {
+			completed.set(chunk);
+			records+=chunkRecords;
+		}
+	}
+
+	public synchronized boolean isCompleted(int chunk) {
+		return completed.get(chunk);
+	}
+
+	/**
+	 * @return number of committed chunks
+	 */
+	public synchronized int getCompletedChunks() {
+		return completed.cardinality();
+	}
+
+	/**
+	 * @return number of records in committed chunks
+	 */
+	public synchronized long getRecords() {
+		return records;
+	}
+
+	public String getSignature() {
+		return signature;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+}
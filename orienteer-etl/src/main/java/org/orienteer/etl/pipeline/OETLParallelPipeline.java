@@ -0,0 +1,285 @@
+package org.orienteer.etl.pipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.orienteer.core.tasks.OTaskManager;
+import org.orienteer.etl.component.OrienteerETLProcessorConfigurator;
+import org.orienteer.etl.tasks.OETLTaskSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+/**
+ * Parallel execution of an ETL configuration with line oriented file source (CSV or JSON lines).
+ * Source is read by a single thread and split to chunks (see {@link OETLSourceSplitter}),
+ * chunks are transformed and loaded by several workers: each chunk is processed by its own ETL processor,
+ * so transformers and loaders are not shared between threads. Loaders commit whole chunk in a single transaction.
+ * Committed chunks are stored as a checkpoint in the ETL configuration, so failed execution can be resumed:
+ * already committed chunks are skipped. Progress of a task session is updated not more often than configured interval.
+ */
+public class OETLParallelPipeline {
+	private static final Logger LOG = LoggerFactory.getLogger(OETLParallelPipeline.class);
+
+	public static final String ETL_POOL = "etl";
+
+	private static final OETLSourceSplitter.Chunk END = new OETLSourceSplitter.Chunk(-1, 0, null);
+
+	private final ORID configId;
+	private final ODocument configuration;
+	private final OETLPipelineSettings settings;
+	private final OETLTaskSession session;
+
+	private final AtomicLong loadedRecords = new AtomicLong();
+	private final AtomicReference<Exception> failure = new AtomicReference<>();
+	private OETLCheckpoint checkpoint;
+	private long lastReport = 0;
+	private int savedChunks = 0;
+
+	/**
+	 * @param configId identity of OETLConfig document to store checkpoint to
+	 * @param configuration ETL configuration
+	 * @param settings settings of parallel execution
+	 * @param session task session to report progress to
+	 */
+	public OETLParallelPipeline(ORID configId, String configuration, OETLPipelineSettings settings, OETLTaskSession session) {
+		this.configId = configId;
+		this.configuration = new ODocument().fromJSON(configuration, "noMap");
+		this.settings = settings;
+		this.session = session;
+	}
+
+	/**
+	 * Check that configuration can be executed in parallel: source should be a file of CSV or JSON lines
+	 * @param configuration ETL configuration
+	 * @return true if configuration is supported
+	 */
+	public static boolean isSupported(String configuration) {
+		try {
+			ODocument cfg = new ODocument().fromJSON(configuration, "noMap");
+			File source = getSourceFile(cfg);
+			if(source==null || !source.isFile()) return false;
+			if(getExtractor(cfg, "csv")!=null) return true;
+			if(getExtractor(cfg, "json")!=null) {
+				try(Reader reader = Files.newBufferedReader(source.toPath(), getCharset(cfg))) {
+					int c;
+					while((c = reader.read())>=0 && (Character.isWhitespace(c) || c=='\uFEFF'));
+					return c=='{';
+				}
+			}
+			return false;
+		} catch (Exception e) {
+			LOG.debug("ETL configuration can't be executed in parallel", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Execute ETL: blocks until all chunks are loaded
+	 * @throws Exception if execution was failed or interrupted: checkpoint contains all committed chunks
+	 */
+	public void execute() throws Exception {
+		File source = getSourceFile(configuration);
+		checkpoint = OETLCheckpoint.fromJSON(loadCheckpoint(), OETLCheckpoint.signature(source), settings.getChunkSize());
+		savedChunks = checkpoint.getCompletedChunks();
+		if(savedChunks>0) {
+			session.appendOut("Resuming from checkpoint: "+checkpoint.getCompletedChunks()+" chunks ("
+									+checkpoint.getRecords()+" records) were already committed");
+			loadedRecords.set(checkpoint.getRecords());
+		}
+		ODocument csv = getExtractor(configuration, "csv");
+		boolean header = csv!=null && !Boolean.FALSE.equals(csv.field("columnsOnFirstLine"));
+		String quote = csv!=null?csv.field("quote"):null;
+		File directory = Files.createTempDirectory("orienteer-etl-").toFile();
+		OTaskManager taskManager = OTaskManager.get();
+		//Pool is shared by all pipelines: number of workers is limited by size of the pool
+		int workers = Math.max(1, Math.min(settings.getWorkers(), taskManager.getExecutor(ETL_POOL).getThreads()));
+		BlockingQueue<OETLSourceSplitter.Chunk> queue = new ArrayBlockingQueue<>(workers*2);
+		List<Future<?>> futures = new ArrayList<>();
+		try(OETLSourceSplitter splitter = new OETLSourceSplitter(source, getCharset(configuration), csv!=null,
+												quote!=null && quote.length()>0?quote.charAt(0):'"',
+												header, settings.getChunkSize(), directory)) {
+			OETLSourceSplitter.Chunk chunk = splitter.next(checkpoint::isCompleted);
+			//First chunk is loaded alone: loaders create schema and it shouldn't be done concurrently
+			while(chunk!=null && chunk.getFile()==null) chunk = splitter.next(checkpoint::isCompleted);
+			if(chunk!=null) load(chunk);
+			for(int i=0; i<workers; i++) futures.add(taskManager.execute(ETL_POOL, null, () -> work(queue)));
+			while(chunk!=null && failure.get()==null) {
+				chunk = splitter.next(checkpoint::isCompleted);
+				if(chunk!=null && chunk.getFile()!=null) {
+					while(!queue.offer(chunk, settings.getProgressInterval(), TimeUnit.MILLISECONDS)) {
+						if(failure.get()!=null) break;
+						report(splitter.getRecords(), false, false);
+					}
+				}
+				report(splitter.getRecords(), false, false);
+			}
+			for(int i=0; i<workers; i++) {
+				while(!queue.offer(END, settings.getProgressInterval(), TimeUnit.MILLISECONDS)) {
+					//Workers stop on failure: drop not processed chunks to let them finish
+					if(failure.get()!=null) queue.clear();
+					report(splitter.getRecords(), true, false);
+				}
+			}
+			for(Future<?> future : futures) {
+				while(!isDone(future)) report(splitter.getRecords(), true, false);
+			}
+			report(splitter.getRecords(), true, true);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failure.compareAndSet(null, e);
+		} finally {
+			for(Future<?> future : futures) future.cancel(true);
+			saveCheckpoint(failure.get()==null?null:checkpoint.toJSON());
+			deleteDirectory(directory);
+		}
+		Exception exc = failure.get();
+		if(exc!=null) throw exc;
+	}
+
+	private boolean isDone(Future<?> future) throws InterruptedException {
+		try {
+			future.get(settings.getProgressInterval(), TimeUnit.MILLISECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException | CancellationException e) {
+			return true;
+		}
+	}
+
+	private void work(BlockingQueue<OETLSourceSplitter.Chunk> queue) {
+		try {
+			OETLSourceSplitter.Chunk chunk;
+			while((chunk = queue.take())!=END) {
+				if(failure.get()==null) load(chunk);
+				else Files.deleteIfExists(chunk.getFile().toPath());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			failure.compareAndSet(null, e);
+		}
+	}
+
+	private void load(OETLSourceSplitter.Chunk chunk) throws IOException {
+		try {
+			ODocument cfg = new ODocument().fromJSON(configuration.toJSON(), "noMap");
+			ODocument file = getSourceConfig(cfg);
+			file.field("path", chunk.getFile().getAbsolutePath());
+			ODocument loader = cfg.field("loader");
+			ODocument orientdb = loader!=null?loader.field("orientdb"):null;
+			if(orientdb!=null) {
+				//Chunk should be loaded in a single transaction: records of failed chunk are not committed at all
+				orientdb.field("tx", true);
+				orientdb.field("batchCommit", settings.getBatchCommit());
+			}
+			ODocument global = cfg.field("config");
+			if(global==null) {
+				global = new ODocument();
+				cfg.field("config", global);
+			}
+			global.field("parallel", false);
+			new OrienteerETLProcessorConfigurator().parseConfigRecord(session, cfg.toJSON()).execute();
+			checkpoint.complete(chunk.getIndex(), chunk.getRecords());
+			loadedRecords.addAndGet(chunk.getRecords());
+		} catch (RuntimeException e) {
+			failure.compareAndSet(null, e);
+			LOG.error("Chunk "+chunk.getIndex()+" of ETL source was not loaded", e);
+		} finally {
+			Files.deleteIfExists(chunk.getFile().toPath());
+		}
+	}
+
+	/**
+	 * Update progress of the session and checkpoint if configured interval passed
+	 * @param readRecords number of records read from the source
+	 * @param sourceRead true if all records were read from the source
+	 * @param force update progress regardless of interval
+	 */
+	private void report(long readRecords, boolean sourceRead, boolean force) {
+		long now = System.currentTimeMillis();
+		if(!force && now-lastReport<settings.getProgressInterval()) return;
+		lastReport = now;
+		long total = sourceRead?readRecords:Math.max(readRecords, loadedRecords.get());
+		long loaded = loadedRecords.get();
+		session.setFinalProgress(total);
+		session.setCurrentProgress(loaded);
+		if(sourceRead && total>0) session.setProgress(100.0 * loaded / total);
+		int chunks = checkpoint.getCompletedChunks();
+		if(chunks!=savedChunks) {
+			savedChunks = chunks;
+			saveCheckpoint(checkpoint.toJSON());
+		}
+	}
+
+	private String loadCheckpoint() {
+		return DBClosure.sudo(db -> {
+			ODocument doc = db.load(configId);
+			return doc!=null?doc.field(OETLPipelineSettings.Field.CHECKPOINT.fieldName()):null;
+		});
+	}
+
+	private void saveCheckpoint(String json) {
+		try {
+			DBClosure.sudoConsumer(db -> {
+				ODocument doc = db.load(configId);
+				if(doc!=null) {
+					doc.field(OETLPipelineSettings.Field.CHECKPOINT.fieldName(), json);
+					doc.save();
+				}
+			});
+		} catch (Exception e) {
+			LOG.error("Can't save checkpoint of ETL "+configId, e);
+		}
+	}
+
+	private static void deleteDirectory(File directory) {
+		File[] files = directory.listFiles();
+		if(files!=null) {
+			for(File file : files) file.delete();
+		}
+		directory.delete();
+	}
+
+	private static ODocument getSourceConfig(ODocument cfg) {
+		ODocument source = cfg.field("source");
+		return source!=null?source.field("file"):null;
+	}
+
+	private static File getSourceFile(ODocument cfg) {
+		ODocument file = getSourceConfig(cfg);
+		String path = file!=null?file.field("path"):null;
+		return path!=null?new File(path):null;
+	}
+
+	private static Charset getCharset(ODocument cfg) {
+		ODocument file = getSourceConfig(cfg);
+		String encoding = file!=null?file.field("encoding"):null;
+		return encoding!=null?Charset.forName(encoding):StandardCharsets.UTF_8;
+	}
+
+	private static ODocument getExtractor(ODocument cfg, String type) {
+		ODocument extractor = cfg.field("extractor");
+		return extractor!=null?extractor.field(type):null;
+	}
+}
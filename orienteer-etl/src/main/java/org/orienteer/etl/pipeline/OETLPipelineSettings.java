@@ -0,0 +1,121 @@
+package org.orienteer.etl.pipeline;
+
+import java.io.Serializable;
+
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Settings of parallel execution of an ETL configuration: stored in fields of OETLConfig document
+ */
+public class OETLPipelineSettings implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors()-1);
+	public static final int DEFAULT_CHUNK_SIZE = 10000;
+	public static final int DEFAULT_BATCH_COMMIT = DEFAULT_CHUNK_SIZE;
+	public static final long DEFAULT_PROGRESS_INTERVAL = 2000;
+
+	/**
+	 * Fields of OETLConfig ODocument with settings of a pipeline
+	 */
+	public enum Field{
+		PARALLEL("parallel",OType.BOOLEAN),
+		WORKERS("workers",OType.INTEGER),
+		CHUNK_SIZE("chunkSize",OType.INTEGER),
+		BATCH_COMMIT("batchCommit",OType.INTEGER),
+		PROGRESS_INTERVAL("progressInterval",OType.LONG),
+		CHECKPOINT("checkpoint",OType.STRING);
+
+		private String fieldName;
+		private OType type;
+		public String fieldName(){ return fieldName;}
+		public OType type(){ return type;}
+		private Field(String fieldName,OType type){	this.fieldName = fieldName;	this.type = type;}
+	}
+
+	private boolean parallel = false;
+	private int workers = DEFAULT_WORKERS;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private int batchCommit = DEFAULT_BATCH_COMMIT;
+	private long progressInterval = DEFAULT_PROGRESS_INTERVAL;
+
+	/**
+	 * Read settings from OETLConfig document: missing fields are replaced by defaults
+	 * @param doc document of ETL configuration
+	 * @return settings of a pipeline
+	 */
+	public static OETLPipelineSettings fromDocument(ODocument doc) {
+		OETLPipelineSettings settings = new OETLPipelineSettings();
+		Boolean parallel = doc.field(Field.PARALLEL.fieldName());
+		if(parallel!=null) settings.setParallel(parallel);
+		Number value = doc.field(Field.WORKERS.fieldName());
+		if(value!=null && value.intValue()>0) settings.setWorkers(value.intValue());
+		value = doc.field(Field.CHUNK_SIZE.fieldName());
+		if(value!=null && value.intValue()>0) settings.setChunkSize(value.intValue());
+		value = doc.field(Field.BATCH_COMMIT.fieldName());
+		if(value!=null && value.intValue()>0) settings.setBatchCommit(value.intValue());
+		value = doc.field(Field.PROGRESS_INTERVAL.fieldName());
+		if(value!=null && value.longValue()>0) settings.setProgressInterval(value.longValue());
+		return settings;
+	}
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	public OETLPipelineSettings setParallel(boolean parallel) {
+		this.parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * @return number of workers which transform and load chunks concurrently
+	 */
+	public int getWorkers() {
+		return workers;
+	}
+
+	public OETLPipelineSettings setWorkers(int workers) {
+		this.workers = workers;
+		return this;
+	}
+
+	/**
+	 * @return number of source records in a chunk: chunk is a unit of parallel work and of checkpointing
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public OETLPipelineSettings setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * Batch is never smaller than a chunk: chunk is committed by a loader at once,
+	 * so checkpoint never refers to partially committed chunks and resumed execution doesn't duplicate records
+	 * @return number of records to be committed by a loader at once
+	 */
+	public int getBatchCommit() {
+		return Math.max(batchCommit, chunkSize);
+	}
+
+	public OETLPipelineSettings setBatchCommit(int batchCommit) {
+		this.batchCommit = batchCommit;
+		return this;
+	}
+
+	/**
+	 * @return min interval in milliseconds between updates of progress of a task session
+	 */
+	public long getProgressInterval() {
+		return progressInterval;
+	}
+
+	public OETLPipelineSettings setProgressInterval(long progressInterval) {
+		this.progressInterval = progressInterval;
+		return this;
+	}
+}
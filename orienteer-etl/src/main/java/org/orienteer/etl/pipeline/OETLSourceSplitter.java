@@ -0,0 +1,152 @@
+package org.orienteer.etl.pipeline;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.function.IntPredicate;
+
+/**
+ * Splitter of a line oriented source (CSV or JSON lines) to chunks with fixed number of records.
+ * Records of CSV are detected with respect to quoted values with line breaks.
+ * Header of CSV is copied to every chunk, so every chunk can be processed by the same ETL configuration.
+ */
+public class OETLSourceSplitter implements Closeable {
+
+	/**
+	 * Chunk of a source
+	 */
+	public static class Chunk {
+		private final int index;
+		private final int records;
+		private final File file;
+
+		public Chunk(int index, int records, File file) {
+			this.index = index;
+			this.records = records;
+			this.file = file;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public int getRecords() {
+			return records;
+		}
+
+		/**
+		 * @return file with content of the chunk or null if chunk was skipped
+		 */
+		public File getFile() {
+			return file;
+		}
+	}
+
+	private final BufferedReader reader;
+	private final Charset charset;
+	private final File directory;
+	private final int chunkSize;
+	private final char quote;
+	private final String header;
+	private int index = 0;
+	private long records = 0;
+	private boolean eof = false;
+
+	/**
+	 * @param source file to split
+	 * @param charset encoding of the file
+	 * @param csv true if source is CSV: quoted values can contain line breaks
+	 * @param quote quote character of CSV
+	 * @param header true if first record is a header which should be copied to every chunk
+	 * @param chunkSize number of records in a chunk
+	 * @param directory directory to write chunks to
+	 * @throws IOException if source can't be read
+	 */
+	public OETLSourceSplitter(File source, Charset charset, boolean csv, char quote, boolean header, int chunkSize, File directory) throws IOException {
+		this.reader = Files.newBufferedReader(source.toPath(), charset);
+		this.charset = charset;
+		this.directory = directory;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.quote = csv?quote:0;
+		this.header = header?readRecord():null;
+	}
+
+	/**
+	 * Read next chunk of the source
+	 * @param skip predicate to check by index of a chunk that the chunk should be skipped: records of skipped chunk are not written
+	 * @return next chunk or null if there are no more records
+	 * @throws IOException if source can't be read or chunk can't be written
+	 */
+	public Chunk next(IntPredicate skip) throws IOException {
+		if(eof) return null;
+		int chunkIndex = index++;
+		boolean write = !skip.test(chunkIndex);
+		File file = write?new File(directory, "chunk-"+chunkIndex):null;
+		int count = 0;
+		try(BufferedWriter writer = write?Files.newBufferedWriter(file.toPath(), charset):null) {
+			if(writer!=null && header!=null) writer.append(header);
+			String record;
+			while(count<chunkSize && (record = readRecord())!=null) {
+				if(writer!=null) writer.append(record);
+				count++;
+			}
+		}
+		records+=count;
+		if(count<chunkSize) eof = true;
+		if(count==0) {
+			if(file!=null) Files.deleteIfExists(file.toPath());
+			return null;
+		}
+		return new Chunk(chunkIndex, count, file);
+	}
+
+	/**
+	 * Read a record: line or several lines if a quoted value contains line breaks. Empty lines are ignored.
+	 * @return record with trailing line break or null if there are no more records
+	 * @throws IOException if source can't be read
+	 */
+	private String readRecord() throws IOException {
+		String line;
+		do {
+			line = reader.readLine();
+			if(line==null) return null;
+		} while(line.trim().isEmpty());
+		StringBuilder sb = new StringBuilder(line).append('\n');
+		boolean quoted = quote!=0 && isUnbalanced(line, false);
+		while(quoted && (line = reader.readLine())!=null) {
+			sb.append(line).append('\n');
+			quoted = isUnbalanced(line, true);
+		}
+		return sb.toString();
+	}
+
+	private boolean isUnbalanced(String line, boolean quoted) {
+		for(int i=0; i<line.length(); i++) {
+			if(line.charAt(i)==quote) quoted = !quoted;
+		}
+		return quoted;
+	}
+
+	/**
+	 * @return number of chunks read so far
+	 */
+	public int getChunks() {
+		return index;
+	}
+
+	/**
+	 * @return number of records read so far (without header)
+	 */
+	public long getRecords() {
+		return records;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * Package contains parallel execution of ETL configurations with checkpoints
+ */
+package org.orienteer.etl.pipeline;
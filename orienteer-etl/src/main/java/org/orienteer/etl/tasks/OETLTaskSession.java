@@ -48,8 +48,12 @@ public class OETLTaskSession extends OTaskSessionRuntime{
 	}
 	
 	public OETLTaskSession appendOut(String out){
-		String curOut = getOTaskSessionPersisted().getDocument().field(Field.OUTPUT.fieldName())+out+"\n";
-		getOTaskSessionPersisted().setField(Field.OUTPUT.fieldName(), curOut);
+		getOutput().append(out);
 		return this;
 	}
+	
+	@Override
+	protected String getOutputTailField() {
+		return Field.OUTPUT.fieldName();
+	}
 }
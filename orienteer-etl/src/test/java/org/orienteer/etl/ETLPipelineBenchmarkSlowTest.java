@@ -0,0 +1,100 @@
+package org.orienteer.etl;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.orienteer.core.tasks.ITaskSession.Status;
+import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskSessionRuntime;
+import org.orienteer.etl.component.OETLConfig;
+import org.orienteer.etl.pipeline.OETLPipelineSettings;
+import org.orienteer.junit.OrienteerTestRunner;
+
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+
+/**
+ * Benchmark of sequential and parallel ETL execution on generated CSV file.
+ * Number of rows can be specified by system property 'orienteer.etl.benchmark.rows'
+ */
+@RunWith(OrienteerTestRunner.class)
+@Singleton
+public class ETLPipelineBenchmarkSlowTest
+{
+	private static final int ROWS = Integer.getInteger("orienteer.etl.benchmark.rows", 2000000);
+	private static final String[] STATES = {"Arizona", "Missouri", "Texas", "Ohio", "Utah", "Oregon"};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void benchmark() throws Exception
+	{
+		File source = generate(folder.newFile("benchmark.csv"), ROWS);
+		long sequential = run("BenchmarkSequential", source, false);
+		long parallel = run("BenchmarkParallel", source, true);
+		System.out.printf("ETL of %d rows: sequential %d ms (%.0f rows/s), parallel %d ms (%.0f rows/s)%n",
+							ROWS, sequential, ROWS * 1000.0 / sequential, parallel, ROWS * 1000.0 / parallel);
+	}
+
+	private long run(String className, File source, boolean parallel) throws Exception
+	{
+		ODatabaseDocument db = OrientDbWebSession.get().getDatabase();
+		String config = "{\"source\": { \"file\": { \"path\": \""+source.getAbsolutePath().replace('\\', '/')+"\" } },"
+						+ "\"extractor\": { \"csv\": {} },"
+						+ "\"transformers\": [ { \"vertex\": { \"class\": \""+className+"\" } } ],"
+						+ "\"loader\": { \"orientdb\": { \"dbURL\": \""+db.getURL()+"\", \"dbType\": \"graph\","
+						+ "\"classes\": [ {\"name\": \""+className+"\", \"extends\": \"V\"} ] } } }";
+		ODocument doc = new ODocument("OETLConfig");
+		doc.field(OTask.Field.NAME.fieldName(), className);
+		doc.field(OTask.Field.AUTODELETE_SESSIONS.fieldName(), false);
+		doc.field("config", config);
+		doc.field(OETLPipelineSettings.Field.PARALLEL.fieldName(), parallel);
+		doc.save();
+		try {
+			long start = System.currentTimeMillis();
+			OTaskSessionRuntime session = new OETLConfig(doc).startNewSession();
+			long deadline = start + TimeUnit.HOURS.toMillis(1);
+			while(Status.RUNNING.equals(session.getStatus()) && System.currentTimeMillis()<deadline) {
+				Thread.sleep(200);
+			}
+			long time = System.currentTimeMillis() - start;
+			assertEquals(Status.FINISHED, session.getStatus());
+			db.getMetadata().reload();
+			assertEquals(ROWS, db.countClass(className));
+			return time;
+		} finally {
+			doc.delete();
+			if(db.getMetadata().getSchema().existsClass(className)) {
+				db.command("delete vertex "+className).close();
+				db.getMetadata().getSchema().dropClass(className);
+			}
+		}
+	}
+
+	private static File generate(File file, int rows) throws IOException
+	{
+		try(BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writer.write("ID,PARENT_ID,LAST_YEAR_INCOME,DATE_OF_BIRTH,STATE\n");
+			for(int i=0; i<rows; i++) {
+				writer.write(i+","+(i-1)+","+(10000 + (i * 7919L) % 90000)+","
+								+(1950 + i % 50)+"-"+String.format("%02d", 1 + i % 12)+"-"+String.format("%02d", 1 + i % 28)+","
+								+STATES[i % STATES.length]+"\n");
+			}
+		}
+		return file;
+	}
+}
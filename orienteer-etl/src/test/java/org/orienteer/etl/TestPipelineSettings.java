@@ -0,0 +1,26 @@
+package org.orienteer.etl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.orienteer.etl.pipeline.OETLPipelineSettings;
+
+public class TestPipelineSettings
+{
+	@Test
+	public void testBatchIsNotSmallerThanChunk()
+	{
+		OETLPipelineSettings settings = new OETLPipelineSettings().setChunkSize(5000).setBatchCommit(100);
+		assertEquals(5000, settings.getBatchCommit());
+		settings.setBatchCommit(20000);
+		assertEquals(20000, settings.getBatchCommit());
+	}
+
+	@Test
+	public void testDefaultBatchCommitsWholeChunk()
+	{
+		OETLPipelineSettings settings = new OETLPipelineSettings();
+		assertEquals(OETLPipelineSettings.DEFAULT_CHUNK_SIZE, settings.getChunkSize());
+		assertTrue(settings.getBatchCommit()>=settings.getChunkSize());
+	}
+}
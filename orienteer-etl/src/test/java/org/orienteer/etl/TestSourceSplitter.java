@@ -0,0 +1,68 @@
+package org.orienteer.etl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.orienteer.etl.pipeline.OETLSourceSplitter;
+
+public class TestSourceSplitter
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testCsvChunks() throws IOException
+	{
+		File source = folder.newFile("source.csv");
+		Files.write(source.toPath(), ("ID,NAME\n"
+										+ "1,a\n"
+										+ "2,\"multi\nline\"\n"
+										+ "\n"
+										+ "3,c\n"
+										+ "4,\"quoted \"\"value\"\"\"\n"
+										+ "5,e\n").getBytes(StandardCharsets.UTF_8));
+		List<OETLSourceSplitter.Chunk> chunks = new ArrayList<>();
+		try(OETLSourceSplitter splitter = new OETLSourceSplitter(source, StandardCharsets.UTF_8, true, '"', true, 2, folder.getRoot())) {
+			OETLSourceSplitter.Chunk chunk;
+			while((chunk = splitter.next(i -> false))!=null) chunks.add(chunk);
+			assertEquals(5, splitter.getRecords());
+		}
+		assertEquals(3, chunks.size());
+		assertEquals("ID,NAME\n1,a\n2,\"multi\nline\"\n", read(chunks.get(0)));
+		assertEquals("ID,NAME\n3,c\n4,\"quoted \"\"value\"\"\"\n", read(chunks.get(1)));
+		assertEquals("ID,NAME\n5,e\n", read(chunks.get(2)));
+		assertEquals(1, chunks.get(2).getRecords());
+	}
+
+	@Test
+	public void testSkipChunks() throws IOException
+	{
+		File source = folder.newFile("source.json");
+		StringBuilder sb = new StringBuilder();
+		for(int i=0; i<10; i++) sb.append("{\"id\":").append(i).append("}\n");
+		Files.write(source.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+		try(OETLSourceSplitter splitter = new OETLSourceSplitter(source, StandardCharsets.UTF_8, false, '"', false, 5, folder.getRoot())) {
+			OETLSourceSplitter.Chunk skipped = splitter.next(i -> i==0);
+			assertNull(skipped.getFile());
+			assertEquals(5, skipped.getRecords());
+			OETLSourceSplitter.Chunk chunk = splitter.next(i -> i==0);
+			assertEquals(1, chunk.getIndex());
+			assertEquals("{\"id\":5}\n{\"id\":6}\n{\"id\":7}\n{\"id\":8}\n{\"id\":9}\n", read(chunk));
+			assertNull(splitter.next(i -> false));
+		}
+	}
+
+	private static String read(OETLSourceSplitter.Chunk chunk) throws IOException
+	{
+		return new String(Files.readAllBytes(chunk.getFile().toPath()), StandardCharsets.UTF_8);
+	}
+}
@@ -7,8 +7,8 @@ import org.orienteer.mail.service.IOMailService;
 import javax.mail.Message;
 import javax.mail.MessagingException;
 import java.io.UnsupportedEncodingException;
+import java.util.Collection;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -26,23 +26,26 @@ public class OTestLoggerMailService implements IOMailService {
     }
 
     @Override
-    public void sendMails(List<OPreparedMail> mails) throws MessagingException, UnsupportedEncodingException {
+    public void sendMails(Collection<OPreparedMail> mails) throws MessagingException, UnsupportedEncodingException {
         this.mails.addAll(mails);
     }
 
     @Override
-    public void sendMailAsync(OPreparedMail mail) {
+    public CompletableFuture<Void> sendMailAsync(OPreparedMail mail) {
         mails.add(mail);
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
-    public void sendMailsAsync(List<OPreparedMail> mails) {
+    public CompletableFuture<Void> sendMailsAsync(Collection<OPreparedMail> mails) {
         this.mails.addAll(mails);
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
-    public void sendMailAsync(OPreparedMail mail, Consumer<Boolean> f) {
+    public CompletableFuture<Void> sendMailAsync(OPreparedMail mail, Consumer<Boolean> f) {
         mails.add(mail);
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
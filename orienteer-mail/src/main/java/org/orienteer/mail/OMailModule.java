@@ -4,15 +4,20 @@ import com.orientechnologies.orient.core.db.ODatabaseSession;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskManager;
 import org.orienteer.core.tasks.OTaskSession;
 import org.orienteer.mail.model.OMailAttachment;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.module.AbstractOrienteerModule;
 import org.orienteer.core.module.IOrienteerModule;
 import org.orienteer.core.util.OSchemaHelper;
+import org.orienteer.mail.hook.OMailSettingsHook;
 import org.orienteer.mail.model.OMail;
 import org.orienteer.mail.model.OMailSettings;
 import org.orienteer.mail.model.OPreparedMail;
+import org.orienteer.mail.service.IOMailService;
+import org.orienteer.mail.service.OMailServiceImpl;
+import org.orienteer.mail.service.OMailTransportPool;
 import org.orienteer.mail.task.OSendMailTask;
 import org.orienteer.mail.task.OSendMailTaskSession;
 
@@ -26,7 +31,7 @@ public class OMailModule extends AbstractOrienteerModule {
     public static final String NAME = "orienteer-mail";
 
 	protected OMailModule() {
-		super(NAME, 7);
+		super(NAME, 9);
 	}
 	
 	@Override
@@ -41,7 +46,13 @@ public class OMailModule extends AbstractOrienteerModule {
 				.oProperty(OMailSettings.OPROPERTY_SMTP_PORT, OType.INTEGER, 30).notNull()
 				.oProperty(OMailSettings.OPROPERTY_IMAP_HOST, OType.STRING, 40).notNull()
 				.oProperty(OMailSettings.OPROPERTY_IMAP_PORT, OType.INTEGER, 50).notNull()
-				.oProperty(OMailSettings.OPROPERTY_TLS_SSL, OType.BOOLEAN, 60).defaultValue("true").notNull();
+				.oProperty(OMailSettings.OPROPERTY_TLS_SSL, OType.BOOLEAN, 60).defaultValue("true").notNull()
+				.oProperty(OMailSettings.OPROPERTY_MAX_CONNECTIONS, OType.INTEGER, 70)
+					.defaultValue(Integer.toString(OMailSettings.DEFAULT_MAX_CONNECTIONS))
+				.oProperty(OMailSettings.OPROPERTY_KEEP_ALIVE, OType.LONG, 80)
+					.defaultValue(Long.toString(OMailSettings.DEFAULT_KEEP_ALIVE))
+				.oProperty(OMailSettings.OPROPERTY_IMAP_UID_VALIDITY, OType.EMBEDDEDMAP, 90).linkedType(OType.LONG)
+				.oProperty(OMailSettings.OPROPERTY_IMAP_LAST_UID, OType.EMBEDDEDMAP, 100).linkedType(OType.LONG);
 
         helper.oClass(OMailAttachment.CLASS_NAME)
                 .oProperty(OMailAttachment.PROP_NAME, OType.STRING, 0).markAsDocumentName().notNull()
@@ -78,4 +89,23 @@ public class OMailModule extends AbstractOrienteerModule {
 	public void onUpdate(OrienteerWebApplication app, ODatabaseSession db, int oldVersion, int newVersion) {
 		onInstall(app, db);
 	}
+
+	@Override
+	public void onInitialize(OrienteerWebApplication app, ODatabaseSession db) {
+		super.onInitialize(app, db);
+		app.getOrientDbSettings().addORecordHooks(OMailSettingsHook.class);
+		OTaskManager.get().registerExecutor(OMailServiceImpl.MAIL_POOL, OMailServiceImpl.ASYNC_WORKERS,
+											OMailServiceImpl.ASYNC_QUEUE_SIZE, true);
+	}
+
+	@Override
+	public void onDestroy(OrienteerWebApplication app, ODatabaseSession db) {
+		super.onDestroy(app, db);
+		app.getOrientDbSettings().removeORecordHooks(OMailSettingsHook.class);
+		IOMailService mailService = app.getServiceInstance(IOMailService.class);
+		if (mailService instanceof OMailServiceImpl) {
+			((OMailServiceImpl) mailService).shutdown();
+		}
+		app.getServiceInstance(OMailTransportPool.class).clear();
+	}
 }
@@ -0,0 +1,38 @@
+package org.orienteer.mail.hook;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.hook.ODocumentHookAbstract;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.mail.model.OMailSettings;
+import org.orienteer.mail.service.OMailTransportPool;
+
+/**
+ * Hook for {@link OMailSettings}: evicts pooled SMTP transports of changed or deleted settings
+ */
+public class OMailSettingsHook extends ODocumentHookAbstract {
+
+    public OMailSettingsHook(ODatabaseDocument database) {
+        super(database);
+        setIncludeClasses(OMailSettings.CLASS_NAME);
+    }
+
+    @Override
+    public DISTRIBUTED_EXECUTION_MODE getDistributedExecutionMode() {
+        return DISTRIBUTED_EXECUTION_MODE.BOTH;
+    }
+
+    @Override
+    public void onRecordAfterUpdate(ODocument doc) {
+        getTransportPool().onSettingsChanged(new OMailSettings(doc));
+    }
+
+    @Override
+    public void onRecordAfterDelete(ODocument doc) {
+        getTransportPool().evict(new OMailSettings(doc));
+    }
+
+    private OMailTransportPool getTransportPool() {
+        return OrienteerWebApplication.lookupApplication().getServiceInstance(OMailTransportPool.class);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains hooks for 'orienteer-mail' module
+ */
+package org.orienteer.mail.hook;
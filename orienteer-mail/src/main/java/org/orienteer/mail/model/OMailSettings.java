@@ -3,6 +3,9 @@ package org.orienteer.mail.model;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.type.ODocumentWrapper;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Contains settings for working with E-mail service
  */
@@ -55,6 +58,34 @@ public class OMailSettings extends ODocumentWrapper {
      */
     public static final String OPROPERTY_TLS_SSL   = "tlsSsl";
 
+    /**
+     * {@link com.orientechnologies.orient.core.metadata.schema.OType#INTEGER}
+     * Max count of simultaneous SMTP connections
+     */
+    public static final String OPROPERTY_MAX_CONNECTIONS = "maxConnections";
+
+    /**
+     * {@link com.orientechnologies.orient.core.metadata.schema.OType#LONG}
+     * Time in milliseconds during which idle SMTP connection can be reused
+     */
+    public static final String OPROPERTY_KEEP_ALIVE = "keepAlive";
+
+    /**
+     * {@link com.orientechnologies.orient.core.metadata.schema.OType#EMBEDDEDMAP}
+     * IMAP UIDVALIDITY of folders at moment of last fetching
+     */
+    public static final String OPROPERTY_IMAP_UID_VALIDITY = "imapUidValidity";
+
+    /**
+     * {@link com.orientechnologies.orient.core.metadata.schema.OType#EMBEDDEDMAP}
+     * IMAP UID of last processed message per folder
+     */
+    public static final String OPROPERTY_IMAP_LAST_UID = "imapLastUid";
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+
+    public static final long DEFAULT_KEEP_ALIVE = 60_000;
+
     public OMailSettings() {
         super(CLASS_NAME);
     }
@@ -128,4 +159,51 @@ public class OMailSettings extends ODocumentWrapper {
         document.field(OPROPERTY_IMAP_PORT, port);
         return this;
     }
+
+    public int getMaxConnections() {
+        Integer max = document.field(OPROPERTY_MAX_CONNECTIONS);
+        return max != null && max > 0 ? max : DEFAULT_MAX_CONNECTIONS;
+    }
+
+    public OMailSettings setMaxConnections(int max) {
+        document.field(OPROPERTY_MAX_CONNECTIONS, max);
+        return this;
+    }
+
+    public long getKeepAlive() {
+        Long keepAlive = document.field(OPROPERTY_KEEP_ALIVE);
+        return keepAlive != null ? keepAlive : DEFAULT_KEEP_ALIVE;
+    }
+
+    public OMailSettings setKeepAlive(long keepAlive) {
+        document.field(OPROPERTY_KEEP_ALIVE, keepAlive);
+        return this;
+    }
+
+    /**
+     * @param folder IMAP folder name
+     * @return UID of last processed message in given folder or 0 if folder wasn't processed
+     * or its UIDVALIDITY was changed since last processing
+     */
+    public long getImapLastUid(String folder, long uidValidity) {
+        Map<String, Long> validities = document.field(OPROPERTY_IMAP_UID_VALIDITY);
+        Map<String, Long> uids = document.field(OPROPERTY_IMAP_LAST_UID);
+        if (validities == null || uids == null || !Long.valueOf(uidValidity).equals(validities.get(folder))) {
+            return 0;
+        }
+        Long uid = uids.get(folder);
+        return uid != null ? uid : 0;
+    }
+
+    public OMailSettings setImapLastUid(String folder, long uidValidity, long uid) {
+        Map<String, Long> validities = document.field(OPROPERTY_IMAP_UID_VALIDITY);
+        Map<String, Long> uids = document.field(OPROPERTY_IMAP_LAST_UID);
+        validities = validities != null ? new HashMap<>(validities) : new HashMap<>();
+        uids = uids != null ? new HashMap<>(uids) : new HashMap<>();
+        validities.put(folder, uidValidity);
+        uids.put(folder, uid);
+        document.field(OPROPERTY_IMAP_UID_VALIDITY, validities);
+        document.field(OPROPERTY_IMAP_LAST_UID, uids);
+        return this;
+    }
 }
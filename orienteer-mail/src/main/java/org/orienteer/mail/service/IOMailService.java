@@ -7,7 +7,7 @@ import org.orienteer.mail.model.OPreparedMail;
 import javax.mail.Message;
 import javax.mail.MessagingException;
 import java.io.UnsupportedEncodingException;
-import java.util.List;
+import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -31,19 +31,21 @@ public interface IOMailService {
      * @throws MessagingException
      * @throws UnsupportedEncodingException
      */
-    public void sendMails(List<OPreparedMail> mails) throws MessagingException, UnsupportedEncodingException;
+    public void sendMails(Collection<OPreparedMail> mails) throws MessagingException, UnsupportedEncodingException;
 
     /**
      * Send mail to recipients asynchronous
      * @param mail prepared mail which will be send
+     * @return future which is completed after sending mail
      */
-    public void sendMailAsync(OPreparedMail mail);
+    public CompletableFuture<Void> sendMailAsync(OPreparedMail mail);
 
     /**
      * Send mails to recipients asynchronous
      * @param mails prepared mails which will be send
+     * @return future which is completed after sending all mails
      */
-    public void sendMailsAsync(List<OPreparedMail> mails);
+    public CompletableFuture<Void> sendMailsAsync(Collection<OPreparedMail> mails);
 
     /**
      * Send mail to recipient asynchronous and then call callback
@@ -52,8 +54,9 @@ public interface IOMailService {
      *                                   Arguments:
      *                                   true - sending mail successful
      *                                   false - sending mail failed
+     * @return future which is completed after sending mail
      */
-    public void sendMailAsync(OPreparedMail mail, Consumer<Boolean> f);
+    public CompletableFuture<Void> sendMailAsync(OPreparedMail mail, Consumer<Boolean> f);
 
 
     /**
@@ -1,14 +1,19 @@
 package org.orienteer.mail.service;
 
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.apache.wicket.Application;
 import org.apache.wicket.ThreadContext;
 import org.apache.wicket.request.cycle.RequestCycle;
-import org.orienteer.core.OrienteerWebApplication;
-import org.orienteer.core.OrienteerWebSession;
+import org.orienteer.core.tasks.OTaskExecutor;
+import org.orienteer.core.tasks.OTaskManager;
 import org.orienteer.mail.model.OMailAttachment;
 import org.orienteer.mail.model.OMailSettings;
 import org.orienteer.mail.model.OPreparedMail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
 
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
@@ -16,103 +21,195 @@ import javax.mail.*;
 import javax.mail.internet.*;
 import javax.mail.search.FlagTerm;
 import java.io.UnsupportedEncodingException;
-import java.util.List;
-import java.util.Properties;
-import java.util.concurrent.CompletableFuture;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
- * Implementation of {@link IOMailService}
+ * Implementation of {@link IOMailService}.
+ * Uses {@link OMailTransportPool} for reuse SMTP connections and bounded pool of {@link OTaskManager} for asynchronous sending
  */
+@Singleton
 public class OMailServiceImpl implements IOMailService {
 
     private static final Logger LOG = LoggerFactory.getLogger(OMailServiceImpl.class);
 
+    public static final String MAIL_POOL = "mail";
+    public static final int ASYNC_WORKERS = 4;
+    public static final int ASYNC_QUEUE_SIZE = 1000;
+    public static final int IMAP_FETCH_SIZE = 64 * 1024;
+
+    @Inject
+    private OMailTransportPool transportPool;
+
+    /**
+     * @return pool for asynchronous operations: sending is executed in calling thread if pool is saturated
+     */
+    protected OTaskExecutor getExecutor() {
+        return OTaskManager.get().getExecutor(MAIL_POOL, ASYNC_WORKERS, ASYNC_QUEUE_SIZE, true);
+    }
 
     @Override
     public void sendMail(OPreparedMail mail) throws MessagingException, UnsupportedEncodingException {
         final OMailSettings settings = mail.getMailSettings();
-        final Session session = createSession(settings, createSendMailProperties(settings));
-        final Message message = new MimeMessage(session);
+        final Message message = new MimeMessage(transportPool.getSession(settings));
         message.setRecipients(Message.RecipientType.TO, toAddressArray(mail.getRecipients()));
         message.setRecipients(Message.RecipientType.BCC, toAddressArray(mail.getBcc()));
 
         message.setFrom(createFrom(mail, settings));
         message.setSubject(mail.getSubject());
         message.setContent(createMessageContent(mail));
-        sendMessage(message);
+        sendMessage(settings, message);
     }
 
     @Override
-    public void sendMails(List<OPreparedMail> mails) throws MessagingException, UnsupportedEncodingException {
-        for (OPreparedMail mail : mails) {
-            sendMail(mail);
+    public void sendMails(Collection<OPreparedMail> mails) throws MessagingException, UnsupportedEncodingException {
+        try {
+            sendMailsAsync(mails).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MessagingException) throw (MessagingException) cause;
+            if (cause instanceof UnsupportedEncodingException) throw (UnsupportedEncodingException) cause;
+            throw new MessagingException("Error occurred during sending mails", cause instanceof Exception ? (Exception) cause : e);
         }
     }
 
     @Override
-    public void sendMailAsync(OPreparedMail mail) {
-        sendMailAsync(mail, null);
+    public CompletableFuture<Void> sendMailAsync(OPreparedMail mail) {
+        return runAsync(() -> sendMail(mail));
     }
 
+    /**
+     * Mails are split by mail settings and sent in parallel by chunks.
+     * Count of chunks for the same settings doesn't exceed {@link OMailSettings#getMaxConnections()},
+     * so every chunk reuses single SMTP connection for all its mails
+     */
     @Override
-    public void sendMailsAsync(List<OPreparedMail> mails) {
-        executeInNewThread(() -> {
-            try {
-                sendMails(mails);
-            } catch (Exception e) {
-                LOG.error("Error occurred during sending mails: {}", mails, e);
+    public CompletableFuture<Void> sendMailsAsync(Collection<OPreparedMail> mails) {
+        if (mails == null || mails.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Map<ODocument, List<OPreparedMail>> mailsBySettings = mails.stream()
+                .collect(Collectors.groupingBy(mail -> mail.getMailSettings().getDocument(), LinkedHashMap::new, Collectors.toList()));
+
+        List<CompletableFuture<Void>> futures = new LinkedList<>();
+        mailsBySettings.values().forEach(group -> {
+            int workers = Math.min(group.size(), group.get(0).getMailSettings().getMaxConnections());
+            List<List<OPreparedMail>> chunks = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                chunks.add(new LinkedList<>());
             }
+            for (int i = 0; i < group.size(); i++) {
+                chunks.get(i % workers).add(group.get(i));
+            }
+            chunks.forEach(chunk -> futures.add(runAsync(() -> {
+                for (OPreparedMail mail : chunk) {
+                    sendMail(mail);
+                }
+            })));
         });
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
     }
 
     @Override
-    public void sendMailAsync(OPreparedMail mail, Consumer<Boolean> f) {
-        executeInNewThread(() -> {
-            boolean success = false;
-            try {
-                sendMail(mail);
-                success = true;
-            } catch (Exception e) {
-                LOG.error("Error occurred during sending mail: {}", mail, e);
-            } finally {
-                if (f != null) f.accept(success);
+    public CompletableFuture<Void> sendMailAsync(OPreparedMail mail, Consumer<Boolean> f) {
+        return sendMailAsync(mail).whenComplete((result, error) -> {
+            if (error != null) {
+                LOG.error("Error occurred during sending mail: {}", mail, error);
             }
+            if (f != null) f.accept(error == null);
         });
     }
 
+    /**
+     * Only messages which arrived after previous fetching are downloaded: UID of last processed message
+     * is stored in {@link OMailSettings} per folder and reset if folder UIDVALIDITY was changed.
+     * Headers of new messages are prefetched by single request, message bodies are downloaded only on demand
+     */
     @Override
     public void fetchMails(OMailSettings settings, String folderName, Consumer<Message> consumer) throws MessagingException {
         Session session = createSession(settings, createCheckMailProperties(settings));
         Store store = session.getStore("imaps");
         store.connect();
-        Folder folder = store.getFolder(folderName);
-        folder.open(Folder.READ_WRITE);
+        try {
+            Folder folder = store.getFolder(folderName);
+            folder.open(Folder.READ_WRITE);
+            try {
+                if (folder instanceof UIDFolder) {
+                    fetchNewMails(settings, folder, (UIDFolder) folder, consumer);
+                } else {
+                    fetchUnseenMails(folder, consumer);
+                }
+            } finally {
+                folder.close(false);
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    private void fetchNewMails(OMailSettings settings, Folder folder, UIDFolder uidFolder, Consumer<Message> consumer) throws MessagingException {
+        String folderName = folder.getFullName();
+        long uidValidity = uidFolder.getUIDValidity();
+        long lastUid = settings.getImapLastUid(folderName, uidValidity);
+        long processedUid = lastUid;
+
+        Message [] messages = uidFolder.getMessagesByUID(lastUid + 1, UIDFolder.LASTUID);
+        folder.fetch(messages, createHeadersFetchProfile());
+        try {
+            for (Message message : messages) {
+                long uid = uidFolder.getUID(message);
+                if (uid <= lastUid) {
+                    // range 'n:*' always contains the last message of folder
+                    continue;
+                }
+                if (!message.isSet(Flags.Flag.SEEN)) {
+                    consumer.accept(message);
+                    message.setFlag(Flags.Flag.SEEN, true);
+                }
+                processedUid = uid;
+            }
+        } finally {
+            if (processedUid != lastUid || lastUid == 0) {
+                DBClosure.sudoSave(settings.setImapLastUid(folderName, uidValidity, processedUid));
+            }
+        }
+    }
+
+    private void fetchUnseenMails(Folder folder, Consumer<Message> consumer) throws MessagingException {
         Message [] messages = folder.search(new FlagTerm(new Flags(Flags.Flag.SEEN), false));
-        for (int i = messages.length - 1; i >= 0; i--) {
-            Message message = messages[i];
+        folder.fetch(messages, createHeadersFetchProfile());
+        for (Message message : messages) {
             consumer.accept(message);
             message.setFlag(Flags.Flag.SEEN, true);
         }
-        folder.close(false);
-        store.close();
+    }
+
+    private FetchProfile createHeadersFetchProfile() {
+        FetchProfile profile = new FetchProfile();
+        profile.add(FetchProfile.Item.ENVELOPE);
+        profile.add(FetchProfile.Item.FLAGS);
+        profile.add(FetchProfile.Item.CONTENT_INFO);
+        profile.add(UIDFolder.FetchProfileItem.UID);
+        return profile;
     }
 
     @Override
     public CompletableFuture<Void> fetchMailsAsync(OMailSettings settings, String folderName, Consumer<Message> consumer) {
-        OrienteerWebSession session = OrienteerWebSession.get();
-        OrienteerWebApplication app = OrienteerWebApplication.get();
-        RequestCycle requestCycle = RequestCycle.get();
-        return CompletableFuture.runAsync(() -> {
-            ThreadContext.setSession(session);
-            ThreadContext.setApplication(app);
-            ThreadContext.setRequestCycle(requestCycle);
-            try {
-                fetchMails(settings, folderName, consumer);
-            } catch (Exception ex) {
-                LOG.error("Error during fetching mails: {}", settings, ex);
-            }
-        });
+        return runAsync(() -> fetchMails(settings, folderName, consumer))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        LOG.error("Error during fetching mails: {}", settings, error);
+                    }
+                });
+    }
+
+    /**
+     * Stop executor for asynchronous operations and wait for already submitted tasks
+     */
+    public void shutdown() {
+        OTaskManager.get().shutdownExecutor(MAIL_POOL, TimeUnit.SECONDS.toMillis(30));
     }
 
     private Multipart createMessageContent(OPreparedMail mail) throws MessagingException {
@@ -149,21 +246,7 @@ public class OMailServiceImpl implements IOMailService {
     }
 
     protected Session createSession(OMailSettings settings, Properties properties) {
-        return Session.getInstance(properties, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(settings.getEmail(), settings.getPassword());
-            }
-        });
-    }
-
-    private Properties createSendMailProperties(OMailSettings settings) {
-        Properties properties = new Properties();
-        properties.put("mail.smtp.auth", "true");
-        properties.put("mail.smtp.starttls.enable", settings.isTlsSsl());
-        properties.put("mail.smtp.host", settings.getSmtpHost());
-        properties.put("mail.smtp.port", settings.getSmtpPort());
-        return properties;
+        return OMailTransportPool.createSession(settings, properties);
     }
 
     private Properties createCheckMailProperties(OMailSettings settings) {
@@ -171,6 +254,10 @@ public class OMailServiceImpl implements IOMailService {
         properties.put("mail.store.protocol", "imaps");
         properties.put("mail.imaps.host", settings.getImapHost());
         properties.put("mail.imaps.port", settings.getImapPort());
+        // don't mark message as seen during reading of its content and download content by chunks
+        properties.put("mail.imaps.peek", "true");
+        properties.put("mail.imaps.partialfetch", "true");
+        properties.put("mail.imaps.fetchsize", Integer.toString(IMAP_FETCH_SIZE));
         return properties;
     }
 
@@ -182,20 +269,57 @@ public class OMailServiceImpl implements IOMailService {
         return addresses;
     }
 
-    private void executeInNewThread(Runnable runnable) {
-        OrienteerWebSession session = OrienteerWebSession.get();
-        OrienteerWebApplication app = OrienteerWebApplication.get();
-        RequestCycle requestCycle = RequestCycle.get();
+    /**
+     * Run action in executor for asynchronous operations with context of current thread
+     * @param action action to run
+     * @return future of action
+     */
+    protected CompletableFuture<Void> runAsync(MailAction action) {
+        Application app = ThreadContext.getApplication();
+        org.apache.wicket.Session session = ThreadContext.getSession();
+        RequestCycle requestCycle = ThreadContext.getRequestCycle();
+        CompletableFuture<Void> future = new CompletableFuture<>();
 
-        new Thread(() -> {
-            ThreadContext.setSession(session);
+        getExecutor().execute(() -> {
+            ThreadContext previous = ThreadContext.get(false);
             ThreadContext.setApplication(app);
+            ThreadContext.setSession(session);
             ThreadContext.setRequestCycle(requestCycle);
-            runnable.run();
-        }).start();
+            try {
+                action.run();
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                ThreadContext.restore(previous);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Send message throughout pooled SMTP connection
+     * @param settings mail settings
+     * @param message message to send
+     * @throws MessagingException
+     */
+    protected void sendMessage(OMailSettings settings, Message message) throws MessagingException {
+        message.saveChanges();
+        Transport transport = transportPool.borrow(settings);
+        boolean broken = true;
+        try {
+            transport.sendMessage(message, message.getAllRecipients());
+            broken = false;
+        } finally {
+            transportPool.release(settings, transport, broken);
+        }
     }
 
-    protected void sendMessage(Message message) throws MessagingException {
-        Transport.send(message);
+    /**
+     * Action which can throw checked exceptions
+     */
+    @FunctionalInterface
+    protected interface MailAction {
+        void run() throws Exception;
     }
 }
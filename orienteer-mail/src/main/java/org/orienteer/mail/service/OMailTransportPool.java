@@ -0,0 +1,284 @@
+package org.orienteer.mail.service;
+
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.id.ORID;
+import org.orienteer.mail.model.OMailSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.mail.*;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Pool of connected SMTP transports per {@link OMailSettings}.
+ * Transports are kept connected after sending of message and reused for next messages
+ * while they are idle less than {@link OMailSettings#getKeepAlive()}.
+ * Pool of settings is evicted when connection settings are changed or settings are deleted
+ */
+@Singleton
+public class OMailTransportPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OMailTransportPool.class);
+
+    private final Map<Object, Pool> pools = new ConcurrentHashMap<>();
+    private final Map<Transport, Pool> borrowed = new ConcurrentHashMap<>();
+
+    /**
+     * Session which is shared by all transports for given settings
+     * @param settings mail settings
+     * @return session for send mails
+     */
+    public Session getSession(OMailSettings settings) {
+        return getPool(settings).session;
+    }
+
+    /**
+     * Borrow connected transport. Waits if all {@link OMailSettings#getMaxConnections()} transports are in use
+     * @param settings mail settings
+     * @return connected transport
+     * @throws MessagingException if can't connect to SMTP server
+     */
+    public Transport borrow(OMailSettings settings) throws MessagingException {
+        Pool pool = getPool(settings);
+        try {
+            pool.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted during waiting for SMTP connection", e);
+        }
+        try {
+            long threshold = System.currentTimeMillis() - settings.getKeepAlive();
+            IdleTransport idle;
+            Transport transport = null;
+            while (transport == null && (idle = pool.idle.pollFirst()) != null) {
+                if (idle.since >= threshold && idle.transport.isConnected()) {
+                    transport = idle.transport;
+                } else {
+                    close(idle.transport);
+                }
+            }
+            if (transport == null) {
+                transport = pool.session.getTransport("smtp");
+                transport.connect();
+            }
+            borrowed.put(transport, pool);
+            return transport;
+        } catch (MessagingException | RuntimeException e) {
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return transport to the pool
+     * @param settings mail settings
+     * @param transport transport which was borrowed by {@link #borrow(OMailSettings)}
+     * @param broken true if transport failed and must not be reused
+     */
+    public void release(OMailSettings settings, Transport transport, boolean broken) {
+        Pool pool = borrowed.remove(transport);
+        if (pool == null) {
+            LOG.warn("Released SMTP transport wasn't borrowed from the pool: {}", transport);
+            close(transport);
+            return;
+        }
+        try {
+            if (broken || pool.evicted || !transport.isConnected()) {
+                close(transport);
+            } else {
+                pool.idle.offerFirst(new IdleTransport(transport));
+                // Pool could be evicted concurrently
+                if (pool.evicted) {
+                    pool.closeIdle();
+                }
+            }
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    /**
+     * Evict pool of given settings if its connection settings were changed
+     * @param settings changed mail settings
+     */
+    public void onSettingsChanged(OMailSettings settings) {
+        Object key = toPoolKey(settings);
+        Pool pool = pools.get(key);
+        if (pool != null && !pool.key.equals(new Key(settings)) && pools.remove(key, pool)) {
+            pool.evict();
+        }
+    }
+
+    /**
+     * Evict pool of given settings and close its idle transports. Borrowed transports are closed on release
+     * @param settings mail settings
+     */
+    public void evict(OMailSettings settings) {
+        Pool pool = pools.remove(toPoolKey(settings));
+        if (pool != null) {
+            pool.evict();
+        }
+    }
+
+    /**
+     * Close all idle transports
+     */
+    public void clear() {
+        pools.values().forEach(Pool::evict);
+        pools.clear();
+    }
+
+    /**
+     * @param settings mail settings
+     * @return count of idle transports for given settings
+     */
+    public int getIdleCount(OMailSettings settings) {
+        Pool pool = pools.get(toPoolKey(settings));
+        return pool != null ? pool.idle.size() : 0;
+    }
+
+    private Pool getPool(OMailSettings settings) {
+        Key key = new Key(settings);
+        return pools.compute(toPoolKey(settings), (k, pool) -> {
+            if (pool != null && pool.key.equals(key)) {
+                return pool;
+            }
+            if (pool != null) {
+                pool.evict();
+            }
+            return new Pool(key, createSession(settings), settings.getMaxConnections());
+        });
+    }
+
+    /**
+     * Pool is identified by settings document, so changed settings replace its pool.
+     * Not saved settings are identified by its connection settings
+     */
+    private static Object toPoolKey(OMailSettings settings) {
+        ORID identity = settings.getDocument().getIdentity();
+        return identity.isPersistent() ? identity.copy() : new Key(settings);
+    }
+
+    /**
+     * Create session for send mails
+     * @param settings mail settings
+     * @return session which is shared by all transports of settings
+     */
+    protected Session createSession(OMailSettings settings) {
+        return createSession(settings, createSendMailProperties(settings));
+    }
+
+    private static void close(Transport transport) {
+        try {
+            if (transport.isConnected()) {
+                transport.close();
+            }
+        } catch (MessagingException e) {
+            LOG.warn("Can't close SMTP transport: {}", transport, e);
+        }
+    }
+
+    static Session createSession(OMailSettings settings, Properties properties) {
+        return Session.getInstance(properties, new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(settings.getEmail(), settings.getPassword());
+            }
+        });
+    }
+
+    static Properties createSendMailProperties(OMailSettings settings) {
+        Properties properties = new Properties();
+        properties.put("mail.smtp.auth", "true");
+        properties.put("mail.smtp.starttls.enable", settings.isTlsSsl());
+        properties.put("mail.smtp.host", settings.getSmtpHost());
+        properties.put("mail.smtp.port", settings.getSmtpPort());
+        return properties;
+    }
+
+    /**
+     * Pool of transports for single settings
+     */
+    private static class Pool {
+        private final Key key;
+        private final Session session;
+        private final Semaphore permits;
+        private final ConcurrentLinkedDeque<IdleTransport> idle = new ConcurrentLinkedDeque<>();
+        private volatile boolean evicted;
+
+        Pool(Key key, Session session, int maxConnections) {
+            this.key = key;
+            this.session = session;
+            this.permits = new Semaphore(maxConnections, true);
+        }
+
+        void evict() {
+            evicted = true;
+            closeIdle();
+        }
+
+        void closeIdle() {
+            IdleTransport transport;
+            while ((transport = idle.pollFirst()) != null) {
+                close(transport.transport);
+            }
+        }
+    }
+
+    /**
+     * Idle transport with time since which it's idle
+     */
+    private static class IdleTransport {
+        private final Transport transport;
+        private final long since;
+
+        IdleTransport(Transport transport) {
+            this.transport = transport;
+            this.since = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Key of pool: all settings which affect SMTP connection
+     */
+    private static class Key {
+        private final String email;
+        private final String password;
+        private final String host;
+        private final int port;
+        private final boolean tls;
+        private final int maxConnections;
+
+        Key(OMailSettings settings) {
+            email = settings.getEmail();
+            password = settings.getPassword();
+            host = settings.getSmtpHost();
+            port = settings.getSmtpPort();
+            tls = settings.isTlsSsl();
+            maxConnections = settings.getMaxConnections();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return port == key.port
+                    && tls == key.tls
+                    && maxConnections == key.maxConnections
+                    && Objects.equals(email, key.email)
+                    && Objects.equals(password, key.password)
+                    && Objects.equals(host, key.host);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(email, password, host, port, tls, maxConnections);
+        }
+    }
+}
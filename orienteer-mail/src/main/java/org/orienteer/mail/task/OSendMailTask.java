@@ -6,9 +6,11 @@ import org.apache.wicket.request.cycle.RequestCycle;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.OrienteerWebSession;
 import org.orienteer.core.tasks.OTask;
+import org.orienteer.core.tasks.OTaskManager;
 import org.orienteer.core.tasks.OTaskSessionRuntime;
 import org.orienteer.mail.model.OPreparedMail;
 import org.orienteer.mail.service.IOMailService;
+import org.orienteer.mail.service.OMailServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
@@ -55,7 +57,7 @@ public class OSendMailTask extends OTask {
         OrienteerWebApplication app = OrienteerWebApplication.get();
         RequestCycle requestCycle = RequestCycle.get();
 
-        new Thread(() -> {
+        OTaskManager.get().execute(OMailServiceImpl.MAIL_POOL, runtime, () -> {
             ThreadContext.setSession(session);
             ThreadContext.setApplication(app);
             ThreadContext.setRequestCycle(requestCycle);
@@ -69,7 +71,7 @@ public class OSendMailTask extends OTask {
                     runtime.finish();
                 }
             });
-        }).start();
+        });
     }
 
     private void sendMails(OSendMailTaskSessionRuntime runtime) throws UnsupportedEncodingException, MessagingException {
@@ -0,0 +1,113 @@
+package org.orienteer.mail;
+
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.mail.model.OMail;
+import org.orienteer.mail.model.OMailSettings;
+import org.orienteer.mail.model.OPreparedMail;
+import org.orienteer.mail.service.OMailServiceImpl;
+import org.orienteer.mail.service.OMailTransportPool;
+import org.orienteer.mail.service.OTestSmtpTransport;
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+import javax.mail.MessagingException;
+import java.io.UnsupportedEncodingException;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test sending of mails through {@link OMailTransportPool}
+ */
+@RunWith(OrienteerTestRunner.class)
+public class TestMailTransportPool {
+
+    private OMailServiceImpl mailService;
+    private OMailTransportPool transportPool;
+
+    private OMailSettings settings;
+    private OMail mail;
+    private OPreparedMail preparedMail;
+
+    @Before
+    public void init() {
+        OrienteerWebApplication app = OrienteerWebApplication.lookupApplication();
+        mailService = app.getServiceInstance(OMailServiceImpl.class);
+        transportPool = app.getServiceInstance(OMailTransportPool.class);
+
+        settings = new OMailSettings()
+                .setEmail(UUID.randomUUID().toString() + "@gmail.com")
+                .setPassword(UUID.randomUUID().toString())
+                .setImapHost("test")
+                .setImapPort(123)
+                .setSmtpHost("test")
+                .setSmtpPort(123)
+                .setTlsSsl(true);
+        DBClosure.sudoSave(settings);
+
+        mail = new OMail()
+                .setFrom("test")
+                .setMailSettings(settings)
+                .setText("<p>text</p>")
+                .setSubject("subject")
+                .setName(UUID.randomUUID().toString());
+        DBClosure.sudoSave(mail);
+
+        preparedMail = new OPreparedMail(mail, Collections.emptyMap())
+                .setRecipients(Collections.singletonList(UUID.randomUUID().toString() + "@gmail.com"));
+        DBClosure.sudoSave(preparedMail);
+        OTestSmtpTransport.reset();
+    }
+
+    @After
+    public void destroy() {
+        DBClosure.sudoConsumer(db -> {
+            db.command(new OCommandSQL("delete from ?")).execute(preparedMail.getDocument());
+            db.command(new OCommandSQL("delete from ?")).execute(mail.getDocument());
+            db.command(new OCommandSQL("delete from ?")).execute(settings.getDocument());
+        });
+    }
+
+    @Test
+    public void testReuseConnection() throws MessagingException, UnsupportedEncodingException {
+        for (int i = 0; i < 3; i++) {
+            mailService.sendMail(preparedMail);
+        }
+        assertEquals(3, OTestSmtpTransport.SENT.get());
+        assertEquals(1, OTestSmtpTransport.CONNECTED.get());
+        assertEquals(1, transportPool.getIdleCount(settings));
+    }
+
+    @Test
+    public void testEvictOnChangeOfConnectionSettings() throws MessagingException, UnsupportedEncodingException {
+        mailService.sendMail(preparedMail);
+        DBClosure.sudoSave(settings.setSmtpPort(124));
+        assertEquals(1, OTestSmtpTransport.CLOSED.get());
+        assertEquals(0, transportPool.getIdleCount(settings));
+
+        mailService.sendMail(preparedMail);
+        assertEquals(2, OTestSmtpTransport.CONNECTED.get());
+    }
+
+    @Test
+    public void testKeepConnectionOnChangeOfOtherSettings() throws MessagingException, UnsupportedEncodingException {
+        mailService.sendMail(preparedMail);
+        DBClosure.sudoSave(settings.setImapLastUid("INBOX", 1, 1));
+        assertEquals(0, OTestSmtpTransport.CLOSED.get());
+        assertEquals(1, transportPool.getIdleCount(settings));
+    }
+
+    @Test
+    public void testEvictOnDeleteOfSettings() throws MessagingException, UnsupportedEncodingException {
+        mailService.sendMail(preparedMail);
+        DBClosure.sudoConsumer(db -> db.delete(settings.getDocument()));
+        assertEquals(1, OTestSmtpTransport.CLOSED.get());
+        assertEquals(0, transportPool.getIdleCount(settings));
+    }
+}
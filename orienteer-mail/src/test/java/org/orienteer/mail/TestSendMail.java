@@ -18,8 +18,10 @@ import javax.mail.MessagingException;
 import java.io.UnsupportedEncodingException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.TestCase.assertEquals;
 
@@ -61,6 +63,26 @@ public class TestSendMail {
                 .sendMail(preparedMail);
     }
 
+    @Test
+    public void testSendMails() throws UnsupportedEncodingException, MessagingException {
+        AtomicInteger counter = new AtomicInteger();
+        List<OPreparedMail> mails = Collections.nCopies(10, preparedMail);
+        testService.onSendMail(mail -> {
+            assertEquals(preparedMail, mail);
+            counter.incrementAndGet();
+        }).sendMails(mails);
+        assertEquals(mails.size(), counter.get());
+    }
+
+    @Test
+    public void testSendMailAsync() {
+        AtomicInteger counter = new AtomicInteger();
+        testService.onSendMail(mail -> counter.incrementAndGet())
+                .sendMailsAsync(Collections.nCopies(5, preparedMail))
+                .join();
+        assertEquals(5, counter.get());
+    }
+
     private OMailSettings createMailSettings() {
         OMailSettings settings = new OMailSettings();
         return settings.setEmail(UUID.randomUUID().toString() + "@gmail.com")
@@ -0,0 +1,21 @@
+package org.orienteer.mail.service;
+
+import com.google.inject.Singleton;
+import org.orienteer.mail.model.OMailSettings;
+
+import javax.mail.Session;
+import java.util.Properties;
+
+/**
+ * {@link OMailTransportPool} which uses {@link OTestSmtpTransport} instead of real SMTP connections
+ */
+@Singleton
+public class OTestMailTransportPool extends OMailTransportPool {
+
+    @Override
+    protected Session createSession(OMailSettings settings) {
+        Properties properties = createSendMailProperties(settings);
+        properties.put("mail.smtp.class", OTestSmtpTransport.class.getName());
+        return createSession(settings, properties);
+    }
+}
@@ -0,0 +1,46 @@
+package org.orienteer.mail.service;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.URLName;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SMTP transport for tests: counts connections and sent messages without real SMTP server
+ */
+public class OTestSmtpTransport extends Transport {
+
+    public static final AtomicInteger CONNECTED = new AtomicInteger();
+    public static final AtomicInteger CLOSED = new AtomicInteger();
+    public static final AtomicInteger SENT = new AtomicInteger();
+
+    public OTestSmtpTransport(Session session, URLName urlname) {
+        super(session, urlname);
+    }
+
+    public static void reset() {
+        CONNECTED.set(0);
+        CLOSED.set(0);
+        SENT.set(0);
+    }
+
+    @Override
+    protected boolean protocolConnect(String host, int port, String user, String password) {
+        CONNECTED.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+        SENT.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void close() throws MessagingException {
+        CLOSED.incrementAndGet();
+        super.close();
+    }
+}
@@ -6,5 +6,6 @@ public class TestInitModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(IOMailService.class).to(OMailServiceTest.class).asEagerSingleton();
+        bind(OMailTransportPool.class).to(OTestMailTransportPool.class);
     }
 }
@@ -40,6 +40,23 @@ public interface IONotification extends IODocumentWrapper {
   ODocument getTransport();
   IONotification setTransport(ODocument transport);
 
+  /**
+   * @return count of failed attempts to send this notification
+   */
+  Integer getAttempts();
+  IONotification setAttempts(Integer attempts);
+
+  /**
+   * @return time after which failed notification can be sent again or, for notification in sending status,
+   * time after which sending is considered as interrupted
+   */
+  Date getNextAttempt();
+  IONotification setNextAttempt(Date nextAttempt);
+
+  @DAOField(uiReadOnly = true)
+  String getLastError();
+  IONotification setLastError(String error);
+
   default IONotification addStatusHistory(ODocument history) {
     List<ODocument> histories = getStatusHistories();
     if (histories == null) {
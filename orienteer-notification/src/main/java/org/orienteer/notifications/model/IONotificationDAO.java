@@ -6,6 +6,7 @@ import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.dao.DAOProvider;
 import org.orienteer.core.dao.Query;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -21,6 +22,19 @@ public interface IONotificationDAO {
   @Query("select from ONotification where status = :status")
   List<ODocument> findNotificationsByStatus(ODocument status);
 
+  /**
+   * Find notifications which are ready to be sent: pending notifications and failed notifications
+   * which next attempt time has come
+   */
+  @Query("select from ONotification where status = :pending or (status = :failed and nextAttempt <= :date)")
+  List<ODocument> findNotificationsToSend(ODocument pending, ODocument failed, Date date);
+
+  /**
+   * Find notifications which are in sending status after its sending deadline
+   */
+  @Query("select from ONotification where status = :sending and (nextAttempt is null or nextAttempt <= :date)")
+  List<ODocument> findStaleNotifications(ODocument sending, Date date);
+
   @Query("select from ONotification where status != :status")
   List<ODocument> findNotificationsExceptStatus(ODocument status);
 
@@ -28,6 +42,9 @@ public interface IONotificationDAO {
   @Query("select from ONotificationStatus where alias = :alias")
   ODocument findStatusByAlias(String alias);
 
+  @Query("select from ONotificationTransport")
+  List<ODocument> findTransports();
+
   @Query("select from ONotificationTransport where alias = :alias")
   ODocument findTransportByAlias(String alias);
 
@@ -46,4 +63,16 @@ public interface IONotificationDAO {
   default ODocument getFailedStatus() {
     return findStatusByAlias(IONotificationStatus.ALIAS_FAILED);
   }
+
+  default ODocument getDeadStatus() {
+    return findStatusByAlias(IONotificationStatus.ALIAS_DEAD);
+  }
+
+  default List<ODocument> findNotificationsToSend() {
+    return findNotificationsToSend(getPendingStatus(), getFailedStatus(), new Date());
+  }
+
+  default List<ODocument> findStaleNotifications() {
+    return findStaleNotifications(getSendingStatus(), new Date());
+  }
 }
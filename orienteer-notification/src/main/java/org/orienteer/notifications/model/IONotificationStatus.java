@@ -20,6 +20,7 @@ public interface IONotificationStatus extends IODocumentWrapper {
   String ALIAS_SENDING = "sending";
   String ALIAS_SENT    = "sent";
   String ALIAS_FAILED  = "failed";
+  String ALIAS_DEAD    = "dead";
 
 
   String getAlias();
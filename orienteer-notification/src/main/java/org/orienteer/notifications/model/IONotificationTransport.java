@@ -3,6 +3,7 @@ package org.orienteer.notifications.model;
 import com.google.common.base.Strings;
 import com.google.inject.ProvidedBy;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.orienteer.core.dao.DAOField;
 import org.orienteer.core.dao.DAOOClass;
 import org.orienteer.core.dao.IODocumentWrapper;
 import org.orienteer.core.dao.ODocumentWrapperProvider;
@@ -30,6 +31,13 @@ public interface IONotificationTransport extends IODocumentWrapper {
   String getTransportClass();
   IONotificationTransport setTransportClass(String transportClass);
 
+  /**
+   * @return max count of workers which can send notifications throughout this transport at the same time
+   */
+  @DAOField(min = "1")
+  Integer getParallelism();
+  IONotificationTransport setParallelism(Integer parallelism);
+
   default ITransport createTransportService() {
     String transportClass = getTransportClass();
     if (!Strings.isNullOrEmpty(transportClass)) {
@@ -5,17 +5,26 @@ import com.orientechnologies.orient.core.hook.ORecordHook;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.type.ODocumentWrapper;
+import io.prometheus.client.CollectorRegistry;
 import org.apache.wicket.model.ResourceModel;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.dao.DAO;
 import org.orienteer.core.module.AbstractOrienteerModule;
+import org.orienteer.core.tasks.OTaskManager;
 import org.orienteer.core.util.CommonUtils;
 import org.orienteer.core.util.OSchemaHelper;
 import org.orienteer.mail.OMailModule;
 import org.orienteer.notifications.hook.ONotificationHook;
 import org.orienteer.notifications.model.*;
 import org.orienteer.notifications.scheduler.ONotificationScheduler;
+import org.orienteer.notifications.service.NotificationService;
+import org.orienteer.notifications.service.OTransportPool;
+import org.orienteer.notifications.task.ONotificationMetrics;
+import org.orienteer.notifications.task.ONotificationRecoverTask;
+import org.orienteer.notifications.task.ONotificationSendExecutor;
 import org.orienteer.notifications.task.ONotificationSendTask;
+import org.orienteer.notifications.task.OTransportPoolEvictTask;
+import org.orienteer.notifications.task.OTransportPoolPrewarmTask;
 import org.orienteer.twilio.module.OTwilioModule;
 
 import java.util.List;
@@ -26,7 +35,16 @@ import java.util.List;
 public class ONotificationModule extends AbstractOrienteerModule {
 
   public static final String NAME = "orienteer-notification";
-  public static final int VERSION = 2;
+  public static final int VERSION = 6;
+
+  public static final String SCHEDULER_POOL = "notification-scheduler";
+  public static final String SENDER_POOL = "notification-sender";
+  /**
+   * Scheduler has thread per task of the module, so long running task never delays execution of other tasks
+   */
+  public static final int SCHEDULER_THREADS = 4;
+
+  private ONotificationMetrics metrics;
 
   protected ONotificationModule() {
     super(NAME, VERSION, OMailModule.NAME, OTwilioModule.NAME);
@@ -53,7 +71,41 @@ public class ONotificationModule extends AbstractOrienteerModule {
             .oProperty(Module.PROP_NOTIFICATIONS_PER_WORKER, OType.INTEGER)
               .notNull()
               .defaultValue("50")
-            .oProperty(Module.PROP_SMS_STATUS_URL, OType.STRING);
+            .oProperty(Module.PROP_SMS_STATUS_URL, OType.STRING)
+            .oProperty(Module.PROP_MAX_WORKERS, OType.INTEGER)
+            .oProperty(Module.PROP_QUEUE_SIZE, OType.INTEGER)
+              .notNull()
+              .defaultValue("100")
+            .oProperty(Module.PROP_SHUTDOWN_TIMEOUT, OType.LONG)
+              .notNull()
+              .defaultValue("30000")
+            .oProperty(Module.PROP_SENDING_TIMEOUT, OType.LONG)
+              .notNull()
+              .defaultValue("600000")
+            .oProperty(Module.PROP_RETRY_ATTEMPTS, OType.INTEGER)
+              .notNull()
+              .defaultValue(Integer.toString(NotificationService.ATTEMPTS))
+            .oProperty(Module.PROP_RETRY_INITIAL_DELAY, OType.LONG)
+              .notNull()
+              .defaultValue("60000")
+            .oProperty(Module.PROP_RETRY_MAX_DELAY, OType.LONG)
+              .notNull()
+              .defaultValue("3600000")
+            .oProperty(Module.PROP_POOL_MAX_TOTAL, OType.INTEGER)
+              .notNull()
+              .defaultValue("8")
+            .oProperty(Module.PROP_POOL_MAX_IDLE, OType.INTEGER)
+              .notNull()
+              .defaultValue("8")
+            .oProperty(Module.PROP_POOL_MIN_IDLE, OType.INTEGER)
+              .notNull()
+              .defaultValue("0")
+            .oProperty(Module.PROP_POOL_IDLE_TIMEOUT, OType.LONG)
+              .notNull()
+              .defaultValue("300000")
+            .oProperty(Module.PROP_POOL_BORROW_TIMEOUT, OType.LONG)
+              .notNull()
+              .defaultValue("60000");
 
     return helper.oDocument(OMODULE_NAME, NAME)
             .saveDocument()
@@ -92,6 +144,13 @@ public class ONotificationModule extends AbstractOrienteerModule {
       status.save();
     }
 
+    if (statusDao.getDeadStatus() == null) {
+      status.fromStream(new ODocument(IONotificationStatus.CLASS_NAME));
+      status.setAlias(IONotificationStatus.ALIAS_DEAD);
+      status.setName(CommonUtils.toMap("en", new ResourceModel("notification.status.dead").getObject()));
+      status.save();
+    }
+
   }
 
 
@@ -106,9 +165,28 @@ public class ONotificationModule extends AbstractOrienteerModule {
 
     app.getOrientDbSettings().addORecordHooks(ONotificationHook.class);
 
-    long period = new Module(moduleDoc).getSendPeriod();
-
-    ONotificationScheduler.scheduleTask(new ONotificationSendTask(), period);
+    Module module = new Module(moduleDoc);
+    OTransportPool transportPool = app.getServiceInstance(OTransportPool.class)
+            .setMaxTotal(module.getPoolMaxTotal())
+            .setMaxIdle(module.getPoolMaxIdle())
+            .setMinIdle(module.getPoolMinIdle())
+            .setIdleTimeout(module.getPoolIdleTimeout())
+            .setBorrowTimeout(module.getPoolBorrowTimeout());
+
+    OTaskManager taskManager = OTaskManager.get();
+    int queueSize = Math.max(1, module.getQueueSize());
+    // Queue of the sender pool contains only drainers of transport queues, so it never exceeds count of queued tasks
+    taskManager.registerExecutor(SENDER_POOL, module.getMaxWorkers(), queueSize, false);
+    taskManager.registerExecutor(SCHEDULER_POOL, SCHEDULER_THREADS, SCHEDULER_THREADS, false);
+    ONotificationSendExecutor.start(taskManager.getExecutor(SENDER_POOL), queueSize);
+    ONotificationScheduler.start(taskManager.getExecutor(SCHEDULER_POOL));
+    metrics = new ONotificationMetrics(transportPool).register();
+
+    ONotificationScheduler.scheduleTask(new OTransportPoolPrewarmTask(transportPool), 0);
+    long evictPeriod = Math.max(1000, module.getPoolIdleTimeout() / 2);
+    ONotificationScheduler.scheduleTask(new OTransportPoolEvictTask(transportPool), evictPeriod, evictPeriod);
+    ONotificationScheduler.scheduleTask(new ONotificationRecoverTask(), 0, Math.max(1000, module.getSendingTimeout() / 2));
+    ONotificationScheduler.scheduleTask(new ONotificationSendTask(), module.getSendPeriod(), module.getSendPeriod());
   }
 
   @Override
@@ -117,7 +195,18 @@ public class ONotificationModule extends AbstractOrienteerModule {
 
     app.getOrientDbSettings().removeORecordHooks(ONotificationHook.class);
 
-    ONotificationScheduler.stopAll();
+    ONotificationScheduler.shutdown();
+    ONotificationSendExecutor.stop();
+    OTaskManager taskManager = OTaskManager.get();
+    long shutdownTimeout = new Module(moduleDoc).getShutdownTimeout();
+    taskManager.shutdownExecutor(SCHEDULER_POOL, shutdownTimeout);
+    taskManager.shutdownExecutor(SENDER_POOL, shutdownTimeout);
+    app.getServiceInstance(OTransportPool.class).clear();
+
+    if (metrics != null) {
+      CollectorRegistry.defaultRegistry.unregister(metrics);
+      metrics = null;
+    }
   }
 
   /**
@@ -130,6 +219,18 @@ public class ONotificationModule extends AbstractOrienteerModule {
     public static final String PROP_SEND_PERIOD              = "sendPeriod";
     public static final String PROP_NOTIFICATIONS_PER_WORKER = "notificationsPerWorker";
     public static final String PROP_SMS_STATUS_URL           = "smsStatusUrl";
+    public static final String PROP_MAX_WORKERS              = "maxWorkers";
+    public static final String PROP_QUEUE_SIZE               = "queueSize";
+    public static final String PROP_SHUTDOWN_TIMEOUT         = "shutdownTimeout";
+    public static final String PROP_SENDING_TIMEOUT          = "sendingTimeout";
+    public static final String PROP_RETRY_ATTEMPTS           = "retryAttempts";
+    public static final String PROP_RETRY_INITIAL_DELAY      = "retryInitialDelay";
+    public static final String PROP_RETRY_MAX_DELAY          = "retryMaxDelay";
+    public static final String PROP_POOL_MAX_TOTAL           = "poolMaxTotal";
+    public static final String PROP_POOL_MAX_IDLE            = "poolMaxIdle";
+    public static final String PROP_POOL_MIN_IDLE            = "poolMinIdle";
+    public static final String PROP_POOL_IDLE_TIMEOUT        = "poolIdleTimeout";
+    public static final String PROP_POOL_BORROW_TIMEOUT      = "poolBorrowTimeout";
 
     public Module() {
       this(CLASS_NAME);
@@ -171,5 +272,132 @@ public class ONotificationModule extends AbstractOrienteerModule {
       document.field(PROP_SMS_STATUS_URL, smsStatusUrl);
       return this;
     }
+
+    /**
+     * @return max count of workers for send notifications. If not set, depends on count of processors
+     */
+    public int getMaxWorkers() {
+      Integer workers = document.field(PROP_MAX_WORKERS);
+      // send notifications is I/O operation, not CPU at all
+      return workers != null && workers > 0 ? workers : Runtime.getRuntime().availableProcessors() * 4;
+    }
+
+    public Module setMaxWorkers(Integer workers) {
+      document.field(PROP_MAX_WORKERS, workers);
+      return this;
+    }
+
+    public int getQueueSize() {
+      Integer size = document.field(PROP_QUEUE_SIZE);
+      return size != null ? size : 100;
+    }
+
+    public Module setQueueSize(int size) {
+      document.field(PROP_QUEUE_SIZE, size);
+      return this;
+    }
+
+    public long getShutdownTimeout() {
+      Long timeout = document.field(PROP_SHUTDOWN_TIMEOUT);
+      return timeout != null ? timeout : 30_000;
+    }
+
+    public Module setShutdownTimeout(long timeout) {
+      document.field(PROP_SHUTDOWN_TIMEOUT, timeout);
+      return this;
+    }
+
+    /**
+     * @return time in milliseconds after which notification in sending status is moved back to pending status
+     */
+    public long getSendingTimeout() {
+      Long timeout = document.field(PROP_SENDING_TIMEOUT);
+      return timeout != null ? timeout : 600_000;
+    }
+
+    public Module setSendingTimeout(long timeout) {
+      document.field(PROP_SENDING_TIMEOUT, timeout);
+      return this;
+    }
+
+    public int getRetryAttempts() {
+      Integer attempts = document.field(PROP_RETRY_ATTEMPTS);
+      return attempts != null ? attempts : NotificationService.ATTEMPTS;
+    }
+
+    public Module setRetryAttempts(int attempts) {
+      document.field(PROP_RETRY_ATTEMPTS, attempts);
+      return this;
+    }
+
+    public long getRetryInitialDelay() {
+      Long delay = document.field(PROP_RETRY_INITIAL_DELAY);
+      return delay != null ? delay : 60_000;
+    }
+
+    public Module setRetryInitialDelay(long delay) {
+      document.field(PROP_RETRY_INITIAL_DELAY, delay);
+      return this;
+    }
+
+    public long getRetryMaxDelay() {
+      Long delay = document.field(PROP_RETRY_MAX_DELAY);
+      return delay != null ? delay : 3_600_000;
+    }
+
+    public Module setRetryMaxDelay(long delay) {
+      document.field(PROP_RETRY_MAX_DELAY, delay);
+      return this;
+    }
+
+    public int getPoolMaxTotal() {
+      Integer max = document.field(PROP_POOL_MAX_TOTAL);
+      return max != null ? max : 8;
+    }
+
+    public Module setPoolMaxTotal(int max) {
+      document.field(PROP_POOL_MAX_TOTAL, max);
+      return this;
+    }
+
+    public int getPoolMaxIdle() {
+      Integer max = document.field(PROP_POOL_MAX_IDLE);
+      return max != null ? max : 8;
+    }
+
+    public Module setPoolMaxIdle(int max) {
+      document.field(PROP_POOL_MAX_IDLE, max);
+      return this;
+    }
+
+    public int getPoolMinIdle() {
+      Integer min = document.field(PROP_POOL_MIN_IDLE);
+      return min != null ? min : 0;
+    }
+
+    public Module setPoolMinIdle(int min) {
+      document.field(PROP_POOL_MIN_IDLE, min);
+      return this;
+    }
+
+    public long getPoolIdleTimeout() {
+      Long timeout = document.field(PROP_POOL_IDLE_TIMEOUT);
+      return timeout != null ? timeout : 300_000;
+    }
+
+    public Module setPoolIdleTimeout(long timeout) {
+      document.field(PROP_POOL_IDLE_TIMEOUT, timeout);
+      return this;
+    }
+
+    public long getPoolBorrowTimeout() {
+      Long timeout = document.field(PROP_POOL_BORROW_TIMEOUT);
+      return timeout != null ? timeout : 60_000;
+    }
+
+    public Module setPoolBorrowTimeout(long timeout) {
+      document.field(PROP_POOL_BORROW_TIMEOUT, timeout);
+      return this;
+    }
   }
 }
@@ -1,20 +1,35 @@
 package org.orienteer.notifications.scheduler;
 
-import com.orientechnologies.orient.core.Orient;
+import org.orienteer.core.tasks.OTaskExecutor;
 
 import java.util.Date;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Notification scheduler. Temporary fix. Scheduler in OrientDB 2 has connection leak.
- * Need upgrade to OrientDB 3
+ * Notification scheduler.
+ * Periodical tasks are scheduled with fixed delay, so next execution starts only after previous one finished.
+ * Tasks are executed by a pool of {@link org.orienteer.core.tasks.OTaskManager}: pool should have thread
+ * per scheduled task, so long running task never delays execution of other tasks
  */
 public final class ONotificationScheduler {
 
   private static final ConcurrentHashMap<String, ONotificationTask> TASKS = new ConcurrentHashMap<>();
 
+  private static OTaskExecutor executor;
+
   private ONotificationScheduler() {}
 
+  /**
+   * Start scheduler
+   * @param pool pool to execute tasks in. Pool is owned by the task manager
+   */
+  public static synchronized void start(OTaskExecutor pool) {
+    stopAll();
+    executor = pool;
+  }
+
   public static void scheduleTask(ONotificationTask task, Date firstTime) {
     scheduleTask(task, firstTime, 0);
   }
@@ -24,15 +39,13 @@ public final class ONotificationScheduler {
   }
 
   public static void scheduleTask(ONotificationTask task, Date firstTime, long period) {
-    stopTask(task.getName());
-    TASKS.put(task.getName(), task);
-    Orient.instance().scheduleTask(task, firstTime, period);
+    scheduleTask(task, Math.max(0, firstTime.getTime() - System.currentTimeMillis()), period);
   }
 
-  public static void scheduleTask(ONotificationTask task, long delay, long period) {
+  public static synchronized void scheduleTask(ONotificationTask task, long delay, long period) {
     stopTask(task.getName());
     TASKS.put(task.getName(), task);
-    Orient.instance().scheduleTask(task, delay, period);
+    task.setFuture(getExecutor().schedule(task, delay, period, TimeUnit.MILLISECONDS));
   }
 
   public static synchronized void stopTask(String name) {
@@ -43,8 +56,23 @@ public final class ONotificationScheduler {
     }
   }
 
-  public static void stopAll() {
+  public static synchronized void stopAll() {
     TASKS.keySet().forEach(ONotificationScheduler::stopTask);
   }
 
+  /**
+   * Stop all tasks and release pool
+   */
+  public static synchronized void shutdown() {
+    stopAll();
+    executor = null;
+  }
+
+  private static OTaskExecutor getExecutor() {
+    if (executor == null) {
+      throw new RejectedExecutionException("Notification scheduler isn't started");
+    }
+    return executor;
+  }
+
 }
@@ -1,13 +1,23 @@
 package org.orienteer.notifications.scheduler;
 
-import java.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Notification task
+ * Notification task.
+ * Concurrent executions of the same task are skipped, so slow runs never stack up
  */
-public abstract class ONotificationTask extends TimerTask {
+public abstract class ONotificationTask implements Runnable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ONotificationTask.class);
 
   private final String name;
+  private final AtomicBoolean running = new AtomicBoolean(false);
+
+  private volatile Future<?> future;
 
   public ONotificationTask(String name) {
     this.name = name;
@@ -16,4 +26,35 @@ public abstract class ONotificationTask extends TimerTask {
   public String getName() {
     return name;
   }
+
+  @Override
+  public final void run() {
+    if (!running.compareAndSet(false, true)) {
+      LOG.debug("Task '{}' is still running. Skip current execution", name);
+      return;
+    }
+    try {
+      execute();
+    } finally {
+      running.set(false);
+    }
+  }
+
+  /**
+   * Executes task
+   */
+  protected abstract void execute();
+
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  void setFuture(Future<?> future) {
+    this.future = future;
+  }
+
+  public boolean cancel() {
+    Future<?> f = future;
+    return f != null && f.cancel(false);
+  }
 }
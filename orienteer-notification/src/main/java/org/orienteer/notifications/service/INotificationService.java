@@ -15,6 +15,13 @@ public interface INotificationService {
 
   void send(List<ODocument> notifications);
 
+  /**
+   * Move notifications which are in 'sending' status longer than sending timeout back to 'pending' status.
+   * Such notifications are left by interrupted sending, for example, after crash of application
+   * @return count of recovered notifications
+   */
+  int recoverStaleNotifications();
+
   default void send(ODocument notification) {
     send(Collections.singletonList(notification));
   }
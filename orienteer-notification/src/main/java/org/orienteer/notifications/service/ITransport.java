@@ -10,4 +10,12 @@ import java.io.Closeable;
 public interface ITransport extends Closeable {
 
   void send(ODocument notification);
+
+  /**
+   * Validate transport before reuse from pool
+   * @return true if transport can be used for send notifications
+   */
+  default boolean isValid() {
+    return true;
+  }
 }
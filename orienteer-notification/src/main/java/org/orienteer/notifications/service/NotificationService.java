@@ -10,14 +10,20 @@ import org.orienteer.notifications.model.IONotification;
 import org.orienteer.notifications.model.IONotificationDAO;
 import org.orienteer.notifications.model.IONotificationStatusHistory;
 import org.orienteer.notifications.model.IONotificationTransport;
+import org.orienteer.notifications.module.ONotificationModule;
+import org.orienteer.notifications.repository.ONotificationModuleRepository;
+import org.orienteer.notifications.task.ONotificationMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Date;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 
 /**
- * Default implementation of {@link INotificationService}
+ * Default implementation of {@link INotificationService}.
+ * Every notification is sent only once per call: failed notifications are scheduled for next attempt according to
+ * {@link ONotificationRetryPolicy} or moved to dead status if there are no more attempts.
+ * Statuses of all given notifications are saved in batches.
  */
 @Singleton
 public class NotificationService implements INotificationService {
@@ -26,18 +32,32 @@ public class NotificationService implements INotificationService {
 
   public static final int ATTEMPTS = 3;
 
-  private final OTransportPool transportPool = new OTransportPool();
+  private static final int SAVE_ATTEMPTS = 10;
+
+  @Inject
+  private OTransportPool transportPool;
 
   @Inject
   private IONotificationDAO notificationDAO;
 
   @Override
-  @SuppressWarnings("unchecked")
   public void send(List<ODocument> notifications) {
     if (notifications == null || notifications.isEmpty()) {
       return;
     }
     ODatabaseDocument db = ODatabaseRecordThreadLocal.instance().get();
+    ONotificationModule.Module module = ONotificationModuleRepository.getModule(db);
+    ONotificationRetryPolicy retryPolicy = ONotificationRetryPolicy.fromModule(module);
+
+    ODocument sendingStatus = notificationDAO.getSendingStatus();
+    Date sendingDeadline = new Date(System.currentTimeMillis() + module.getSendingTimeout());
+    Map<ODocument, Consumer<IONotification>> sending = new LinkedHashMap<>();
+    notifications.forEach(doc -> sending.put(doc, notification -> notification.setNextAttempt(sendingDeadline)));
+    updateNotificationStatuses(db, sending, sendingStatus);
+
+    Map<ODocument, Consumer<IONotification>> sent = new LinkedHashMap<>();
+    Map<ODocument, Consumer<IONotification>> failed = new LinkedHashMap<>();
+    Map<ODocument, Consumer<IONotification>> dead = new LinkedHashMap<>();
 
     IONotification notification = DAO.create(IONotification.class);
     IONotificationTransport transportWrapper = DAO.create(IONotificationTransport.class);
@@ -45,57 +65,84 @@ public class NotificationService implements INotificationService {
     notifications.forEach(notificationDoc -> {
       notification.fromStream(notificationDoc);
       transportWrapper.fromStream(notification.getTransport());
-      ITransport transport = transportPool.acquire(transportWrapper.getAlias(), transportWrapper::createTransportService);
-
-      for (int i = 1; i <= ATTEMPTS; i++) {
-        try {
-          if (i == 1) {
-            handleSendingNotificationStatus(db, notification);
-          }
-          LOG.info("Send notification: {} {}", Thread.currentThread().getName(), notification.getDocument());
-          transport.send(notificationDoc);
-          handleSentNotificationStatus(db, notification);
-          transportPool.release(transportWrapper.getAlias(), transport);
-          break;
-        } catch (Exception e) {
-          if (i == ATTEMPTS) {
-            handleFailedNotificationStatus(db, notification, e);
-          }
+      String alias = transportWrapper.getAlias();
+      ITransport transport = null;
+
+      try {
+        transport = transportPool.acquire(alias, transportWrapper::createTransportService);
+        LOG.info("Send notification: {} {}", Thread.currentThread().getName(), notification.getDocument());
+        transport.send(notificationDoc);
+        sent.put(notificationDoc, n -> n.setNextAttempt(null).setLastError(null));
+        ONotificationMetrics.sent(alias);
+      } catch (Exception e) {
+        int attempts = (notification.getAttempts() != null ? notification.getAttempts() : 0) + 1;
+        String error = e.getMessage();
+
+        if (retryPolicy.canRetry(attempts)) {
+          Date nextAttempt = retryPolicy.getNextAttempt(attempts);
+          LOG.info("Couldn't send notification: {}. Next attempt at {}", notification.getDocument(), nextAttempt);
+          failed.put(notificationDoc, n -> n.setAttempts(attempts).setNextAttempt(nextAttempt).setLastError(error));
+        } else {
+          LOG.warn("Couldn't send notification: {}", notification.getDocument(), e);
+          dead.put(notificationDoc, n -> n.setAttempts(attempts).setNextAttempt(null).setLastError(error));
+          ONotificationMetrics.failed(alias);
         }
+      } finally {
+        transportPool.release(alias, transport);
       }
     });
-  }
 
-  private void handleSendingNotificationStatus(ODatabaseDocument db, IONotification notification) {
-    ODocument status = notificationDAO.getSendingStatus();
-    updateNotificationStatus(db, notification, status);
+    updateNotificationStatuses(db, sent, notificationDAO.getSentStatus());
+    updateNotificationStatuses(db, failed, notificationDAO.getFailedStatus());
+    updateNotificationStatuses(db, dead, notificationDAO.getDeadStatus());
   }
 
-  private void handleSentNotificationStatus(ODatabaseDocument db, IONotification notification) {
-    ODocument status = notificationDAO.getSentStatus();
-    updateNotificationStatus(db, notification, status);
+  @Override
+  public int recoverStaleNotifications() {
+    ODatabaseDocument db = ODatabaseRecordThreadLocal.instance().get();
+    List<ODocument> stale = notificationDAO.findStaleNotifications();
+    if (stale.isEmpty()) {
+      return 0;
+    }
+    LOG.warn("Recover {} notifications which were not sent in time", stale.size());
+    Map<ODocument, Consumer<IONotification>> pending = new LinkedHashMap<>();
+    stale.forEach(doc -> pending.put(doc, n -> n.setNextAttempt(null)));
+    updateNotificationStatuses(db, pending, notificationDAO.getPendingStatus());
+    return stale.size();
   }
 
-  private void handleFailedNotificationStatus(ODatabaseDocument db, IONotification notification, Exception e) {
-    ODocument status = notificationDAO.getFailedStatus();
-    LOG.warn("Couldn't send notification: {}", notification.getDocument(), e);
-    updateNotificationStatus(db, notification, status);
-  }
+  /**
+   * Update statuses of given notifications in single transaction
+   * @param db database
+   * @param notifications notifications with additional changes which should be applied to notification
+   * @param status new status
+   */
+  private void updateNotificationStatuses(ODatabaseDocument db, Map<ODocument, Consumer<IONotification>> notifications,
+                                          ODocument status) {
+    if (notifications.isEmpty()) {
+      return;
+    }
+    IONotification notification = DAO.create(IONotification.class);
 
-  private void updateNotificationStatus(ODatabaseDocument db, IONotification notification, ODocument status) {
-    for (int i = 1; i <= 10; i++) {
+    for (int i = 1; i <= SAVE_ATTEMPTS; i++) {
       try {
         db.begin();
-        notification.addStatusHistory(IONotificationStatusHistory.create(new Date(), status));
-        notification.setStatus(status);
-        notification.save();
+        Date timestamp = new Date();
+        notifications.forEach((doc, changes) -> {
+          notification.fromStream(doc);
+          changes.accept(notification);
+          notification.addStatusHistory(IONotificationStatusHistory.create(timestamp, status));
+          notification.setStatus(status);
+          notification.save();
+        });
         db.commit();
         break;
       } catch (Exception e) {
-        if (i == 10) {
-           LOG.error("Couldn't save notification: {}", notification.getDocument(), e);
+        db.rollback();
+        if (i == SAVE_ATTEMPTS) {
+          LOG.error("Couldn't save {} notifications with status: {}", notifications.size(), status, e);
         } else {
-          notification.reload();
+          notifications.keySet().forEach(ODocument::reload);
         }
       }
     }
@@ -70,6 +70,11 @@ public class OMailTransport implements ITransport {
     }
   }
 
+  @Override
+  public boolean isValid() {
+    return transport.isConnected();
+  }
+
   @Override
   public void close() throws IOException {
     try {
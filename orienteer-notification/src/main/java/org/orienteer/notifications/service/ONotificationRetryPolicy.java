@@ -0,0 +1,70 @@
+package org.orienteer.notifications.service;
+
+import org.orienteer.notifications.module.ONotificationModule;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry policy for failed notifications: exponential backoff with jitter.
+ * Delay before attempt N is random value between half and full of min(maxDelay, initialDelay * 2^(N-1))
+ */
+public class ONotificationRetryPolicy implements Serializable {
+
+  private final int maxAttempts;
+  private final long initialDelay;
+  private final long maxDelay;
+
+  public ONotificationRetryPolicy(int maxAttempts, long initialDelay, long maxDelay) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.initialDelay = Math.max(0, initialDelay);
+    this.maxDelay = Math.max(this.initialDelay, maxDelay);
+  }
+
+  public static ONotificationRetryPolicy fromModule(ONotificationModule.Module module) {
+    return new ONotificationRetryPolicy(module.getRetryAttempts(), module.getRetryInitialDelay(), module.getRetryMaxDelay());
+  }
+
+  /**
+   * @param attempts count of already failed attempts
+   * @return true if notification can be sent one more time
+   */
+  public boolean canRetry(int attempts) {
+    return attempts < maxAttempts;
+  }
+
+  /**
+   * @param attempts count of already failed attempts
+   * @return delay in milliseconds before next attempt
+   */
+  public long getDelay(int attempts) {
+    if (attempts <= 0 || initialDelay == 0) {
+      return 0;
+    }
+    int shift = Math.min(attempts - 1, 30);
+    long delay = initialDelay > (maxDelay >> shift) ? maxDelay : initialDelay << shift;
+    long half = delay / 2;
+    return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+  }
+
+  /**
+   * @param attempts count of already failed attempts
+   * @return time of next attempt
+   */
+  public Date getNextAttempt(int attempts) {
+    return new Date(System.currentTimeMillis() + getDelay(attempts));
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public long getInitialDelay() {
+    return initialDelay;
+  }
+
+  public long getMaxDelay() {
+    return maxDelay;
+  }
+}
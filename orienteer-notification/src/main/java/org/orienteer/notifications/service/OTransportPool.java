@@ -1,46 +1,268 @@
 package org.orienteer.notifications.service;
 
-import java.util.Map;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 /**
- * Transport pool
+ * Transport pool.
+ * Transports are pooled per transport alias without global locks, so threads which use different transports
+ * never wait for each other. Count of transports per alias is limited by {@link #getMaxTotal()}:
+ * threads are waiting for free transport in FIFO order no longer than {@link #getBorrowTimeout()}.
  */
+@Singleton
 public class OTransportPool {
 
-  private final Map<String, ConcurrentLinkedQueue<ITransport>> resources;
-  private final Map<String, ConcurrentLinkedQueue<ITransport>> usedResources;
+  private static final Logger LOG = LoggerFactory.getLogger(OTransportPool.class);
+
+  private final Map<String, KeyedPool> pools = new ConcurrentHashMap<>();
+
+  private volatile int maxTotal = 8;
+  private volatile int maxIdle = 8;
+  private volatile int minIdle = 0;
+  private volatile long idleTimeout = 300_000;
+  private volatile long borrowTimeout = 60_000;
+
+  /**
+   * Acquire transport for given alias. Creates new transport if there are no valid idle transports
+   * @param alias alias of transport
+   * @param supplier factory of new transports
+   * @return transport
+   * @throws IllegalStateException if there is no free transport during {@link #getBorrowTimeout()}
+   */
+  public ITransport acquire(String alias, Supplier<ITransport> supplier) {
+    KeyedPool pool = getPool(alias);
+    try {
+      if (!pool.permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+        pool.timeouts.increment();
+        throw new IllegalStateException("Timeout waiting for free transport: " + alias);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during waiting for transport: " + alias, e);
+    }
+
+    try {
+      ITransport transport = pollValid(pool);
+      if (transport == null) {
+        transport = create(pool, supplier);
+      }
+      pool.active.incrementAndGet();
+      pool.borrowed.increment();
+      return transport;
+    } catch (RuntimeException e) {
+      pool.permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Return transport to the pool
+   * @param alias alias of transport
+   * @param transport transport which was acquired by {@link #acquire(String, Supplier)}
+   */
+  public void release(String alias, ITransport transport) {
+    if (transport == null) {
+      return;
+    }
+    KeyedPool pool = getPool(alias);
+    pool.active.decrementAndGet();
+    try {
+      if (pool.idle.size() < maxIdle) {
+        pool.idle.offerFirst(new IdleTransport(transport));
+      } else {
+        destroy(pool, transport);
+      }
+    } finally {
+      pool.permits.release();
+    }
+  }
+
+  /**
+   * Create idle transports for given alias up to {@link #getMinIdle()}
+   * @param alias alias of transport
+   * @param supplier factory of new transports
+   */
+  public void prewarm(String alias, Supplier<ITransport> supplier) {
+    KeyedPool pool = getPool(alias);
+    while (pool.idle.size() < minIdle) {
+      pool.idle.offerLast(new IdleTransport(create(pool, supplier)));
+    }
+  }
+
+  /**
+   * Close transports which are idle longer than {@link #getIdleTimeout()}, but keep at least {@link #getMinIdle()} transports
+   */
+  public void evict() {
+    long threshold = System.currentTimeMillis() - idleTimeout;
+    pools.values().forEach(pool -> {
+      while (pool.idle.size() > minIdle) {
+        IdleTransport oldest = pool.idle.peekLast();
+        if (oldest == null || oldest.since > threshold || !pool.idle.removeLastOccurrence(oldest)) {
+          break;
+        }
+        destroy(pool, oldest.transport);
+      }
+    });
+  }
 
-  public OTransportPool() {
-    resources = new ConcurrentHashMap<>();
-    usedResources = new ConcurrentHashMap<>();
+  /**
+   * Close all idle transports
+   */
+  public void clear() {
+    pools.values().forEach(pool -> {
+      IdleTransport idle;
+      while ((idle = pool.idle.pollFirst()) != null) {
+        destroy(pool, idle.transport);
+      }
+    });
   }
 
-  public synchronized ITransport acquire(String alias, Supplier<ITransport> supplier) {
-    ConcurrentLinkedQueue<ITransport> availableTransports = resources.computeIfAbsent(alias,
-            k -> new ConcurrentLinkedQueue<>());
+  public Set<String> getAliases() {
+    return Collections.unmodifiableSet(pools.keySet());
+  }
+
+  /**
+   * @param alias alias of transport
+   * @return statistic of pool for given alias: idle, active, created, destroyed, borrowed, timeouts
+   */
+  public Map<String, Long> getStatistic(String alias) {
+    KeyedPool pool = pools.get(alias);
+    Map<String, Long> statistic = new LinkedHashMap<>();
+    statistic.put("idle", pool != null ? pool.idle.size() : 0L);
+    statistic.put("active", pool != null ? pool.active.get() : 0L);
+    statistic.put("created", pool != null ? pool.created.sum() : 0L);
+    statistic.put("destroyed", pool != null ? pool.destroyed.sum() : 0L);
+    statistic.put("borrowed", pool != null ? pool.borrowed.sum() : 0L);
+    statistic.put("timeouts", pool != null ? pool.timeouts.sum() : 0L);
+    return statistic;
+  }
+
+  private ITransport pollValid(KeyedPool pool) {
+    long threshold = System.currentTimeMillis() - idleTimeout;
+    IdleTransport idle;
+    while ((idle = pool.idle.pollFirst()) != null) {
+      if (idle.since >= threshold && isValid(idle.transport)) {
+        return idle.transport;
+      }
+      destroy(pool, idle.transport);
+    }
+    return null;
+  }
+
+  private boolean isValid(ITransport transport) {
+    try {
+      return transport.isValid();
+    } catch (Exception e) {
+      LOG.debug("Transport validation failed: {}", transport, e);
+      return false;
+    }
+  }
 
-    ITransport resource = availableTransports.poll();
+  private ITransport create(KeyedPool pool, Supplier<ITransport> supplier) {
+    ITransport transport = supplier.get();
+    if (transport == null) {
+      throw new IllegalStateException("Can't create transport");
+    }
+    pool.created.increment();
+    return transport;
+  }
 
-    if (resource == null) {
-      resource = supplier.get();
+  private void destroy(KeyedPool pool, ITransport transport) {
+    pool.destroyed.increment();
+    try {
+      transport.close();
+    } catch (IOException e) {
+      LOG.error("Can't close transport: {}", transport, e);
     }
+  }
+
+  private KeyedPool getPool(String alias) {
+    return pools.computeIfAbsent(alias, k -> new KeyedPool(maxTotal));
+  }
+
+  public int getMaxTotal() {
+    return maxTotal;
+  }
+
+  public OTransportPool setMaxTotal(int maxTotal) {
+    this.maxTotal = Math.max(1, maxTotal);
+    return this;
+  }
+
+  public int getMaxIdle() {
+    return maxIdle;
+  }
+
+  public OTransportPool setMaxIdle(int maxIdle) {
+    this.maxIdle = Math.max(0, maxIdle);
+    return this;
+  }
 
-    ConcurrentLinkedQueue<ITransport> usedTransports = usedResources.computeIfAbsent(alias, k -> new ConcurrentLinkedQueue<>());
-    usedTransports.add(resource);
+  public int getMinIdle() {
+    return minIdle;
+  }
+
+  public OTransportPool setMinIdle(int minIdle) {
+    this.minIdle = Math.max(0, minIdle);
+    return this;
+  }
+
+  public long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public OTransportPool setIdleTimeout(long idleTimeout) {
+    this.idleTimeout = idleTimeout;
+    return this;
+  }
 
-    return resource;
+  public long getBorrowTimeout() {
+    return borrowTimeout;
+  }
+
+  public OTransportPool setBorrowTimeout(long borrowTimeout) {
+    this.borrowTimeout = borrowTimeout;
+    return this;
+  }
+
+  /**
+   * Pool of transports for single alias
+   */
+  private static class KeyedPool {
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<IdleTransport> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    KeyedPool(int maxTotal) {
+      permits = new Semaphore(maxTotal, true);
+    }
   }
 
-  public synchronized void release(String alias, ITransport transport) {
-    ConcurrentLinkedQueue<ITransport> availableTransports = resources.computeIfAbsent(alias, k -> new ConcurrentLinkedQueue<>());
-    ConcurrentLinkedQueue<ITransport> usedTransports = usedResources.computeIfAbsent(alias, k -> new ConcurrentLinkedQueue<>());
+  /**
+   * Idle transport with time since which it's idle
+   */
+  private static class IdleTransport {
+    private final ITransport transport;
+    private final long since;
 
-    if (usedTransports.contains(transport)) {
-      usedTransports.remove(transport);
-      availableTransports.add(transport);
+    IdleTransport(ITransport transport) {
+      this.transport = transport;
+      this.since = System.currentTimeMillis();
     }
   }
 
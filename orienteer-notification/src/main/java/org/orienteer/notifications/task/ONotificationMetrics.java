@@ -0,0 +1,74 @@
+package org.orienteer.notifications.task;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+import org.orienteer.notifications.service.OTransportPool;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of notifications sending: queue depth, count of sent and failed notifications per transport
+ */
+public class ONotificationMetrics extends Collector {
+
+  private static final List<String> POOL_STATISTIC = Arrays.asList("idle", "active", "created", "destroyed", "borrowed", "timeouts");
+
+  private static final Map<String, LongAdder> SENT   = new ConcurrentHashMap<>();
+  private static final Map<String, LongAdder> FAILED = new ConcurrentHashMap<>();
+
+  private final OTransportPool transportPool;
+
+  public ONotificationMetrics(OTransportPool transportPool) {
+    this.transportPool = transportPool;
+  }
+
+  public static void sent(String transport) {
+    SENT.computeIfAbsent(transport, k -> new LongAdder()).increment();
+  }
+
+  public static void failed(String transport) {
+    FAILED.computeIfAbsent(transport, k -> new LongAdder()).increment();
+  }
+
+  public static long getSent(String transport) {
+    LongAdder adder = SENT.get(transport);
+    return adder != null ? adder.sum() : 0;
+  }
+
+  public static long getFailed(String transport) {
+    LongAdder adder = FAILED.get(transport);
+    return adder != null ? adder.sum() : 0;
+  }
+
+  @Override
+  public List<MetricFamilySamples> collect() {
+    List<MetricFamilySamples> mfs = new ArrayList<>();
+    mfs.add(new GaugeMetricFamily("orienteer_notifications_queue_depth",
+            "Count of notification tasks waiting for free worker", ONotificationSendExecutor.getQueueSize()));
+    mfs.add(new GaugeMetricFamily("orienteer_notifications_active_workers",
+            "Count of workers which are sending notifications", ONotificationSendExecutor.getActiveCount()));
+    mfs.add(toCounter("orienteer_notifications_sent", "Total number of sent notifications per transport", SENT));
+    mfs.add(toCounter("orienteer_notifications_failed", "Total number of failed notifications per transport", FAILED));
+    mfs.add(collectPool());
+    return mfs;
+  }
+
+  private GaugeMetricFamily collectPool() {
+    GaugeMetricFamily pool = new GaugeMetricFamily("orienteer_notifications_transport_pool",
+            "Statistic of transport pool per transport", Arrays.asList("transport", "statistic"));
+    for (String alias : transportPool.getAliases()) {
+      Map<String, Long> statistic = transportPool.getStatistic(alias);
+      POOL_STATISTIC.forEach(name -> pool.addMetric(Arrays.asList(alias, name), statistic.get(name)));
+    }
+    return pool;
+  }
+
+  private CounterMetricFamily toCounter(String name, String help, Map<String, LongAdder> values) {
+    CounterMetricFamily counter = new CounterMetricFamily(name, help, Collections.singletonList("transport"));
+    values.forEach((transport, value) -> counter.addMetric(Collections.singletonList(transport), value.sum()));
+    return counter;
+  }
+}
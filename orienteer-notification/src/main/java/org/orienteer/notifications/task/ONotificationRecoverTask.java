@@ -0,0 +1,33 @@
+package org.orienteer.notifications.task;
+
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.notifications.scheduler.ONotificationTask;
+import org.orienteer.notifications.service.INotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+/**
+ * Task for move notifications which are stuck in sending status back to pending status
+ */
+public class ONotificationRecoverTask extends ONotificationTask {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ONotificationRecoverTask.class);
+
+  public static final String NAME = "recover-notifications";
+
+  public ONotificationRecoverTask() {
+    super(NAME);
+  }
+
+  @Override
+  protected void execute() {
+    INotificationService notificationService = OrienteerWebApplication.lookupApplication()
+            .getServiceInstance(INotificationService.class);
+    try {
+      DBClosure.sudoConsumer(db -> notificationService.recoverStaleNotifications());
+    } catch (Exception e) {
+      LOG.error("Error during {} execution!", getClass().getName(), e);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package org.orienteer.notifications.task;
+
+import org.orienteer.core.tasks.OTaskExecutor;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Application scoped executor for sending notifications.
+ * Tasks are queued per transport and never block submitting thread: count of concurrently executing tasks
+ * per transport is limited by transport parallelism, count of waiting tasks is limited by queue size.
+ * Tasks are executed by a pool of {@link org.orienteer.core.tasks.OTaskManager}: pool is owned by the task manager.
+ */
+public final class ONotificationSendExecutor {
+
+  private static final Map<String, TransportQueue> TRANSPORT_QUEUES = new ConcurrentHashMap<>();
+
+  private static final AtomicInteger QUEUED = new AtomicInteger();
+
+  private static OTaskExecutor executor;
+
+  private static volatile int maxQueued;
+
+  private ONotificationSendExecutor() {}
+
+  /**
+   * Start executor
+   * @param pool pool of worker threads. Queue of the pool contains only drainers of transport queues,
+   *             so it should be not less than queue size to never reject drainers
+   * @param queueSize size of queue for tasks which are waiting for free worker
+   */
+  public static synchronized void start(OTaskExecutor pool, int queueSize) {
+    if (executor != null) {
+      stop();
+    }
+    executor = pool;
+    maxQueued = Math.max(1, queueSize);
+  }
+
+  /**
+   * Stop accepting of tasks and cancel waiting ones. Pool itself should be stopped by its owner
+   * in order to wait for already running tasks
+   */
+  public static synchronized void stop() {
+    if (executor == null) {
+      return;
+    }
+    executor = null;
+    TRANSPORT_QUEUES.values().forEach(TransportQueue::cancel);
+    TRANSPORT_QUEUES.clear();
+  }
+
+  /**
+   * Submit task for given transport. Never blocks: task is queued and executed as soon as transport has free slot
+   * @param transport alias of transport
+   * @param parallelism max count of concurrent tasks for given transport
+   * @param task task to execute
+   * @return future which is completed after execution of task
+   * @throws RejectedExecutionException if executor isn't started or queue of waiting tasks is full
+   */
+  public static CompletableFuture<Void> submit(String transport, int parallelism, Runnable task) {
+    OTaskExecutor current = getExecutor();
+    if (QUEUED.incrementAndGet() > maxQueued) {
+      QUEUED.decrementAndGet();
+      throw new RejectedExecutionException("Queue of notification tasks is full");
+    }
+    TransportQueue queue = TRANSPORT_QUEUES.computeIfAbsent(transport, k -> new TransportQueue());
+    queue.parallelism = Math.max(1, parallelism);
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    queue.tasks.offer(new QueuedTask(task, future));
+    queue.dispatch(current);
+    return future;
+  }
+
+  public static boolean isStarted() {
+    return executor != null;
+  }
+
+  /**
+   * @return count of tasks which are waiting for free slot of transport or free worker
+   */
+  public static int getQueueSize() {
+    return QUEUED.get();
+  }
+
+  public static int getActiveCount() {
+    OTaskExecutor current = executor;
+    return current != null ? current.getActiveCount() : 0;
+  }
+
+  public static int getPoolSize() {
+    OTaskExecutor current = executor;
+    return current != null ? current.getThreads() : 0;
+  }
+
+  private static OTaskExecutor getExecutor() {
+    OTaskExecutor current = executor;
+    if (current == null) {
+      throw new RejectedExecutionException("Notification executor isn't started");
+    }
+    return current;
+  }
+
+  /**
+   * Queue of tasks for single transport. Tasks are executed by no more than parallelism drainers
+   */
+  private static class TransportQueue {
+    private final Queue<QueuedTask> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainers = new AtomicInteger();
+    private volatile int parallelism = 1;
+
+    void dispatch(Executor executor) {
+      while (!tasks.isEmpty()) {
+        int current = drainers.get();
+        if (current >= parallelism) {
+          return;
+        }
+        if (drainers.compareAndSet(current, current + 1)) {
+          try {
+            executor.execute(() -> drain(executor));
+          } catch (RejectedExecutionException e) {
+            drainers.decrementAndGet();
+            return;
+          }
+        }
+      }
+    }
+
+    private void drain(Executor executor) {
+      try {
+        QueuedTask task;
+        while ((task = tasks.poll()) != null) {
+          QUEUED.decrementAndGet();
+          task.run();
+        }
+      } finally {
+        drainers.decrementAndGet();
+      }
+      // Task could be queued after last poll, but before release of drainer
+      dispatch(executor);
+    }
+
+    void cancel() {
+      QueuedTask task;
+      while ((task = tasks.poll()) != null) {
+        QUEUED.decrementAndGet();
+        task.future.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Task with future which is completed after its execution
+   */
+  private static class QueuedTask implements Runnable {
+    private final Runnable task;
+    private final CompletableFuture<Void> future;
+
+    QueuedTask(Runnable task, CompletableFuture<Void> future) {
+      this.task = task;
+      this.future = future;
+    }
+
+    @Override
+    public void run() {
+      try {
+        task.run();
+        future.complete(null);
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+}
@@ -1,15 +1,16 @@
 package org.orienteer.notifications.task;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.apache.wicket.ThreadContext;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.dao.DAO;
 import org.orienteer.notifications.model.IONotification;
 import org.orienteer.notifications.model.IONotificationDAO;
+import org.orienteer.notifications.model.IONotificationTransport;
 import org.orienteer.notifications.module.ONotificationModule;
 import org.orienteer.notifications.repository.ONotificationModuleRepository;
-import org.orienteer.notifications.scheduler.ONotificationScheduler;
 import org.orienteer.notifications.scheduler.ONotificationTask;
 import org.orienteer.notifications.service.INotificationService;
 import org.slf4j.Logger;
@@ -17,9 +18,8 @@ import org.slf4j.LoggerFactory;
 import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
 
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -31,19 +31,21 @@ public class ONotificationSendTask extends ONotificationTask {
 
   public static final String NAME = "send-notifications";
 
+  public static final int DEFAULT_TRANSPORT_PARALLELISM = 4;
+
+  private final Set<ORID> inProgress = ConcurrentHashMap.newKeySet();
+
   public ONotificationSendTask() {
     super(NAME);
   }
 
   @Override
-  public void run() {
+  protected void execute() {
     DBClosure.sudoConsumer(db -> {
       try {
         sendNotifications(db);
       } catch (Exception e) {
         LOG.error("Error during {} execution!", getClass().getName(), e);
-      } finally {
-        rescheduleTask(db);
       }
     });
   }
@@ -52,36 +54,60 @@ public class ONotificationSendTask extends ONotificationTask {
     IONotificationDAO notificationDao = IONotificationDAO.get();
 
     ONotificationModule.Module module = ONotificationModuleRepository.getModule(db);
-    ODocument pendingStatus = notificationDao.getPendingStatus();
-    List<ODocument> notificationsDocs = notificationDao.findNotificationsByStatus(pendingStatus);
+    List<ODocument> notificationsDocs = notificationDao.findNotificationsToSend().stream()
+            .filter(doc -> !inProgress.contains(doc.getIdentity()))
+            .collect(Collectors.toList());
+
+    if (notificationsDocs.isEmpty()) {
+      return;
+    }
 
-    int executorSize = computeExecutorSize(module.getNotificationsPerWorker(), notificationsDocs);
     int notificationsPerWorker = module.getNotificationsPerWorker();
-    List<List<ODocument>> groupedNotifications = groupNotificationsForWorkers(notificationsPerWorker, notificationsDocs);
-    ExecutorService executorService = Executors.newFixedThreadPool(executorSize);
+    Map<ODocument, List<List<ODocument>>> groupedNotifications = groupNotificationsForWorkers(notificationsPerWorker, notificationsDocs);
 
     LOG.info("Sending {} notifications...", notificationsDocs.size());
-    List<Future<?>> futures = submitTasks(groupedNotifications, executorService);
-    waitForComplete(futures);
+    submitTasks(groupedNotifications);
   }
 
-  private void waitForComplete(List<Future<?>> futures) {
-    futures.forEach(future -> {
-      try {
-        future.get();
-      } catch (Exception e) {
-        LOG.error("Error during wait for send notifications!", e);
+  /**
+   * Submit groups of notifications without waiting for its sending.
+   * Notifications stay in progress until its group is sent, so next executions of the task don't send them again
+   */
+  private void submitTasks(Map<ODocument, List<List<ODocument>>> notifications) {
+    IONotificationTransport transport = DAO.create(IONotificationTransport.class);
+
+    for (Map.Entry<ODocument, List<List<ODocument>>> entry : notifications.entrySet()) {
+      transport.fromStream(entry.getKey());
+      String alias = transport.getAlias();
+      int parallelism = transport.getParallelism() != null ? transport.getParallelism() : DEFAULT_TRANSPORT_PARALLELISM;
+      for (List<ODocument> group : entry.getValue()) {
+        List<ORID> ids = group.stream().map(ODocument::getIdentity).collect(Collectors.toList());
+        inProgress.addAll(ids);
+        try {
+          ONotificationSendExecutor.submit(alias, parallelism, new SendNotificationsTask(group))
+                  .whenComplete((result, e) -> {
+                    inProgress.removeAll(ids);
+                    if (e != null) {
+                      LOG.error("Error during send notifications!", e);
+                    }
+                  });
+        } catch (RejectedExecutionException e) {
+          inProgress.removeAll(ids);
+          LOG.warn("Notifications weren't submitted: {}. Rest of notifications will be sent by next execution", e.getMessage());
+          return;
+        }
       }
-    });
+    }
   }
 
-  private List<Future<?>> submitTasks(List<List<ODocument>> notifications, ExecutorService executorService) {
-    return notifications.stream()
-            .map(group -> executorService.submit(new SendNotificationsTask(group)))
-            .collect(Collectors.toCollection(LinkedList::new));
+  /**
+   * @return count of notifications which were submitted, but not sent yet
+   */
+  public int getInProgressCount() {
+    return inProgress.size();
   }
 
-  private List<List<ODocument>> groupNotificationsForWorkers(int notificationsPerWorker, List<ODocument> notifications) {
+  private Map<ODocument, List<List<ODocument>>> groupNotificationsForWorkers(int notificationsPerWorker, List<ODocument> notifications) {
     IONotification notification = DAO.create(IONotification.class);
     Map<ODocument, LinkedList<List<ODocument>>> groupedMap = new LinkedHashMap<>();
 
@@ -103,24 +129,7 @@ public class ONotificationSendTask extends ONotificationTask {
               });
             });
 
-    return groupedMap.values().stream()
-            .flatMap(Collection::stream)
-            .collect(Collectors.toList());
-  }
-
-  private int computeExecutorSize(int notificationsPerWorker, List<ODocument> notifications) {
-    if (notifications.size() <= notificationsPerWorker) {
-      return 1;
-    }
-    int maxWorkers = Runtime.getRuntime().availableProcessors() * 4; // send notifications is I/O operation, not CPU at all
-    int workers = (int) Math.ceil(notifications.size() / (double) notificationsPerWorker);
-
-    return Math.min(workers, maxWorkers);
-  }
-
-  private void rescheduleTask(ODatabaseDocument db) {
-    long period = ONotificationModuleRepository.getModule(db).getSendPeriod();
-    ONotificationScheduler.scheduleTask(new ONotificationSendTask(), period);
+    return new LinkedHashMap<>(groupedMap);
   }
 
   private static class SendNotificationsTask implements Runnable {
@@ -0,0 +1,24 @@
+package org.orienteer.notifications.task;
+
+import org.orienteer.notifications.scheduler.ONotificationTask;
+import org.orienteer.notifications.service.OTransportPool;
+
+/**
+ * Task for close transports which are idle too long
+ */
+public class OTransportPoolEvictTask extends ONotificationTask {
+
+  public static final String NAME = "evict-transports";
+
+  private final OTransportPool transportPool;
+
+  public OTransportPoolEvictTask(OTransportPool transportPool) {
+    super(NAME);
+    this.transportPool = transportPool;
+  }
+
+  @Override
+  protected void execute() {
+    transportPool.evict();
+  }
+}
@@ -0,0 +1,48 @@
+package org.orienteer.notifications.task;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.orienteer.core.dao.DAO;
+import org.orienteer.notifications.model.IONotificationDAO;
+import org.orienteer.notifications.model.IONotificationTransport;
+import org.orienteer.notifications.scheduler.ONotificationTask;
+import org.orienteer.notifications.service.OTransportPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+import java.util.List;
+
+/**
+ * Task for open connections of all configured transports in advance
+ */
+public class OTransportPoolPrewarmTask extends ONotificationTask {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OTransportPoolPrewarmTask.class);
+
+  public static final String NAME = "prewarm-transports";
+
+  private final OTransportPool transportPool;
+
+  public OTransportPoolPrewarmTask(OTransportPool transportPool) {
+    super(NAME);
+    this.transportPool = transportPool;
+  }
+
+  @Override
+  protected void execute() {
+    if (transportPool.getMinIdle() <= 0) {
+      return;
+    }
+    List<ODocument> transports = DBClosure.sudo(db -> IONotificationDAO.get().findTransports());
+    IONotificationTransport transport = DAO.create(IONotificationTransport.class);
+
+    for (ODocument transportDoc : transports) {
+      transport.fromStream(transportDoc);
+      try {
+        DBClosure.sudoConsumer(db -> transportPool.prewarm(transport.getAlias(), transport::createTransportService));
+      } catch (Exception e) {
+        LOG.warn("Can't prewarm transport: {}", transport.getAlias(), e);
+      }
+    }
+  }
+}
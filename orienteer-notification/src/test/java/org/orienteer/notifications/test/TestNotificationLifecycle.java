@@ -18,10 +18,13 @@ import org.orienteer.notifications.service.INotificationService;
 import org.orienteer.notifications.testenv.OTestNotification;
 import org.orienteer.notifications.testenv.module.TestDataModule;
 
+import java.util.Date;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(OrienteerTestRunner.class)
 public class TestNotificationLifecycle {
@@ -90,4 +93,22 @@ public class TestNotificationLifecycle {
     assertEquals(statusHistory.getStatus(), notificationDAO.getSentStatus());
   }
 
+  @Test
+  @Sudo
+  public void testRecoverStaleSending() {
+    testNotification.setStatus(notificationDAO.getSendingStatus());
+    testNotification.setNextAttempt(new Date(System.currentTimeMillis() + 60_000));
+    testNotification.save();
+    assertEquals(0, notificationService.recoverStaleNotifications());
+
+    testNotification.setNextAttempt(new Date(System.currentTimeMillis() - 1));
+    testNotification.save();
+    assertEquals(1, notificationService.recoverStaleNotifications());
+
+    testNotification.reload();
+    assertEquals(notificationDAO.getPendingStatus(), testNotification.getStatus());
+    assertNull(testNotification.getNextAttempt());
+    assertTrue(notificationDAO.findNotificationsToSend().contains(testNotification.getDocument()));
+  }
+
 }
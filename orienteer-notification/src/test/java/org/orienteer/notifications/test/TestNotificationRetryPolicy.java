@@ -0,0 +1,42 @@
+package org.orienteer.notifications.test;
+
+import org.junit.Test;
+import org.orienteer.notifications.service.ONotificationRetryPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestNotificationRetryPolicy {
+
+  @Test
+  public void testAttempts() {
+    ONotificationRetryPolicy policy = new ONotificationRetryPolicy(3, 1000, 10_000);
+    assertTrue(policy.canRetry(1));
+    assertTrue(policy.canRetry(2));
+    assertFalse(policy.canRetry(3));
+  }
+
+  @Test
+  public void testExponentialDelay() {
+    ONotificationRetryPolicy policy = new ONotificationRetryPolicy(10, 1000, 10_000);
+    for (int i = 0; i < 100; i++) {
+      assertInRange(500, 1000, policy.getDelay(1));
+      assertInRange(1000, 2000, policy.getDelay(2));
+      assertInRange(2000, 4000, policy.getDelay(3));
+      assertInRange(5000, 10_000, policy.getDelay(5));
+      assertInRange(5000, 10_000, policy.getDelay(100));
+    }
+  }
+
+  @Test
+  public void testWithoutDelay() {
+    ONotificationRetryPolicy policy = new ONotificationRetryPolicy(3, 0, 0);
+    assertEquals(0, policy.getDelay(2));
+  }
+
+  private void assertInRange(long min, long max, long value) {
+    assertTrue("Value " + value + " is less than " + min, value >= min);
+    assertTrue("Value " + value + " is greater than " + max, value <= max);
+  }
+}
@@ -0,0 +1,95 @@
+package org.orienteer.notifications.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.orienteer.core.tasks.OTaskExecutor;
+import org.orienteer.notifications.scheduler.ONotificationScheduler;
+import org.orienteer.notifications.scheduler.ONotificationTask;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestNotificationScheduler {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private OTaskExecutor pool;
+
+  @Before
+  public void init() {
+    pool = new OTaskExecutor("test-notification-scheduler", 2, 2, false, false);
+    ONotificationScheduler.start(pool);
+  }
+
+  @After
+  public void destroy() {
+    release.countDown();
+    ONotificationScheduler.shutdown();
+    pool.shutdown(1000);
+  }
+
+  @Test
+  public void testBlockedTaskDoesNotStarveOtherTasks() throws InterruptedException {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch executed = new CountDownLatch(3);
+    ONotificationScheduler.scheduleTask(new TestTask("blocking", () -> {
+      blocked.countDown();
+      await(release);
+    }), 0, 10);
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+    ONotificationScheduler.scheduleTask(new TestTask("evict", executed::countDown), 0, 10);
+    assertTrue("task must be executed while other task is blocked", executed.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testRunningTaskIsNotExecutedConcurrently() throws InterruptedException {
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+    CountDownLatch executed = new CountDownLatch(5);
+    TestTask task = new TestTask("single", () -> {
+      maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+      sleep(20);
+      active.decrementAndGet();
+      executed.countDown();
+    });
+    ONotificationScheduler.scheduleTask(task, 0, 1);
+    ONotificationScheduler.scheduleTask(new TestTask("other", () -> {}), 0, 1);
+    assertTrue(executed.await(5, TimeUnit.SECONDS));
+    assertEquals(1, maxActive.get());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class TestTask extends ONotificationTask {
+    private final Runnable action;
+
+    TestTask(String name, Runnable action) {
+      super(name);
+      this.action = action;
+    }
+
+    @Override
+    protected void execute() {
+      action.run();
+    }
+  }
+}
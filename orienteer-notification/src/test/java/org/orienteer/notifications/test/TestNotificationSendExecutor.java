@@ -0,0 +1,132 @@
+package org.orienteer.notifications.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.orienteer.core.tasks.OTaskExecutor;
+import org.orienteer.notifications.task.ONotificationSendExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestNotificationSendExecutor {
+
+  private static final int WORKERS = 4;
+  private static final int QUEUE_SIZE = 10;
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private OTaskExecutor pool;
+
+  @Before
+  public void init() {
+    pool = new OTaskExecutor("test-notification-sender", WORKERS, QUEUE_SIZE, false, false);
+    ONotificationSendExecutor.start(pool, QUEUE_SIZE);
+  }
+
+  @After
+  public void destroy() {
+    release.countDown();
+    ONotificationSendExecutor.stop();
+    pool.shutdown(1000);
+  }
+
+  @Test
+  public void testSubmitDoesNotBlockOnBusyTransport() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    long start = System.currentTimeMillis();
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    futures.add(ONotificationSendExecutor.submit("busy", 1, () -> {
+      started.countDown();
+      await(release);
+    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < 3; i++) {
+      futures.add(ONotificationSendExecutor.submit("busy", 1, () -> {}));
+    }
+    assertTrue("submit must not wait for free slot of transport", System.currentTimeMillis() - start < 5000);
+    assertEquals(3, ONotificationSendExecutor.getQueueSize());
+
+    CompletableFuture<Void> other = ONotificationSendExecutor.submit("other", 1, () -> {});
+    other.get(5, TimeUnit.SECONDS);
+
+    release.countDown();
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+    assertEquals(0, ONotificationSendExecutor.getQueueSize());
+  }
+
+  @Test
+  public void testTransportParallelism() throws Exception {
+    int parallelism = 2;
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < QUEUE_SIZE; i++) {
+      futures.add(ONotificationSendExecutor.submit("limited", parallelism, () -> {
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        sleep(20);
+        active.decrementAndGet();
+      }));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+    assertTrue("max active tasks: " + maxActive.get(), maxActive.get() <= parallelism);
+  }
+
+  @Test
+  public void testRejectWhenQueueIsFull() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    ONotificationSendExecutor.submit("busy", 1, () -> {
+      started.countDown();
+      await(release);
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < QUEUE_SIZE; i++) {
+      ONotificationSendExecutor.submit("busy", 1, () -> {});
+    }
+    try {
+      ONotificationSendExecutor.submit("busy", 1, () -> {});
+      fail("Queue is full");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testFailedTask() throws Exception {
+    CompletableFuture<Void> future = ONotificationSendExecutor.submit("failed", 1, () -> {
+      throw new IllegalStateException("failed");
+    });
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      fail("Task must fail");
+    } catch (Exception e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    ONotificationSendExecutor.submit("failed", 1, () -> {}).get(5, TimeUnit.SECONDS);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -103,6 +103,9 @@ public class TestSendNotificationTask {
   public void testScheduler() throws InterruptedException {
     ONotificationSendTask task = new ONotificationSendTask();
     task.run();
+    while (task.getInProgressCount() > 0) {
+      Thread.sleep(100);
+    }
 
     long countOfSentNotificaitons = notifications.stream()
             .filter(notification -> {
@@ -0,0 +1,119 @@
+package org.orienteer.notifications.test;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.junit.Before;
+import org.junit.Test;
+import org.orienteer.notifications.service.ITransport;
+import org.orienteer.notifications.service.OTransportPool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class TestTransportPool {
+
+  private static final String ALIAS = "test";
+
+  private OTransportPool pool;
+  private AtomicInteger created;
+  private AtomicInteger closed;
+
+  @Before
+  public void init() {
+    pool = new OTransportPool()
+            .setMaxTotal(2)
+            .setMaxIdle(2)
+            .setMinIdle(0)
+            .setIdleTimeout(60_000)
+            .setBorrowTimeout(100);
+    created = new AtomicInteger();
+    closed = new AtomicInteger();
+  }
+
+  @Test
+  public void testReuseReleasedTransport() {
+    ITransport transport = pool.acquire(ALIAS, this::createTransport);
+    pool.release(ALIAS, transport);
+    assertSame(transport, pool.acquire(ALIAS, this::createTransport));
+    assertEquals(1, created.get());
+    assertEquals(1L, (long) pool.getStatistic(ALIAS).get("active"));
+  }
+
+  @Test
+  public void testBorrowTimeout() {
+    pool.acquire(ALIAS, this::createTransport);
+    pool.acquire(ALIAS, this::createTransport);
+    try {
+      pool.acquire(ALIAS, this::createTransport);
+      fail("There are no free transports");
+    } catch (IllegalStateException e) {
+      assertEquals(1L, (long) pool.getStatistic(ALIAS).get("timeouts"));
+    }
+    assertNotNull("other transport is not limited", pool.acquire("other", this::createTransport));
+  }
+
+  @Test
+  public void testInvalidTransportIsReplaced() {
+    ITransport transport = pool.acquire(ALIAS, () -> new TestTransport(false));
+    pool.release(ALIAS, transport);
+    assertNotSame(transport, pool.acquire(ALIAS, this::createTransport));
+    assertEquals(1L, (long) pool.getStatistic(ALIAS).get("destroyed"));
+  }
+
+  @Test
+  public void testEvictIdleTransports() throws InterruptedException {
+    pool.setIdleTimeout(10).setMinIdle(1);
+    pool.release(ALIAS, pool.acquire(ALIAS, this::createTransport));
+    ITransport second = pool.acquire(ALIAS, this::createTransport);
+    ITransport third = pool.acquire(ALIAS, this::createTransport);
+    pool.release(ALIAS, second);
+    pool.release(ALIAS, third);
+    Thread.sleep(50);
+    pool.evict();
+    assertEquals(1L, (long) pool.getStatistic(ALIAS).get("idle"));
+    assertEquals(1, closed.get());
+  }
+
+  @Test
+  public void testPrewarm() {
+    pool.setMinIdle(2);
+    pool.prewarm(ALIAS, this::createTransport);
+    assertEquals(2, created.get());
+    assertEquals(2L, (long) pool.getStatistic(ALIAS).get("idle"));
+    pool.acquire(ALIAS, this::createTransport);
+    assertEquals(2, created.get());
+    pool.clear();
+    assertEquals(1, closed.get());
+  }
+
+  private ITransport createTransport() {
+    return new TestTransport(true);
+  }
+
+  private class TestTransport implements ITransport {
+    private final boolean valid;
+
+    TestTransport(boolean valid) {
+      this.valid = valid;
+      created.incrementAndGet();
+    }
+
+    @Override
+    public void send(ODocument notification) {
+    }
+
+    @Override
+    public boolean isValid() {
+      return valid;
+    }
+
+    @Override
+    public void close() {
+      closed.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package org.orienteer.pages.module;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.hook.ODocumentHookAbstract;
+import com.orientechnologies.orient.core.hook.ORecordHook;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.pages.repository.ODocumentAliasIndex;
+
+/**
+ * {@link ORecordHook} to keep {@link ODocumentAliasIndex} in sync with documents of alias classes.
+ * Executed on all nodes of a cluster, so every node keeps its own index up to date
+ */
+public class ODocumentAliasHook extends ODocumentHookAbstract {
+
+	private String[] classNames;
+
+	public ODocumentAliasHook(ODatabaseDocument database) {
+		super(database);
+		updateIncludeClasses(getAliasIndex());
+	}
+
+	@Override
+	protected boolean filterBySchemaClass(ODocument iDocument) {
+		ODocumentAliasIndex index = getAliasIndex();
+		if (index == null) return false;
+		updateIncludeClasses(index);
+		return super.filterBySchemaClass(iDocument);
+	}
+
+	/**
+	 * Hook is created once per database instance, but classes can be indexed later: so include classes
+	 * are refreshed if set of indexed classes was changed
+	 * @param index index to take names of classes from
+	 */
+	private void updateIncludeClasses(ODocumentAliasIndex index) {
+		String[] indexed = index != null ? index.getClassNames() : new String[0];
+		if (indexed != classNames) {
+			classNames = indexed;
+			setIncludeClasses(indexed);
+		}
+	}
+
+	@Override
+	public DISTRIBUTED_EXECUTION_MODE getDistributedExecutionMode() {
+		return DISTRIBUTED_EXECUTION_MODE.BOTH;
+	}
+
+	@Override
+	public void onRecordAfterCreate(ODocument iDocument) {
+		ODocumentAliasIndex index = getAliasIndex();
+		if (index != null) index.onSave(iDocument);
+	}
+
+	@Override
+	public void onRecordAfterUpdate(ODocument iDocument) {
+		ODocumentAliasIndex index = getAliasIndex();
+		if (index != null) index.onSave(iDocument);
+	}
+
+	@Override
+	public void onRecordAfterDelete(ODocument iDocument) {
+		ODocumentAliasIndex index = getAliasIndex();
+		if (index != null) index.onDelete(iDocument);
+	}
+
+	protected ODocumentAliasIndex getAliasIndex() {
+		OrienteerWebApplication app = OrienteerWebApplication.lookupApplication();
+		return app != null ? app.getServiceInstance(PagesModule.class).getAliasIndex() : null;
+	}
+
+}
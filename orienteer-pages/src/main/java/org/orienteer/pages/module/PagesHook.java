@@ -30,6 +30,7 @@ public class PagesHook extends ODocumentHookAbstract {
 
 	@Override
 	public void onRecordAfterUpdate(ODocument iDocument) {
+		getPagesModule().getPageCache().evict(iDocument.getIdentity());
 		PagesCompoundRequestMapper mapper = getPagesCompoundRequestMapper();
 		mapper.remove(iDocument);
 		mapper.add(iDocument);
@@ -37,11 +38,16 @@ public class PagesHook extends ODocumentHookAbstract {
 
 	@Override
 	public void onRecordAfterDelete(ODocument iDocument) {
+		getPagesModule().getPageCache().evict(iDocument.getIdentity());
 		getPagesCompoundRequestMapper().remove(iDocument);
 	}
 	
 	protected PagesCompoundRequestMapper getPagesCompoundRequestMapper() {
-		return OrienteerWebApplication.get().getServiceInstance(PagesModule.class).getPagesCompoundRequestMapper();
+		return getPagesModule().getPagesCompoundRequestMapper();
+	}
+	
+	protected PagesModule getPagesModule() {
+		return OrienteerWebApplication.get().getServiceInstance(PagesModule.class);
 	}
 	
 	
@@ -11,6 +11,8 @@ import org.orienteer.core.CustomAttribute;
 import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.core.module.AbstractOrienteerModule;
 import org.orienteer.core.util.OSchemaHelper;
+import org.orienteer.pages.repository.ODocumentAliasIndex;
+import org.orienteer.pages.web.OPageCache;
 import org.orienteer.pages.wicket.mapper.PagesCompoundRequestMapper;
 import org.orienteer.pages.wicket.mapper.ODocumentAliasCompoundMapper;
 import org.orienteer.pages.wicket.mapper.ODocumentAliasMapper;
@@ -34,6 +36,7 @@ public class PagesModule extends AbstractOrienteerModule {
 	public static final String OPROPERTY_PATH="path";
 	public static final String OPROPERTY_EMBEDDED="embedded";
 	public static final String OPROPERTY_DOCUMENT="document";
+	public static final String OPROPERTY_CACHEABLE="cacheable";
 
 	public static final CustomAttribute ALIAS = CustomAttribute.create("orienteer.alias", OType.STRING, null, true, false);
 
@@ -41,9 +44,11 @@ public class PagesModule extends AbstractOrienteerModule {
 	private PagesCompoundRequestMapper pagesCompoundRequestMapper;
 	private ODocumentAliasCompoundMapper documentAliasCompoundMapper;
 	private ODocumentAliasCompoundMapper documentsAliasCompoundMapper;
+	private final ODocumentAliasIndex aliasIndex = new ODocumentAliasIndex();
+	private final OPageCache pageCache = new OPageCache();
 
 	protected PagesModule() {
-		super(NAME, 2);
+		super(NAME, 3);
 	}
 	
 	@Override
@@ -61,6 +66,9 @@ public class PagesModule extends AbstractOrienteerModule {
 			case 1:
 				onUpdateToFirstVesion(app, db);
 				break;
+			case 3:
+				onUpdateToThirdVesion(app, db);
+				break;
 			default:
 				break;
 		}
@@ -79,16 +87,23 @@ public class PagesModule extends AbstractOrienteerModule {
 				.oProperty(OPROPERTY_EMBEDDED, OType.BOOLEAN, 50)
 				.oProperty(OPROPERTY_DOCUMENT, OType.LINK, 60);
 	}
+
+	public void onUpdateToThirdVesion(OrienteerWebApplication app, ODatabaseSession db)
+	{
+		OSchemaHelper helper = OSchemaHelper.bind(db);
+		helper.oClass(OCLASS_PAGE)
+				.oProperty(OPROPERTY_CACHEABLE, OType.BOOLEAN, 55).defaultValue("false");
+	}
 	
 	@Override
 	public void onInitialize(OrienteerWebApplication app, ODatabaseSession db) {
 		super.onInitialize(app, db);
 		app.registerWidgets("org.orienteer.pages.component.widget");
 		app.mount(pagesCompoundRequestMapper = new PagesCompoundRequestMapper());
-		app.mount(documentAliasCompoundMapper = new ODocumentAliasCompoundMapper(ODocumentAliasMapper::new));
-		app.mount(documentsAliasCompoundMapper = new ODocumentAliasCompoundMapper(ODocumentsAliasMapper::new));
+		app.mount(documentAliasCompoundMapper = new ODocumentAliasCompoundMapper(ODocumentAliasMapper::new, aliasIndex));
+		app.mount(documentsAliasCompoundMapper = new ODocumentAliasCompoundMapper(ODocumentsAliasMapper::new, aliasIndex));
 
-		app.getOrientDbSettings().addORecordHooks(PagesHook.class);
+		app.getOrientDbSettings().addORecordHooks(PagesHook.class, ODocumentAliasHook.class);
 	}
 	
 	@Override
@@ -100,11 +115,21 @@ public class PagesModule extends AbstractOrienteerModule {
 		rootMapper.remove(documentAliasCompoundMapper);
 		rootMapper.remove(documentsAliasCompoundMapper);
 
-		app.getOrientDbSettings().removeORecordHooks(PagesHook.class);
+		app.getOrientDbSettings().removeORecordHooks(PagesHook.class, ODocumentAliasHook.class);
+		aliasIndex.clear();
+		pageCache.clear();
 	}
 	
 	public PagesCompoundRequestMapper getPagesCompoundRequestMapper() {
 		return pagesCompoundRequestMapper;
 	}
 
+	public ODocumentAliasIndex getAliasIndex() {
+		return aliasIndex;
+	}
+
+	public OPageCache getPageCache() {
+		return pageCache;
+	}
+
 }
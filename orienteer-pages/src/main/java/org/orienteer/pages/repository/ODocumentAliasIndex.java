@@ -0,0 +1,265 @@
+package org.orienteer.pages.repository;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OSecurityException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OProperty;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of documents served by alias mappers.
+ * Maps values of properties used in alias mount path to identities of documents,
+ * so resolving of an alias doesn't require query to the database.
+ * Index for a class is loaded on first use and then updated by {@link org.orienteer.pages.module.ODocumentAliasHook}.
+ * Index contains all documents of a class: found documents are filtered by access rights of a user on lookup.
+ */
+public class ODocumentAliasIndex {
+
+    public static final int DEFAULT_NOT_FOUND_CACHE_SIZE = 1000;
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("[$#]\\{([^}]+)\\}");
+
+    private final Map<String, ClassIndex> indexes = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> notFound;
+    private volatile String[] classNames = new String[0];
+
+    public ODocumentAliasIndex() {
+        this(DEFAULT_NOT_FOUND_CACHE_SIZE);
+    }
+
+    public ODocumentAliasIndex(int notFoundCacheSize) {
+        notFound = CacheBuilder.newBuilder().maximumSize(notFoundCacheSize).build();
+    }
+
+    /**
+     * Index for documents of a class by properties which are used as placeholders in a mount path
+     * @param oClass class of documents
+     * @param mountPath mount path with placeholders
+     * @return index for a class or null if some of properties can't be indexed: they are not defined in the schema
+     * or they are not of a simple type
+     */
+    public ClassIndex getClassIndex(OClass oClass, String mountPath) {
+        List<String> fields = getPlaceholders(mountPath);
+        ClassIndex ret = indexes.get(oClass.getName() + fields);
+        if (ret == null) {
+            List<OType> types = new ArrayList<>(fields.size());
+            for (String field : fields) {
+                OProperty property = oClass.getProperty(field);
+                OType type = property != null ? property.getType() : null;
+                if (type == null || type.isMultiValue() || type.isEmbedded()) return null;
+                types.add(type);
+            }
+            synchronized (indexes) {
+                ret = indexes.computeIfAbsent(oClass.getName() + fields, k -> new ClassIndex(oClass.getName(), fields, types));
+                classNames = indexes.values().stream().map(index -> index.className).distinct().toArray(String[]::new);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Names of indexed classes. Array is replaced every time new class is indexed,
+     * so identity of the array can be used to check that set of classes was changed
+     * @return names of indexed classes
+     */
+    public String[] getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * Check if result of a query for given key is known as empty
+     * @param key key of a query
+     * @return true if query for the key returned nothing last time
+     */
+    public boolean isNotFound(String key) {
+        return notFound.getIfPresent(key) != null;
+    }
+
+    public void markNotFound(String key) {
+        notFound.put(key, Boolean.TRUE);
+    }
+
+    /**
+     * Update indexes according to created or updated document
+     * @param doc created or updated document
+     */
+    public void onSave(ODocument doc) {
+        OClass oClass = doc.getSchemaClass();
+        if (oClass == null) return;
+        boolean changed = false;
+        for (ClassIndex index : indexes.values()) {
+            if (oClass.isSubClassOf(index.className)) {
+                index.put(doc);
+                changed = true;
+            }
+        }
+        if (changed) notFound.invalidateAll();
+    }
+
+    /**
+     * Update indexes according to deleted document
+     * @param doc deleted document
+     */
+    public void onDelete(ODocument doc) {
+        OClass oClass = doc.getSchemaClass();
+        if (oClass == null) return;
+        for (ClassIndex index : indexes.values()) {
+            if (oClass.isSubClassOf(index.className)) index.remove(doc.getIdentity());
+        }
+    }
+
+    public void clear() {
+        indexes.values().forEach(ClassIndex::clear);
+        notFound.invalidateAll();
+    }
+
+    static List<String> getPlaceholders(String mountPath) {
+        Set<String> ret = new TreeSet<>();
+        Matcher matcher = PLACEHOLDER.matcher(mountPath);
+        while (matcher.find()) {
+            ret.add(matcher.group(1));
+        }
+        return Collections.unmodifiableList(new ArrayList<>(ret));
+    }
+
+    /**
+     * Index of documents of a single class
+     */
+    public static final class ClassIndex {
+        private final String className;
+        private final List<String> fields;
+        private final List<OType> types;
+        private final Map<List<Object>, Set<ORID>> byValues = new ConcurrentHashMap<>();
+        private final Map<ORID, List<Object>> byIdentity = new ConcurrentHashMap<>();
+        private volatile boolean loaded;
+
+        private ClassIndex(String className, List<String> fields, List<OType> types) {
+            this.className = className;
+            this.fields = fields;
+            this.types = types;
+        }
+
+        public List<String> getFields() {
+            return fields;
+        }
+
+        /**
+         * Lookup identities of documents with given values of properties.
+         * Values are converted to types of properties, so the same rules as for a query are applied.
+         * @param db database of a current user: only documents readable by the user are returned
+         * @param values values in order of {@link #getFields()}
+         * @return sorted list of identities, empty if nothing was found
+         * or null if values can't be converted to types of properties and index can't be used
+         */
+        public List<ORID> lookup(ODatabaseDocument db, List<String> values) {
+            List<Object> key = new ArrayList<>(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Object value = toIndexValue(values.get(i), types.get(i));
+                if (value == null && values.get(i) != null) return null;
+                key.add(value);
+            }
+            if (!loaded) load();
+            Set<ORID> ids = byValues.get(key);
+            if (ids == null || ids.isEmpty()) return Collections.emptyList();
+            List<ORID> ret = new ArrayList<>(ids.size());
+            for (ORID id : ids) {
+                if (isReadable(db, id)) ret.add(id);
+            }
+            Collections.sort(ret);
+            return ret;
+        }
+
+        private static boolean isReadable(ODatabaseDocument db, ORID identity) {
+            try {
+                return db.load(identity) != null;
+            } catch (OSecurityException e) {
+                return false;
+            }
+        }
+
+        private synchronized void load() {
+            if (loaded) return;
+            String projection = fields.stream().map(f -> "`" + f + "`").collect(Collectors.joining(", "));
+            String sql = String.format("select %s from `%s`", projection.isEmpty() ? "@rid" : "@rid, " + projection, className);
+            DBClosure.sudoConsumer(db -> db.query(sql).forEachRemaining(result -> {
+                ORID identity = result.getProperty("@rid");
+                if (identity != null) {
+                    index(identity, toIndexValues(result::getProperty));
+                }
+            }));
+            loaded = true;
+        }
+
+        private synchronized void put(ODocument doc) {
+            if (!loaded) return;
+            ORID identity = doc.getIdentity().copy();
+            remove(identity);
+            index(identity, toIndexValues(doc::field));
+        }
+
+        private synchronized void remove(ORID identity) {
+            if (!loaded) return;
+            List<Object> values = byIdentity.remove(identity);
+            if (values != null) {
+                Set<ORID> ids = byValues.get(values);
+                if (ids != null) {
+                    ids.remove(identity);
+                    if (ids.isEmpty()) byValues.remove(values);
+                }
+            }
+        }
+
+        private synchronized void clear() {
+            byValues.clear();
+            byIdentity.clear();
+            loaded = false;
+        }
+
+        private void index(ORID identity, List<Object> values) {
+            byIdentity.put(identity, values);
+            byValues.computeIfAbsent(values, k -> ConcurrentHashMap.newKeySet()).add(identity);
+        }
+
+        private List<Object> toIndexValues(Function<String, Object> getter) {
+            List<Object> ret = new ArrayList<>(fields.size());
+            for (int i = 0; i < fields.size(); i++) {
+                ret.add(toIndexValue(getter.apply(fields.get(i)), types.get(i)));
+            }
+            return ret;
+        }
+
+        /**
+         * Convert value to a type of a property
+         * @param value value to convert
+         * @param type type of a property
+         * @return converted value or null if value can't be converted
+         */
+        private static Object toIndexValue(Object value, OType type) {
+            if (value == null) return null;
+            try {
+                if (type.isLink()) {
+                    if (value instanceof OIdentifiable) return ((OIdentifiable) value).getIdentity().copy();
+                    ORecordId ret = new ORecordId(value.toString());
+                    return ret.isValid() ? ret : null;
+                }
+                return OType.convert(value, type.getDefaultJavaType());
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
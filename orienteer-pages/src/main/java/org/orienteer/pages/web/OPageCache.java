@@ -0,0 +1,149 @@
+package org.orienteer.pages.web;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.orientechnologies.orient.core.id.ORID;
+import org.apache.wicket.Application;
+import org.apache.wicket.markup.IMarkupCache;
+import org.orienteer.core.util.CommonUtils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache for OPages: keeps track of Wicket markup cache keys issued for every page
+ * and fully rendered HTML of pages marked as cacheable.
+ * Only stateless pages are rendered into the cache: pages which turned out to be stateful are remembered
+ * and served as usual.
+ * Entries of a page are evicted by {@link org.orienteer.pages.module.PagesHook} once page was changed
+ */
+public class OPageCache {
+
+	public static final int DEFAULT_MAX_RENDERED_PAGES = 500;
+
+	private final Map<ORID, Set<String>> markupKeys = new ConcurrentHashMap<>();
+	private final Map<ORID, Set<String>> renderedKeys = new ConcurrentHashMap<>();
+	private final Set<ORID> statefulPages = ConcurrentHashMap.newKeySet();
+	private final Cache<String, RenderedPage> rendered;
+
+	public OPageCache() {
+		this(DEFAULT_MAX_RENDERED_PAGES);
+	}
+
+	public OPageCache(int maxRenderedPages) {
+		rendered = CacheBuilder.newBuilder().maximumSize(maxRenderedPages)
+								.removalListener(this::onRenderedRemoval).build();
+	}
+
+	private void onRenderedRemoval(RemovalNotification<String, RenderedPage> notification) {
+		if (notification.getCause() == RemovalCause.REPLACED) return;
+		String key = notification.getKey();
+		RenderedPage page = notification.getValue();
+		if (key == null || page == null) return;
+		renderedKeys.computeIfPresent(page.pageIdentity, (identity, keys) -> {
+			keys.remove(key);
+			return keys.isEmpty() ? null : keys;
+		});
+	}
+
+	/**
+	 * Remember markup cache key issued for a page to be able to remove markup once page was changed
+	 * @param pageIdentity identity of a page
+	 * @param cacheKey markup cache key
+	 * @return the same cache key
+	 */
+	public String registerMarkupKey(ORID pageIdentity, String cacheKey) {
+		markupKeys.computeIfAbsent(pageIdentity, k -> ConcurrentHashMap.newKeySet()).add(cacheKey);
+		return cacheKey;
+	}
+
+	public RenderedPage getRendered(String key) {
+		return rendered.getIfPresent(key);
+	}
+
+	public RenderedPage putRendered(ORID pageIdentity, String key, String content) {
+		RenderedPage page = new RenderedPage(pageIdentity, content);
+		renderedKeys.computeIfAbsent(pageIdentity, k -> ConcurrentHashMap.newKeySet()).add(key);
+		rendered.put(key, page);
+		return page;
+	}
+
+	/**
+	 * Remember that a page is stateful, so its HTML can't be cached
+	 * @param pageIdentity identity of a page
+	 */
+	public void markStateful(ORID pageIdentity) {
+		statefulPages.add(pageIdentity);
+	}
+
+	public boolean isStateful(ORID pageIdentity) {
+		return statefulPages.contains(pageIdentity);
+	}
+
+	/**
+	 * Build key for rendered page
+	 * @param pageIdentity identity of a page
+	 * @param locale locale of a page
+	 * @param url requested URL
+	 * @return key of rendered page
+	 */
+	public static String toRenderedKey(ORID pageIdentity, Locale locale, String url) {
+		return pageIdentity + "|" + locale + "|" + url;
+	}
+
+	/**
+	 * Evict all cached data of a page
+	 * @param pageIdentity identity of a page
+	 */
+	public void evict(ORID pageIdentity) {
+		statefulPages.remove(pageIdentity);
+		Set<String> keys = renderedKeys.remove(pageIdentity);
+		if (keys != null) rendered.invalidateAll(keys);
+		Set<String> markup = markupKeys.remove(pageIdentity);
+		if (markup != null && Application.exists()) {
+			IMarkupCache markupCache = Application.get().getMarkupSettings().getMarkupFactory().getMarkupCache();
+			if (markupCache != null) markup.forEach(markupCache::removeMarkup);
+		}
+	}
+
+	public void clear() {
+		rendered.invalidateAll();
+		renderedKeys.clear();
+		statefulPages.clear();
+		markupKeys.keySet().forEach(this::evict);
+	}
+
+	/**
+	 * @return number of pages which have rendered HTML in the cache
+	 */
+	int getRenderedPagesCount() {
+		return renderedKeys.size();
+	}
+
+	/**
+	 * Rendered HTML of a page with its ETag
+	 */
+	public static final class RenderedPage {
+		private final ORID pageIdentity;
+		private final String content;
+		private final String eTag;
+
+		private RenderedPage(ORID pageIdentity, String content) {
+			this.pageIdentity = pageIdentity;
+			this.content = content;
+			this.eTag = "\"" + CommonUtils.digest(content) + "\"";
+		}
+
+		public String getContent() {
+			return content;
+		}
+
+		public String getETag() {
+			return eTag;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package org.orienteer.pages.web;
+
+import com.orientechnologies.orient.core.id.ORID;
+import org.apache.wicket.Application;
+import org.apache.wicket.Page;
+import org.apache.wicket.Session;
+import org.apache.wicket.core.request.handler.PageProvider;
+import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
+import org.apache.wicket.core.util.string.ComponentRenderer;
+import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+
+/**
+ * {@link IRequestHandler} to serve fully rendered HTML of cacheable OPage from {@link OPageCache}.
+ * Page is rendered only if there is no HTML for requested URL and locale in the cache.
+ * Responses contain ETag, so clients revalidate by If-None-Match and get 304 if page was not changed.
+ * Should be used only for anonymous users: HTML is shared by all requests of the same URL.
+ * HTML of a stateful page is not cached, because it has links to the page instance which is not stored:
+ * such page is rendered as usual
+ */
+public class OPageCacheRequestHandler implements IRequestHandler {
+
+	private static final int NOT_MODIFIED = 304;
+
+	private final ORID pageIdentity;
+	private final Class<? extends IRequestablePage> pageClass;
+	private final PageParameters parameters;
+	private final OPageCache cache;
+
+	public OPageCacheRequestHandler(ORID pageIdentity, Class<? extends IRequestablePage> pageClass,
+									PageParameters parameters, OPageCache cache) {
+		this.pageIdentity = pageIdentity;
+		this.pageClass = pageClass;
+		this.parameters = parameters;
+		this.cache = cache;
+	}
+
+	@Override
+	public void respond(IRequestCycle requestCycle) {
+		WebRequest request = (WebRequest) requestCycle.getRequest();
+		WebResponse response = (WebResponse) requestCycle.getResponse();
+		String key = OPageCache.toRenderedKey(pageIdentity, Session.get().getLocale(), request.getUrl().toString());
+		OPageCache.RenderedPage rendered = cache.getRendered(key);
+		if (rendered == null) {
+			Page[] page = new Page[1];
+			CharSequence html = new ComponentRenderer().renderPage(
+					() -> page[0] = (Page) Application.get().getPageFactory().newPage(pageClass, parameters));
+			if (!page[0].isPageStateless()) {
+				cache.markStateful(pageIdentity);
+				((RequestCycle) requestCycle).scheduleRequestHandlerAfterCurrent(
+						new RenderPageRequestHandler(new PageProvider(pageClass, parameters)));
+				return;
+			}
+			rendered = cache.putRendered(pageIdentity, key, html.toString());
+		}
+		response.setHeader("ETag", rendered.getETag());
+		response.setHeader("Cache-Control", "no-cache");
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null && ifNoneMatch.contains(rendered.getETag())) {
+			response.setStatus(NOT_MODIFIED);
+			return;
+		}
+		String encoding = Application.get().getRequestCycleSettings().getResponseRequestEncoding();
+		response.setContentType("text/html; charset=" + encoding);
+		response.write(rendered.getContent());
+	}
+
+}
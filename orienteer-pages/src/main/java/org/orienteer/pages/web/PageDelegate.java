@@ -125,7 +125,9 @@ public class PageDelegate implements IMarkupResourceStreamProvider, IMarkupCache
 	@Override
 	public String getCacheKey(MarkupContainer container, Class<?> containerClass) {
 		ODocument pageDoc = pageDocumentModel.getObject();
-		return DEFAULT_MARKUP_CACHKEY_PROVIDER.getCacheKey(container, containerClass)+"_"+pageDoc.getIdentity().toString()+"_v"+pageDoc.getVersion();
+		String cacheKey = DEFAULT_MARKUP_CACHKEY_PROVIDER.getCacheKey(container, containerClass)+"_"+pageDoc.getIdentity().toString()+"_v"+pageDoc.getVersion();
+		return OrienteerWebApplication.lookupApplication().getServiceInstance(PagesModule.class)
+										.getPageCache().registerMarkupKey(pageDoc.getIdentity(), cacheKey);
 	}
 
 	@Override
@@ -1,6 +1,8 @@
 package org.orienteer.pages.wicket.mapper;
 
 import com.google.common.base.Strings;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
@@ -10,13 +12,20 @@ import org.apache.wicket.request.component.IRequestablePage;
 import org.apache.wicket.request.mapper.parameter.INamedParameters;
 import org.apache.wicket.request.mapper.parameter.IPageParametersEncoder;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.orienteer.pages.repository.ODocumentAliasIndex;
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
 import ru.ydn.wicket.wicketorientdb.model.OQueryModel;
 import ru.ydn.wicket.wicketorientdb.utils.query.filter.FilterCriteriaManager;
 import ru.ydn.wicket.wicketorientdb.utils.query.filter.IFilterCriteriaManager;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Abstract document alias mapper for map documents
@@ -28,6 +37,10 @@ public abstract class AbstractODocumentAliasMapper<V> extends AbstractMountedMap
     private final String parameter;
     private final String mountPath;
 
+    private ODocumentAliasIndex aliasIndex;
+    private ODocumentAliasIndex.ClassIndex classIndex;
+    private String notFoundKeyPrefix;
+
     public AbstractODocumentAliasMapper(String mountPath,
                                         Class<? extends IRequestablePage> pageClass,
                                         OQueryModel<ODocument> queryModel,
@@ -47,7 +60,7 @@ public abstract class AbstractODocumentAliasMapper<V> extends AbstractMountedMap
         this.mountPath = mountPath;
     }
 
-    protected abstract V convertDocumentsToValue(List<ODocument> documents);
+    protected abstract V convertIdentitiesToValue(List<ORID> identities);
     protected abstract String convertValueToString(V value);
 
     @Override
@@ -82,13 +95,54 @@ public abstract class AbstractODocumentAliasMapper<V> extends AbstractMountedMap
         return mountPath;
     }
 
+    /**
+     * Use in-memory index for resolving of documents instead of query to the database
+     * @param aliasIndex index to use
+     * @param oClass class of documents served by this mapper
+     */
+    public void setAliasIndex(ODocumentAliasIndex aliasIndex, OClass oClass) {
+        this.aliasIndex = aliasIndex;
+        this.classIndex = aliasIndex != null ? aliasIndex.getClassIndex(oClass, mountPath) : null;
+        this.notFoundKeyPrefix = oClass.getName() + mountPath;
+    }
+
     private V getValue(PageParameters parameters) {
+        Map<String, String> filters = getFilterParameters(parameters);
+        OrientDbWebSession session = OrientDbWebSession.get();
+        if (classIndex != null && filters.keySet().equals(new HashSet<>(classIndex.getFields()))) {
+            List<String> values = classIndex.getFields().stream()
+                    .map(filters::get)
+                    .collect(Collectors.toList());
+            List<ORID> identities = classIndex.lookup(session.getDatabase(), values);
+            if (identities != null) return convertIdentitiesToValue(identities);
+        }
+        // Result of the query depends on rights of a user
+        String notFoundKey = aliasIndex != null ? notFoundKeyPrefix + "@" + session.getUsername() + filters : null;
+        if (notFoundKey != null && aliasIndex.isNotFound(notFoundKey)) {
+            return convertIdentitiesToValue(Collections.emptyList());
+        }
         applyFilters(parameters, queryModel);
         List<ODocument> docs = queryModel.getObject();
-        V value = convertDocumentsToValue(docs);
+        List<ORID> identities = docs != null
+                ? docs.stream().map(ODocument::getIdentity).collect(Collectors.toList())
+                : Collections.emptyList();
         queryModel.clearFilterCriteriaManagers();
         queryModel.detach();
-        return value;
+        if (notFoundKey != null && identities.isEmpty()) aliasIndex.markNotFound(notFoundKey);
+        return convertIdentitiesToValue(identities);
+    }
+
+    private Map<String, String> getFilterParameters(PageParameters parameters) {
+        Map<String, String> ret = new TreeMap<>();
+        if (parameters != null) {
+            for (INamedParameters.NamedPair pair : parameters.getAllNamed()) {
+                String param = pair.getValue();
+                if (!Strings.isNullOrEmpty(param) && !Objects.equals(pair.getKey(), parameter)) {
+                    ret.put(pair.getKey(), param);
+                }
+            }
+        }
+        return ret;
     }
 
     private String getValueAsString(PageParameters parameters) {
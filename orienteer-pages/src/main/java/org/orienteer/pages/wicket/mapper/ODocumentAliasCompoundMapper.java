@@ -5,6 +5,7 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.wicket.request.IRequestMapper;
 import org.apache.wicket.request.mapper.CompoundRequestMapper;
+import org.orienteer.pages.repository.ODocumentAliasIndex;
 import org.orienteer.pages.repository.ODocumentAliasRepository;
 import ru.ydn.wicket.wicketorientdb.model.OQueryModel;
 
@@ -18,10 +19,17 @@ import java.util.function.BiFunction;
 public class ODocumentAliasCompoundMapper extends CompoundRequestMapper {
 
     private final BiFunction<String, OQueryModel<ODocument>, IRequestMapper> mapperCreator;
+    private final ODocumentAliasIndex aliasIndex;
 
     public ODocumentAliasCompoundMapper(BiFunction<String, OQueryModel<ODocument>, IRequestMapper> mapperCreator) {
+        this(mapperCreator, null);
+    }
+
+    public ODocumentAliasCompoundMapper(BiFunction<String, OQueryModel<ODocument>, IRequestMapper> mapperCreator,
+                                        ODocumentAliasIndex aliasIndex) {
         super();
         this.mapperCreator = mapperCreator;
+        this.aliasIndex = aliasIndex;
 
         getAliasClasses().forEach(map -> {
             OQueryModel<ODocument> model = new OQueryModel<>("select from " + map.getValue());
@@ -39,7 +47,7 @@ public class ODocumentAliasCompoundMapper extends CompoundRequestMapper {
                 key = "/" + map.getValue().getName().toLowerCase() + key;
             }
 
-            add(key, model);
+            add(key, model, map.getValue());
         });
     }
 
@@ -52,6 +60,22 @@ public class ODocumentAliasCompoundMapper extends CompoundRequestMapper {
         return this;
     }
 
+    /**
+     * Add mapper for documents of a class. Documents are resolved through alias index if it's available
+     * @param url mount path
+     * @param model query model for documents
+     * @param oClass class of documents
+     * @return this mapper
+     */
+    public ODocumentAliasCompoundMapper add(String url, OQueryModel<ODocument> model, OClass oClass) {
+        IRequestMapper mapper = mapperCreator.apply(url, model);
+        if (aliasIndex != null && mapper instanceof AbstractODocumentAliasMapper) {
+            ((AbstractODocumentAliasMapper<?>) mapper).setAliasIndex(aliasIndex, oClass);
+        }
+        add(mapper);
+        return this;
+    }
+
     public ODocumentAliasCompoundMapper remove(String url) {
         for (IRequestMapper mapper : this) {
             if (mapper instanceof AbstractODocumentAliasMapper) {
@@ -25,10 +25,10 @@ public class ODocumentAliasMapper extends AbstractODocumentAliasMapper<ORID> {
     }
 
     @Override
-    protected ORID convertDocumentsToValue(List<ODocument> documents) {
+    protected ORID convertIdentitiesToValue(List<ORID> identities) {
         ORID result = null;
-        if (documents != null && documents.size() == 1) {
-            result = documents.get(0).getIdentity();
+        if (identities != null && identities.size() == 1) {
+            result = identities.get(0);
         }
         return result;
     }
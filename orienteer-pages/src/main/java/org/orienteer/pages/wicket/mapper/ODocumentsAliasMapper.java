@@ -22,13 +22,11 @@ public class ODocumentsAliasMapper extends AbstractODocumentAliasMapper<List<ORI
     }
 
     @Override
-    protected List<ORID> convertDocumentsToValue(List<ODocument> documents) {
-        if (documents == null || documents.size() == 1) {
+    protected List<ORID> convertIdentitiesToValue(List<ORID> identities) {
+        if (identities == null || identities.size() == 1) {
             return null;
         }
-        return documents.stream()
-                .map(ODocument::getIdentity)
-                .collect(Collectors.toCollection(LinkedList::new));
+        return new LinkedList<>(identities);
     }
 
     @Override
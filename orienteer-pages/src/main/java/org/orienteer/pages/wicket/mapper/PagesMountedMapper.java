@@ -3,11 +3,19 @@ package org.orienteer.pages.wicket.mapper;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.apache.wicket.Session;
+import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.Request;
 import org.apache.wicket.request.component.IRequestablePage;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.orienteer.core.OrienteerWebApplication;
 import org.orienteer.pages.module.PagesModule;
 import org.orienteer.pages.web.EmbeddedWebPage;
 import org.orienteer.pages.web.FullWebPage;
+import org.orienteer.pages.web.OPageCache;
+import org.orienteer.pages.web.OPageCacheRequestHandler;
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
 
 import java.util.Objects;
 
@@ -17,6 +25,7 @@ import java.util.Objects;
 public class PagesMountedMapper extends AbstractMountedMapper {
 	
 	private final ORID pageIdentity;
+	private final boolean cacheable;
 	
 	private static Class<? extends IRequestablePage> getPageClass(ODocument page) {
 		Boolean embedded = page.field(PagesModule.OPROPERTY_EMBEDDED);
@@ -26,6 +35,32 @@ public class PagesMountedMapper extends AbstractMountedMapper {
 	public PagesMountedMapper(ODocument page) {
 		super(page.field(PagesModule.OPROPERTY_PATH), getPageClass(page), new OPageParametersEncoder(page.getIdentity()));
 		pageIdentity = page.getIdentity();
+		cacheable = Boolean.TRUE.equals(page.field(PagesModule.OPROPERTY_CACHEABLE))
+						&& FullWebPage.class.equals(getPageClass(page));
+	}
+
+	/**
+	 * Serve new instances of cacheable pages from cache of rendered pages.
+	 * Only requests of anonymous users are served from the cache: HTML of signed in users might be user specific
+	 * @param request request to map
+	 * @return request handler
+	 */
+	@Override
+	public IRequestHandler mapRequest(Request request) {
+		IRequestHandler handler = super.mapRequest(request);
+		if (cacheable && handler instanceof RenderPageRequestHandler && isAnonymous()) {
+			RenderPageRequestHandler renderHandler = (RenderPageRequestHandler) handler;
+			OPageCache cache = OrienteerWebApplication.lookupApplication().getServiceInstance(PagesModule.class).getPageCache();
+			if (renderHandler.getPageId() == null && !cache.isStateful(pageIdentity)) {
+				return new OPageCacheRequestHandler(pageIdentity, renderHandler.getPageClass(), renderHandler.getPageParameters(),
+						cache);
+			}
+		}
+		return handler;
+	}
+
+	private static boolean isAnonymous() {
+		return !Session.exists() || !OrientDbWebSession.get().isSignedIn();
 	}
 
 	/**
@@ -0,0 +1,142 @@
+package org.orienteer.pages.module;
+
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.core.OrienteerWebApplication;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.junit.Sudo;
+import org.orienteer.pages.repository.ODocumentAliasIndex;
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+import ru.ydn.wicket.wicketorientdb.utils.DBClosure;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@RunWith(OrienteerTestRunner.class)
+@Singleton
+public class ODocumentAliasHookTest {
+
+	private static final String TEST_CLASS_ALIAS = "TestAliasHook";
+	private static final String TEST_CLASS_OTHER = "TestAliasHookOther";
+	private static final String TEST_CLASS_RESTRICTED = "TestAliasHookRestricted";
+	private static final String MOUNT_PATH = "/test-alias-hook/${name}";
+	private static final String NUMBER_MOUNT_PATH = "/test-alias-hook/${number}";
+
+	private ODocumentAliasIndex.ClassIndex classIndex;
+
+	@Before
+	@Sudo
+	public void init() {
+		OSchema schema = OrientDbWebSession.get().getDatabase().getMetadata().getSchema();
+		dropClasses(schema);
+		OClass oClass = schema.createClass(TEST_CLASS_ALIAS);
+		oClass.createProperty("name", OType.STRING);
+		oClass.createProperty("number", OType.INTEGER);
+		schema.createClass(TEST_CLASS_OTHER).createProperty("name", OType.STRING);
+		schema.createClass(TEST_CLASS_RESTRICTED, schema.getClass("ORestricted")).createProperty("name", OType.STRING);
+		classIndex = getAliasIndex().getClassIndex(oClass, MOUNT_PATH);
+	}
+
+	@After
+	@Sudo
+	public void destroy() {
+		getAliasIndex().clear();
+		dropClasses(OrientDbWebSession.get().getDatabase().getMetadata().getSchema());
+	}
+
+	@Test
+	@Sudo
+	public void testIncludeClasses() {
+		ODatabaseDocument db = OrientDbWebSession.get().getDatabase();
+		ODocumentAliasHook hook = new ODocumentAliasHook(db);
+		assertTrue(hook.filterBySchemaClass(new ODocument(TEST_CLASS_ALIAS)));
+		assertFalse(hook.filterBySchemaClass(new ODocument(TEST_CLASS_OTHER)));
+		assertFalse(hook.filterBySchemaClass(new ODocument()));
+	}
+
+	@Test
+	@Sudo
+	public void testIndexMaintenance() {
+		ODatabaseDocument db = OrientDbWebSession.get().getDatabase();
+		assertEquals(Collections.emptyList(), classIndex.lookup(db, Collections.singletonList("first")));
+
+		ODocument doc = new ODocument(TEST_CLASS_ALIAS);
+		doc.field("name", "first");
+		doc.save();
+		ORID identity = doc.getIdentity().copy();
+		assertEquals(Collections.singletonList(identity), classIndex.lookup(db, Collections.singletonList("first")));
+
+		doc.field("name", "second");
+		doc.save();
+		assertEquals(Collections.emptyList(), classIndex.lookup(db, Collections.singletonList("first")));
+		assertEquals(Collections.singletonList(identity), classIndex.lookup(db, Collections.singletonList("second")));
+
+		ODocument other = new ODocument(TEST_CLASS_OTHER);
+		other.field("name", "second");
+		other.save();
+		assertEquals(Collections.singletonList(identity), classIndex.lookup(db, Collections.singletonList("second")));
+
+		doc.delete();
+		assertEquals(Collections.emptyList(), classIndex.lookup(db, Collections.singletonList("second")));
+	}
+
+	@Test
+	@Sudo
+	public void testValuesAreConvertedToPropertyType() {
+		ODatabaseDocument db = OrientDbWebSession.get().getDatabase();
+		ODocumentAliasIndex.ClassIndex numberIndex = getAliasIndex().getClassIndex(db.getMetadata().getSchema()
+																		.getClass(TEST_CLASS_ALIAS), NUMBER_MOUNT_PATH);
+		ODocument doc = new ODocument(TEST_CLASS_ALIAS);
+		doc.field("number", 1);
+		doc.save();
+		ODocument other = new ODocument(TEST_CLASS_ALIAS);
+		other.field("number", 10);
+		other.save();
+		assertEquals(Collections.singletonList(doc.getIdentity()), numberIndex.lookup(db, Collections.singletonList("1")));
+		assertEquals(Collections.singletonList(doc.getIdentity()), numberIndex.lookup(db, Collections.singletonList("01")));
+		assertNull("Not a number can't be resolved by the index", numberIndex.lookup(db, Collections.singletonList("one")));
+	}
+
+	@Test
+	@Sudo
+	public void testNotSchemaPropertiesAreNotIndexed() {
+		OClass oClass = OrientDbWebSession.get().getDatabase().getMetadata().getSchema().getClass(TEST_CLASS_OTHER);
+		assertNull(getAliasIndex().getClassIndex(oClass, "/test-alias-hook/${undefined}"));
+	}
+
+	@Test
+	@Sudo(value = "reader", password = "reader")
+	public void testNotReadableDocumentsAreSkipped() {
+		OClass oClass = OrientDbWebSession.get().getDatabase().getMetadata().getSchema().getClass(TEST_CLASS_RESTRICTED);
+		ODocumentAliasIndex.ClassIndex restrictedIndex = getAliasIndex().getClassIndex(oClass, MOUNT_PATH);
+		ORID identity = DBClosure.sudo(db -> {
+			ODocument doc = new ODocument(TEST_CLASS_RESTRICTED);
+			doc.field("name", "hidden");
+			return doc.save().getIdentity();
+		});
+		assertEquals(Collections.emptyList(),
+				restrictedIndex.lookup(OrientDbWebSession.get().getDatabase(), Collections.singletonList("hidden")));
+		assertEquals(Collections.singletonList(identity),
+				DBClosure.sudo(db -> restrictedIndex.lookup(db, Collections.singletonList("hidden"))));
+	}
+
+	private static ODocumentAliasIndex getAliasIndex() {
+		return OrienteerWebApplication.lookupApplication().getServiceInstance(PagesModule.class).getAliasIndex();
+	}
+
+	private static void dropClasses(OSchema schema) {
+		if (schema.existsClass(TEST_CLASS_ALIAS)) schema.dropClass(TEST_CLASS_ALIAS);
+		if (schema.existsClass(TEST_CLASS_OTHER)) schema.dropClass(TEST_CLASS_OTHER);
+		if (schema.existsClass(TEST_CLASS_RESTRICTED)) schema.dropClass(TEST_CLASS_RESTRICTED);
+	}
+}
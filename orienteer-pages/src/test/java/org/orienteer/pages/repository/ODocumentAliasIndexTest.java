@@ -0,0 +1,18 @@
+package org.orienteer.pages.repository;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class ODocumentAliasIndexTest {
+
+    @Test
+    public void testPlaceholders() {
+        assertEquals(Arrays.asList("lastName", "name"), ODocumentAliasIndex.getPlaceholders("/employee/${name}/#{lastName}"));
+        assertEquals(Collections.singletonList("name"), ODocumentAliasIndex.getPlaceholders("/employee/${name}/${name}"));
+        assertEquals(Collections.emptyList(), ODocumentAliasIndex.getPlaceholders("/employee/all"));
+    }
+}
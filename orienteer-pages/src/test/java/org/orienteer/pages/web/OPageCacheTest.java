@@ -0,0 +1,76 @@
+package org.orienteer.pages.web;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class OPageCacheTest {
+
+	private static final ORID PAGE_A = new ORecordId(10, 1);
+	private static final ORID PAGE_B = new ORecordId(10, 2);
+
+	@Test
+	public void testPutAndEvict() {
+		OPageCache cache = new OPageCache();
+		String keyA = OPageCache.toRenderedKey(PAGE_A, Locale.ENGLISH, "/a");
+		String keyB = OPageCache.toRenderedKey(PAGE_B, Locale.ENGLISH, "/b");
+		OPageCache.RenderedPage page = cache.putRendered(PAGE_A, keyA, "A");
+		cache.putRendered(PAGE_B, keyB, "B");
+		assertSame(page, cache.getRendered(keyA));
+		assertEquals(page.getETag(), cache.putRendered(PAGE_A, keyA, "A").getETag());
+		assertNotEquals(page.getETag(), cache.getRendered(keyB).getETag());
+		assertEquals(2, cache.getRenderedPagesCount());
+
+		cache.evict(PAGE_A);
+		assertNull(cache.getRendered(keyA));
+		assertNotNull(cache.getRendered(keyB));
+		assertEquals(1, cache.getRenderedPagesCount());
+
+		cache.clear();
+		assertNull(cache.getRendered(keyB));
+		assertEquals(0, cache.getRenderedPagesCount());
+	}
+
+	@Test
+	public void testRenderedKeysArePrunedOnEviction() {
+		int max = 5;
+		OPageCache cache = new OPageCache(max);
+		for (int i = 0; i < max * 20; i++) {
+			ORID page = new ORecordId(10, i);
+			cache.putRendered(page, OPageCache.toRenderedKey(page, Locale.ENGLISH, "/page/" + i), "content " + i);
+		}
+		assertTrue(cache.getRenderedPagesCount() <= max);
+		ORID last = new ORecordId(10, max * 20 - 1);
+		assertNotNull(cache.getRendered(OPageCache.toRenderedKey(last, Locale.ENGLISH, "/page/" + (max * 20 - 1))));
+	}
+
+	@Test
+	public void testStatefulPageIsForgottenOnEvict() {
+		OPageCache cache = new OPageCache();
+		assertFalse(cache.isStateful(PAGE_A));
+		cache.markStateful(PAGE_A);
+		assertTrue(cache.isStateful(PAGE_A));
+		assertFalse(cache.isStateful(PAGE_B));
+		cache.evict(PAGE_A);
+		assertFalse("Changed page might become stateless", cache.isStateful(PAGE_A));
+		cache.markStateful(PAGE_B);
+		cache.clear();
+		assertFalse(cache.isStateful(PAGE_B));
+	}
+
+	@Test
+	public void testReplacedKeyIsKept() {
+		OPageCache cache = new OPageCache(1);
+		String key = OPageCache.toRenderedKey(PAGE_A, Locale.ENGLISH, "/a");
+		cache.putRendered(PAGE_A, key, "first");
+		cache.putRendered(PAGE_A, key, "second");
+		assertEquals("second", cache.getRendered(key).getContent());
+		assertEquals(1, cache.getRenderedPagesCount());
+		cache.evict(PAGE_A);
+		assertNull(cache.getRendered(key));
+	}
+}
@@ -45,12 +45,14 @@ public class PivotTableModule extends AbstractOrienteerModule{
 	public void onInitialize(OrienteerWebApplication app, ODatabaseSession db) {
 		super.onInitialize(app, db);
 		app.registerWidgets("org.orienteer.pivottable.component.widget");
+		app.mountPackage("org.orienteer.pivottable.resource");
 	}
 	
 	@Override
 	public void onDestroy(OrienteerWebApplication app, ODatabaseSession db) {
 		super.onDestroy(app, db);
 		app.unregisterWidgets("org.orienteer.pivottable.component.widget");
+		app.unmountPackage("org.orienteer.pivottable.resource");
 	}
 	
 }
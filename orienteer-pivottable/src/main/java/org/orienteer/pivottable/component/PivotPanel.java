@@ -48,6 +48,7 @@ public class PivotPanel extends GenericPanel<String> {
 	private static final Map<String, WebjarsJavaScriptResourceReference> LANGUAGES_MAP = new HashMap<>();
 	
 	private final IModel<String> configModel;
+	private final IModel<String> aggregatedUrlModel;
 	private final IModel<DisplayMode> modeModel;
 	private final UpdatePivotTableBehavior updatePivotTableBehavior;
 	
@@ -76,8 +77,20 @@ public class PivotPanel extends GenericPanel<String> {
 	}
 	
 	public PivotPanel(String id, IModel<String> urlModel, IModel<DisplayMode> modeModel, IModel<String> configModel) {
+		this(id, urlModel, null, modeModel, configModel);
+	}
+	
+	/**
+	 * @param id component id
+	 * @param urlModel model of URL to load source records from
+	 * @param aggregatedUrlModel model of URL to load data aggregated on server side: used in view mode. Might be null
+	 * @param modeModel model of display mode
+	 * @param configModel model of pivot table configuration
+	 */
+	public PivotPanel(String id, IModel<String> urlModel, IModel<String> aggregatedUrlModel, IModel<DisplayMode> modeModel, IModel<String> configModel) {
 		super(id, urlModel);
 		setOutputMarkupId(true);
+		this.aggregatedUrlModel = aggregatedUrlModel;
 		this.modeModel = modeModel;
 		this.configModel = configModel;
 		add(updatePivotTableBehavior = new UpdatePivotTableBehavior());
@@ -88,6 +101,7 @@ public class PivotPanel extends GenericPanel<String> {
 		super.detachModels();
 		modeModel.detach();
 		configModel.detach();
+		if(aggregatedUrlModel!=null) aggregatedUrlModel.detach();
 	}
 	
 	protected JavaScriptResourceReference getLocalizationJSResource(String lang) {
@@ -120,6 +134,8 @@ public class PivotPanel extends GenericPanel<String> {
 		Map<String, Object> params = new HashMap<String, Object>();
 		params.put("componentId", getMarkupId());
 		params.put("dataUrl", getModelObject().replace("'", "\\'"));
+		String aggregatedUrl = aggregatedUrlModel!=null?aggregatedUrlModel.getObject():null;
+		params.put("aggregatedUrl", Strings.isEmpty(aggregatedUrl)?"":aggregatedUrl.replace("'", "\\'"));
 		params.put("config", Strings.defaultIfEmpty(configModel.getObject(), "{}"));
 		params.put("editMode", DisplayMode.EDIT.equals(modeModel.getObject()));
 		params.put("callBackScript", updatePivotTableBehavior.getCallbackScript());
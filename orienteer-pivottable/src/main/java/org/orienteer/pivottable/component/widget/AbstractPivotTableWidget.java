@@ -13,12 +13,16 @@ import org.orienteer.core.component.FAIcon;
 import org.orienteer.core.component.FAIconType;
 import org.orienteer.core.component.property.DisplayMode;
 import org.orienteer.core.event.ActionPerformedEvent;
+import org.orienteer.core.util.ODataVersions;
 import org.orienteer.core.widget.AbstractWidget;
 import org.orienteer.pivottable.PivotTableModule;
 import org.orienteer.pivottable.component.PivotPanel;
+import org.orienteer.pivottable.resource.PivotDataResource;
 
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
+
 /**
  * Abstract Widget implementation for Pivot Table
  * @param <T> the type of main data object linked to this widget
@@ -27,25 +31,17 @@ public abstract class AbstractPivotTableWidget<T> extends AbstractWidget<T> {
 
 	private String config;
 	private String customSQL;
-	private double noCacheRnd;
 
 	public AbstractPivotTableWidget(String id, IModel<T> model,
 			IModel<ODocument> widgetDocumentModel) {
 		super(id, model, widgetDocumentModel);
 
-		noCacheRnd = Math.random();
-
 		add(new PivotPanel("pivot", new PropertyModel<String>(this, "url"),
+									new PropertyModel<String>(this, "aggregatedUrl"),
 									new PropertyModel<DisplayMode>(this, "displayMode"),
 									new PropertyModel<String>(this, "config")));
 		add(UpdateOnDashboardDisplayModeChangeBehavior.INSTANCE);
 		add(new UpdateOnActionPerformedEventBehavior(false){
-			@Override
-			protected void update(Component component, ActionPerformedEvent<?> event, IEvent<?> wicketEvent) {
-				noCacheRnd = Math.random();
-				super.update(component, event, wicketEvent);
-			}
-
 			@Override
 			protected boolean match(Component component, ActionPerformedEvent<?> event, IEvent<?> wicketEvent) {
 				return event.getCommand().isChangingModel();
@@ -57,8 +53,27 @@ public abstract class AbstractPivotTableWidget<T> extends AbstractWidget<T> {
 		String sql = getSql();
 		return "/orientdb/query/db/sql/"+
 					UrlEncoder.PATH_INSTANCE.encode(sql, "UTF-8")+
-				"/99999?rnd="+
-				noCacheRnd;
+				"/99999?v="+
+				getDataVersion()+"."+ODataVersions.get().getVersion(OrientDbWebSession.get().getDatabase(), sql);
+	}
+	
+	/**
+	 * @return URL to load data which is aggregated on server side according to current configuration
+	 */
+	public String getAggregatedUrl() {
+		return PivotDataResource.urlFor(getSql(), config, getDataVersion()).toString();
+	}
+	
+	/**
+	 * Version of configuration of a pivot table and of a linked document: data is loaded again once version is changed.
+	 * Changes of queried classes are tracked by {@link ODataVersions}
+	 * @return version of configuration
+	 */
+	protected String getDataVersion() {
+		ODocument widgetDoc = getWidgetDocument();
+		String version = widgetDoc!=null?Integer.toString(widgetDoc.getVersion()):"0";
+		T object = getModelObject();
+		return object instanceof ODocument?version+"."+((ODocument)object).getVersion():version;
 	}
 	
 	protected String getSql() {
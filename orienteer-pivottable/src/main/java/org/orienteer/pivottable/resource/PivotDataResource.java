@@ -0,0 +1,197 @@
+package org.orienteer.pivottable.resource;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.SharedResourceReference;
+import org.apache.wicket.util.string.Strings;
+import org.orienteer.core.MountPath;
+import org.orienteer.core.resource.AbstractQueryDataResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.sql.OCommandSQLParsingException;
+import com.orientechnologies.orient.core.sql.executor.OResult;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import com.orientechnologies.orient.core.util.ODateHelper;
+
+/**
+ * Resource to provide data for pivot tables.
+ * If pivot table configuration can be calculated on server side, GROUP BY query is executed
+ * and only partial aggregates are returned. Otherwise, or if there are just few source records,
+ * source records are returned for pivoting on client side.
+ * Result is returned in columnar format: list of columns and list of values for every column.
+ * Results are cached per user, query, configuration and version of data for a short time.
+ * Parameters:
+ * sql - query to select source records
+ * config (optional) - configuration of pivot table
+ * v (optional) - version of configuration: see {@link AbstractQueryDataResource}
+ * Max number of source records returned for client side pivoting can be set by "orienteer.pivottable.rawlimit" property.
+ */
+@MountPath("/pivottable/data")
+public class PivotDataResource extends AbstractQueryDataResource {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger LOG = LoggerFactory.getLogger(PivotDataResource.class);
+
+	public static final String CONFIG_PARAMETER = "config";
+
+	public static final String MODE_AGGREGATED = "aggregated";
+	public static final String MODE_RAW = "raw";
+
+	public static final int DEFAULT_RAW_THRESHOLD = 1000;
+	public static final int DEFAULT_RAW_LIMIT = 10000;
+
+	@Inject(optional=true)
+	@Named("orienteer.pivottable.rawlimit")
+	private int rawLimit = DEFAULT_RAW_LIMIT;
+
+	public static SharedResourceReference getSharedResourceReference() {
+		return new SharedResourceReference(PivotDataResource.class.getName());
+	}
+
+	/**
+	 * Generate URL to load data for a pivot table
+	 * @param sql query to select source records
+	 * @param config configuration of pivot table
+	 * @param version version of configuration
+	 * @return URL of data for a pivot table
+	 */
+	public static CharSequence urlFor(String sql, String config, Object version) {
+		PageParameters params = new PageParameters();
+		params.add(SQL_PARAMETER, sql);
+		if(!Strings.isEmpty(config)) params.add(CONFIG_PARAMETER, config);
+		if(version!=null) params.add(VERSION_PARAMETER, version);
+		return RequestCycle.get().urlFor(getSharedResourceReference(), params);
+	}
+
+	@Override
+	protected boolean isCacheable() {
+		return true;
+	}
+
+	@Override
+	protected String getDataKey(PageParameters params) {
+		return params.get(SQL_PARAMETER).toString()+"|"+params.get(CONFIG_PARAMETER).toString("");
+	}
+
+	@Override
+	protected void writeData(ODatabaseDocument db, PageParameters params, Writer writer) throws IOException {
+		writer.write(loadData(db, params.get(SQL_PARAMETER).toString(), params.get(CONFIG_PARAMETER).toOptionalString()).toString());
+	}
+
+	protected JSONObject loadData(ODatabaseDocument db, String sql, String config) {
+		PivotQuery query = PivotQuery.parse(sql, config);
+		if(query==null) {
+			return toRawJson(db, sql, getRawLimit());
+		}
+		JSONObject raw = toRawJson(db, sql, DEFAULT_RAW_THRESHOLD+1);
+		if(raw.getInt("size")<=DEFAULT_RAW_THRESHOLD) {
+			//Result is small: client side pivoting is fine
+			return raw;
+		}
+		try {
+			return toAggregatedJson(db, query);
+		} catch (OCommandExecutionException | OCommandSQLParsingException e) {
+			LOG.warn("Can't aggregate pivot table data on server side: "+e.getMessage());
+			return toRawJson(db, sql, getRawLimit());
+		}
+	}
+
+	/**
+	 * @return max number of source records to be returned for client side pivoting
+	 */
+	public int getRawLimit() {
+		return rawLimit;
+	}
+
+	protected JSONObject toAggregatedJson(ODatabaseDocument db, PivotQuery query) {
+		Columns columns = new Columns();
+		List<String> names = query.getAggregationColumns();
+		try(OResultSet rs = db.query(query.toAggregationSql())) {
+			while(rs.hasNext()) {
+				OResult result = rs.next();
+				for(int i=0; i<names.size(); i++) {
+					String column = i<query.getDimensions().size()?query.getDimensions().get(i):names.get(i);
+					columns.put(column, result.getProperty(names.get(i)));
+				}
+				columns.nextRow();
+			}
+		}
+		JSONObject ret = columns.toJson(MODE_AGGREGATED);
+		ret.put("aggregatorName", query.getAggregation().getClientAggregatorName());
+		ret.put("vals", new JSONArray(query.getValueColumns()));
+		return ret;
+	}
+
+	protected JSONObject toRawJson(ODatabaseDocument db, String sql, int limit) {
+		Columns columns = new Columns();
+		try(OResultSet rs = db.query("SELECT FROM ("+sql+") LIMIT "+limit)) {
+			while(rs.hasNext()) {
+				OResult result = rs.next();
+				for(String name : result.getPropertyNames()) {
+					if(!name.startsWith("@")) columns.put(name, result.getProperty(name));
+				}
+				columns.nextRow();
+			}
+		}
+		return columns.toJson(MODE_RAW);
+	}
+
+	/**
+	 * Builder of columnar representation of a result set
+	 */
+	private static class Columns {
+		private final Map<String, List<Object>> columns = new LinkedHashMap<>();
+		private int size = 0;
+
+		public void put(String column, Object value) {
+			List<Object> values = columns.computeIfAbsent(column, k -> new ArrayList<>());
+			while(values.size()<size) values.add(JSONObject.NULL);
+			values.add(toJsonValue(value));
+		}
+
+		public void nextRow() {
+			size++;
+		}
+
+		public JSONObject toJson(String mode) {
+			JSONObject ret = new JSONObject();
+			ret.put("mode", mode);
+			ret.put("size", size);
+			JSONArray names = new JSONArray();
+			JSONArray data = new JSONArray();
+			for(Map.Entry<String, List<Object>> entry : columns.entrySet()) {
+				List<Object> values = entry.getValue();
+				while(values.size()<size) values.add(JSONObject.NULL);
+				names.put(entry.getKey());
+				data.put(new JSONArray(values));
+			}
+			ret.put("columns", names);
+			ret.put("data", data);
+			return ret;
+		}
+
+		private static Object toJsonValue(Object value) {
+			if(value==null) return JSONObject.NULL;
+			else if(value instanceof Number || value instanceof Boolean || value instanceof String) return value;
+			else if(value instanceof Date) return ODateHelper.getDateTimeFormatInstance().format((Date)value);
+			else if(value instanceof OIdentifiable) return ((OIdentifiable)value).getIdentity().toString();
+			else return value.toString();
+		}
+	}
+}
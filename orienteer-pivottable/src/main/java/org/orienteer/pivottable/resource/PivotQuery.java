@@ -0,0 +1,230 @@
+package org.orienteer.pivottable.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.wicket.util.string.Strings;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONException;
+import com.github.openjson.JSONObject;
+
+/**
+ * Pivot table configuration translated to GROUP BY query.
+ * Query returns one row per combination of values of rows and cols attributes
+ * with partial aggregates which can be combined again on client side: so totals are calculated correctly.
+ */
+public class PivotQuery {
+
+	public static final String COUNT_COLUMN = "__count";
+	public static final String VALUE_COLUMN_PREFIX = "__v";
+
+	/**
+	 * Aggregators of pivottable.js which can be calculated on server side
+	 */
+	public enum Aggregation {
+		COUNT("Count", "Integer Sum", 0),
+		SUM("Sum", "Sum", 1),
+		INTEGER_SUM("Integer Sum", "Integer Sum", 1),
+		AVERAGE("Average", "Sum over Sum", 1),
+		MINIMUM("Minimum", "Minimum", 1),
+		MAXIMUM("Maximum", "Maximum", 1),
+		SUM_OVER_SUM("Sum over Sum", "Sum over Sum", 2);
+
+		private final String aggregatorName;
+		private final String clientAggregatorName;
+		private final int valsCount;
+
+		private Aggregation(String aggregatorName, String clientAggregatorName, int valsCount) {
+			this.aggregatorName = aggregatorName;
+			this.clientAggregatorName = clientAggregatorName;
+			this.valsCount = valsCount;
+		}
+
+		/**
+		 * @return name of pivottable.js aggregator
+		 */
+		public String getAggregatorName() {
+			return aggregatorName;
+		}
+
+		/**
+		 * @return name of pivottable.js aggregator to combine partial aggregates on client side
+		 */
+		public String getClientAggregatorName() {
+			return clientAggregatorName;
+		}
+
+		public int getValsCount() {
+			return valsCount;
+		}
+
+		public static Aggregation parse(String aggregatorName) {
+			if(Strings.isEmpty(aggregatorName)) return COUNT;
+			for(Aggregation aggregation : values()) {
+				if(aggregation.aggregatorName.equals(aggregatorName)) return aggregation;
+			}
+			return null;
+		}
+	}
+
+	private final String sql;
+	private final List<String> dimensions;
+	private final Aggregation aggregation;
+	private final List<String> vals;
+
+	public PivotQuery(String sql, List<String> dimensions, Aggregation aggregation, List<String> vals) {
+		this.sql = sql;
+		this.dimensions = Collections.unmodifiableList(new ArrayList<>(dimensions));
+		this.aggregation = aggregation;
+		this.vals = Collections.unmodifiableList(new ArrayList<>(vals));
+	}
+
+	/**
+	 * Create query for pivot table configuration
+	 * @param sql query to select source records
+	 * @param config configuration of pivot table as it's saved by pivottable.js
+	 * @return query or null if configuration can't be aggregated on server side
+	 */
+	public static PivotQuery parse(String sql, String config) {
+		if(Strings.isEmpty(sql)) return null;
+		try {
+			JSONObject json = new JSONObject(Strings.isEmpty(config)?"{}":config);
+			//Filters and derived attributes are applied on client side to source records only
+			if(hasValues(json.opt("inclusions")) || hasValues(json.opt("exclusions"))
+					|| hasValues(json.opt("derivedAttributes"))) return null;
+			Aggregation aggregation = Aggregation.parse(json.optString("aggregatorName", null));
+			if(aggregation==null) return null;
+			Set<String> dimensions = new LinkedHashSet<>();
+			dimensions.addAll(toList(json.optJSONArray("rows")));
+			dimensions.addAll(toList(json.optJSONArray("cols")));
+			List<String> vals = toList(json.optJSONArray("vals"));
+			if(vals.size()<aggregation.getValsCount()) return null;
+			return new PivotQuery(sql, new ArrayList<>(dimensions), aggregation, vals.subList(0, aggregation.getValsCount()));
+		} catch (JSONException e) {
+			return null;
+		}
+	}
+
+	private static boolean hasValues(Object value) {
+		if(value==null || JSONObject.NULL.equals(value)) return false;
+		else if(value instanceof JSONObject) {
+			JSONObject object = (JSONObject) value;
+			for(String key : object.keySet()) {
+				if(hasValues(object.opt(key))) return true;
+			}
+			return false;
+		}
+		else if(value instanceof JSONArray) return ((JSONArray) value).length()>0;
+		else return !Strings.isEmpty(value.toString());
+	}
+
+	private static List<String> toList(JSONArray array) {
+		List<String> ret = new ArrayList<>();
+		if(array!=null) {
+			for(int i=0; i<array.length(); i++) {
+				if(array.isNull(i)) continue;
+				String value = array.optString(i, null);
+				if(!Strings.isEmpty(value)) ret.add(value);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return SQL to calculate partial aggregates
+	 */
+	public String toAggregationSql() {
+		StringBuilder sb = new StringBuilder("SELECT ");
+		for(int i=0; i<dimensions.size(); i++) {
+			sb.append(quote(dimensions.get(i))).append(" AS d").append(i).append(", ");
+		}
+		switch (aggregation) {
+			case COUNT:
+				sb.append("count(*) AS ").append(COUNT_COLUMN);
+				break;
+			case AVERAGE:
+				sb.append("sum(").append(quote(vals.get(0))).append(") AS ").append(VALUE_COLUMN_PREFIX).append(0).append(", ");
+				sb.append("count(").append(quote(vals.get(0))).append(") AS ").append(COUNT_COLUMN);
+				break;
+			default:
+				String function = getFunction();
+				for(int i=0; i<vals.size(); i++) {
+					if(i>0) sb.append(", ");
+					sb.append(function).append('(').append(quote(vals.get(i))).append(") AS ").append(VALUE_COLUMN_PREFIX).append(i);
+				}
+		}
+		sb.append(" FROM (").append(sql).append(')');
+		if(!dimensions.isEmpty()) {
+			sb.append(" GROUP BY ");
+			for(int i=0; i<dimensions.size(); i++) {
+				if(i>0) sb.append(", ");
+				sb.append(quote(dimensions.get(i)));
+			}
+		}
+		return sb.toString();
+	}
+
+	private String getFunction() {
+		switch (aggregation) {
+			case MINIMUM:
+				return "min";
+			case MAXIMUM:
+				return "max";
+			default:
+				return "sum";
+		}
+	}
+
+	/**
+	 * @return names of columns of aggregation query in the same order as they are selected
+	 */
+	public List<String> getAggregationColumns() {
+		List<String> ret = new ArrayList<>();
+		for(int i=0; i<dimensions.size(); i++) ret.add("d"+i);
+		ret.addAll(getValueColumns());
+		return ret;
+	}
+
+	/**
+	 * @return names of columns with partial aggregates: vals for client side aggregator
+	 */
+	public List<String> getValueColumns() {
+		List<String> ret = new ArrayList<>();
+		switch (aggregation) {
+			case COUNT:
+				ret.add(COUNT_COLUMN);
+				break;
+			case AVERAGE:
+				ret.add(VALUE_COLUMN_PREFIX+0);
+				ret.add(COUNT_COLUMN);
+				break;
+			default:
+				for(int i=0; i<vals.size(); i++) ret.add(VALUE_COLUMN_PREFIX+i);
+		}
+		return ret;
+	}
+
+	private static String quote(String name) {
+		return '`'+name.replace("`", "\\`")+'`';
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public List<String> getDimensions() {
+		return dimensions;
+	}
+
+	public Aggregation getAggregation() {
+		return aggregation;
+	}
+
+	public List<String> getVals() {
+		return vals;
+	}
+}
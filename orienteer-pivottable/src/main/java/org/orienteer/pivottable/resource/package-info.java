@@ -0,0 +1,4 @@
+/**
+ * Resources of 'orienteer-pivottable' module
+ */
+package org.orienteer.pivottable.resource;
\ No newline at end of file
@@ -1,5 +1,6 @@
 !function() {
 	var url = '${dataUrl}';
+	var aggregatedUrl = '${aggregatedUrl}';
 	var config = JSON.parse('${config}');
 	var language = '${language}';
 	config.hiddenAttributes = ['@type', '@rid', '@version'];
@@ -29,20 +30,45 @@
 	var editMode = ${editMode};
 	
 	
-	$.getJSON( url, function( data ) {
-		if(editMode) {
+	//Convert columnar data into pivottable.js input: function which feeds records to a callback
+	var toInput = function(data) {
+		return function(callback) {
+			for(var i=0; i<data.size; i++) {
+				var record = {};
+				for(var j=0; j<data.columns.length; j++) record[data.columns[j]] = data.data[j][i];
+				callback(record);
+			}
+		};
+	};
+	var renderView = function(input, aggregatorName, vals) {
+		if(config.rendererName) config.renderer = config.renderers[config.rendererName];
+		if(aggregatorName) config.aggregator = $.pivotUtilities.aggregators[aggregatorName](vals);
+		if('en'!=language) {
+			config.localeStrings = $.pivotUtilities.locales[language].localeStrings;
 			config.aggregatorName = translate(config.aggregatorName, 'en', language, $.pivotUtilities.aggregators, $.pivotUtilities.locales[language].aggregators);
-			//Do not need to translate renderers: they are on english 
-			//config.rendererName = translate(config.rendererName, 'en', language, $.pivotUtilities.renderers, $.pivotUtilities.locales[language].renderers);
-			$("#${componentId}").pivotUI(data.result, config, false, language);
-		} else {
-			if(config.rendererName) config.renderer = config.renderers[config.rendererName];
-			if(config.aggregatorName) config.aggregator = $.pivotUtilities.aggregators[config.aggregatorName](config.vals);
-			if('en'!=language) {
-				config.localeStrings = $.pivotUtilities.locales[language].localeStrings;
+		}
+		$("#${componentId}").pivot(input, config);
+	};
+	
+	if(!editMode && aggregatedUrl) {
+		$.getJSON( aggregatedUrl, function( data ) {
+			if(data.mode == 'aggregated') {
+				//Cells are aggregated on server side: combine partial aggregates
+				renderView(toInput(data), data.aggregatorName, data.vals);
+			} else {
+				renderView(toInput(data), config.aggregatorName, config.vals);
+			}
+		});
+	} else {
+		$.getJSON( url, function( data ) {
+			if(editMode) {
 				config.aggregatorName = translate(config.aggregatorName, 'en', language, $.pivotUtilities.aggregators, $.pivotUtilities.locales[language].aggregators);
+				//Do not need to translate renderers: they are on english 
+				//config.rendererName = translate(config.rendererName, 'en', language, $.pivotUtilities.renderers, $.pivotUtilities.locales[language].renderers);
+				$("#${componentId}").pivotUI(data.result, config, false, language);
+			} else {
+				renderView(data.result, config.aggregatorName, config.vals);
 			}
-			$("#${componentId}").pivot(data.result, config);
-		}
-	});
+		});
+	}
 }();
\ No newline at end of file
@@ -0,0 +1,106 @@
+package org.orienteer.pivottable;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.orienteer.pivottable.resource.PivotQuery;
+import org.orienteer.pivottable.resource.PivotQuery.Aggregation;
+
+public class TestPivotQuery
+{
+	private static final String SQL = "select from Employee";
+
+	@Test
+	public void testDefaultConfigIsCount()
+	{
+		PivotQuery query = PivotQuery.parse(SQL, null);
+		assertNotNull(query);
+		assertEquals(Aggregation.COUNT, query.getAggregation());
+		assertTrue(query.getDimensions().isEmpty());
+		assertEquals("SELECT count(*) AS __count FROM (select from Employee)", query.toAggregationSql());
+		assertEquals(Collections.singletonList(PivotQuery.COUNT_COLUMN), query.getAggregationColumns());
+		assertEquals("Integer Sum", query.getAggregation().getClientAggregatorName());
+	}
+
+	@Test
+	public void testCountByRowsAndCols()
+	{
+		PivotQuery query = PivotQuery.parse(SQL, "{\"rows\":[\"dept\"],\"cols\":[\"year\",\"dept\"],\"aggregatorName\":\"Count\"}");
+		assertNotNull(query);
+		assertEquals(Arrays.asList("dept", "year"), query.getDimensions());
+		assertEquals("SELECT `dept` AS d0, `year` AS d1, count(*) AS __count FROM (select from Employee) GROUP BY `dept`, `year`",
+						query.toAggregationSql());
+		assertEquals(Arrays.asList("d0", "d1", PivotQuery.COUNT_COLUMN), query.getAggregationColumns());
+		assertEquals(Collections.singletonList(PivotQuery.COUNT_COLUMN), query.getValueColumns());
+	}
+
+	@Test
+	public void testSumAndExtremes()
+	{
+		PivotQuery sum = PivotQuery.parse(SQL, "{\"rows\":[\"dept\"],\"aggregatorName\":\"Sum\",\"vals\":[\"salary\",\"bonus\"]}");
+		assertEquals(Collections.singletonList("salary"), sum.getVals());
+		assertEquals("SELECT `dept` AS d0, sum(`salary`) AS __v0 FROM (select from Employee) GROUP BY `dept`", sum.toAggregationSql());
+		assertEquals("Sum", sum.getAggregation().getClientAggregatorName());
+
+		PivotQuery min = PivotQuery.parse(SQL, "{\"aggregatorName\":\"Minimum\",\"vals\":[\"salary\"]}");
+		assertEquals("SELECT min(`salary`) AS __v0 FROM (select from Employee)", min.toAggregationSql());
+		PivotQuery max = PivotQuery.parse(SQL, "{\"aggregatorName\":\"Maximum\",\"vals\":[\"salary\"]}");
+		assertEquals("SELECT max(`salary`) AS __v0 FROM (select from Employee)", max.toAggregationSql());
+	}
+
+	@Test
+	public void testAverageIsSplitToSumAndCount()
+	{
+		PivotQuery query = PivotQuery.parse(SQL, "{\"cols\":[\"dept\"],\"aggregatorName\":\"Average\",\"vals\":[\"salary\"]}");
+		assertEquals("SELECT `dept` AS d0, sum(`salary`) AS __v0, count(`salary`) AS __count FROM (select from Employee) GROUP BY `dept`",
+						query.toAggregationSql());
+		assertEquals(Arrays.asList("__v0", PivotQuery.COUNT_COLUMN), query.getValueColumns());
+		assertEquals("Sum over Sum", query.getAggregation().getClientAggregatorName());
+	}
+
+	@Test
+	public void testSumOverSum()
+	{
+		PivotQuery query = PivotQuery.parse(SQL, "{\"aggregatorName\":\"Sum over Sum\",\"vals\":[\"salary\",\"hours\"]}");
+		assertEquals("SELECT sum(`salary`) AS __v0, sum(`hours`) AS __v1 FROM (select from Employee)", query.toAggregationSql());
+		assertEquals(Arrays.asList("__v0", "__v1"), query.getAggregationColumns());
+	}
+
+	@Test
+	public void testNamesAreQuoted()
+	{
+		PivotQuery query = PivotQuery.parse(SQL, "{\"rows\":[\"first name\",\"a`b\"]}");
+		assertEquals("SELECT `first name` AS d0, `a\\`b` AS d1, count(*) AS __count FROM (select from Employee) GROUP BY `first name`, `a\\`b`",
+						query.toAggregationSql());
+	}
+
+	@Test
+	public void testNotSupportedConfigs()
+	{
+		assertNull(PivotQuery.parse(null, null));
+		assertNull(PivotQuery.parse("", "{}"));
+		assertNull(PivotQuery.parse(SQL, "{\"aggregatorName\":\"Count Unique Values\",\"vals\":[\"dept\"]}"));
+		assertNull(PivotQuery.parse(SQL, "{\"aggregatorName\":\"Sum\"}"));
+		assertNull(PivotQuery.parse(SQL, "{\"aggregatorName\":\"Sum over Sum\",\"vals\":[\"salary\"]}"));
+		assertNull(PivotQuery.parse(SQL, "not a json"));
+	}
+
+	@Test
+	public void testFiltersAndDerivedAttributesAreNotAggregated()
+	{
+		assertNull(PivotQuery.parse(SQL, "{\"rows\":[\"dept\"],\"exclusions\":{\"dept\":[\"IT\"]}}"));
+		assertNull(PivotQuery.parse(SQL, "{\"rows\":[\"dept\"],\"inclusions\":{\"dept\":[\"IT\"]}}"));
+		assertNull(PivotQuery.parse(SQL, "{\"rows\":[\"age\"],\"derivedAttributes\":{\"age\":\"function(record){}\"}}"));
+		assertNotNull(PivotQuery.parse(SQL, "{\"rows\":[\"dept\"],\"inclusions\":{},\"exclusions\":{\"dept\":[]},\"derivedAttributes\":{}}"));
+	}
+
+	@Test
+	public void testEmptyNamesAreSkipped()
+	{
+		PivotQuery query = PivotQuery.parse(SQL, "{\"rows\":[\"\",\"dept\"],\"cols\":[null]}");
+		assertEquals(Collections.singletonList("dept"), query.getDimensions());
+	}
+}
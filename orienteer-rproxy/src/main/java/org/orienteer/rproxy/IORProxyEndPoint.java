@@ -49,6 +49,62 @@ public interface IORProxyEndPoint {
 	public List<String> getProtectedParameters();
 	public void setProtectedParameters(List<String> protectedParameters);
 	
+	@DAOField(tab = "cache", defaultValue = "OFF")
+	public String getCachePolicy();
+	public void setCachePolicy(String cachePolicy);
+	
+	@DAOField(tab = "cache", min = "0", defaultValue = ""+ORProxyCache.DEFAULT_TTL)
+	public Integer getCacheTtl();
+	public void setCacheTtl(Integer cacheTtl);
+	
+	@DAOField(tab = "cache", min = "0", defaultValue = "0")
+	public Integer getCacheStaleWhileRevalidate();
+	public void setCacheStaleWhileRevalidate(Integer staleWhileRevalidate);
+	
+	@DAOField(tab = "cache", min = "0", defaultValue = ""+ORProxyCache.DEFAULT_MEMORY_SIZE)
+	public Long getCacheMemorySize();
+	public void setCacheMemorySize(Long cacheMemorySize);
+	
+	@DAOField(tab = "cache", min = "0", defaultValue = ""+ORProxyCache.DEFAULT_DISK_SIZE)
+	public Long getCacheDiskSize();
+	public void setCacheDiskSize(Long cacheDiskSize);
+	
+	@DAOField(tab = "cache", min = "0", defaultValue = ""+ORProxyCache.DEFAULT_MAX_ENTRY_SIZE)
+	public Long getCacheMaxEntrySize();
+	public void setCacheMaxEntrySize(Long cacheMaxEntrySize);
+	
+	@DAOField(tab = "connection", min = "0", defaultValue = ""+ORProxyResource.DEFAULT_CONNECT_TIMEOUT)
+	public Integer getConnectTimeout();
+	public void setConnectTimeout(Integer connectTimeout);
+	
+	@DAOField(tab = "connection", min = "0", defaultValue = ""+ORProxyResource.DEFAULT_READ_TIMEOUT)
+	public Integer getReadTimeout();
+	public void setReadTimeout(Integer readTimeout);
+	
+	@DAOField(tab = "connection", min = "0", defaultValue = ""+ORProxyResource.DEFAULT_WRITE_TIMEOUT)
+	public Integer getWriteTimeout();
+	public void setWriteTimeout(Integer writeTimeout);
+	
+	@DAOField(tab = "connection", min = "0", defaultValue = "0")
+	public Integer getCallTimeout();
+	public void setCallTimeout(Integer callTimeout);
+	
+	@DAOField(tab = "connection", min = "1", defaultValue = ""+ORProxyResource.DEFAULT_MAX_CONCURRENT_REQUESTS)
+	public Integer getMaxConcurrentRequests();
+	public void setMaxConcurrentRequests(Integer maxConcurrentRequests);
+	
+	@DAOField(tab = "connection", min = "0", defaultValue = ""+ORProxyResource.DEFAULT_MAX_IDLE_CONNECTIONS)
+	public Integer getMaxIdleConnections();
+	public void setMaxIdleConnections(Integer maxIdleConnections);
+	
+	@DAOField(tab = "connection", min = "0", defaultValue = ""+ORProxyResource.DEFAULT_KEEP_ALIVE)
+	public Integer getKeepAliveDuration();
+	public void setKeepAliveDuration(Integer keepAliveDuration);
+	
+	@DAOField(tab = "connection", defaultValue = "true")
+	public Boolean isHttp2Enabled();
+	public void setHttp2Enabled(Boolean http2Enabled);
+	
 	public String getExtensionClassName();
 	public void setExtensionClassName(String className);
 	
@@ -0,0 +1,508 @@
+package org.orienteer.rproxy;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.CacheBuilder;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * HTTP cache of responses of a single {@link IORProxyEndPoint}.
+ * Consists of bounded in-memory tier keyed by normalized URL and values of headers listed in Vary
+ * and optional bounded on-disk tier which is maintained by okhttp itself.
+ * Expired entries are revalidated by If-None-Match/If-Modified-Since and might be served stale
+ * while revalidation is in progress.
+ */
+public class ORProxyCache implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ORProxyCache.class);
+
+	private static final Set<Integer> CACHEABLE_CODES = new HashSet<>(Arrays.asList(200, 203, 204, 300, 301, 404, 405, 410, 414, 501));
+	private static final String STALE_WHILE_REVALIDATE = "stale-while-revalidate";
+	private static final long ENTRY_OVERHEAD = 128;
+
+	public static final int DEFAULT_TTL = 60;
+	public static final long DEFAULT_MEMORY_SIZE = 10L * 1024 * 1024;
+	public static final long DEFAULT_DISK_SIZE = 50L * 1024 * 1024;
+	public static final long DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+	private final String name;
+	private final ORProxyCachePolicy policy;
+	private final long ttl;
+	private final long staleWhileRevalidate;
+	private final long maxEntrySize;
+	private final Cache diskCache;
+	private final com.google.common.cache.Cache<String, Entry> memoryCache;
+	private final com.google.common.cache.Cache<String, List<String>> varyHeaders;
+	private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder memoryHits = new LongAdder();
+	private final LongAdder staleHits = new LongAdder();
+	private final LongAdder diskHits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder notModified = new LongAdder();
+	private final LongAdder modified = new LongAdder();
+
+	public ORProxyCache(IORProxyEndPoint endPoint) {
+		this.name = endPoint.getName();
+		this.policy = ORProxyCachePolicy.parse(endPoint.getCachePolicy());
+		this.ttl = TimeUnit.SECONDS.toMillis(toLong(endPoint.getCacheTtl(), DEFAULT_TTL));
+		this.staleWhileRevalidate = TimeUnit.SECONDS.toMillis(toLong(endPoint.getCacheStaleWhileRevalidate(), 0));
+		this.maxEntrySize = toLong(endPoint.getCacheMaxEntrySize(), DEFAULT_MAX_ENTRY_SIZE);
+		long memorySize = toLong(endPoint.getCacheMemorySize(), DEFAULT_MEMORY_SIZE);
+		long diskSize = toLong(endPoint.getCacheDiskSize(), DEFAULT_DISK_SIZE);
+		this.memoryCache = CacheBuilder.newBuilder()
+									.maximumWeight(memorySize)
+									.weigher((String key, Entry entry) -> (int) Math.min(Integer.MAX_VALUE, entry.weight()))
+									.build();
+		this.varyHeaders = CacheBuilder.newBuilder()
+									.maximumSize(Math.max(1, memorySize / ENTRY_OVERHEAD))
+									.build();
+		this.diskCache = diskSize > 0 ? new Cache(getDiskDirectory(endPoint), diskSize) : null;
+	}
+
+	private static long toLong(Number value, long defaultValue) {
+		return value != null ? Math.max(0, value.longValue()) : defaultValue;
+	}
+
+	private static File getDiskDirectory(IORProxyEndPoint endPoint) {
+		String dirName = endPoint.getSharedResourceName().replaceAll("[^A-Za-z0-9_\\-]", "_");
+		return new File(new File(System.getProperty("java.io.tmpdir"), "orienteer-rproxy"), dirName);
+	}
+
+	/**
+	 * Create cache for an end point
+	 * @param endPoint end point to create cache for
+	 * @return cache or null if caching is switched off for the end point
+	 */
+	public static ORProxyCache create(IORProxyEndPoint endPoint) {
+		return ORProxyCachePolicy.OFF.equals(ORProxyCachePolicy.parse(endPoint.getCachePolicy()))
+					? null : new ORProxyCache(endPoint);
+	}
+
+	/**
+	 * Configure okhttp client for using on-disk tier of the cache
+	 * @param builder builder of a client to configure
+	 * @return the same builder
+	 */
+	public OkHttpClient.Builder configure(OkHttpClient.Builder builder) {
+		if(diskCache!=null) {
+			builder.cache(diskCache);
+			if(ORProxyCachePolicy.FORCE_TTL.equals(policy)) {
+				builder.addNetworkInterceptor(chain -> {
+					Response response = chain.proceed(chain.request());
+					if(!isCacheable(chain.request()) || !CACHEABLE_CODES.contains(response.code())) return response;
+					return response.newBuilder()
+								.removeHeader("Pragma")
+								.removeHeader("Expires")
+								.header("Cache-Control", "public, max-age="+TimeUnit.MILLISECONDS.toSeconds(ttl))
+								.build();
+				});
+			}
+		}
+		return builder;
+	}
+
+	public ORProxyCachePolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Check that request can be served from the cache
+	 * @param request request to check
+	 * @return true if request is cacheable
+	 */
+	public boolean isCacheable(Request request) {
+		if(!"GET".equals(request.method()) || request.header("Range")!=null) return false;
+		return ORProxyCachePolicy.FORCE_TTL.equals(policy) || !request.cacheControl().noStore();
+	}
+
+	/**
+	 * Lookup an entry in the in-memory tier
+	 * @param request request to lookup for
+	 * @return cached entry or null
+	 */
+	public Entry get(Request request) {
+		String urlKey = normalize(request.url());
+		List<String> vary = varyHeaders.getIfPresent(urlKey);
+		if(vary==null) return null;
+		return memoryCache.getIfPresent(toKey(urlKey, vary, request.headers()));
+	}
+
+	/**
+	 * Build conditional request for revalidation of an entry
+	 * @param request original request
+	 * @param entry entry to revalidate
+	 * @return conditional request
+	 */
+	public Request conditional(Request request, Entry entry) {
+		Request.Builder builder = request.newBuilder();
+		String etag = entry.getHeaders().get("ETag");
+		String lastModified = entry.getHeaders().get("Last-Modified");
+		if(etag!=null) builder.header("If-None-Match", etag);
+		if(lastModified!=null) builder.header("If-Modified-Since", lastModified);
+		return builder.build();
+	}
+
+	/**
+	 * Store response into the in-memory tier. Body of the response is not consumed.
+	 * @param request request for which response was received
+	 * @param response response to store
+	 * @param now current time in millis
+	 * @return stored entry or null if response is not cacheable
+	 * @throws IOException if body can't be read
+	 */
+	public Entry store(Request request, Response response, long now) throws IOException {
+		if(!isCacheable(request)) return null;
+		Headers headers = response.headers();
+		long freshness = computeFreshness(policy, ttl, response.code(), headers, now);
+		if(freshness<0) return null;
+		ResponseBody body = response.body();
+		long contentLength = body!=null ? body.contentLength() : 0;
+		if(contentLength > maxEntrySize) return null;
+		byte[] bytes = body!=null ? response.peekBody(maxEntrySize + 1).bytes() : new byte[0];
+		if(bytes.length > maxEntrySize) return null;
+		Entry entry = new Entry(response.code(), response.message(), headers, bytes,
+								now + freshness, now + freshness + computeStaleWhileRevalidate(headers));
+		put(request, entry);
+		return entry;
+	}
+
+	/**
+	 * Refresh an entry by response '304 Not Modified'
+	 * @param request request for which response was received
+	 * @param entry entry to refresh
+	 * @param response response with code 304
+	 * @param now current time in millis
+	 * @return refreshed entry
+	 */
+	public Entry refresh(Request request, Entry entry, Response response, long now) {
+		notModified.increment();
+		Headers.Builder merged = entry.getHeaders().newBuilder();
+		Headers updates = response.headers();
+		for (String headerName : updates.names()) {
+			if("Content-Length".equalsIgnoreCase(headerName)
+					|| "Content-Encoding".equalsIgnoreCase(headerName)) continue;
+			merged.removeAll(headerName);
+			for (String value : updates.values(headerName)) merged.add(headerName, value);
+		}
+		Headers headers = merged.build();
+		long freshness = Math.max(0, computeFreshness(policy, ttl, entry.getCode(), headers, now));
+		Entry refreshed = new Entry(entry.getCode(), entry.getMessage(), headers, entry.getBody(),
+									now + freshness, now + freshness + computeStaleWhileRevalidate(headers));
+		put(request, refreshed);
+		return refreshed;
+	}
+
+	/**
+	 * Revalidate an entry in background. Only one revalidation per entry is performed at a time.
+	 * @param client client to use for revalidation
+	 * @param request original request
+	 * @param entry stale entry to revalidate
+	 */
+	public void revalidateAsync(OkHttpClient client, final Request request, final Entry entry) {
+		final String key = toKey(request);
+		if(!revalidating.add(key)) return;
+		client.newCall(conditional(request, entry)).enqueue(new Callback() {
+
+			@Override
+			public void onResponse(Call call, Response response) throws IOException {
+				try(Response r = response) {
+					long now = System.currentTimeMillis();
+					if(r.code()==304) refresh(request, entry, r, now);
+					else {
+						modified.increment();
+						if(store(request, r, now)==null) invalidate(request);
+					}
+				} finally {
+					revalidating.remove(key);
+				}
+			}
+
+			@Override
+			public void onFailure(Call call, IOException e) {
+				revalidating.remove(key);
+				LOG.debug("Background revalidation of '{}' failed", request.url(), e);
+			}
+		});
+	}
+
+	public void invalidate(Request request) {
+		memoryCache.invalidate(toKey(request));
+	}
+
+	public void invalidateAll() {
+		memoryCache.invalidateAll();
+		varyHeaders.invalidateAll();
+		if(diskCache!=null) {
+			try {
+				diskCache.evictAll();
+			} catch (IOException e) {
+				LOG.warn("Can't evict on-disk cache of '{}'", name, e);
+			}
+		}
+	}
+
+	private void put(Request request, Entry entry) {
+		String urlKey = normalize(request.url());
+		List<String> vary = entry.getVary();
+		varyHeaders.put(urlKey, vary);
+		memoryCache.put(toKey(urlKey, vary, request.headers()), entry);
+	}
+
+	private String toKey(Request request) {
+		String urlKey = normalize(request.url());
+		List<String> vary = varyHeaders.getIfPresent(urlKey);
+		return toKey(urlKey, vary!=null ? vary : Collections.emptyList(), request.headers());
+	}
+
+	private static String toKey(String urlKey, List<String> vary, Headers headers) {
+		if(vary.isEmpty()) return urlKey;
+		StringBuilder sb = new StringBuilder(urlKey);
+		for (String headerName : vary) {
+			sb.append('\n').append(headerName).append(':');
+			List<String> values = headers.values(headerName);
+			if(!values.isEmpty()) sb.append(String.join(",", values));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Normalize URL: query parameters are sorted to make equivalent URLs share the same entry
+	 * @param url URL to normalize
+	 * @return normalized URL
+	 */
+	static String normalize(HttpUrl url) {
+		HttpUrl.Builder builder = url.newBuilder().query(null).fragment(null);
+		TreeMap<String, List<String>> query = new TreeMap<>();
+		for (String parameter : url.queryParameterNames()) {
+			List<String> values = new ArrayList<>(url.queryParameterValues(parameter));
+			values.sort((a, b) -> a==null ? (b==null ? 0 : -1) : (b==null ? 1 : a.compareTo(b)));
+			query.put(parameter, values);
+		}
+		query.forEach((parameter, values) -> values.forEach(v -> builder.addQueryParameter(parameter, v)));
+		return builder.build().toString();
+	}
+
+	/**
+	 * Compute how long a response is fresh
+	 * @param policy caching policy
+	 * @param ttl TTL in millis for {@link ORProxyCachePolicy#FORCE_TTL}
+	 * @param code HTTP code of a response
+	 * @param headers headers of a response
+	 * @param now current time in millis
+	 * @return freshness lifetime in millis: 0 if response should be revalidated before each use
+	 * and negative value if response should not be stored at all
+	 */
+	static long computeFreshness(ORProxyCachePolicy policy, long ttl, int code, Headers headers, long now) {
+		if(ORProxyCachePolicy.OFF.equals(policy) || !CACHEABLE_CODES.contains(code)) return -1;
+		if(headers.get("Set-Cookie")!=null) return -1;
+		List<String> vary = parseVary(headers);
+		if(vary.contains("*")) return -1;
+		if(ORProxyCachePolicy.FORCE_TTL.equals(policy)) return ttl;
+		CacheControl cacheControl = CacheControl.parse(headers);
+		if(cacheControl.noStore() || cacheControl.isPrivate()) return -1;
+		boolean hasValidators = headers.get("ETag")!=null || headers.get("Last-Modified")!=null;
+		if(cacheControl.noCache()) return hasValidators ? 0 : -1;
+		Date date = headers.getDate("Date");
+		long served = date!=null ? date.getTime() : now;
+		long lifetime;
+		if(cacheControl.sMaxAgeSeconds()>=0) lifetime = TimeUnit.SECONDS.toMillis(cacheControl.sMaxAgeSeconds());
+		else if(cacheControl.maxAgeSeconds()>=0) lifetime = TimeUnit.SECONDS.toMillis(cacheControl.maxAgeSeconds());
+		else if(headers.getDate("Expires")!=null) lifetime = headers.getDate("Expires").getTime() - served;
+		else if(headers.getDate("Last-Modified")!=null) lifetime = (served - headers.getDate("Last-Modified").getTime()) / 10;
+		else lifetime = 0;
+		String age = headers.get("Age");
+		if(age!=null) {
+			try {
+				lifetime -= TimeUnit.SECONDS.toMillis(Long.parseLong(age.trim()));
+			} catch (NumberFormatException e) {
+				// Ignore malformed Age
+			}
+		}
+		lifetime = Math.max(0, lifetime);
+		return lifetime > 0 || hasValidators ? lifetime : -1;
+	}
+
+	private long computeStaleWhileRevalidate(Headers headers) {
+		if(staleWhileRevalidate>0 || ORProxyCachePolicy.FORCE_TTL.equals(policy)) return staleWhileRevalidate;
+		return parseStaleWhileRevalidate(headers);
+	}
+
+	static long parseStaleWhileRevalidate(Headers headers) {
+		for (String cacheControl : headers.values("Cache-Control")) {
+			for (String directive : cacheControl.split(",")) {
+				String[] parts = directive.trim().split("=", 2);
+				if(parts.length==2 && STALE_WHILE_REVALIDATE.equalsIgnoreCase(parts[0].trim())) {
+					try {
+						return TimeUnit.SECONDS.toMillis(Long.parseLong(parts[1].trim().replace("\"", "")));
+					} catch (NumberFormatException e) {
+						return 0;
+					}
+				}
+			}
+		}
+		return 0;
+	}
+
+	static List<String> parseVary(Headers headers) {
+		List<String> ret = new ArrayList<>();
+		for (String vary : headers.values("Vary")) {
+			for (String headerName : vary.split(",")) {
+				String trimmed = headerName.trim();
+				if(!trimmed.isEmpty()) ret.add(trimmed.toLowerCase(Locale.ROOT));
+			}
+		}
+		Collections.sort(ret);
+		return ret;
+	}
+
+	public void hit() {
+		memoryHits.increment();
+	}
+
+	public void staleHit() {
+		staleHits.increment();
+	}
+
+	public void miss(Response response) {
+		if(response.cacheResponse()!=null && response.networkResponse()==null) diskHits.increment();
+		else misses.increment();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getMemoryHits() {
+		return memoryHits.sum();
+	}
+
+	public long getStaleHits() {
+		return staleHits.sum();
+	}
+
+	public long getDiskHits() {
+		return diskHits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getNotModified() {
+		return notModified.sum();
+	}
+
+	public long getModified() {
+		return modified.sum();
+	}
+
+	public long getMemoryEntries() {
+		return memoryCache.size();
+	}
+
+	public long getDiskSize() {
+		try {
+			return diskCache!=null ? diskCache.size() : 0;
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	@Override
+	public void close() {
+		memoryCache.invalidateAll();
+		varyHeaders.invalidateAll();
+		if(diskCache!=null) {
+			try {
+				diskCache.close();
+			} catch (IOException e) {
+				LOG.warn("Can't close on-disk cache of '{}'", name, e);
+			}
+		}
+	}
+
+	/**
+	 * Cached response
+	 */
+	public static final class Entry {
+		private final int code;
+		private final String message;
+		private final Headers headers;
+		private final byte[] body;
+		private final long freshUntil;
+		private final long staleUntil;
+
+		public Entry(int code, String message, Headers headers, byte[] body, long freshUntil, long staleUntil) {
+			this.code = code;
+			this.message = message;
+			this.headers = headers;
+			this.body = body;
+			this.freshUntil = freshUntil;
+			this.staleUntil = staleUntil;
+		}
+
+		public int getCode() {
+			return code;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public Headers getHeaders() {
+			return headers;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public List<String> getVary() {
+			return parseVary(headers);
+		}
+
+		public boolean isFresh(long now) {
+			return now < freshUntil;
+		}
+
+		public boolean isServableStale(long now) {
+			return now < staleUntil;
+		}
+
+		long weight() {
+			long weight = ENTRY_OVERHEAD + body.length;
+			for (int i = 0; i < headers.size(); i++) {
+				weight += headers.name(i).length() + headers.value(i).length();
+			}
+			return weight;
+		}
+	}
+}
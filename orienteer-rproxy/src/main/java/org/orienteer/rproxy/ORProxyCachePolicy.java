@@ -0,0 +1,28 @@
+package org.orienteer.rproxy;
+
+/**
+ * Caching policy of responses of an {@link IORProxyEndPoint}
+ */
+public enum ORProxyCachePolicy {
+	/**
+	 * Responses are not cached at all
+	 */
+	OFF,
+	/**
+	 * Responses are cached according to Cache-Control, Expires, ETag and Last-Modified headers of upstream
+	 */
+	RESPECT_HEADERS,
+	/**
+	 * Successful responses are cached for configured TTL regardless of upstream headers
+	 */
+	FORCE_TTL;
+	
+	public static ORProxyCachePolicy parse(String value) {
+		if(value==null || value.trim().isEmpty()) return OFF;
+		try {
+			return valueOf(value.trim().toUpperCase().replace('-', '_'));
+		} catch (IllegalArgumentException e) {
+			return OFF;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package org.orienteer.rproxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+
+/**
+ * Metrics of reverse proxy end points: caching, requests in progress and connections to upstream
+ */
+public class ORProxyMetrics extends Collector {
+
+	@Override
+	public List<MetricFamilySamples> collect() {
+		CounterMetricFamily hits = new CounterMetricFamily("orienteer_rproxy_cache_hits", 
+				"Total number of responses served from cache per end point", Arrays.asList("endpoint", "tier"));
+		CounterMetricFamily misses = new CounterMetricFamily("orienteer_rproxy_cache_misses", 
+				"Total number of responses received from upstream per end point", Collections.singletonList("endpoint"));
+		CounterMetricFamily revalidations = new CounterMetricFamily("orienteer_rproxy_cache_revalidations", 
+				"Total number of revalidations of cached responses per end point", Arrays.asList("endpoint", "result"));
+		GaugeMetricFamily entries = new GaugeMetricFamily("orienteer_rproxy_cache_memory_entries", 
+				"Number of responses in in-memory cache per end point", Collections.singletonList("endpoint"));
+		GaugeMetricFamily diskSize = new GaugeMetricFamily("orienteer_rproxy_cache_disk_bytes", 
+				"Size of on-disk cache per end point", Collections.singletonList("endpoint"));
+		GaugeMetricFamily activeRequests = new GaugeMetricFamily("orienteer_rproxy_active_requests", 
+				"Number of requests to upstream in progress per end point", Collections.singletonList("endpoint"));
+		GaugeMetricFamily connections = new GaugeMetricFamily("orienteer_rproxy_connections", 
+				"Number of connections to upstream per end point", Arrays.asList("endpoint", "state"));
+		for (ORProxyResource resource : ORProxyResource.getMountedResources()) {
+			activeRequests.addMetric(Collections.singletonList(resource.getName()), resource.getActiveRequests());
+			int idle = resource.getIdleConnectionCount();
+			connections.addMetric(Arrays.asList(resource.getName(), "idle"), idle);
+			connections.addMetric(Arrays.asList(resource.getName(), "active"), resource.getConnectionCount() - idle);
+			ORProxyCache cache = resource.getCache();
+			if(cache==null) continue;
+			List<String> endPoint = Collections.singletonList(resource.getName());
+			hits.addMetric(Arrays.asList(resource.getName(), "memory"), cache.getMemoryHits());
+			hits.addMetric(Arrays.asList(resource.getName(), "stale"), cache.getStaleHits());
+			hits.addMetric(Arrays.asList(resource.getName(), "disk"), cache.getDiskHits());
+			misses.addMetric(endPoint, cache.getMisses());
+			revalidations.addMetric(Arrays.asList(resource.getName(), "not_modified"), cache.getNotModified());
+			revalidations.addMetric(Arrays.asList(resource.getName(), "modified"), cache.getModified());
+			entries.addMetric(endPoint, cache.getMemoryEntries());
+			diskSize.addMetric(endPoint, cache.getDiskSize());
+		}
+		List<MetricFamilySamples> mfs = new ArrayList<>();
+		mfs.add(hits);
+		mfs.add(misses);
+		mfs.add(revalidations);
+		mfs.add(entries);
+		mfs.add(diskSize);
+		mfs.add(activeRequests);
+		mfs.add(connections);
+		return mfs;
+	}
+
+}
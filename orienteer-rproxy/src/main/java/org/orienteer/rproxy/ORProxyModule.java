@@ -11,13 +11,17 @@ import org.orienteer.core.util.OSchemaHelper;
 import com.orientechnologies.orient.core.db.ODatabaseSession;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
+import io.prometheus.client.CollectorRegistry;
+
 /**
  * {@link IOrienteerModule} for 'orienteer-rproxy' module
  */
 public class ORProxyModule extends AbstractOrienteerModule{
+	
+	private ORProxyMetrics metrics;
 
 	protected ORProxyModule() {
-		super("orienteer-rproxy", 2);
+		super("orienteer-rproxy", 4);
 	}
 	
 	@Override
@@ -37,11 +41,16 @@ public class ORProxyModule extends AbstractOrienteerModule{
 	public void onInitialize(OrienteerWebApplication app, ODatabaseSession db) {
 		app.getOrientDbSettings().addORecordHooks(ORProxyHook.class);
 		iterateOverEndPounts(db, endPoint -> ORProxyResource.mount(app, endPoint));
+		metrics = new ORProxyMetrics().register();
 	}
 	
 	@Override
 	public void onDestroy(OrienteerWebApplication app, ODatabaseSession db) {
 		app.getOrientDbSettings().removeORecordHooks(ORProxyHook.class);
+		if(metrics!=null) {
+			CollectorRegistry.defaultRegistry.unregister(metrics);
+			metrics = null;
+		}
 		iterateOverEndPounts(db, endPoint -> ORProxyResource.unmount(app, endPoint));
 	}
 	
@@ -1,68 +1,505 @@
 package org.orienteer.rproxy;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.wicket.SharedResources;
-import org.apache.wicket.core.util.lang.WicketObjects;
 import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.request.cycle.IRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.request.resource.SharedResourceReference;
 import org.apache.wicket.util.string.StringValue;
 import org.apache.wicket.util.string.Strings;
-import org.apache.wicket.util.string.interpolator.VariableInterpolator;
 import org.orienteer.core.OrienteerWebApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.Headers;
 import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
 import okhttp3.Request.Builder;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
 import ru.ydn.wicket.wicketorientdb.LazyAuthorizationRequestCycleListener;
 import ru.ydn.wicket.wicketorientdb.rest.ReverseProxyResource;
 
 /**
- * {@link ReverseProxyResource} configured by ORProxyEndPoint
+ * {@link ReverseProxyResource} configured by ORProxyEndPoint.
+ * Responses of upstream are cached according to {@link ORProxyCachePolicy} of the end point
+ * and streamed to a client through fixed size buffer otherwise.
  */
 public final class ORProxyResource extends ReverseProxyResource {
 	
 	private static final long serialVersionUID = 1L;
-	private String baseUrl;
-	private String username;
-	private String password;
-	private Map<String, String> cookies;
-	private Map<String, String> headers;
-	private List<String> protectedParameters;
-	private Boolean loggingEnabled;
+	private static final Logger LOG = LoggerFactory.getLogger(ORProxyResource.class);
+	
+	public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+	public static final int DEFAULT_READ_TIMEOUT = 30000;
+	public static final int DEFAULT_WRITE_TIMEOUT = 30000;
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 64;
+	public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+	public static final int DEFAULT_KEEP_ALIVE = 300000;
+	
+	private static final int BUFFER_SIZE = 8 * 1024;
+	
+	private static final Set<String> HOP_BY_HOP_HEADERS = new HashSet<>(Arrays.asList(
+			"connection", "keep-alive", "proxy-authenticate", "proxy-authorization",
+			"te", "trailer", "trailers", "transfer-encoding", "upgrade"));
+	private static final Set<String> SKIP_REQUEST_HEADERS = new HashSet<>(Arrays.asList(
+			"host", "cookie", "authorization", "content-length"));
+	private static final Set<String> SKIP_RESPONSE_HEADERS = new HashSet<>(Arrays.asList(
+			"content-type", "content-length", "date", "server"));
+	
+	private static final Map<String, ORProxyResource> MOUNTED = new ConcurrentHashMap<>();
+	
+	private final String name;
+	private final String connectionKey;
+	private volatile Templates templates;
 	
 	private IORProxyExtension extension;
 	
+	private transient ORProxyCache cache;
+	private transient OkHttpClient client;
+	private transient Semaphore concurrency;
+	private transient int maxConcurrentRequests;
+	private transient int acquireTimeout;
+	
+	/**
+	 * Precompiled settings of an end point which are used for every request.
+	 * Replaced as a whole when the end point is changed.
+	 */
+	private static final class Templates implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final ORProxyTemplate baseUrl;
+		private final transient HttpUrl constantBaseUrl;
+		private final Map<String, ORProxyTemplate> headers;
+		private final String cookie;
+		private final String authorization;
+		private final List<String> protectedParameters;
+		private final boolean loggingEnabled;
+		
+		private Templates(IORProxyEndPoint endPoint) {
+			this.baseUrl = ORProxyTemplate.compile(endPoint.getBaseUrl());
+			this.constantBaseUrl = baseUrl!=null && baseUrl.isConstant() ? HttpUrl.get(baseUrl.toString()) : null;
+			Map<String, ORProxyTemplate> headers = new LinkedHashMap<>();
+			if(endPoint.getHeaders()!=null) {
+				endPoint.getHeaders().forEach((k, v) -> headers.put(k, ORProxyTemplate.compile(v)));
+			}
+			this.headers = Collections.unmodifiableMap(headers);
+			Map<String, String> cookies = endPoint.getCookies();
+			if(cookies!=null && !cookies.isEmpty()) {
+				StringBuilder sb = new StringBuilder();
+				for (Map.Entry<String, String> cookiesItem : cookies.entrySet()) {
+					sb.append(cookiesItem.getKey()).append('=').append(cookiesItem.getValue()).append("; ");
+				}
+				this.cookie = sb.toString();
+			} else {
+				this.cookie = null;
+			}
+			String username = endPoint.getUsername();
+			String password = endPoint.getPassword();
+			this.authorization = !Strings.isEmpty(username) && !Strings.isEmpty(password)
+										? Credentials.basic(username, password) : null;
+			this.protectedParameters = endPoint.getProtectedParameters();
+			this.loggingEnabled = Boolean.TRUE.equals(endPoint.isLoggingEnabled());
+		}
+	}
+	
 	private ORProxyResource(IORProxyEndPoint endPoint) {
-		this.baseUrl = endPoint.getBaseUrl();
-		this.username = endPoint.getUsername();
-		this.password = endPoint.getPassword();
-		this.cookies = new HashMap<String, String>(endPoint.getCookies());
-		this.headers = new HashMap<String, String>(endPoint.getHeaders());
-		this.protectedParameters = endPoint.getProtectedParameters();
-		this.loggingEnabled = endPoint.isLoggingEnabled();
+		this.name = endPoint.getName();
+		this.connectionKey = toConnectionKey(endPoint);
+		this.templates = new Templates(endPoint);
 		Class<? extends IORProxyExtension> extension = endPoint.getExtensionClass();
 		if(extension!=null) {
 			try {
 				this.extension = OrienteerWebApplication.get().getServiceInstance(extension);
 				this.extension.init(endPoint, this);
 			} catch (Exception e) {
-			} 
+			}
+		}
+		this.cache = ORProxyCache.create(endPoint);
+		this.maxConcurrentRequests = Math.max(1, valueOf(endPoint.getMaxConcurrentRequests(), DEFAULT_MAX_CONCURRENT_REQUESTS));
+		this.concurrency = new Semaphore(maxConcurrentRequests, true);
+		this.acquireTimeout = valueOf(endPoint.getConnectTimeout(), DEFAULT_CONNECT_TIMEOUT);
+		this.client = createClient(endPoint, cache, maxConcurrentRequests);
+	}
+	
+	private static int valueOf(Integer value, int defaultValue) {
+		return value!=null && value>=0 ? value : defaultValue;
+	}
+	
+	private static OkHttpClient createClient(IORProxyEndPoint endPoint, ORProxyCache cache, int maxConcurrentRequests) {
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequests(maxConcurrentRequests);
+		dispatcher.setMaxRequestsPerHost(maxConcurrentRequests);
+		OkHttpClient.Builder builder = new OkHttpClient.Builder()
+				.dispatcher(dispatcher)
+				.connectionPool(new ConnectionPool(valueOf(endPoint.getMaxIdleConnections(), DEFAULT_MAX_IDLE_CONNECTIONS),
+												   valueOf(endPoint.getKeepAliveDuration(), DEFAULT_KEEP_ALIVE), TimeUnit.MILLISECONDS))
+				.protocols(Boolean.FALSE.equals(endPoint.isHttp2Enabled())
+								? Collections.singletonList(Protocol.HTTP_1_1)
+								: Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+				.connectTimeout(valueOf(endPoint.getConnectTimeout(), DEFAULT_CONNECT_TIMEOUT), TimeUnit.MILLISECONDS)
+				.readTimeout(valueOf(endPoint.getReadTimeout(), DEFAULT_READ_TIMEOUT), TimeUnit.MILLISECONDS)
+				.writeTimeout(valueOf(endPoint.getWriteTimeout(), DEFAULT_WRITE_TIMEOUT), TimeUnit.MILLISECONDS)
+				.callTimeout(valueOf(endPoint.getCallTimeout(), 0), TimeUnit.MILLISECONDS)
+				.followRedirects(false)
+				.followSslRedirects(false);
+		if(cache!=null) cache.configure(builder);
+		return builder.build();
+	}
+	
+	/**
+	 * Key of settings which require recreation of the resource: client, cache and mount path
+	 */
+	private static String toConnectionKey(IORProxyEndPoint endPoint) {
+		return Objects.toString(Arrays.asList(endPoint.getMountPath(), endPoint.getExtensionClassName(),
+				endPoint.getCachePolicy(), endPoint.getCacheTtl(), endPoint.getCacheStaleWhileRevalidate(),
+				endPoint.getCacheMemorySize(), endPoint.getCacheDiskSize(), endPoint.getCacheMaxEntrySize(),
+				endPoint.getConnectTimeout(), endPoint.getReadTimeout(), endPoint.getWriteTimeout(), endPoint.getCallTimeout(),
+				endPoint.getMaxConcurrentRequests(), endPoint.getMaxIdleConnections(), endPoint.getKeepAliveDuration(),
+				endPoint.isHttp2Enabled()));
+	}
+	
+	@Override
+	protected ResourceResponse newResourceResponse(Attributes attributes) {
+		try {
+			Request request = createRequest(attributes);
+			boolean cacheable = cache!=null && cache.isCacheable(request);
+			ORProxyCache.Entry cached = null;
+			if(cacheable) {
+				long now = System.currentTimeMillis();
+				cached = cache.get(request);
+				if(cached!=null) {
+					if(cached.isFresh(now)) {
+						cache.hit();
+						return toResourceResponse(attributes, cached);
+					} else if(cached.isServableStale(now)) {
+						cache.staleHit();
+						cache.revalidateAsync(client, request, cached);
+						return toResourceResponse(attributes, cached);
+					}
+				}
+			}
+			if(!concurrency.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+				LOG.warn("Too many concurrent requests to '{}'", name);
+				return error(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many concurrent requests");
+			}
+			boolean streaming = false;
+			try {
+				if(!cacheable) {
+					ResourceResponse ret = toResourceResponse(attributes, client.newCall(request).execute());
+					streaming = true;
+					return ret;
+				}
+				Response response = client.newCall(cached!=null ? cache.conditional(request, cached) : request).execute();
+				try {
+					cache.miss(response);
+					long now = System.currentTimeMillis();
+					if(cached!=null && response.code()==HttpServletResponse.SC_NOT_MODIFIED) {
+						return toResourceResponse(attributes, cache.refresh(request, cached, response, now));
+					}
+					ORProxyCache.Entry stored = cache.store(request, response, now);
+					if(stored==null) {
+						if(cached!=null) cache.invalidate(request);
+						ResourceResponse ret = toResourceResponse(attributes, response);
+						streaming = true;
+						return ret;
+					}
+					return toResourceResponse(attributes, stored);
+				} finally {
+					//Streamed response is closed after writing of the body
+					if(!streaming) response.close();
+				}
+			} finally {
+				if(!streaming) concurrency.release();
+			}
+		} catch (IOException e) {
+			LOG.error("Can't proxy request to '{}'", name, e);
+			return error(HttpServletResponse.SC_BAD_GATEWAY, e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return error(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+		}
+	}
+	
+	private static ResourceResponse error(int code, String message) {
+		ResourceResponse ret = new ResourceResponse();
+		ret.setError(code, message);
+		return ret;
+	}
+	
+	protected Request createRequest(Attributes attributes) throws IOException {
+		HttpUrl.Builder urlBuilder = getBaseUrl(attributes).newBuilder();
+		PageParameters pageParameters = attributes.getParameters();
+		for(int i=0; i<pageParameters.getIndexedCount(); i++) {
+			urlBuilder.addPathSegment(pageParameters.get(i).toString(""));
+		}
+		IRequestParameters queryParameters = attributes.getRequest().getQueryParameters();
+		for (String parameter : queryParameters.getParameterNames()) {
+			for (StringValue value : queryParameters.getParameterValues(parameter)) {
+				urlBuilder.addQueryParameter(parameter, value.toString());
+			}
+		}
+		onMapUrl(attributes, urlBuilder);
+		
+		final HttpServletRequest servletRequest = (HttpServletRequest) attributes.getRequest().getContainerRequest();
+		Headers.Builder headersBuilder = new Headers.Builder();
+		Enumeration<String> headerNames = servletRequest.getHeaderNames();
+		while(headerNames.hasMoreElements()) {
+			String headerName = headerNames.nextElement();
+			String lowerCaseName = headerName.toLowerCase(Locale.ROOT);
+			if(HOP_BY_HOP_HEADERS.contains(lowerCaseName) || SKIP_REQUEST_HEADERS.contains(lowerCaseName)) continue;
+			for (String value : Collections.list(servletRequest.getHeaders(headerName))) {
+				headersBuilder.add(headerName, value);
+			}
+		}
+		onMapHeaders(attributes, headersBuilder);
+		
+		String method = servletRequest.getMethod();
+		Request.Builder requestBuilder = new Request.Builder()
+										.url(urlBuilder.build())
+										.headers(headersBuilder.build())
+										.method(method, hasRequestBody(servletRequest) ? newRequestBody(servletRequest) : null);
+		onMapRequest(attributes, requestBuilder);
+		return requestBuilder.build();
+	}
+	
+	private static boolean hasRequestBody(HttpServletRequest servletRequest) {
+		String method = servletRequest.getMethod();
+		if("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method)) return true;
+		return servletRequest.getContentLength()>0 || servletRequest.getHeader("Transfer-Encoding")!=null;
+	}
+	
+	private static RequestBody newRequestBody(final HttpServletRequest servletRequest) {
+		final String contentType = servletRequest.getContentType();
+		return new RequestBody() {
+			
+			@Override
+			public MediaType contentType() {
+				return contentType!=null ? MediaType.parse(contentType) : null;
+			}
+			
+			@Override
+			public long contentLength() throws IOException {
+				return servletRequest.getContentLength();
+			}
+			
+			@Override
+			public void writeTo(BufferedSink sink) throws IOException {
+				try(Source source = Okio.source(servletRequest.getInputStream())) {
+					sink.writeAll(source);
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Stream response of upstream to a client. Response is closed and concurrency permit is released
+	 * as soon as body was written or, if body was not written at all, on detach of the request cycle.
+	 */
+	private ResourceResponse toResourceResponse(Attributes attributes, final Response response) {
+		final boolean logging = isDebugLoggingEnabled(attributes);
+		final StreamingPermit permit = new StreamingPermit(response);
+		RequestCycle cycle = RequestCycle.get();
+		if(cycle!=null) cycle.getListeners().add(permit);
+		ResourceResponse ret = new ResourceResponse();
+		ret.setStatusCode(response.code());
+		String contentType = response.header("Content-Type");
+		if(contentType!=null) ret.setContentType(contentType);
+		final ResponseBody body = response.body();
+		if(body!=null && body.contentLength()>=0) ret.setContentLength(body.contentLength());
+		ret.setWriteCallback(new WriteCallback() {
+			
+			@Override
+			public void writeData(Attributes attributes) throws IOException {
+				long written = 0;
+				try(Response r = response) {
+					WebResponse webResponse = (WebResponse) attributes.getResponse();
+					copyHeaders(r.headers(), webResponse);
+					if(body!=null) written = copy(body.byteStream(), webResponse.getOutputStream());
+				} finally {
+					permit.release();
+					if(logging) {
+						LOG.info("Proxied {} {} -> {} ({} bytes)", response.request().method(), response.request().url(),
+																	response.code(), written);
+					}
+				}
+			}
+		});
+		return ret;
+	}
+	
+	/**
+	 * Concurrency permit held by a streamed response of upstream. Released only once together with closing of the response
+	 */
+	private final class StreamingPermit implements IRequestCycleListener {
+		private final Response response;
+		private final AtomicBoolean released = new AtomicBoolean();
+		
+		private StreamingPermit(Response response) {
+			this.response = response;
+		}
+		
+		public void release() {
+			if(released.compareAndSet(false, true)) {
+				try {
+					response.close();
+				} finally {
+					concurrency.release();
+				}
+			}
+		}
+		
+		@Override
+		public void onDetach(RequestCycle cycle) {
+			release();
+		}
+	}
+	
+	private static long copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long written = 0;
+		int read;
+		while((read = in.read(buffer))>=0) {
+			out.write(buffer, 0, read);
+			written+=read;
+		}
+		return written;
+	}
+	
+	private ResourceResponse toResourceResponse(Attributes attributes, ORProxyCache.Entry entry) {
+		String etag = entry.getHeaders().get("ETag");
+		String ifNoneMatch = ((WebRequest) attributes.getRequest()).getHeader("If-None-Match");
+		if(etag!=null && ifNoneMatch!=null && (ifNoneMatch.contains(etag) || "*".equals(ifNoneMatch.trim()))) {
+			return toResourceResponse(HttpServletResponse.SC_NOT_MODIFIED, entry.getHeaders(), null, null);
+		}
+		return toResourceResponse(entry.getCode(), entry.getHeaders(), entry.getBody(), "HIT");
+	}
+	
+	private static ResourceResponse toResourceResponse(int code, final Headers headers, final byte[] body, final String cacheStatus) {
+		ResourceResponse ret = new ResourceResponse();
+		ret.setStatusCode(code);
+		String contentType = headers.get("Content-Type");
+		if(contentType!=null) ret.setContentType(contentType);
+		if(body!=null) ret.setContentLength(body.length);
+		ret.setWriteCallback(new WriteCallback() {
+			
+			@Override
+			public void writeData(Attributes attributes) throws IOException {
+				WebResponse webResponse = (WebResponse) attributes.getResponse();
+				copyHeaders(headers, webResponse);
+				if(cacheStatus!=null) webResponse.setHeader("X-Cache", cacheStatus);
+				if(body!=null) webResponse.write(body);
+			}
+		});
+		return ret;
+	}
+	
+	private static void copyHeaders(Headers headers, WebResponse webResponse) {
+		for (String headerName : headers.names()) {
+			String lowerCaseName = headerName.toLowerCase(Locale.ROOT);
+			if(HOP_BY_HOP_HEADERS.contains(lowerCaseName) || SKIP_RESPONSE_HEADERS.contains(lowerCaseName)) continue;
+			boolean first = true;
+			for (String value : headers.values(headerName)) {
+				if(first) webResponse.setHeader(headerName, value);
+				else webResponse.addHeader(headerName, value);
+				first = false;
+			}
+		}
+	}
+	
+	@Override
+	protected void configureCache(ResourceResponse data, Attributes attributes) {
+		//Caching headers are provided by upstream
+	}
+	
+	protected OkHttpClient getClient() {
+		return client;
+	}
+	
+	public ORProxyCache getCache() {
+		return cache;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return number of requests to upstream which are currently in progress
+	 */
+	public int getActiveRequests() {
+		return maxConcurrentRequests - concurrency.availablePermits();
+	}
+	
+	public int getConnectionCount() {
+		return client.connectionPool().connectionCount();
+	}
+	
+	public int getIdleConnectionCount() {
+		return client.connectionPool().idleConnectionCount();
+	}
+	
+	private void close() {
+		if(cache!=null) cache.close();
+		if(client!=null) {
+			client.dispatcher().executorService().shutdown();
+			client.connectionPool().evictAll();
 		}
 	}
 	
+	/**
+	 * @return currently mounted resources
+	 */
+	public static Collection<ORProxyResource> getMountedResources() {
+		return Collections.unmodifiableCollection(MOUNTED.values());
+	}
+	
 	@Override
 	protected HttpUrl getBaseUrl(Attributes attributes) {
-		return HttpUrl.get(interpolate(baseUrl, attributes));
+		Templates templates = this.templates;
+		if(templates.constantBaseUrl!=null) return templates.constantBaseUrl;
+		return HttpUrl.get(interpolate(templates.baseUrl, attributes));
 	}
 	
 	@Override
 	protected void onMapUrl(Attributes attributes, HttpUrl.Builder builder) {
+		List<String> protectedParameters = templates.protectedParameters;
 		if(protectedParameters!=null) {
 			for (String parameter : protectedParameters) {
 				builder.removeAllQueryParameters(parameter);
@@ -73,18 +510,13 @@ public final class ORProxyResource extends ReverseProxyResource {
 	
 	@Override
 	protected void onMapHeaders(Attributes attributes, Headers.Builder builder) {
-		for (Map.Entry<String, String> headerItem : headers.entrySet()) {
+		Templates templates = this.templates;
+		for (Map.Entry<String, ORProxyTemplate> headerItem : templates.headers.entrySet()) {
 			builder.add(headerItem.getKey(), interpolate(headerItem.getValue(), attributes));
 		}
-		if(!cookies.isEmpty()) {
-			StringBuilder sb = new StringBuilder();
-			for (Map.Entry<String, String> cookiesItem : cookies.entrySet()) {
-				sb.append(cookiesItem.getKey()).append('=').append(cookiesItem.getValue()).append("; ");
-			}
-			builder.add("Cookie", sb.toString());
-		}
-		if(!Strings.isEmpty(username) && !Strings.isEmpty(password))
-			builder.add(LazyAuthorizationRequestCycleListener.AUTHORIZATION_HEADER, Credentials.basic(username, password));
+		if(templates.cookie!=null) builder.add("Cookie", templates.cookie);
+		if(templates.authorization!=null)
+			builder.add(LazyAuthorizationRequestCycleListener.AUTHORIZATION_HEADER, templates.authorization);
 		if(extension!=null) extension.onMapHeaders(attributes, builder);
 	}
 	
@@ -95,32 +527,28 @@ public final class ORProxyResource extends ReverseProxyResource {
 	
 	@Override
 	protected boolean isDebugLoggingEnabled(Attributes attributes) {
-		return Boolean.TRUE.equals(loggingEnabled) || super.isDebugLoggingEnabled(attributes);
+		return templates.loggingEnabled || super.isDebugLoggingEnabled(attributes);
 	}
 	
-	private String interpolate(final String template, final Attributes attributes) {
-		if(template==null || !template.contains("${")) return template;
-		return new VariableInterpolator(template) {
-			
-			@Override
-			protected String getValue(String variableName) {
-				if(variableName==null) return null;
-				PageParameters pageParameters = attributes.getParameters();
-				if(pageParameters.getPosition(variableName)>=0) {
-					return pageParameters.get(variableName).toString();
-				}
-				IRequestParameters requestParamters = attributes.getRequest().getRequestParameters();
-				StringValue sv = requestParamters.getParameterValue(variableName);
-				if(!sv.isNull()) return sv.toString();
-				try {
-					int index = Integer.parseInt(variableName);
-					return pageParameters.get(index).toString();
-				} catch (NumberFormatException e) {
-					//It's not number and it's OK
-				}
-				return null;
+	private String interpolate(final ORProxyTemplate template, final Attributes attributes) {
+		if(template==null) return null;
+		return template.render(variableName -> {
+			if(variableName==null) return null;
+			PageParameters pageParameters = attributes.getParameters();
+			if(pageParameters.getPosition(variableName)>=0) {
+				return pageParameters.get(variableName).toString();
+			}
+			IRequestParameters requestParamters = attributes.getRequest().getRequestParameters();
+			StringValue sv = requestParamters.getParameterValue(variableName);
+			if(!sv.isNull()) return sv.toString();
+			try {
+				int index = Integer.parseInt(variableName);
+				return pageParameters.get(index).toString();
+			} catch (NumberFormatException e) {
+				//It's not number and it's OK
 			}
-		}.toString();
+			return null;
+		});
 	}
 	
 	public static boolean mount(IORProxyEndPoint endPoint) {
@@ -130,14 +558,22 @@ public final class ORProxyResource extends ReverseProxyResource {
 	public static boolean mount(OrienteerWebApplication app, IORProxyEndPoint endPoint) {
 		return mount(app, endPoint, true);
 	}
-
+	
 	public static boolean mount(OrienteerWebApplication app, IORProxyEndPoint endPoint, boolean remount) {
 		SharedResources sharedResources = app.getSharedResources();
 		if(sharedResources.get(endPoint.getSharedResourceName())!=null) {
 			if(!remount) return false;
+			ORProxyResource mounted = MOUNTED.get(endPoint.getSharedResourceName());
+			if(mounted!=null && mounted.connectionKey.equals(toConnectionKey(endPoint))) {
+				//Only templates were changed: keep connections and cache
+				mounted.templates = new Templates(endPoint);
+				return true;
+			}
 			unmount(app, endPoint);
 		}
-		app.getSharedResources().add(endPoint.getSharedResourceName(), new ORProxyResource(endPoint));
+		ORProxyResource resource = new ORProxyResource(endPoint);
+		app.getSharedResources().add(endPoint.getSharedResourceName(), resource);
+		MOUNTED.put(endPoint.getSharedResourceName(), resource);
 	    app.mountResource(endPoint.getMountPath(), new SharedResourceReference(endPoint.getSharedResourceName()));
 	    return true;
 	}
@@ -150,6 +586,8 @@ public final class ORProxyResource extends ReverseProxyResource {
 		SharedResources sharedResources = app.getSharedResources();
 		ResourceReference reference = sharedResources.get(endPoint.getSharedResourceName());
 		if(reference!=null) sharedResources.remove(new ResourceReference.Key(reference));
+		ORProxyResource resource = MOUNTED.remove(endPoint.getSharedResourceName());
+		if(resource!=null) resource.close();
 		app.unmount(endPoint.getMountPath());
 		return true;
 	}
@@ -0,0 +1,73 @@
+package org.orienteer.rproxy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Precompiled template with '${variable}' placeholders.
+ * Template is parsed once, so rendering doesn't scan template text on every request.
+ * Placeholders without value are left as is.
+ */
+public final class ORProxyTemplate implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String template;
+	private final String[] literals;
+	private final String[] variables;
+
+	private ORProxyTemplate(String template, String[] literals, String[] variables) {
+		this.template = template;
+		this.literals = literals;
+		this.variables = variables;
+	}
+
+	/**
+	 * Parse template
+	 * @param template template to parse
+	 * @return precompiled template or null if template is null
+	 */
+	public static ORProxyTemplate compile(String template) {
+		if(template==null) return null;
+		List<String> literals = new ArrayList<>();
+		List<String> variables = new ArrayList<>();
+		int from = 0;
+		int start;
+		while((start = template.indexOf("${", from))>=0) {
+			int end = template.indexOf('}', start + 2);
+			if(end<0) break;
+			literals.add(template.substring(from, start));
+			variables.add(template.substring(start + 2, end));
+			from = end + 1;
+		}
+		literals.add(template.substring(from));
+		return new ORProxyTemplate(template, literals.toArray(new String[literals.size()]),
+										variables.toArray(new String[variables.size()]));
+	}
+
+	/**
+	 * @return true if template doesn't contain any placeholders
+	 */
+	public boolean isConstant() {
+		return variables.length==0;
+	}
+
+	public String render(Function<String, String> resolver) {
+		if(isConstant()) return template;
+		StringBuilder sb = new StringBuilder(template.length() + 16);
+		for(int i=0; i<variables.length; i++) {
+			sb.append(literals[i]);
+			String value = resolver.apply(variables[i]);
+			if(value!=null) sb.append(value);
+			else sb.append("${").append(variables[i]).append('}');
+		}
+		return sb.append(literals[variables.length]).toString();
+	}
+
+	@Override
+	public String toString() {
+		return template;
+	}
+}
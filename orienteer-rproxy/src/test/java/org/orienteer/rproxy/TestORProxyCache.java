@@ -0,0 +1,73 @@
+package org.orienteer.rproxy;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+
+public class TestORProxyCache {
+	
+	private static final long NOW = System.currentTimeMillis();
+	
+	@Test
+	public void testNormalize() {
+		assertEquals(ORProxyCache.normalize(HttpUrl.get("http://Example.com/a?b=2&a=1&b=1")),
+					 ORProxyCache.normalize(HttpUrl.get("http://example.com:80/a?a=1&b=1&b=2#fragment")));
+		assertNotEquals(ORProxyCache.normalize(HttpUrl.get("http://example.com/a?a=1")),
+					 ORProxyCache.normalize(HttpUrl.get("http://example.com/a?a=2")));
+	}
+	
+	@Test
+	public void testFreshnessRespectHeaders() {
+		assertEquals(TimeUnit.SECONDS.toMillis(120), freshness(200, "Cache-Control", "max-age=120"));
+		assertEquals(TimeUnit.SECONDS.toMillis(60), freshness(200, "Cache-Control", "max-age=120, s-maxage=60"));
+		assertEquals(TimeUnit.SECONDS.toMillis(100), freshness(200, "Cache-Control", "max-age=120", "Age", "20"));
+		assertEquals(0, freshness(200, "Cache-Control", "no-cache", "ETag", "\"v1\""));
+		assertEquals(0, freshness(200, "ETag", "\"v1\""));
+		assertTrue(freshness(200, "Cache-Control", "no-cache") < 0);
+		assertTrue(freshness(200, "Cache-Control", "no-store, max-age=120") < 0);
+		assertTrue(freshness(200, "Cache-Control", "private, max-age=120") < 0);
+		assertTrue(freshness(200, "Cache-Control", "max-age=120", "Vary", "*") < 0);
+		assertTrue(freshness(200, "Cache-Control", "max-age=120", "Set-Cookie", "a=b") < 0);
+		assertTrue(freshness(500, "Cache-Control", "max-age=120") < 0);
+		assertTrue(freshness(200) < 0);
+	}
+	
+	@Test
+	public void testFreshnessForceTtl() {
+		Headers headers = Headers.of("Cache-Control", "no-store");
+		assertEquals(5000, ORProxyCache.computeFreshness(ORProxyCachePolicy.FORCE_TTL, 5000, 200, headers, NOW));
+		assertTrue(ORProxyCache.computeFreshness(ORProxyCachePolicy.FORCE_TTL, 5000, 500, headers, NOW) < 0);
+		assertTrue(ORProxyCache.computeFreshness(ORProxyCachePolicy.OFF, 5000, 200, headers, NOW) < 0);
+	}
+	
+	@Test
+	public void testStaleWhileRevalidate() {
+		assertEquals(TimeUnit.SECONDS.toMillis(30), 
+				ORProxyCache.parseStaleWhileRevalidate(Headers.of("Cache-Control", "max-age=60, stale-while-revalidate=30")));
+		assertEquals(0, ORProxyCache.parseStaleWhileRevalidate(Headers.of("Cache-Control", "max-age=60")));
+	}
+	
+	@Test
+	public void testVary() {
+		assertEquals(Arrays.asList("accept", "accept-encoding"), 
+				ORProxyCache.parseVary(Headers.of("Vary", "Accept-Encoding, Accept")));
+	}
+	
+	@Test
+	public void testPolicyParsing() {
+		assertEquals(ORProxyCachePolicy.RESPECT_HEADERS, ORProxyCachePolicy.parse("respect-headers"));
+		assertEquals(ORProxyCachePolicy.FORCE_TTL, ORProxyCachePolicy.parse("FORCE_TTL"));
+		assertEquals(ORProxyCachePolicy.OFF, ORProxyCachePolicy.parse(null));
+		assertEquals(ORProxyCachePolicy.OFF, ORProxyCachePolicy.parse("unknown"));
+	}
+	
+	private static long freshness(int code, String... headers) {
+		return ORProxyCache.computeFreshness(ORProxyCachePolicy.RESPECT_HEADERS, 0, code, Headers.of(headers), NOW);
+	}
+}
@@ -0,0 +1,71 @@
+package org.orienteer.rproxy;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.core.dao.DAO;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.junit.Sudo;
+
+import com.google.inject.Inject;
+
+@RunWith(OrienteerTestRunner.class)
+public class TestORProxyResource {
+
+	private static final String MOUNT_PATH = "/rproxy-test";
+	private static final int MAX_CONCURRENT_REQUESTS = 2;
+
+	@Inject
+	private WicketTester tester;
+
+	private IORProxyEndPoint endPoint;
+
+	@Before
+	@Sudo
+	public void init() throws IOException {
+		int port;
+		try(ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		endPoint = DAO.create(IORProxyEndPoint.class);
+		endPoint.setName("refused");
+		endPoint.setMountPath(MOUNT_PATH);
+		endPoint.setBaseUrl("http://127.0.0.1:"+port);
+		endPoint.setMaxConcurrentRequests(MAX_CONCURRENT_REQUESTS);
+		endPoint.setConnectTimeout(1000);
+		DAO.save(endPoint);
+	}
+
+	@After
+	@Sudo
+	public void destroy() {
+		DAO.asDocument(endPoint).delete();
+	}
+
+	@Test
+	public void testPermitIsReleasedIfUpstreamRefusesConnection() {
+		ORProxyResource resource = getResource();
+		assertNotNull(resource);
+		for(int i=0; i<MAX_CONCURRENT_REQUESTS*2; i++) {
+			tester.executeUrl(MOUNT_PATH.substring(1));
+			assertEquals(HttpServletResponse.SC_BAD_GATEWAY, tester.getLastResponse().getStatus());
+			assertEquals(0, resource.getActiveRequests());
+		}
+	}
+
+	private ORProxyResource getResource() {
+		for (ORProxyResource resource : ORProxyResource.getMountedResources()) {
+			if(resource.getName().equals(endPoint.getName())) return resource;
+		}
+		return null;
+	}
+}
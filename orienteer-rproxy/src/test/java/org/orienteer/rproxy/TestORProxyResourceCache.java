@@ -0,0 +1,123 @@
+package org.orienteer.rproxy;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.orienteer.core.dao.DAO;
+import org.orienteer.junit.OrienteerTestRunner;
+import org.orienteer.junit.Sudo;
+
+import com.google.inject.Inject;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+@RunWith(OrienteerTestRunner.class)
+public class TestORProxyResourceCache {
+
+	private static final String MOUNT_PATH = "/rproxy-cache-test";
+
+	@Inject
+	private WicketTester tester;
+
+	private MockWebServer server;
+	private IORProxyEndPoint endPoint;
+
+	@Before
+	@Sudo
+	public void init() throws IOException {
+		server = new MockWebServer();
+		server.start();
+		endPoint = DAO.create(IORProxyEndPoint.class);
+		endPoint.setName("cached");
+		endPoint.setMountPath(MOUNT_PATH);
+		endPoint.setBaseUrl(server.url("/").toString());
+		endPoint.setCachePolicy(ORProxyCachePolicy.RESPECT_HEADERS.name());
+		//Only in-memory tier is checked: on-disk tier is maintained by okhttp
+		endPoint.setCacheDiskSize(0L);
+		endPoint.setHttp2Enabled(false);
+		DAO.save(endPoint);
+	}
+
+	@After
+	@Sudo
+	public void destroy() throws IOException {
+		DAO.asDocument(endPoint).delete();
+		server.shutdown();
+	}
+
+	@Test
+	public void testMissAndHit() {
+		server.enqueue(new MockResponse().setBody("fresh").setHeader("Cache-Control", "max-age=60"));
+
+		MockHttpServletResponse response = get();
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals("fresh", response.getDocument());
+		assertNull(response.getHeader("X-Cache"));
+
+		response = get();
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals("fresh", response.getDocument());
+		assertEquals("HIT", response.getHeader("X-Cache"));
+		assertEquals(1, server.getRequestCount());
+
+		ORProxyCache cache = getResource().getCache();
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getMemoryHits());
+	}
+
+	@Test
+	public void testRevalidationByNotModified() throws InterruptedException {
+		server.enqueue(new MockResponse().setBody("content")
+										.setHeader("Cache-Control", "no-cache")
+										.setHeader("ETag", "\"v1\""));
+		server.enqueue(new MockResponse().setResponseCode(HttpServletResponse.SC_NOT_MODIFIED)
+										.setHeader("ETag", "\"v1\""));
+
+		assertEquals("content", get().getDocument());
+		MockHttpServletResponse response = get();
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals("content", response.getDocument());
+
+		assertNull(server.takeRequest(1, TimeUnit.SECONDS).getHeader("If-None-Match"));
+		RecordedRequest revalidation = server.takeRequest(1, TimeUnit.SECONDS);
+		assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+		assertEquals(1, getResource().getCache().getNotModified());
+		assertEquals(0, getResource().getActiveRequests());
+	}
+
+	@Test
+	public void testNotCacheableResponseIsStreamed() {
+		server.enqueue(new MockResponse().setBody("first").setHeader("Cache-Control", "no-store"));
+		server.enqueue(new MockResponse().setBody("second").setHeader("Cache-Control", "no-store"));
+
+		assertEquals("first", get().getDocument());
+		assertEquals("second", get().getDocument());
+		assertEquals(2, server.getRequestCount());
+		assertEquals(0, getResource().getCache().getMemoryEntries());
+		assertEquals(0, getResource().getActiveRequests());
+	}
+
+	private MockHttpServletResponse get() {
+		tester.executeUrl(MOUNT_PATH.substring(1)+"/data");
+		return tester.getLastResponse();
+	}
+
+	private ORProxyResource getResource() {
+		for (ORProxyResource resource : ORProxyResource.getMountedResources()) {
+			if(resource.getName().equals(endPoint.getName())) return resource;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,29 @@
+package org.orienteer.rproxy;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TestORProxyTemplate {
+	
+	@Test
+	public void testConstant() {
+		ORProxyTemplate template = ORProxyTemplate.compile("http://example.com/api");
+		assertTrue(template.isConstant());
+		assertEquals("http://example.com/api", template.render(v -> "ignored"));
+		assertNull(ORProxyTemplate.compile(null));
+	}
+	
+	@Test
+	public void testRender() {
+		Map<String, String> values = new HashMap<>();
+		values.put("host", "example.com");
+		values.put("0", "users");
+		ORProxyTemplate template = ORProxyTemplate.compile("http://${host}/${0}/${missing}?${unclosed");
+		assertFalse(template.isConstant());
+		assertEquals("http://example.com/users/${missing}?${unclosed", template.render(values::get));
+	}
+}
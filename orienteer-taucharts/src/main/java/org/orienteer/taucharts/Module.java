@@ -21,7 +21,7 @@ import com.orientechnologies.orient.core.metadata.schema.OType;
 public class Module extends AbstractOrienteerModule{
 
 	protected Module() {
-		super("taucharts", 4, OWidgetsModule.NAME);
+		super("taucharts", 5, OWidgetsModule.NAME);
 	}
 	
 	@Override
@@ -42,6 +42,7 @@ public class Module extends AbstractOrienteerModule{
 	public void onInitialize(OrienteerWebApplication app, ODatabaseSession db) {
 		super.onInitialize(app, db);
 		app.mountPages("org.orienteer.taucharts.web");
+		app.mountPackage("org.orienteer.taucharts.resource");
 		app.registerWidgets("org.orienteer.taucharts.component.widget");
 	}
 	
@@ -49,6 +50,7 @@ public class Module extends AbstractOrienteerModule{
 	public void onDestroy(OrienteerWebApplication app, ODatabaseSession db) {
 		super.onDestroy(app, db);
 		app.unmountPages("org.orienteer.taucharts.web");
+		app.unmountPackage("org.orienteer.taucharts.resource");
 		app.unregisterWidgets("org.orienteer.taucharts.component.widget");
 	}
 	
@@ -74,7 +76,10 @@ public class Module extends AbstractOrienteerModule{
 			.oProperty(AbstractTauchartsWidget.COLOR_PROPERTY_NAME, OType.STRING, 140)
 			.oProperty(AbstractTauchartsWidget.PLUGINS_PROPERTY_NAME, OType.LINKSET, 150).linkedClass(AbstractTauchartsWidget.PLUGINS_OCLASS).assignVisualization("listbox")
 			.oProperty(AbstractTauchartsWidget.USING_REST_PROPERTY_NAME, OType.BOOLEAN, 160).defaultValue("true")
-			.oProperty(AbstractTauchartsWidget.CONFIG_PROPERTY_NAME, OType.STRING, 170).assignVisualization("javascript");
+			.oProperty(AbstractTauchartsWidget.CONFIG_PROPERTY_NAME, OType.STRING, 170).assignVisualization("javascript")
+			.oProperty(AbstractTauchartsWidget.AGGREGATION_PROPERTY_NAME, OType.STRING, 180)
+			.oProperty(AbstractTauchartsWidget.MAX_POINTS_PROPERTY_NAME, OType.INTEGER, 190)
+			.oProperty(AbstractTauchartsWidget.DOWNSAMPLING_PROPERTY_NAME, OType.STRING, 200);
 		
 		makeData(db);
 	}
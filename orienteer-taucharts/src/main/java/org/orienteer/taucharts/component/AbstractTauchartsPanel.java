@@ -2,7 +2,6 @@ package org.orienteer.taucharts.component;
 
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.wicket.markup.ComponentTag;
@@ -12,20 +11,24 @@ import org.apache.wicket.markup.head.JavaScriptReferenceHeaderItem;
 import org.apache.wicket.markup.head.OnDomReadyHeaderItem;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.model.IModel;
-import org.apache.wicket.util.encoding.UrlEncoder;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.template.PackageTextTemplate;
 import org.apache.wicket.util.template.TextTemplate;
 import org.orienteer.core.util.CommonUtils;
+import org.orienteer.taucharts.resource.TauchartsDataQuery;
+import org.orienteer.taucharts.resource.TauchartsDataQuery.Aggregation;
+import org.orienteer.taucharts.resource.TauchartsDataQuery.Downsampling;
+import org.orienteer.taucharts.resource.TauchartsDataResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
 import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
 import de.agilecoders.wicket.webjars.request.resource.WebjarsCssResourceReference;
 import de.agilecoders.wicket.webjars.request.resource.WebjarsJavaScriptResourceReference;
+import ru.ydn.wicket.wicketorientdb.OrientDbWebSession;
 import ru.ydn.wicket.wicketorientdb.model.ODocumentWrapperModel;
 
 /**
@@ -73,24 +76,65 @@ public abstract class AbstractTauchartsPanel extends Panel{
 	
 	protected abstract String getDefaultSql();
 	
+	/**
+	 * Create query for chart data
+	 * @param config config of a chart
+	 * @return query for chart data
+	 */
+	protected TauchartsDataQuery newDataQuery(TauchartsConfig config) {
+		TauchartsDataQuery query = new TauchartsDataQuery(getSql());
+		query.setX(config.getX());
+		query.setY(config.getY());
+		query.setColor(config.getColorBy());
+		query.setAggregation(Aggregation.parse(config.getAggregation()));
+		query.setMaxPoints(config.getMaxPoints());
+		query.setDownsampling(Downsampling.parse(config.getDownsampling()));
+		return query;
+	}
+	
+	/**
+	 * Version of data of a chart: data is loaded again once version is changed
+	 * @return version of data
+	 */
+	protected String getDataVersion() {
+		ODocument doc = (ODocument)getDefaultModelObject();
+		int configVersion = configModel.getObject().getDocument().getVersion();
+		return doc!=null?configVersion+"."+doc.getVersion():Integer.toString(configVersion);
+	}
+	
+	protected JSONObject newChartConfig(TauchartsConfig config) {
+		JSONObject guide = new JSONObject();
+		guide.put("x", new JSONObject().put("label", config.getxLabel().getObject()));
+		guide.put("y", new JSONObject().put("label", config.getyLabel().getObject()));
+		JSONObject ret = new JSONObject();
+		ret.put("guide", guide);
+		ret.put("type", config.getType());
+		ret.put("x", new JSONArray(config.getX()));
+		ret.put("y", new JSONArray(config.getY()));
+		if(!Strings.isEmpty(config.getColorBy())) ret.put("color", config.getColorBy());
+		return ret;
+	}
+	
+	private static String toJavaScript(Object json) {
+		//JSON is valid JavaScript, but closing script tag should not be present within inline script
+		return json.toString().replace("</", "<\\/");
+	}
+	
 	@Override
 	public void renderHead(IHeaderResponse response) {
 	  response.render(JavaScriptReferenceHeaderItem.forReference(D3_JS));
 	  response.render(JavaScriptReferenceHeaderItem.forReference(TAUCHARTS_JS));
 	  response.render(CssReferenceHeaderItem.forReference(TAUCHARTS_CSS));
 	  
-		String jsonData=null;
-		String restUrl=null;
 		TauchartsConfig config = configModel.getObject();
+		TauchartsDataQuery query = newDataQuery(config);
+		String restUrl=null;
+		String jsonData=null;
 		if (config.isUsingRest()){
-			restUrl = "/orientdb/query/db/sql/"+UrlEncoder.PATH_INSTANCE.encode(getSql(), "UTF-8")+"/-1?rnd="+Math.random();
+			restUrl = TauchartsDataResource.urlFor(query, getDataVersion()).toString();
 		}else{
-			List<ODocument> testData = new OSQLSynchQuery<ODocument>(getSql()).run(getDefaultModelObject()!=null?((ODocument)getDefaultModelObject()).toMap():null) ;
-			jsonData = "[";
-			for ( ODocument object : testData) {
-				jsonData+=object.toJSON()+",";	
-			}
-			jsonData+="]";
+			ODocument doc = (ODocument)getDefaultModelObject();
+			jsonData = query.execute(OrientDbWebSession.get().getDatabase(), doc!=null?doc.toMap():null);
 		}
 
 	  	TextTemplate template = new PackageTextTemplate(AbstractTauchartsPanel.class, "taucharts.tmpl.js");
@@ -99,24 +143,12 @@ public abstract class AbstractTauchartsPanel extends Panel{
 		
 		params.put("rest", config.isUsingRest());
 		params.put("data",CommonUtils.escapeAndWrapAsJavaScriptString(jsonData));
-		params.put("url",restUrl);
+		params.put("url",CommonUtils.escapeStringForJSON(restUrl));
 		String postProcess = config.getDataPostProcessing();
 		params.put("postProcess", Strings.isEmpty(postProcess)?"return data;":postProcess);
-		
-
-		params.put("type", CommonUtils.escapeStringForJSON(config.getType()));
-		params.put("x", new JSONArray(config.getX()).toString());
-		params.put("xLabel", CommonUtils.escapeStringForJSON(config.getxLabel().getObject()));
-		params.put("y", new JSONArray(config.getY()).toString());
-		params.put("yLabel", CommonUtils.escapeStringForJSON(config.getyLabel().getObject()));
-		params.put("colorBy", CommonUtils.escapeStringForJSON(config.getColorBy()));
+		params.put("chartConfig", toJavaScript(newChartConfig(config)));
+		params.put("plugins", toJavaScript(new JSONArray(config.getPlugins())));
 		params.put("config", CommonUtils.escapeStringForJSON(config.getConfig()));
-		String pluginStr ="[";
-		for ( String object : config.getPlugins()) {
-			pluginStr+="tauCharts.api.plugins.get('"+object+"')(),";	
-		}	
-		pluginStr+="]";
-		params.put("plugins", pluginStr);
 		template.interpolate(params);
 		response.render(OnDomReadyHeaderItem.forScript(template.asString()));
 		try {
@@ -96,4 +96,16 @@ public class TauchartsConfig extends ODocumentWrapper{
 	public String getConfig() {
 		return document.field(AbstractTauchartsWidget.CONFIG_PROPERTY_NAME);
 	}
-}
+	
+	public String getAggregation() {
+		return document.field(AbstractTauchartsWidget.AGGREGATION_PROPERTY_NAME);
+	}
+	
+	public int getMaxPoints() {
+		return CommonUtils.defaultIfNull(document.field(AbstractTauchartsWidget.MAX_POINTS_PROPERTY_NAME), 0);
+	}
+	
+	public String getDownsampling() {
+		return document.field(AbstractTauchartsWidget.DOWNSAMPLING_PROPERTY_NAME);
+	}
+}
\ No newline at end of file
@@ -33,6 +33,9 @@ public abstract class AbstractTauchartsWidget<T> extends AbstractWidget<T> {
 	public static final String DATA_POST_PROCESSING_PROPERTY_NAME = "chartDataPostProcessing";
 	public static final String CONFIG_PROPERTY_NAME = "chartConfiguration";
 	public static final String USING_REST_PROPERTY_NAME = "chartUsingRest";
+	public static final String AGGREGATION_PROPERTY_NAME = "chartAggregation";
+	public static final String MAX_POINTS_PROPERTY_NAME = "chartMaxPoints";
+	public static final String DOWNSAMPLING_PROPERTY_NAME = "chartDownsampling";
 	
 	public static final String TYPE_OCLASS = "TauchartsType";
 	
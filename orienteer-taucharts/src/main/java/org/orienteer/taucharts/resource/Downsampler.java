@@ -0,0 +1,78 @@
+package org.orienteer.taucharts.resource;
+
+/**
+ * Algorithms to reduce number of points of a time series.
+ * Both algorithms expect points to be sorted by x and return indexes of points in ascending order
+ */
+public final class Downsampler {
+
+	private Downsampler() {
+	}
+
+	/**
+	 * Largest-Triangle-Three-Buckets: select points which preserve visual shape of a series.
+	 * First and last points are always selected
+	 * @param x x coordinates of points sorted in ascending order
+	 * @param y y coordinates of points
+	 * @param threshold required number of points
+	 * @return indexes of selected points
+	 */
+	public static int[] lttb(double[] x, double[] y, int threshold) {
+		int size = x.length;
+		if(threshold>=size || threshold<3) {
+			int[] ret = new int[size];
+			for(int i=0; i<size; i++) ret[i] = i;
+			return ret;
+		}
+		int[] ret = new int[threshold];
+		double every = (double)(size - 2) / (threshold - 2);
+		int a = 0;
+		ret[0] = a;
+		for(int i=0; i<threshold-2; i++) {
+			//Average point of the next bucket
+			int avgStart = (int)Math.floor((i + 1) * every) + 1;
+			int avgEnd = Math.min((int)Math.floor((i + 2) * every) + 1, size);
+			double avgX = 0;
+			double avgY = 0;
+			for(int j=avgStart; j<avgEnd; j++) {
+				avgX += x[j];
+				avgY += y[j];
+			}
+			int avgLength = avgEnd - avgStart;
+			avgX /= avgLength;
+			avgY /= avgLength;
+
+			//Point of the current bucket which forms the largest triangle
+			int rangeStart = (int)Math.floor(i * every) + 1;
+			int rangeEnd = (int)Math.floor((i + 1) * every) + 1;
+			double maxArea = -1;
+			int next = rangeStart;
+			for(int j=rangeStart; j<rangeEnd; j++) {
+				double area = Math.abs((x[a] - avgX) * (y[j] - y[a]) - (x[a] - x[j]) * (avgY - y[a]));
+				if(area>maxArea) {
+					maxArea = area;
+					next = j;
+				}
+			}
+			ret[i+1] = next;
+			a = next;
+		}
+		ret[threshold-1] = size-1;
+		return ret;
+	}
+
+	/**
+	 * Split points into buckets of (almost) equal size
+	 * @param size number of points
+	 * @param threshold required number of buckets
+	 * @return start indexes of buckets followed by size: bucket i is [ret[i], ret[i+1])
+	 */
+	public static int[] buckets(int size, int threshold) {
+		int count = Math.max(1, Math.min(size, threshold));
+		int[] ret = new int[count+1];
+		for(int i=0; i<=count; i++) {
+			ret[i] = (int)((long)size * i / count);
+		}
+		return ret;
+	}
+}
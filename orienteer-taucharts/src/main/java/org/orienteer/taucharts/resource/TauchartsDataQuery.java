@@ -0,0 +1,468 @@
+package org.orienteer.taucharts.resource;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.string.StringValue;
+import org.apache.wicket.util.string.Strings;
+
+import com.github.openjson.JSONObject;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.executor.OResult;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import com.orientechnologies.orient.core.util.ODateHelper;
+
+/**
+ * Query for chart data: SQL and x/y/color dimensions of a chart with optional reduction of data.
+ * Records are read from {@link OResultSet} one by one: if aggregation is required, only groups are kept in memory.
+ * Result is written in columnar format: {"size":..., "total":..., "columns":[...], "data":[[values of column 1], ...]}
+ */
+public class TauchartsDataQuery implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Aggregation of y values per combination of x and color values
+	 */
+	public enum Aggregation {
+		NONE, COUNT, SUM, AVERAGE, MIN, MAX;
+
+		public static Aggregation parse(String value) {
+			if(Strings.isEmpty(value)) return NONE;
+			try {
+				return valueOf(value.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				return NONE;
+			}
+		}
+	}
+
+	/**
+	 * Algorithm to reduce number of points of a series
+	 */
+	public enum Downsampling {
+		/**
+		 * Largest-Triangle-Three-Buckets: keeps peaks and shape of a series
+		 */
+		LTTB,
+		/**
+		 * Average of x and numeric y values per bucket
+		 */
+		AVERAGE;
+
+		public static Downsampling parse(String value) {
+			if(Strings.isEmpty(value)) return LTTB;
+			try {
+				return valueOf(value.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				return LTTB;
+			}
+		}
+	}
+
+	private String sql;
+	private List<String> x = new ArrayList<>();
+	private List<String> y = new ArrayList<>();
+	private String color;
+	private Aggregation aggregation = Aggregation.NONE;
+	private int maxPoints = 0;
+	private Downsampling downsampling = Downsampling.LTTB;
+
+	public TauchartsDataQuery(String sql) {
+		this.sql = sql;
+	}
+
+	public static TauchartsDataQuery fromParameters(PageParameters params) {
+		String sql = params.get("sql").toOptionalString();
+		if(Strings.isEmpty(sql)) return null;
+		TauchartsDataQuery query = new TauchartsDataQuery(sql);
+		query.setX(toStrings(params.getValues("x")));
+		query.setY(toStrings(params.getValues("y")));
+		query.setColor(params.get("color").toOptionalString());
+		query.setAggregation(Aggregation.parse(params.get("agg").toOptionalString()));
+		query.setMaxPoints(params.get("points").toInt(0));
+		query.setDownsampling(Downsampling.parse(params.get("ds").toOptionalString()));
+		return query;
+	}
+
+	private static List<String> toStrings(List<StringValue> values) {
+		List<String> ret = new ArrayList<>();
+		for(StringValue value : values) {
+			if(!value.isEmpty()) ret.add(value.toString());
+		}
+		return ret;
+	}
+
+	public PageParameters toParameters() {
+		PageParameters params = new PageParameters();
+		params.add("sql", sql);
+		for(String value : x) params.add("x", value);
+		for(String value : y) params.add("y", value);
+		if(!Strings.isEmpty(color)) params.add("color", color);
+		if(aggregation!=Aggregation.NONE) params.add("agg", aggregation.name().toLowerCase());
+		if(maxPoints>0) {
+			params.add("points", maxPoints);
+			params.add("ds", downsampling.name().toLowerCase());
+		}
+		return params;
+	}
+
+	/**
+	 * @return key which identifies this query and its result
+	 */
+	public String getKey() {
+		return sql+"|"+x+"|"+y+"|"+color+"|"+aggregation+"|"+maxPoints+"|"+downsampling;
+	}
+
+	/**
+	 * Execute query and serialize result
+	 * @param db database to execute query on
+	 * @param args arguments of SQL or null
+	 * @return JSON with columnar data
+	 */
+	public String execute(ODatabaseDocument db, Map<String, ?> args) {
+		StringWriter writer = new StringWriter();
+		try {
+			execute(db, args, writer);
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't serialize chart data", e);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * Execute query and write result directly to a writer without intermediate serialization
+	 * @param db database to execute query on
+	 * @param args arguments of SQL or null
+	 * @param writer writer for JSON with columnar data
+	 * @throws IOException if result can't be written
+	 */
+	public void execute(ODatabaseDocument db, Map<String, ?> args, Writer writer) throws IOException {
+		Columns columns;
+		int total;
+		try(OResultSet rs = args!=null?db.query(sql, args):db.query(sql)) {
+			if(aggregation==Aggregation.NONE || y.isEmpty()) {
+				columns = new Columns();
+				while(rs.hasNext()) {
+					OResult result = rs.next();
+					for(String name : result.getPropertyNames()) {
+						if(!name.startsWith("@")) columns.put(name, result.getProperty(name));
+					}
+					columns.nextRow();
+				}
+				total = columns.size();
+			} else {
+				Aggregator aggregator = new Aggregator();
+				while(rs.hasNext()) aggregator.add(rs.next());
+				columns = aggregator.toColumns();
+				total = aggregator.getRows();
+			}
+		}
+		if(maxPoints>0) columns = downsample(columns);
+		columns.writeJson(total, writer);
+	}
+
+	/**
+	 * Downsample every series (records with the same color) independently by the first x and y dimensions
+	 * @param columns data to downsample
+	 * @return downsampled data or the same data if x is not numeric or time
+	 */
+	protected Columns downsample(Columns columns) {
+		if(x.isEmpty() || y.isEmpty() || columns.size()<=maxPoints) return columns;
+		List<Object> xValues = columns.get(x.get(0));
+		List<Object> yValues = columns.get(y.get(0));
+		if(xValues==null || yValues==null) return columns;
+		double[] xs = new double[columns.size()];
+		for(int i=0; i<xs.length; i++) {
+			Double value = toDouble(xValues.get(i));
+			if(value==null) return columns;
+			xs[i] = value;
+		}
+		Map<Object, List<Integer>> series = new LinkedHashMap<>();
+		List<Object> colorValues = color!=null?columns.get(color):null;
+		for(int i=0; i<xs.length; i++) {
+			Object key = colorValues!=null?colorValues.get(i):null;
+			series.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+		}
+		int threshold = Math.max(3, maxPoints / series.size());
+		Columns ret = new Columns();
+		for(List<Integer> indexes : series.values()) {
+			indexes.sort((a, b) -> Double.compare(xs[a], xs[b]));
+			if(indexes.size()<=threshold) {
+				for(Integer index : indexes) ret.copyRow(columns, index);
+			} else if(downsampling==Downsampling.LTTB) {
+				double[] sx = new double[indexes.size()];
+				double[] sy = new double[indexes.size()];
+				for(int i=0; i<sx.length; i++) {
+					int index = indexes.get(i);
+					sx[i] = xs[index];
+					Double value = toDouble(yValues.get(index));
+					sy[i] = value!=null?value:0;
+				}
+				for(int selected : Downsampler.lttb(sx, sy, threshold)) ret.copyRow(columns, indexes.get(selected));
+			} else {
+				int[] buckets = Downsampler.buckets(indexes.size(), threshold);
+				for(int i=0; i<buckets.length-1; i++) {
+					ret.averageRows(columns, indexes.subList(buckets[i], buckets[i+1]), x.get(0), xs);
+				}
+			}
+		}
+		return ret;
+	}
+
+	static Double toDouble(Object value) {
+		if(value instanceof Number) return ((Number)value).doubleValue();
+		else if(value instanceof Date) return (double)((Date)value).getTime();
+		else return null;
+	}
+
+	/**
+	 * Groups records by x and color values and aggregates y values
+	 */
+	private class Aggregator {
+		private final Map<List<Object>, Accumulator[]> groups = new LinkedHashMap<>();
+		private int rows = 0;
+
+		public void add(OResult result) {
+			List<Object> key = new ArrayList<>(x.size()+1);
+			for(String name : x) key.add(result.getProperty(name));
+			if(color!=null) key.add(result.getProperty(color));
+			Accumulator[] accumulators = groups.computeIfAbsent(key, k -> {
+				Accumulator[] ret = new Accumulator[y.size()];
+				for(int i=0; i<ret.length; i++) ret[i] = new Accumulator();
+				return ret;
+			});
+			for(int i=0; i<accumulators.length; i++) accumulators[i].add(result.getProperty(y.get(i)));
+			rows++;
+		}
+
+		public int getRows() {
+			return rows;
+		}
+
+		public Columns toColumns() {
+			Columns columns = new Columns();
+			for(Map.Entry<List<Object>, Accumulator[]> entry : groups.entrySet()) {
+				List<Object> key = entry.getKey();
+				for(int i=0; i<x.size(); i++) columns.put(x.get(i), key.get(i));
+				if(color!=null) columns.put(color, key.get(x.size()));
+				Accumulator[] accumulators = entry.getValue();
+				for(int i=0; i<accumulators.length; i++) columns.put(y.get(i), accumulators[i].get(aggregation));
+				columns.nextRow();
+			}
+			return columns;
+		}
+	}
+
+	/**
+	 * Accumulator of numeric values
+	 */
+	private static class Accumulator {
+		private long count = 0;
+		private long numbers = 0;
+		private double sum = 0;
+		private double min = Double.POSITIVE_INFINITY;
+		private double max = Double.NEGATIVE_INFINITY;
+
+		public void add(Object value) {
+			if(value==null) return;
+			count++;
+			if(value instanceof Number) {
+				double number = ((Number)value).doubleValue();
+				numbers++;
+				sum += number;
+				min = Math.min(min, number);
+				max = Math.max(max, number);
+			}
+		}
+
+		public Object get(Aggregation aggregation) {
+			switch (aggregation) {
+				case COUNT:
+					return count;
+				case SUM:
+					return sum;
+				case AVERAGE:
+					return numbers>0?sum/numbers:null;
+				case MIN:
+					return numbers>0?min:null;
+				case MAX:
+					return numbers>0?max:null;
+				default:
+					return null;
+			}
+		}
+	}
+
+	/**
+	 * Columnar representation of records
+	 */
+	static class Columns {
+		private final Map<String, List<Object>> columns = new LinkedHashMap<>();
+		private int size = 0;
+
+		public void put(String column, Object value) {
+			List<Object> values = columns.computeIfAbsent(column, k -> new ArrayList<>());
+			while(values.size()<size) values.add(null);
+			values.add(value);
+		}
+
+		public void nextRow() {
+			size++;
+			for(List<Object> values : columns.values()) {
+				while(values.size()<size) values.add(null);
+			}
+		}
+
+		public List<Object> get(String column) {
+			return columns.get(column);
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public void copyRow(Columns source, int index) {
+			for(Map.Entry<String, List<Object>> entry : source.columns.entrySet()) {
+				put(entry.getKey(), entry.getValue().get(index));
+			}
+			nextRow();
+		}
+
+		public void averageRows(Columns source, List<Integer> indexes, String xColumn, double[] xs) {
+			for(Map.Entry<String, List<Object>> entry : source.columns.entrySet()) {
+				List<Object> values = entry.getValue();
+				Object first = values.get(indexes.get(0));
+				if(entry.getKey().equals(xColumn)) {
+					double sum = 0;
+					for(Integer index : indexes) sum += xs[index];
+					double avg = sum / indexes.size();
+					put(xColumn, first instanceof Date?new Date(Math.round(avg)):(Object)avg);
+				} else if(first instanceof Number) {
+					double sum = 0;
+					int count = 0;
+					for(Integer index : indexes) {
+						Object value = values.get(index);
+						if(value instanceof Number) {
+							sum += ((Number)value).doubleValue();
+							count++;
+						}
+					}
+					put(entry.getKey(), sum/count);
+				} else {
+					put(entry.getKey(), first);
+				}
+			}
+			nextRow();
+		}
+
+		public void writeJson(int total, Writer writer) throws IOException {
+			writer.write("{\"size\":");
+			writer.write(Integer.toString(size));
+			writer.write(",\"total\":");
+			writer.write(Integer.toString(total));
+			writer.write(",\"columns\":[");
+			boolean first = true;
+			for(String column : columns.keySet()) {
+				if(!first) writer.write(',');
+				writer.write(JSONObject.quote(column));
+				first = false;
+			}
+			writer.write("],\"data\":[");
+			first = true;
+			for(List<Object> values : columns.values()) {
+				writer.write(first?"[":",[");
+				for(int i=0; i<size; i++) {
+					if(i>0) writer.write(',');
+					writeJsonValue(toJsonValue(i<values.size()?values.get(i):null), writer);
+				}
+				writer.write(']');
+				first = false;
+			}
+			writer.write("]}");
+		}
+
+		private static void writeJsonValue(Object value, Writer writer) throws IOException {
+			if(value==null) writer.write("null");
+			else if(value instanceof Number) writer.write(JSONObject.numberToString((Number)value));
+			else if(value instanceof Boolean) writer.write(value.toString());
+			else writer.write(JSONObject.quote(value.toString()));
+		}
+
+		private static Object toJsonValue(Object value) {
+			if(value==null) return null;
+			else if(value instanceof Double || value instanceof Float) {
+				double number = ((Number)value).doubleValue();
+				if(Double.isNaN(number) || Double.isInfinite(number)) return null;
+				else if(number==Math.rint(number) && Math.abs(number)<1e15) return (long)number;
+				else return number;
+			}
+			else if(value instanceof Number || value instanceof Boolean || value instanceof String) return value;
+			else if(value instanceof Date) return ODateHelper.getDateTimeFormatInstance().format((Date)value);
+			else if(value instanceof OIdentifiable) return ((OIdentifiable)value).getIdentity().toString();
+			else return value.toString();
+		}
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public List<String> getX() {
+		return x;
+	}
+
+	public void setX(Collection<String> x) {
+		this.x = x!=null?new ArrayList<>(x):new ArrayList<>();
+	}
+
+	public List<String> getY() {
+		return y;
+	}
+
+	public void setY(Collection<String> y) {
+		this.y = y!=null?new ArrayList<>(y):new ArrayList<>();
+	}
+
+	public String getColor() {
+		return color;
+	}
+
+	public void setColor(String color) {
+		this.color = Strings.isEmpty(color)?null:color;
+	}
+
+	public Aggregation getAggregation() {
+		return aggregation;
+	}
+
+	public void setAggregation(Aggregation aggregation) {
+		this.aggregation = aggregation!=null?aggregation:Aggregation.NONE;
+	}
+
+	public int getMaxPoints() {
+		return maxPoints;
+	}
+
+	public void setMaxPoints(int maxPoints) {
+		this.maxPoints = Math.max(0, maxPoints);
+	}
+
+	public Downsampling getDownsampling() {
+		return downsampling;
+	}
+
+	public void setDownsampling(Downsampling downsampling) {
+		this.downsampling = downsampling!=null?downsampling:Downsampling.LTTB;
+	}
+}
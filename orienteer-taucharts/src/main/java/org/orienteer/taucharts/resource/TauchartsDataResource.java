@@ -0,0 +1,59 @@
+package org.orienteer.taucharts.resource;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.SharedResourceReference;
+import org.orienteer.core.MountPath;
+import org.orienteer.core.resource.AbstractQueryDataResource;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+
+/**
+ * Resource to provide data for charts: see {@link TauchartsDataQuery} for supported parameters.
+ * ETag is calculated from the query and versions of queried classes and of a chart configuration:
+ * see {@link AbstractQueryDataResource}. So unchanged data is answered by 304 without execution of the query,
+ * otherwise {@link OResultSet} is read within write callback and result is written directly to the response.
+ * Parameters:
+ * sql - query to select records
+ * x, y, color (optional) - dimensions of a chart
+ * agg (optional) - aggregation of y values: count, sum, average, min, max
+ * points (optional) - maximal number of points to return
+ * ds (optional) - algorithm to reduce number of points: lttb or average
+ * v (optional) - version of chart configuration and of a linked document
+ */
+@MountPath("/taucharts/data")
+public class TauchartsDataResource extends AbstractQueryDataResource {
+
+	private static final long serialVersionUID = 1L;
+
+	public static SharedResourceReference getSharedResourceReference() {
+		return new SharedResourceReference(TauchartsDataResource.class.getName());
+	}
+
+	/**
+	 * Generate URL to load data for a chart
+	 * @param query query for chart data
+	 * @param version version of chart configuration
+	 * @return URL of data for a chart
+	 */
+	public static CharSequence urlFor(TauchartsDataQuery query, Object version) {
+		PageParameters params = query.toParameters();
+		if(version!=null) params.add(VERSION_PARAMETER, version);
+		return RequestCycle.get().urlFor(getSharedResourceReference(), params);
+	}
+
+	@Override
+	protected String getDataKey(PageParameters params) {
+		TauchartsDataQuery query = TauchartsDataQuery.fromParameters(params);
+		return query!=null?query.getKey():null;
+	}
+
+	@Override
+	protected void writeData(ODatabaseDocument db, PageParameters params, Writer writer) throws IOException {
+		TauchartsDataQuery.fromParameters(params).execute(db, null, writer);
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * Resources to provide data for charts
+ */
+package org.orienteer.taucharts.resource;
\ No newline at end of file
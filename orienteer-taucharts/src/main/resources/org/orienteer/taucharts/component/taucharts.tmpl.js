@@ -3,28 +3,27 @@
 		${postProcess}
 	}
 	
+	//Convert columnar data into list of records
+	function toRecords(data) {
+		var records = [];
+		for(var i=0; i<data.size; i++) {
+			var record = {};
+			for(var j=0; j<data.columns.length; j++) {
+				if(data.data[j][i]!==null) record[data.columns[j]] = data.data[j][i];
+			}
+			records.push(record);
+		}
+		return records;
+	}
+	
 	function renderData(data) {
 		var postProcessed = postProcess(data);
 		if(postProcessed) data = postProcessed;
-		for (var row in data) {
-			for (var col in data[row]) {
-				if (col.match('@')){
-					delete data[row][col];
-				}
-			}
-		}
-		var config = {
-	        guide: {
-	            x: {label:"${xLabel}"},  
-	            y: {label:"${yLabel}"},   
-	          },
-			data: data,
-		    type: "${type}",
-		    x: ${x},
-		    y: ${y},
-		    color: "${colorBy}", 
-		    plugins:${plugins}   
-		};
+		var config = ${chartConfig};
+		config.data = data;
+		config.plugins = ${plugins}.map(function(plugin) {
+			return tauCharts.api.plugins.get(plugin)();
+		});
 		var addConfig = eval("${config}");
 		
 		if(Object.assign && (typeof addConfig == "object")) config = Object.assign(config, addConfig);
@@ -38,9 +37,9 @@
 	if(rest) {
 		var restUrl = "${url}";
 		$.getJSON( restUrl, function( data ) {
-				renderData(data.result);
+				renderData(toRecords(data));
 			});
 	} else {
-		renderData(eval(${data}));
+		renderData(toRecords(JSON.parse(${data})));
 	}
 }();
\ No newline at end of file
@@ -0,0 +1,46 @@
+package org.orienteer.taucharts;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.orienteer.taucharts.resource.Downsampler;
+
+public class TestDownsampler
+{
+	@Test
+	public void testLttbKeepsEdgesAndPeaks()
+	{
+		int size = 1000;
+		double[] x = new double[size];
+		double[] y = new double[size];
+		for(int i=0; i<size; i++) {
+			x[i] = i;
+			y[i] = Math.sin(i / 50.0);
+		}
+		y[500] = 10;
+		int[] selected = Downsampler.lttb(x, y, 50);
+		assertEquals(50, selected.length);
+		assertEquals(0, selected[0]);
+		assertEquals(size-1, selected[49]);
+		boolean peak = false;
+		for(int i=0; i<selected.length; i++) {
+			if(i>0) assertTrue(selected[i]>selected[i-1]);
+			if(selected[i]==500) peak = true;
+		}
+		assertTrue(peak);
+	}
+
+	@Test
+	public void testLttbSmallSeries()
+	{
+		int[] selected = Downsampler.lttb(new double[]{1, 2, 3}, new double[]{1, 2, 3}, 10);
+		assertArrayEquals(new int[]{0, 1, 2}, selected);
+	}
+
+	@Test
+	public void testBuckets()
+	{
+		assertArrayEquals(new int[]{0, 3, 6, 10}, Downsampler.buckets(10, 3));
+		assertArrayEquals(new int[]{0, 1, 2}, Downsampler.buckets(2, 5));
+	}
+}